@@ -0,0 +1,73 @@
+package com.vimalselvam.cucumber.listener;
+
+import com.aventstack.extentreports.ExtentReports;
+import com.aventstack.extentreports.reporter.ExtentHtmlReporter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the total cost of {@link ExtentCucumberFormatter#done()}, that is draining the pending events
+ * and writing the html report, for a run of the given number of feature files
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DoneBenchmark {
+    @Param({"TINY_SCENARIOS", "WIDE_OUTLINE", "BIG_TABLES"})
+    public SyntheticFeature.Shape shape;
+
+    @Param({"10", "100"})
+    public int features;
+
+    @Param({"false", "true"})
+    public boolean async;
+
+    private File reportFile;
+    private EventDispatcher dispatcher;
+    private ExtentCucumberFormatter formatter;
+
+    @Setup(Level.Trial)
+    public void createReportFile() throws IOException {
+        reportFile = Files.createTempDirectory("extent-benchmark").resolve("report.html").toFile();
+    }
+
+    @Setup(Level.Iteration)
+    public void runFeatures() {
+        if (dispatcher instanceof AsyncEventDispatcher) {
+            ((AsyncEventDispatcher) dispatcher).shutdown();
+        }
+        ExtentReports extentReports = new ExtentReports();
+        extentReports.attachReporter(new ExtentHtmlReporter(reportFile));
+        ExtentReportBuilder builder = new ExtentReportBuilder(extentReports);
+        dispatcher = async
+            ? new AsyncEventDispatcher(builder, 8192, BackpressurePolicy.BLOCK)
+            : new SynchronousEventDispatcher(builder);
+        formatter = new ExtentCucumberFormatter(dispatcher);
+        for (int i = 0; i < features; i++) {
+            new SyntheticFeature(shape, i).replay(formatter);
+        }
+    }
+
+    @Benchmark
+    public void done() {
+        formatter.done();
+    }
+}
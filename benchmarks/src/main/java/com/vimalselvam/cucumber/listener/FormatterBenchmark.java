@@ -0,0 +1,96 @@
+package com.vimalselvam.cucumber.listener;
+
+import com.aventstack.extentreports.ExtentReports;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures the cost the formatter adds to a step, from the cucumber thread's point of view. Every
+ * invocation replays a whole feature file of {@link SyntheticFeature#STEPS} steps, and the results are
+ * reported per step, that is per step, match and result callback together with its share of the
+ * feature and scenario callbacks. Run with {@code -prof gc} to get the allocations per step.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FormatterBenchmark {
+    @Param({"TINY_SCENARIOS", "WIDE_OUTLINE", "BIG_TABLES"})
+    public SyntheticFeature.Shape shape;
+
+    @Param({"false", "true"})
+    public boolean async;
+
+    private final AtomicInteger featureIndex = new AtomicInteger();
+    private EventDispatcher dispatcher;
+    private ExtentCucumberFormatter formatter;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        // A fresh report per iteration, so the iterations do not get slower as the report grows
+        ExtentReportBuilder builder = new ExtentReportBuilder(new ExtentReports());
+        dispatcher = async
+            ? new AsyncEventDispatcher(builder, 8192, BackpressurePolicy.BLOCK)
+            : new SynchronousEventDispatcher(builder);
+        formatter = new ExtentCucumberFormatter(dispatcher);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        if (dispatcher instanceof AsyncEventDispatcher) {
+            ((AsyncEventDispatcher) dispatcher).shutdown();
+        }
+    }
+
+    /**
+     * The feature file replayed by a benchmark thread
+     */
+    @State(Scope.Thread)
+    public static class Feed {
+        SyntheticFeature feature;
+
+        @Setup(Level.Trial)
+        public void setUp(FormatterBenchmark benchmark) {
+            feature = new SyntheticFeature(benchmark.shape, benchmark.featureIndex.incrementAndGet());
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    @OperationsPerInvocation(SyntheticFeature.STEPS)
+    public void oneThread(Feed feed) {
+        feed.feature.replay(formatter);
+    }
+
+    @Benchmark
+    @Threads(4)
+    @OperationsPerInvocation(SyntheticFeature.STEPS)
+    public void fourThreads(Feed feed) {
+        feed.feature.replay(formatter);
+    }
+
+    @Benchmark
+    @Threads(16)
+    @OperationsPerInvocation(SyntheticFeature.STEPS)
+    public void sixteenThreads(Feed feed) {
+        feed.feature.replay(formatter);
+    }
+}
@@ -0,0 +1,86 @@
+package com.vimalselvam.cucumber.listener;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of appending an event to the {@link EventJournal}, from the reporting thread's point of
+ * view. Every invocation appends a feature of {@link #STEPS} steps, each with a log line, and the results are
+ * reported per event. The journal is forced to disk every second by its background thread, as it is by
+ * default.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JournalBenchmark {
+    static final int STEPS = 20;
+    /**
+     * Feature started, scenario started, a step started and a log per step, feature finished
+     */
+    static final int EVENTS = 3 + STEPS * 2;
+    private static final List<String> TAGS = Collections.singletonList("@journal");
+
+    private Path directory;
+    private EventJournal journal;
+
+    @Setup(Level.Iteration)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("extent-journal-benchmark");
+        journal = new EventJournal(directory.resolve("report.journal"), EventJournal.DEFAULT_SEGMENT_SIZE, 1000);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws IOException {
+        journal.drain();
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    @Threads(1)
+    @OperationsPerInvocation(EVENTS)
+    public void oneThread() {
+        appendFeature();
+    }
+
+    @Benchmark
+    @Threads(4)
+    @OperationsPerInvocation(EVENTS)
+    public void fourThreads() {
+        appendFeature();
+    }
+
+    private void appendFeature() {
+        ReportNode feature = new ReportNode(null);
+        ReportNode scenario = new ReportNode(feature);
+        journal.dispatch(new ReportEvent.FeatureStarted(feature, "features/journal.feature", "Journal", TAGS));
+        journal.dispatch(new ReportEvent.ScenarioStarted(scenario, "Appending to the journal", TAGS, null));
+        for (int i = 0; i < STEPS; i++) {
+            ReportNode step = new ReportNode(scenario);
+            journal.dispatch(new ReportEvent.StepStarted(step, "Given ", "the step number " + i, null));
+            journal.dispatch(new ReportEvent.Log(step, "A log line of the step"));
+        }
+        journal.dispatch(new ReportEvent.FeatureFinished(feature));
+    }
+}
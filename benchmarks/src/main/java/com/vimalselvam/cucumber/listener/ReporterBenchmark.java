@@ -0,0 +1,92 @@
+package com.vimalselvam.cucumber.listener;
+
+import gherkin.formatter.model.Comment;
+import gherkin.formatter.model.Feature;
+import gherkin.formatter.model.Match;
+import gherkin.formatter.model.Scenario;
+import gherkin.formatter.model.Step;
+import gherkin.formatter.model.Tag;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of logging to a scenario from the helper threads it starts, all of them logging to the
+ * same scenario through its {@link ScenarioHandle}, and of setting system information which is already set.
+ * The results are reported per log line. The events are dispatched synchronously to a handler which ignores
+ * them, so only the cost of the {@link Reporter} and of the dispatching is measured.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReporterBenchmark {
+    static final int BATCH = 16;
+    private static final List<Comment> NO_COMMENTS = Collections.emptyList();
+
+    private EventDispatcher dispatcher;
+    private ScenarioHandle handle;
+    private List<String> batch;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        dispatcher = new SynchronousEventDispatcher(new ReportEventHandler() { });
+        ExtentCucumberFormatter formatter = new ExtentCucumberFormatter(dispatcher);
+        formatter.uri("features/reporter.feature");
+        formatter.feature(new Feature(NO_COMMENTS, Collections.<Tag>emptyList(), "Feature", "Reporter", "", 1,
+            "reporter"));
+        Scenario scenario = new Scenario(NO_COMMENTS, Collections.<Tag>emptyList(), "Scenario", "Logging", "", 2,
+            "logging");
+        formatter.startOfScenarioLifeCycle(scenario);
+        formatter.step(new Step(NO_COMMENTS, "Given ", "helpers log", 3, null, null));
+        formatter.match(new Match(Collections.emptyList(), "Steps.log()"));
+        handle = Reporter.getScenarioHandle();
+        batch = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            batch.add("A log line of a helper thread " + i);
+        }
+        Reporter.setSystemInfo("benchmark", "reporter", dispatcher);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void stepLogOneThread() {
+        Reporter.addStepLog(handle, "A log line of a helper thread");
+    }
+
+    @Benchmark
+    @Threads(16)
+    public void stepLogSixteenThreads() {
+        Reporter.addStepLog(handle, "A log line of a helper thread");
+    }
+
+    @Benchmark
+    @Threads(16)
+    @OperationsPerInvocation(BATCH)
+    public void stepLogsSixteenThreads() {
+        Reporter.addStepLogs(handle, batch);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public void systemInfoSixteenThreads() {
+        Reporter.setSystemInfo("benchmark", "reporter", dispatcher);
+    }
+}
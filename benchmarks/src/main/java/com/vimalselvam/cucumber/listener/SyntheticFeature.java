@@ -0,0 +1,159 @@
+package com.vimalselvam.cucumber.listener;
+
+import gherkin.formatter.Argument;
+import gherkin.formatter.Formatter;
+import gherkin.formatter.Reporter;
+import gherkin.formatter.model.Comment;
+import gherkin.formatter.model.DataTableRow;
+import gherkin.formatter.model.Examples;
+import gherkin.formatter.model.ExamplesTableRow;
+import gherkin.formatter.model.Feature;
+import gherkin.formatter.model.Match;
+import gherkin.formatter.model.Result;
+import gherkin.formatter.model.Scenario;
+import gherkin.formatter.model.ScenarioOutline;
+import gherkin.formatter.model.Step;
+import gherkin.formatter.model.Tag;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A feature file whose gherkin model is built up front, so that replaying it through the formatter only
+ * measures the formatter. Every shape has {@link #STEPS} steps, which lets the benchmarks report their
+ * results per step.
+ */
+public final class SyntheticFeature {
+    public static final int STEPS = 64;
+
+    /**
+     * The shapes of feature files the formatter is benchmarked with
+     */
+    public enum Shape {
+        /**
+         * 32 scenarios with 2 steps each
+         */
+        TINY_SCENARIOS,
+
+        /**
+         * A single scenario outline with one step and 64 examples
+         */
+        WIDE_OUTLINE,
+
+        /**
+         * 8 scenarios with 8 steps each, every step having a 50 x 5 data table
+         */
+        BIG_TABLES
+    }
+
+    private static final List<Comment> NO_COMMENTS = Collections.emptyList();
+    private static final List<Argument> NO_ARGUMENTS = Collections.emptyList();
+    private static final Match MATCH = new Match(NO_ARGUMENTS, "MyStepdefs.step(String)");
+    private static final Result PASSED = new Result(Result.PASSED, 125000L, null);
+
+    private final String uri;
+    private final Feature feature;
+    private final ScenarioOutline scenarioOutline;
+    private final Examples examples;
+    private final List<Step> outlineSteps;
+    private final List<Scenario> scenarios = new ArrayList<>();
+    private final List<List<Step>> scenarioSteps = new ArrayList<>();
+
+    SyntheticFeature(Shape shape, int index) {
+        String name = shape.name().toLowerCase() + "-" + index;
+        this.uri = "features/" + name + ".feature";
+        List<Tag> tags = Arrays.asList(new Tag("@benchmark", 1), new Tag("@" + shape.name().toLowerCase(), 1));
+        this.feature = new Feature(NO_COMMENTS, tags, "Feature", name, "", 2, name);
+
+        switch (shape) {
+            case TINY_SCENARIOS:
+                scenarioOutline = null;
+                examples = null;
+                outlineSteps = null;
+                addScenarios(name + ";scenario-", "Scenario", STEPS / 2, 2, 0);
+                break;
+            case WIDE_OUTLINE:
+                scenarioOutline = new ScenarioOutline(NO_COMMENTS, tags, "Scenario Outline", "outline", "", 3,
+                    name + ";outline");
+                outlineSteps = Collections.singletonList(step("I have <count> cukes in my belly", 0));
+                List<ExamplesTableRow> rows = new ArrayList<>();
+                rows.add(new ExamplesTableRow(NO_COMMENTS, Arrays.asList("count", "name", "expected"), 6,
+                    name + ";outline;examples;1"));
+                for (int i = 0; i < STEPS; i++) {
+                    rows.add(new ExamplesTableRow(NO_COMMENTS, Arrays.asList(String.valueOf(i), "name" + i, "ok"),
+                        7 + i, name + ";outline;examples;" + (i + 2)));
+                }
+                examples = new Examples(NO_COMMENTS, Collections.<Tag>emptyList(), "Examples", "", "", 5,
+                    name + ";outline;examples", rows);
+                // The ids of the expanded examples start with the id of the outline
+                addScenarios(name + ";outline;examples;", "Scenario Outline", STEPS, 1, 0);
+                break;
+            case BIG_TABLES:
+                scenarioOutline = null;
+                examples = null;
+                outlineSteps = null;
+                addScenarios(name + ";scenario-", "Scenario", STEPS / 8, 8, 50);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown shape " + shape);
+        }
+    }
+
+    /**
+     * Replays the whole feature file, from its uri to its eof, through the given formatter
+     * @param formatter The formatter to be fed
+     * @param <T> The formatter type
+     */
+    <T extends Formatter & Reporter> void replay(T formatter) {
+        formatter.uri(uri);
+        formatter.feature(feature);
+        if (scenarioOutline != null) {
+            formatter.scenarioOutline(scenarioOutline);
+            formatter.examples(examples);
+            for (Step step : outlineSteps) {
+                formatter.step(step);
+            }
+        }
+        for (int i = 0; i < scenarios.size(); i++) {
+            Scenario scenario = scenarios.get(i);
+            List<Step> steps = scenarioSteps.get(i);
+            formatter.startOfScenarioLifeCycle(scenario);
+            formatter.scenario(scenario);
+            for (Step step : steps) {
+                formatter.step(step);
+            }
+            for (int j = 0; j < steps.size(); j++) {
+                formatter.match(MATCH);
+                formatter.result(PASSED);
+            }
+            formatter.endOfScenarioLifeCycle(scenario);
+        }
+        formatter.eof();
+    }
+
+    private void addScenarios(String idPrefix, String keyword, int count, int steps, int tableRows) {
+        for (int i = 0; i < count; i++) {
+            scenarios.add(new Scenario(NO_COMMENTS, Collections.<Tag>emptyList(), keyword, "scenario " + i, "",
+                10 + i, idPrefix + (i + 2)));
+            List<Step> list = new ArrayList<>(steps);
+            for (int j = 0; j < steps; j++) {
+                list.add(step("I have " + j + " cukes in my belly", tableRows));
+            }
+            scenarioSteps.add(list);
+        }
+    }
+
+    private static Step step(String name, int tableRows) {
+        List<DataTableRow> rows = null;
+        if (tableRows > 0) {
+            rows = new ArrayList<>(tableRows);
+            for (int i = 0; i < tableRows; i++) {
+                rows.add(new DataTableRow(NO_COMMENTS,
+                    Arrays.asList("user" + i, "password" + i, "role" + i, "region" + i, "expected" + i), 20 + i));
+            }
+        }
+        return new Step(NO_COMMENTS, "Given ", name, 11, rows, null);
+    }
+}
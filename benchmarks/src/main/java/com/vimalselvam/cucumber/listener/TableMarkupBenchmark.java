@@ -0,0 +1,85 @@
+package com.vimalselvam.cucumber.listener;
+
+import com.aventstack.extentreports.markuputils.Markup;
+import com.aventstack.extentreports.markuputils.MarkupHelper;
+import gherkin.formatter.model.Comment;
+import gherkin.formatter.model.DataTableRow;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares rendering a data table through a {@code String[][]} and
+ * {@link MarkupHelper#createTable(String[][])}, as the formatter used to, with {@link TableMarkup}.
+ * Run with {@code -prof gc} to compare the bytes allocated per table.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TableMarkupBenchmark {
+    private static final int COLUMNS = 5;
+
+    @Param({"10", "1000"})
+    public int rows;
+
+    private List<DataTableRow> table;
+
+    @Setup
+    public void createTable() {
+        table = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            List<String> cells = new ArrayList<>(COLUMNS);
+            for (int j = 0; j < COLUMNS; j++) {
+                cells.add("cell " + i + "-" + j);
+            }
+            table.add(new DataTableRow(Collections.<Comment>emptyList(), cells, i + 1));
+        }
+    }
+
+    /**
+     * The way the formatter rendered the data table of a step before {@link TableMarkup}
+     */
+    @Benchmark
+    public Markup matrix() {
+        String[][] data = null;
+        int rowSize = table.size();
+        for (int i = 0; i < rowSize; i++) {
+            DataTableRow dataTableRow = table.get(i);
+            List<String> cells = dataTableRow.getCells();
+            int cellSize = cells.size();
+            if (data == null) {
+                data = new String[rowSize][cellSize];
+            }
+            for (int j = 0; j < cellSize; j++) {
+                data[i][j] = cells.get(j);
+            }
+        }
+        Markup markup = MarkupHelper.createTable(data);
+        // The markup is rendered whenever the report is written, so render it here too
+        markup.getMarkup();
+        return markup;
+    }
+
+    @Benchmark
+    public Markup tableMarkup() {
+        TableMarkup markup = TableMarkup.of(table);
+        markup.getMarkup();
+        return markup;
+    }
+}
@@ -0,0 +1,196 @@
+package com.vimalselvam.cucumber.listener;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Queues the events on a bounded queue which is drained by a single consumer thread, so that building
+ * the report is not charged to the cucumber threads. The consumer thread is stopped at the end of the run
+ * and started again by the next event, if any.
+ */
+final class AsyncEventDispatcher implements EventDispatcher {
+    private final BlockingQueue<ReportEvent> queue;
+    private final BackpressurePolicy backpressurePolicy;
+    private final ReportEventHandler handler;
+    private final AtomicLong discardedEvents = new AtomicLong();
+    private final ReportingMetrics metrics;
+    private final String threadName;
+    private volatile Thread consumer;
+    // Guarded by this, the consumer which was told to stop and may still be handling the last events
+    private Thread stopping;
+
+    AsyncEventDispatcher(ReportEventHandler handler, int queueSize, BackpressurePolicy backpressurePolicy) {
+        this(handler, queueSize, backpressurePolicy, "extent-report-consumer", null);
+    }
+
+    /**
+     * @param handler The handler of the events, only ever called by the consumer thread
+     * @param queueSize The most events waiting for the consumer thread
+     * @param backpressurePolicy What happens when the queue is full
+     * @param threadName The name of the consumer thread
+     * @param metrics The metrics the discarded events are counted in, null for none
+     */
+    AsyncEventDispatcher(ReportEventHandler handler, int queueSize, BackpressurePolicy backpressurePolicy,
+        String threadName, ReportingMetrics metrics) {
+        if (queueSize < 1) {
+            throw new IllegalArgumentException("The async queue size should be at least 1");
+        }
+        this.handler = handler;
+        this.metrics = metrics;
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+        this.backpressurePolicy = backpressurePolicy == null ? BackpressurePolicy.BLOCK : backpressurePolicy;
+        this.threadName = threadName;
+        startConsumer();
+    }
+
+    @Override
+    public void dispatch(ReportEvent event) {
+        if (consumer == null) {
+            startConsumer();
+        }
+        if (backpressurePolicy == BackpressurePolicy.DISCARD && isDiscardable(event)) {
+            if (!queue.offer(event)) {
+                discarded();
+            }
+            return;
+        }
+        try {
+            queue.put(event);
+        } catch (InterruptedException e) {
+            discarded();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Tells whether an event may be dropped when the queue is full. Like the drain barrier, the end of a
+     * feature, the sections added at the end of the run and the flushes are never dropped, otherwise the
+     * report might never be written.
+     */
+    static boolean isDiscardable(ReportEvent event) {
+        return event instanceof ReportEvent.NodeEvent && !(event instanceof ReportEvent.FeatureFinished);
+    }
+
+    private void discarded() {
+        discardedEvents.incrementAndGet();
+        if (metrics != null) {
+            metrics.discarded();
+        }
+    }
+
+    @Override
+    public void drain() {
+        if (consumer == null) {
+            startConsumer();
+        }
+        Barrier barrier = new Barrier();
+        try {
+            // The barrier is never discarded, otherwise we might flush before the queue is empty
+            queue.put(barrier);
+            barrier.latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Waits for the consumer thread to handle the events queued so far, then stops it. It is told to stop
+     * through the queue rather than interrupted, so it is never interrupted halfway through writing the report.
+     */
+    @Override
+    public void shutdown() {
+        Thread stopped;
+        synchronized (this) {
+            stopped = consumer;
+            if (stopped == null) {
+                return;
+            }
+            consumer = null;
+            try {
+                queue.put(new Stop());
+            } catch (InterruptedException e) {
+                consumer = stopped;
+                Thread.currentThread().interrupt();
+                return;
+            }
+            stopping = stopped;
+        }
+        try {
+            stopped.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Gets the number of events which were dropped because the queue was full
+     * @return The number of discarded events
+     */
+    long getDiscardedEventCount() {
+        return discardedEvents.get();
+    }
+
+    /**
+     * Starts a consumer thread, once the one told to stop is done with the events queued before
+     */
+    private synchronized void startConsumer() {
+        if (consumer != null) {
+            return;
+        }
+        if (stopping != null) {
+            try {
+                stopping.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            stopping = null;
+        }
+        Thread thread = new Thread(this::consume, threadName);
+        thread.setDaemon(true);
+        thread.start();
+        consumer = thread;
+    }
+
+    private void consume() {
+        while (true) {
+            ReportEvent event;
+            try {
+                event = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (event instanceof Stop) {
+                try {
+                    handler.close();
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                }
+                return;
+            }
+            try {
+                event.accept(handler);
+            } catch (RuntimeException e) {
+                // A broken node must not stop the rest of the report from being built
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private static final class Stop extends ReportEvent {
+        @Override
+        void accept(ReportEventHandler handler) {
+            // Handled by the consumer loop
+        }
+    }
+
+    private static final class Barrier extends ReportEvent {
+        private final CountDownLatch latch = new CountDownLatch(1);
+
+        @Override
+        void accept(ReportEventHandler handler) {
+            latch.countDown();
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.vimalselvam.cucumber.listener;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stores the files embedded by the steps in an attachments directory next to the report. The bytes are
+ * hashed and written by a pool of worker threads, and identical content is only written once. At most a few
+ * attachments per worker wait for one; past that the embedding thread stores the attachment itself, so the
+ * bytes waiting to be written stay bounded.
+ */
+final class AttachmentStore {
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    /**
+     * The number of attachments which may wait for each worker thread
+     */
+    static final int QUEUED_PER_THREAD = 4;
+
+    private final Path directory;
+    private final String relativeDirectory;
+    private final int maxImageWidth;
+    private final EventDispatcher eventDispatcher;
+    private final ExecutorService executor;
+    private final ConcurrentMap<String, CompletableFuture<String>> storedFiles = new ConcurrentHashMap<>();
+    private final Object pendingLock = new Object();
+    private int pending;
+
+    /**
+     * @param reportDirectory The directory the report is written to
+     * @param threads The number of worker threads
+     * @param maxImageWidth The width images are scaled down to, 0 to keep them as they are
+     * @param eventDispatcher The dispatcher which gets the events linking the stored files to their nodes
+     */
+    AttachmentStore(Path reportDirectory, int threads, int maxImageWidth, EventDispatcher eventDispatcher) {
+        this.relativeDirectory = "attachments";
+        this.directory = reportDirectory.resolve(relativeDirectory);
+        this.maxImageWidth = maxImageWidth;
+        this.eventDispatcher = eventDispatcher;
+        AtomicInteger threadCount = new AtomicInteger();
+        int workers = Math.max(1, threads);
+        this.executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(workers * QUEUED_PER_THREAD), runnable -> {
+                Thread thread = new Thread(runnable, "extent-report-attachments-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Stores the given bytes in the background and then links them to the given node. The link goes through
+     * the context, so it is held back with the events of the scenario if they are held back.
+     * @param context The context of the feature file the attachment belongs to
+     * @param scenario The scenario the attachment belongs to
+     * @param node The node the attachment belongs to, the scenario or one of its steps
+     * @param mimeType The mime type of the attachment
+     * @param data The content of the attachment
+     */
+    void store(ExecutionContext context, ReportNode scenario, ReportNode node, String mimeType, byte[] data) {
+        synchronized (pendingLock) {
+            pending++;
+        }
+        context.attachmentStarted();
+        executor.execute(() -> {
+            try {
+                String path = storeOnce(mimeType, data);
+                ReportEvent event;
+                if (isImage(mimeType)) {
+                    event = new ReportEvent.ScreenCapture(node, path, null, false);
+                } else {
+                    event = new ReportEvent.Log(node,
+                        "<a href='" + Html.escape(path) + "'>Attachment (" + Html.escape(mimeType) + ")</a>");
+                }
+                if (!context.hold(scenario, Collections.singletonList(event))) {
+                    eventDispatcher.dispatch(event);
+                }
+            } catch (RuntimeException e) {
+                // Losing an attachment must not lose the rest of the report
+                e.printStackTrace();
+            } finally {
+                context.attachmentFinished();
+                synchronized (pendingLock) {
+                    pending--;
+                    pendingLock.notifyAll();
+                }
+            }
+        });
+    }
+
+    /**
+     * Blocks until every attachment stored so far, by any feature file, has been written and linked
+     */
+    void awaitPending() {
+        synchronized (pendingLock) {
+            while (pending > 0) {
+                try {
+                    pendingLock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private String storeOnce(String mimeType, byte[] data) {
+        String fileName = sha256(data) + "." + extensionOf(mimeType);
+        CompletableFuture<String> stored = new CompletableFuture<>();
+        CompletableFuture<String> existing = storedFiles.putIfAbsent(fileName, stored);
+        if (existing != null) {
+            // Somebody else writes or has written the very same content
+            return existing.join();
+        }
+        try {
+            Files.createDirectories(directory);
+            try {
+                Files.write(directory.resolve(fileName), scaleDown(mimeType, data), StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.WRITE);
+            } catch (FileAlreadyExistsException e) {
+                // Written by an earlier run into the same directory
+            }
+        } catch (IOException e) {
+            storedFiles.remove(fileName);
+            IllegalStateException failure = new IllegalStateException("Unable to store the attachment " + fileName, e);
+            stored.completeExceptionally(failure);
+            throw failure;
+        }
+        String path = relativeDirectory + "/" + fileName;
+        stored.complete(path);
+        return path;
+    }
+
+    private byte[] scaleDown(String mimeType, byte[] data) throws IOException {
+        if (maxImageWidth <= 0 || !isImage(mimeType)) {
+            return data;
+        }
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(data));
+        if (image == null || image.getWidth() <= maxImageWidth) {
+            return data;
+        }
+        int height = Math.max(1, image.getHeight() * maxImageWidth / image.getWidth());
+        int type = image.getTransparency() == BufferedImage.OPAQUE ? BufferedImage.TYPE_INT_RGB
+            : BufferedImage.TYPE_INT_ARGB;
+        BufferedImage scaled = new BufferedImage(maxImageWidth, height, type);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.drawImage(image, 0, 0, maxImageWidth, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2);
+        if (!ImageIO.write(scaled, extensionOf(mimeType), out)) {
+            return data;
+        }
+        return out.toByteArray();
+    }
+
+    private static boolean isImage(String mimeType) {
+        return mimeType != null && mimeType.startsWith("image/");
+    }
+
+    private static String extensionOf(String mimeType) {
+        if (mimeType == null) {
+            return "bin";
+        }
+        switch (mimeType) {
+            case "image/png":
+                return "png";
+            case "image/jpeg":
+            case "image/jpg":
+                return "jpg";
+            case "image/gif":
+                return "gif";
+            case "image/bmp":
+                return "bmp";
+            case "text/plain":
+                return "txt";
+            case "text/html":
+                return "html";
+            case "application/json":
+                return "json";
+            case "application/xml":
+            case "text/xml":
+                return "xml";
+            default:
+                return "bin";
+        }
+    }
+
+    private static String sha256(byte[] data) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        byte[] hash = digest.digest(data);
+        char[] hex = new char[hash.length * 2];
+        for (int i = 0; i < hash.length; i++) {
+            hex[i * 2] = HEX[(hash[i] >> 4) & 0xf];
+            hex[i * 2 + 1] = HEX[hash[i] & 0xf];
+        }
+        return new String(hex);
+    }
+}
@@ -0,0 +1,17 @@
+package com.vimalselvam.cucumber.listener;
+
+/**
+ * Decides what happens when the asynchronous report queue is full
+ */
+public enum BackpressurePolicy {
+    /**
+     * The cucumber thread waits until the report consumer frees up space in the queue
+     */
+    BLOCK,
+
+    /**
+     * The event is dropped. Nodes whose creation was dropped are missing from the report along
+     * with everything logged against them.
+     */
+    DISCARD
+}
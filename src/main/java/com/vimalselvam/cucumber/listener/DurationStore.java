@@ -0,0 +1,260 @@
+package com.vimalselvam.cucumber.listener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Records the durations of the steps, hooks and scenarios of a run. Each feature run records into a buffer
+ * of its own, so the threads running the features never contend, and the buffers are only merged when a
+ * snapshot is taken. The durations are kept in primitive arrays, and the names and locations, which repeat
+ * a lot, are kept once per buffer and referred to by index.
+ */
+final class DurationStore {
+    static final byte STEP = 0;
+    static final byte HOOK = 1;
+    static final byte SCENARIO = 2;
+
+    private final List<Buffer> buffers = new CopyOnWriteArrayList<>();
+
+    /**
+     * Creates a buffer to record the durations of a feature run into
+     * @return The buffer, only to be recorded into by the thread running the feature
+     */
+    Buffer newBuffer() {
+        Buffer buffer = new Buffer();
+        buffers.add(buffer);
+        return buffer;
+    }
+
+    /**
+     * Takes a copy of the durations recorded so far in all the buffers, which can be analysed while more are
+     * recorded
+     * @return The snapshot
+     */
+    Snapshot snapshot() {
+        List<Snapshot> parts = new ArrayList<>(buffers.size());
+        int size = 0;
+        for (Buffer buffer : buffers) {
+            Snapshot part = buffer.snapshot();
+            parts.add(part);
+            size += part.size();
+        }
+        Map<String, Integer> stringIndexes = new HashMap<>();
+        List<String> strings = new ArrayList<>();
+        byte[] kinds = new byte[size];
+        int[] names = new int[size];
+        int[] locations = new int[size];
+        long[] durations = new long[size];
+        int offset = 0;
+        for (Snapshot part : parts) {
+            int[] globalIndexes = new int[part.strings.length];
+            for (int i = 0; i < part.strings.length; i++) {
+                Integer index = stringIndexes.get(part.strings[i]);
+                if (index == null) {
+                    index = strings.size();
+                    strings.add(part.strings[i]);
+                    stringIndexes.put(part.strings[i], index);
+                }
+                globalIndexes[i] = index;
+            }
+            System.arraycopy(part.kinds, 0, kinds, offset, part.size());
+            System.arraycopy(part.durations, 0, durations, offset, part.size());
+            for (int i = 0; i < part.size(); i++) {
+                names[offset + i] = globalIndexes[part.names[i]];
+                locations[offset + i] = globalIndexes[part.locations[i]];
+            }
+            offset += part.size();
+        }
+        return new Snapshot(kinds, names, locations, durations, strings.toArray(new String[0]));
+    }
+
+    /**
+     * The durations recorded by a feature run. Its lock is only ever contended by a snapshot.
+     */
+    static final class Buffer {
+        private final Map<String, Integer> stringIndexes = new HashMap<>();
+        private String[] strings = new String[16];
+        private int stringCount;
+
+        private byte[] kinds = new byte[64];
+        private int[] names = new int[64];
+        private int[] locations = new int[64];
+        private long[] durations = new long[64];
+        private int size;
+
+        private Buffer() {
+        }
+
+        /**
+         * Records a duration
+         * @param kind {@link #STEP}, {@link #HOOK} or {@link #SCENARIO}
+         * @param name The name of the step, hook or scenario
+         * @param location The location of the step definition, hook or scenario
+         * @param nanos The duration in nanoseconds
+         */
+        synchronized void record(byte kind, String name, String location, long nanos) {
+            if (size == durations.length) {
+                int capacity = size * 2;
+                kinds = Arrays.copyOf(kinds, capacity);
+                names = Arrays.copyOf(names, capacity);
+                locations = Arrays.copyOf(locations, capacity);
+                durations = Arrays.copyOf(durations, capacity);
+            }
+            kinds[size] = kind;
+            names[size] = indexOf(name);
+            locations[size] = indexOf(location);
+            durations[size] = nanos;
+            size++;
+        }
+
+        private synchronized Snapshot snapshot() {
+            return new Snapshot(Arrays.copyOf(kinds, size), Arrays.copyOf(names, size),
+                Arrays.copyOf(locations, size), Arrays.copyOf(durations, size), Arrays.copyOf(strings, stringCount));
+        }
+
+        private int indexOf(String value) {
+            String key = value == null ? "" : value;
+            Integer index = stringIndexes.get(key);
+            if (index != null) {
+                return index;
+            }
+            if (stringCount == strings.length) {
+                strings = Arrays.copyOf(strings, stringCount * 2);
+            }
+            strings[stringCount] = key;
+            stringIndexes.put(key, stringCount);
+            return stringCount++;
+        }
+    }
+
+    /**
+     * The durations recorded up to some point
+     */
+    static final class Snapshot {
+        private final byte[] kinds;
+        private final int[] names;
+        private final int[] locations;
+        private final long[] durations;
+        private final String[] strings;
+
+        private Snapshot(byte[] kinds, int[] names, int[] locations, long[] durations, String[] strings) {
+            this.kinds = kinds;
+            this.names = names;
+            this.locations = locations;
+            this.durations = durations;
+            this.strings = strings;
+        }
+
+        int size() {
+            return durations.length;
+        }
+
+        byte getKind(int index) {
+            return kinds[index];
+        }
+
+        String getName(int index) {
+            return strings[names[index]];
+        }
+
+        String getLocation(int index) {
+            return strings[locations[index]];
+        }
+
+        long getDuration(int index) {
+            return durations[index];
+        }
+
+        /**
+         * Gets the total duration of a kind
+         * @param kind The kind of durations
+         * @return The sum of the durations in nanoseconds
+         */
+        long total(byte kind) {
+            long total = 0;
+            for (int i = 0; i < durations.length; i++) {
+                if (kinds[i] == kind) {
+                    total += durations[i];
+                }
+            }
+            return total;
+        }
+
+        /**
+         * Gets the count of a kind
+         * @param kind The kind of durations
+         * @return The number of recorded durations
+         */
+        int count(byte kind) {
+            int count = 0;
+            for (byte k : kinds) {
+                if (k == kind) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        /**
+         * Gets the longest durations of a kind
+         * @param kind The kind of durations
+         * @param n The maximum number of durations
+         * @return The indexes of the longest durations, longest first
+         */
+        int[] slowest(byte kind, int n) {
+            int[] top = new int[n];
+            int count = 0;
+            for (int i = 0; i < durations.length; i++) {
+                if (kinds[i] != kind || (count == n && durations[i] <= durations[top[n - 1]])) {
+                    continue;
+                }
+                // Insertion into the sorted top, n is small
+                int position = count < n ? count++ : n - 1;
+                while (position > 0 && durations[top[position - 1]] < durations[i]) {
+                    top[position] = top[position - 1];
+                    position--;
+                }
+                top[position] = i;
+            }
+            return Arrays.copyOf(top, count);
+        }
+
+        /**
+         * Gets the sorted durations of a kind for every location
+         * @param kind The kind of durations
+         * @return The sorted durations in nanoseconds by location
+         */
+        Map<String, long[]> byLocation(byte kind) {
+            int[] counts = new int[strings.length];
+            for (int i = 0; i < durations.length; i++) {
+                if (kinds[i] == kind) {
+                    counts[locations[i]]++;
+                }
+            }
+            long[][] values = new long[strings.length][];
+            for (int i = 0; i < strings.length; i++) {
+                if (counts[i] > 0) {
+                    values[i] = new long[counts[i]];
+                    counts[i] = 0;
+                }
+            }
+            for (int i = 0; i < durations.length; i++) {
+                if (kinds[i] == kind) {
+                    values[locations[i]][counts[locations[i]]++] = durations[i];
+                }
+            }
+            Map<String, long[]> byLocation = new HashMap<>();
+            for (int i = 0; i < strings.length; i++) {
+                if (values[i] != null) {
+                    Arrays.sort(values[i]);
+                    byLocation.put(strings[i], values[i]);
+                }
+            }
+            return byLocation;
+        }
+    }
+}
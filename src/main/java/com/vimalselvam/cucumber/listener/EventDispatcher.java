@@ -0,0 +1,38 @@
+package com.vimalselvam.cucumber.listener;
+
+import java.util.List;
+
+/**
+ * Hands the {@link ReportEvent}s created by the formatter over to a {@link ReportEventHandler}
+ */
+interface EventDispatcher {
+
+    /**
+     * Dispatches the given event
+     * @param event The event to be dispatched
+     */
+    void dispatch(ReportEvent event);
+
+    /**
+     * Dispatches the given events, in order
+     * @param events The events to be dispatched
+     */
+    default void dispatchAll(List<ReportEvent> events) {
+        for (ReportEvent event : events) {
+            dispatch(event);
+        }
+    }
+
+    /**
+     * Blocks until every event dispatched so far has been handled
+     */
+    void drain();
+
+    /**
+     * Blocks until every event dispatched so far has been handled, then closes the handlers and stops the
+     * threads of the dispatcher. An event dispatched afterwards starts them again.
+     */
+    default void shutdown() {
+        drain();
+    }
+}
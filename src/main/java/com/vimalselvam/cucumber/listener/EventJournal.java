@@ -0,0 +1,264 @@
+package com.vimalselvam.cucumber.listener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Appends every report event to a journal file on the thread which reports it, so the report can be rebuilt
+ * by {@link JournalReplay} when the JVM dies before the end of the run.
+ * <p>
+ * The journal starts with {@link #MAGIC} and the {@link ShardFormat#VERSION} of its records, followed by one
+ * record per event: its length, the CRC32 of its payload and the payload, which is the shard record of the
+ * event. The file is memory mapped a segment at a time, so an append is a copy to memory which the operating
+ * system keeps even if the JVM is killed. The segments are forced to disk periodically by a background
+ * thread and on every flush, for the journal to survive a crash of the machine as well. The length of a
+ * record is written last, so a record cut short reads as the end of the journal.
+ * <p>
+ * Draining the journal at the end of the run forces it to disk, cuts the padding after the last record and
+ * closes it, then deletes it unless it is kept. An event dispatched afterwards, by a runner which is still
+ * going, opens the journal again.
+ */
+final class EventJournal implements EventDispatcher {
+    static final int MAGIC = 0x45434a4e;
+    static final String EXTENSION = ".journal";
+    static final int DEFAULT_SEGMENT_SIZE = 8 << 20;
+    private static final int RECORD_HEADER_SIZE = 8;
+
+    private final Path path;
+    private final int segmentSize;
+    private final long syncMillis;
+    private final boolean keep;
+    private final RecordBuffer buffer = new RecordBuffer();
+    private final ShardWriter encoder;
+    private final CRC32 crc = new CRC32();
+
+    // Guarded by this
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private long segmentStart;
+    private final List<MappedByteBuffer> unsyncedSegments = new ArrayList<>();
+    private ScheduledExecutorService syncer;
+
+    EventJournal(Path path, int segmentSize, long syncMillis) {
+        this(path, segmentSize, syncMillis, false);
+    }
+
+    /**
+     * Creates a journal, replacing any previous one at the same path
+     * @param path The journal file
+     * @param segmentSize The number of bytes mapped at once
+     * @param syncMillis The interval at which the journal is forced to disk, 0 to only force it on flush
+     * @param keep true to keep the journal once it is drained, false to delete it
+     */
+    EventJournal(Path path, int segmentSize, long syncMillis, boolean keep) {
+        this.path = path;
+        this.segmentSize = segmentSize;
+        this.syncMillis = syncMillis;
+        this.keep = keep;
+        this.encoder = new ShardWriter(new DataOutputStream(buffer), "the journal " + path);
+        synchronized (this) {
+            open();
+        }
+    }
+
+    /**
+     * Gets the path of the journal of a report
+     * @param reportFile The report file of the run
+     * @return The {@code <report name>.journal} file next to the report
+     */
+    static Path journalPath(File reportFile) {
+        Path reportPath = reportFile.toPath().toAbsolutePath();
+        String fileName = reportPath.getFileName().toString();
+        int extension = fileName.lastIndexOf('.');
+        String baseName = extension > 0 ? fileName.substring(0, extension) : fileName;
+        return reportPath.resolveSibling(baseName + EXTENSION);
+    }
+
+    /**
+     * Gets the path of the journal of a shard, as the JVMs writing the shards of a report each have a journal
+     * @param shardPath The shard of this JVM, see {@link ShardWriter#shardPath(File, String)}
+     * @return The {@code <shard name>.journal} file next to the shard
+     */
+    static Path journalPath(Path shardPath) {
+        String fileName = shardPath.getFileName().toString();
+        String baseName = fileName.endsWith(ShardFormat.EXTENSION)
+            ? fileName.substring(0, fileName.length() - ShardFormat.EXTENSION.length()) : fileName;
+        return shardPath.resolveSibling(baseName + EXTENSION);
+    }
+
+    @Override
+    public void dispatch(ReportEvent event) {
+        if (event instanceof ReportEvent.Flush) {
+            sync();
+            return;
+        }
+        synchronized (this) {
+            event.accept(encoder);
+            int length = buffer.size();
+            if (length == 0) {
+                // The event targets a node which is unknown or already finished
+                return;
+            }
+            try {
+                if (segment == null) {
+                    open();
+                }
+                append(buffer.array(), length);
+            } finally {
+                buffer.reset();
+            }
+        }
+    }
+
+    /**
+     * Forces the journal to disk and closes it, cut right after its last record. The events are appended
+     * straight away, so nothing else is ever pending.
+     */
+    @Override
+    public void drain() {
+        ScheduledExecutorService stopped;
+        synchronized (this) {
+            stopped = syncer;
+            syncer = null;
+        }
+        if (stopped != null) {
+            stopped.shutdownNow();
+            try {
+                stopped.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (this) {
+            if (segment == null) {
+                return;
+            }
+            for (MappedByteBuffer mapped : unsyncedSegments) {
+                mapped.force();
+            }
+            segment.force();
+            long end = segmentStart + segment.position();
+            unsyncedSegments.clear();
+            segment = null;
+            segmentStart = end;
+            try {
+                if (keep) {
+                    channel.truncate(end);
+                }
+                channel.close();
+                if (!keep) {
+                    Files.deleteIfExists(path);
+                }
+            } catch (IOException e) {
+                System.err.println("The journal " + path + " cannot be " + (keep ? "cut" : "deleted") + ": " + e);
+            } finally {
+                channel = null;
+            }
+        }
+    }
+
+    /**
+     * Forces the journal appended so far to disk
+     */
+    void sync() {
+        List<MappedByteBuffer> segments;
+        synchronized (this) {
+            if (segment == null) {
+                return;
+            }
+            segments = new ArrayList<>(unsyncedSegments);
+            segments.add(segment);
+            unsyncedSegments.clear();
+        }
+        for (MappedByteBuffer mapped : segments) {
+            mapped.force();
+        }
+    }
+
+    /**
+     * Opens the journal, appending to what a kept journal holds already, and starts forcing it to disk
+     */
+    private void open() {
+        boolean append = keep && segmentStart > 0;
+        try {
+            Files.createDirectories(path.toAbsolutePath().getParent());
+            channel = append
+                ? FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            if (!append) {
+                segmentStart = 0;
+            }
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, segmentStart, segmentSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to create the journal " + path, e);
+        }
+        if (!append) {
+            segment.putInt(MAGIC);
+            segment.putInt(ShardFormat.VERSION);
+        }
+
+        if (syncMillis > 0) {
+            syncer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "extent-journal-sync");
+                thread.setDaemon(true);
+                return thread;
+            });
+            syncer.scheduleWithFixedDelay(this::sync, syncMillis, syncMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void append(byte[] payload, int length) {
+        if (segment.remaining() < RECORD_HEADER_SIZE + length + 4) {
+            nextSegment(RECORD_HEADER_SIZE + length + 4);
+        }
+        int position = segment.position();
+        segment.position(position + RECORD_HEADER_SIZE);
+        segment.put(payload, 0, length);
+        crc.reset();
+        crc.update(payload, 0, length);
+        segment.putInt(position + 4, (int) crc.getValue());
+        segment.putInt(position, length);
+    }
+
+    /**
+     * Maps the next segment, right after the last record, big enough for the next record and the zero length
+     * which ends the journal
+     */
+    private void nextSegment(int recordSize) {
+        unsyncedSegments.add(segment);
+        segmentStart += segment.position();
+        try {
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, segmentStart, Math.max(segmentSize, recordSize));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to grow the journal " + path, e);
+        }
+    }
+
+    /**
+     * A byte array output stream whose bytes can be read without being copied
+     */
+    private static final class RecordBuffer extends ByteArrayOutputStream {
+        RecordBuffer() {
+            super(256);
+        }
+
+        byte[] array() {
+            return buf;
+        }
+    }
+}
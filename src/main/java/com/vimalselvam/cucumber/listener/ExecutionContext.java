@@ -0,0 +1,447 @@
+package com.vimalselvam.cucumber.listener;
+
+import gherkin.formatter.model.ExamplesTableRow;
+import gherkin.formatter.model.Row;
+import gherkin.formatter.model.Step;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The state of a feature file which is being run. Cucumber runs a feature file on a single thread,
+ * so a context is only ever touched by that thread, but it can be looked up from other threads. The
+ * threads a scenario starts may only read its nodes and report events of it.
+ */
+final class ExecutionContext {
+    private final String uri;
+    private final EventDispatcher dispatcher;
+    private final LargeTextStore largeTexts;
+    private final Deque<Step> pendingSteps = new ArrayDeque<>();
+    private final Map<String, ReportEvent.ExampleRow> exampleRows = new HashMap<>();
+    private final Set<String> compactExamples = new HashSet<>();
+    private volatile ReportNode feature;
+    private volatile ReportNode scenarioOutline;
+    private volatile ReportNode scenario;
+    private volatile ReportNode step;
+    private List<ReportEvent.HookResult> hooks = Collections.emptyList();
+    // Guarded by this, the threads a scenario starts may report events of it
+    private List<ReportEvent> heldEvents;
+    private final Object attachmentLock = new Object();
+    // Guarded by attachmentLock
+    private int pendingAttachments;
+    private boolean scenarioOutlineFlag;
+    private ReportEvent.ExampleRow compactExample;
+    private String exampleResultsId;
+    private Row exampleResultsHeader;
+    private List<ReportEvent.ExampleResult> exampleResults;
+    private List<String> featureTags = Collections.emptyList();
+    private List<String> scenarioTags = Collections.emptyList();
+    private String scenarioName;
+    private int scenarioLine;
+    private String scenarioLocation;
+    private long scenarioNanos;
+    private byte scenarioStatus;
+    private String stepName;
+    private String stepLocation;
+    private DurationStore.Buffer durations;
+
+    /**
+     * @param uri The uri of the feature file, null if cucumber did not tell it
+     * @param dispatcher The dispatcher of the formatter running the feature file
+     * @param largeTexts Where the large logged texts are stored, null to keep them in the report
+     */
+    ExecutionContext(String uri, EventDispatcher dispatcher, LargeTextStore largeTexts) {
+        this.uri = uri;
+        this.dispatcher = dispatcher;
+        this.largeTexts = largeTexts;
+    }
+
+    /**
+     * Gets the uri of the feature file
+     * @return The feature uri or null if cucumber did not tell it
+     */
+    String getUri() {
+        return uri;
+    }
+
+    /**
+     * Gets the steps which have been seen but not matched yet
+     * @return The pending steps in order
+     */
+    Deque<Step> getPendingSteps() {
+        return pendingSteps;
+    }
+
+    EventDispatcher getDispatcher() {
+        return dispatcher;
+    }
+
+    /**
+     * Gets the buffer the durations of the feature file are recorded into
+     * @return The buffer, null until one is set
+     */
+    DurationStore.Buffer getDurations() {
+        return durations;
+    }
+
+    void setDurations(DurationStore.Buffer durations) {
+        this.durations = durations;
+    }
+
+    /**
+     * Creates the log of a text logged by the feature file, from any thread
+     * @param node The node the text is logged to
+     * @param text The logged text
+     * @return The log, with a preview of the text linking to the full text if the text is large
+     */
+    ReportEvent.Log log(ReportNode node, String text) {
+        return new ReportEvent.Log(node, largeTexts == null ? text : largeTexts.capture(text));
+    }
+
+    ReportNode getFeature() {
+        return feature;
+    }
+
+    void setFeature(ReportNode feature) {
+        this.feature = feature;
+        this.scenarioOutline = null;
+        this.exampleRows.clear();
+        this.compactExamples.clear();
+        this.scenario = null;
+        this.step = null;
+    }
+
+    ReportNode getScenarioOutline() {
+        return scenarioOutline;
+    }
+
+    void setScenarioOutline(ReportNode scenarioOutline) {
+        this.scenarioOutline = scenarioOutline;
+        this.exampleRows.clear();
+        this.compactExamples.clear();
+    }
+
+    /**
+     * Remembers the rows of an examples table of the current outline, until their scenario starts
+     * @param examplesId The id of the examples block
+     * @param rows The rows of the examples table, starting with the header
+     * @param compact true to report the rows compactly, as a grid of results
+     */
+    void addExamples(String examplesId, List<ExamplesTableRow> rows, boolean compact) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        if (compact) {
+            compactExamples.add(examplesId);
+        }
+        ExamplesTableRow header = rows.get(0);
+        for (int i = 1; i < rows.size(); i++) {
+            ExamplesTableRow row = rows.get(i);
+            exampleRows.put(row.getId(), new ReportEvent.ExampleRow(examplesId, header, row));
+        }
+    }
+
+    /**
+     * Takes the examples row a scenario was expanded from. Cucumber gives the expanded scenario the id of its row.
+     * @param scenarioId The id of the scenario
+     * @return The example row or null if the scenario was not expanded from an examples row
+     */
+    ReportEvent.ExampleRow takeExampleRow(String scenarioId) {
+        return scenarioId == null ? null : exampleRows.remove(scenarioId);
+    }
+
+    /**
+     * Gets if the rows of an examples table are reported compactly
+     * @param examplesId The id of the examples block
+     * @return true if its rows are reported as a grid of results
+     */
+    boolean isCompact(String examplesId) {
+        return compactExamples.contains(examplesId);
+    }
+
+    /**
+     * Gets the example row of the current scenario, if it is reported compactly
+     * @return The example row or null if the scenario is reported as usual
+     */
+    ReportEvent.ExampleRow getCompactExample() {
+        return compactExample;
+    }
+
+    void setCompactExample(ReportEvent.ExampleRow compactExample) {
+        this.compactExample = compactExample;
+    }
+
+    /**
+     * Gets the examples block whose results are being gathered
+     * @return The id of the examples block, null if no results are being gathered
+     */
+    String getExampleResultsId() {
+        return exampleResults == null ? null : exampleResultsId;
+    }
+
+    /**
+     * Gathers the result of a row of a compact examples table, until the rows of the table are done
+     * @param example The example row
+     * @param result The result of its scenario
+     */
+    void addExampleResult(ReportEvent.ExampleRow example, ReportEvent.ExampleResult result) {
+        if (exampleResults == null) {
+            exampleResults = new ArrayList<>();
+            exampleResultsId = example.getExamplesId();
+            exampleResultsHeader = example.getHeader();
+        }
+        exampleResults.add(result);
+    }
+
+    /**
+     * Takes the results gathered for the rows of a compact examples table of the current outline
+     * @return The results or null if none were gathered
+     */
+    ReportEvent.ExampleResults takeExampleResults() {
+        if (exampleResults == null) {
+            return null;
+        }
+        ReportEvent.ExampleResults results = new ReportEvent.ExampleResults(scenarioOutline, exampleResultsId,
+            exampleResultsHeader, exampleResults);
+        exampleResults = null;
+        return results;
+    }
+
+    ReportNode getScenario() {
+        return scenario;
+    }
+
+    void setScenario(ReportNode scenario) {
+        this.scenario = scenario;
+        this.compactExample = null;
+        this.step = null;
+        this.pendingSteps.clear();
+        this.hooks = Collections.emptyList();
+        synchronized (this) {
+            this.heldEvents = null;
+        }
+    }
+
+    /**
+     * Holds back the events of the current scenario from now on, until it ends
+     */
+    synchronized void holdEvents() {
+        this.heldEvents = new ArrayList<>();
+    }
+
+    /**
+     * Holds back an event of the current scenario, if its events are held back
+     * @param event The event
+     * @return true if the event is held back, false if it has to be dispatched
+     */
+    synchronized boolean hold(ReportEvent event) {
+        if (heldEvents == null) {
+            return false;
+        }
+        heldEvents.add(event);
+        return true;
+    }
+
+    /**
+     * Holds back events of the given scenario, if it is still the current one and its events are held back
+     * @param scenario The scenario the events are about
+     * @param events The events
+     * @return true if the events are held back, false if they have to be dispatched
+     */
+    synchronized boolean hold(ReportNode scenario, List<ReportEvent> events) {
+        if (heldEvents == null || this.scenario != scenario) {
+            return false;
+        }
+        heldEvents.addAll(events);
+        return true;
+    }
+
+    /**
+     * Tells whether the events of the current scenario are held back
+     * @return true if they are held back
+     */
+    synchronized boolean isHoldingEvents() {
+        return heldEvents != null;
+    }
+
+    /**
+     * Counts an attachment of the feature file which is being stored
+     */
+    void attachmentStarted() {
+        synchronized (attachmentLock) {
+            pendingAttachments++;
+        }
+    }
+
+    /**
+     * Counts an attachment of the feature file which is stored and linked to its node
+     */
+    void attachmentFinished() {
+        synchronized (attachmentLock) {
+            pendingAttachments--;
+            attachmentLock.notifyAll();
+        }
+    }
+
+    /**
+     * Blocks until every attachment of the feature file has been stored and linked, leaving the attachments
+     * of the other feature files alone
+     */
+    void awaitAttachments() {
+        synchronized (attachmentLock) {
+            while (pendingAttachments > 0) {
+                try {
+                    attachmentLock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Takes the events held back for the current scenario, and stops holding them back
+     * @return The held events in order, empty if they were not held back
+     */
+    synchronized List<ReportEvent> takeHeldEvents() {
+        List<ReportEvent> taken = heldEvents;
+        heldEvents = null;
+        return taken == null ? Collections.<ReportEvent>emptyList() : taken;
+    }
+
+    /**
+     * Remembers the result of a hook of the current scenario, until the scenario ends
+     * @param hook The hook result
+     */
+    void addHook(ReportEvent.HookResult hook) {
+        if (hooks.isEmpty()) {
+            hooks = new ArrayList<>(4);
+        }
+        hooks.add(hook);
+    }
+
+    /**
+     * Takes the results of the hooks of the current scenario
+     * @return The hook results in the order they ran, empty if there were none
+     */
+    List<ReportEvent.HookResult> takeHooks() {
+        List<ReportEvent.HookResult> taken = hooks;
+        hooks = Collections.emptyList();
+        return taken;
+    }
+
+    ReportNode getStep() {
+        return step;
+    }
+
+    void setStep(ReportNode step) {
+        this.step = step;
+    }
+
+    /**
+     * Gets if the steps of a scenario outline are being listed, rather than the ones of one of its examples
+     * @return true if the outline steps are being listed
+     */
+    boolean isScenarioOutlineFlag() {
+        return scenarioOutlineFlag;
+    }
+
+    void setScenarioOutlineFlag(boolean scenarioOutlineFlag) {
+        this.scenarioOutlineFlag = scenarioOutlineFlag;
+    }
+
+    List<String> getFeatureTags() {
+        return featureTags;
+    }
+
+    void setFeatureTags(List<String> featureTags) {
+        this.featureTags = featureTags;
+    }
+
+    List<String> getScenarioTags() {
+        return scenarioTags;
+    }
+
+    void setScenarioTags(List<String> scenarioTags) {
+        this.scenarioTags = scenarioTags;
+    }
+
+    /**
+     * Starts timing a scenario, its duration being the sum of the durations of its steps and hooks
+     * @param name The name of the scenario
+     * @param line The line of the scenario in the feature file
+     */
+    void startScenarioTiming(String name, int line) {
+        this.scenarioName = name;
+        this.scenarioLine = line;
+        this.scenarioLocation = uri + ":" + line;
+        this.scenarioNanos = 0;
+        this.scenarioStatus = RunHistory.PASSED;
+    }
+
+    void addScenarioNanos(long nanos) {
+        this.scenarioNanos += nanos;
+    }
+
+    String getScenarioName() {
+        return scenarioName;
+    }
+
+    /**
+     * Gets the line of the scenario, which tells apart the scenarios of an outline, expanded one per examples row
+     * @return The line of the scenario in the feature file
+     */
+    int getScenarioLine() {
+        return scenarioLine;
+    }
+
+    String getScenarioLocation() {
+        return scenarioLocation;
+    }
+
+    long getScenarioNanos() {
+        return scenarioNanos;
+    }
+
+    /**
+     * Takes the result of a step or hook into account for the status of the scenario
+     * @param status The cucumber status of the step or hook
+     */
+    void updateScenarioStatus(String status) {
+        this.scenarioStatus = (byte) Math.max(scenarioStatus, RunHistory.statusOf(status));
+    }
+
+    /**
+     * Gets the status of the scenario so far
+     * @return {@link RunHistory#PASSED}, {@link RunHistory#FAILED} or {@link RunHistory#SKIPPED}
+     */
+    byte getScenarioStatus() {
+        return scenarioStatus;
+    }
+
+    /**
+     * Remembers the step which is matched, for timing it once it has run
+     * @param name The keyword and name of the step
+     * @param location The location of the step definition
+     */
+    void setStepTiming(String name, String location) {
+        this.stepName = name;
+        this.stepLocation = location;
+    }
+
+    String getStepName() {
+        return stepName;
+    }
+
+    String getStepLocation() {
+        return stepLocation;
+    }
+}
@@ -1,10 +1,6 @@
 package com.vimalselvam.cucumber.listener;
 
 import com.aventstack.extentreports.ExtentReports;
-import com.aventstack.extentreports.ExtentTest;
-import com.aventstack.extentreports.GherkinKeyword;
-import com.aventstack.extentreports.markuputils.Markup;
-import com.aventstack.extentreports.markuputils.MarkupHelper;
 import com.aventstack.extentreports.reporter.ExtentHtmlReporter;
 import com.aventstack.extentreports.reporter.ExtentXReporter;
 import com.aventstack.extentreports.reporter.KlovReporter;
@@ -14,32 +10,185 @@ import gherkin.formatter.Reporter;
 import gherkin.formatter.model.*;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.util.LinkedList;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * A cucumber based reporting listener which generates the Extent Report
  */
 public class ExtentCucumberFormatter implements Reporter, Formatter {
+    /**
+     * The report file asked for by the first formatter, null for the report path of the properties
+     */
+    private static File requestedReportFile;
+    /**
+     * How long the connection to the Klov MongoDB may take, so an unreachable one is given up on quickly
+     */
+    private static final int KLOV_CONNECT_TIMEOUT_MILLIS = 5000;
+    private static volatile boolean reportingRequested;
+    private static volatile boolean reportingStarted;
+    /**
+     * The formatters created and not done yet, guarded by the class. The last one to be done ends the run.
+     */
+    private static int activeFormatters;
+    private static ReportConfig reportConfig;
     private static ExtentReports extentReports;
     private static ExtentHtmlReporter htmlReporter;
-    private static KlovReporter klovReporter;
-    private static ThreadLocal<ExtentTest> featureTestThreadLocal = new InheritableThreadLocal<>();
-    private static ThreadLocal<ExtentTest> scenarioOutlineThreadLocal = new InheritableThreadLocal<>();
-    static ThreadLocal<ExtentTest> scenarioThreadLocal = new InheritableThreadLocal<>();
-    private static ThreadLocal<LinkedList<Step>> stepListThreadLocal =
-        new InheritableThreadLocal<>();
-    static ThreadLocal<ExtentTest> stepTestThreadLocal = new InheritableThreadLocal<>();
-    private boolean scenarioOutlineFlag;
+    private static File reportFile;
+    private static volatile KlovReporter klovReporter;
+    private static KlovBatchWriter klovBatchWriter;
+    private static EventDispatcher eventDispatcher;
+    private static FlushScheduler flushScheduler;
+    private static AttachmentStore attachmentStore;
+    private static LargeTextStore largeTextStore;
+    private static DurationStore durationStore;
+    private static FailureClusters failureClusters;
+    private static RunHistory runHistory;
+    private static RunProgress runProgress;
+    private static ProgressServer progressServer;
+    private static ReportingMetrics reportingMetrics;
+    private static TagIndex tagIndex;
+    /**
+     * The feature files being run, by the id of the thread running them. Unlike a thread local,
+     * a thread never sees the context of the thread which created it.
+     */
+    private static final ConcurrentMap<Long, ExecutionContext> executionContexts = new ConcurrentHashMap<>();
+    /**
+     * Written before {@link #started} is set, and only read after it was found set
+     */
+    private ReportConfig config;
+    private EventDispatcher dispatcher;
+    private FlushScheduler flusher;
+    private AttachmentStore attachments;
+    private LargeTextStore largeTexts;
+    private DurationStore durations;
+    private FailureClusters failures;
+    private RunHistory history;
+    private RunProgress progress;
+    private ReportingMetrics metrics;
+    private TagIndex tags;
+    private volatile boolean started;
 
+    /**
+     * Creates the formatter. The reporters are only set up when the first event arrives, so the
+     * {@link ExtentProperties} can still be set by then and a run without any feature sets nothing up.
+     * @param file The report file, null or empty for the report path of the {@link ExtentProperties}
+     */
     public ExtentCucumberFormatter(File file) {
-        setExtentHtmlReport(file);
-        setExtentReport();
-        setKlovReport();
-        stepListThreadLocal.set(new LinkedList<>());
-        scenarioOutlineFlag = false;
+        requestReporting(file);
+    }
+
+    /**
+     * Creates a formatter which only dispatches the events to the given dispatcher, without setting up
+     * any reporter
+     * @param dispatcher The dispatcher of the events
+     */
+    ExtentCucumberFormatter(EventDispatcher dispatcher) {
+        this(dispatcher, new ReportingMetrics(null));
+    }
+
+    /**
+     * Creates a formatter which only dispatches the events to the given dispatcher, measuring its cost in the
+     * given metrics
+     * @param dispatcher The dispatcher of the events
+     * @param metrics The metrics of the formatter
+     */
+    ExtentCucumberFormatter(EventDispatcher dispatcher, ReportingMetrics metrics) {
+        this.config = new ReportConfig(ExtentProperties.INSTANCE);
+        this.metrics = metrics;
+        dispatcher = new MeteredEventDispatcher(dispatcher, metrics);
+        this.dispatcher = dispatcher;
+        this.flusher = new FlushScheduler(dispatcher, config);
+        this.durations = new DurationStore();
+        this.failures = new FailureClusters();
+        this.tags = new TagIndex();
+        this.progress = new RunProgress(System.nanoTime(), 0);
+        if (config.getLargeLogChars() > 0) {
+            this.largeTexts = new LargeTextStore(new File(config.getReportPath()).getAbsoluteFile().getParentFile()
+                .toPath(), config.getLargeLogChars());
+        }
+        this.started = true;
+    }
+
+    private static synchronized void requestReporting(File file) {
+        // The first formatter decides on the report file, as the reporters are shared by all of them
+        if (!reportingRequested) {
+            requestedReportFile = file;
+            reportingRequested = true;
+        }
+        activeFormatters++;
+    }
+
+    /**
+     * Counts a formatter as done
+     * @return true if it was the last one, which ends the run
+     */
+    private static synchronized boolean formatterDone() {
+        if (activeFormatters > 0) {
+            activeFormatters--;
+        }
+        return activeFormatters == 0;
+    }
+
+    /**
+     * Sets up the reporters shared by the formatters of the JVM, if a formatter was created and they are not
+     * set up yet. The properties are read once, here.
+     */
+    private static void startReporting() {
+        if (reportingStarted || !reportingRequested) {
+            return;
+        }
+        synchronized (ExtentCucumberFormatter.class) {
+            if (reportingStarted) {
+                return;
+            }
+            reportConfig = new ReportConfig(ExtentProperties.INSTANCE);
+            setExtentHtmlReport(requestedReportFile);
+            setExtentReport();
+            setKlovReport();
+            setReportingMetrics();
+            setEventDispatcher();
+            setRun();
+            reportingStarted = true;
+        }
+    }
+
+    /**
+     * Takes the shared reporters on the first event this formatter gets
+     */
+    private void start() {
+        if (started) {
+            return;
+        }
+        startReporting();
+        synchronized (ExtentCucumberFormatter.class) {
+            // The run is reset at its end, a runner started afterwards makes a run of its own
+            setRun();
+            this.config = reportConfig;
+            this.dispatcher = eventDispatcher;
+            this.flusher = flushScheduler;
+            this.attachments = attachmentStore;
+            this.largeTexts = largeTextStore;
+            this.durations = durationStore;
+            this.failures = failureClusters;
+            this.history = runHistory;
+            this.progress = runProgress;
+            this.metrics = reportingMetrics;
+            this.tags = tagIndex;
+        }
+        this.started = true;
     }
 
     private static void setExtentHtmlReport(File file) {
@@ -47,15 +196,17 @@ public class ExtentCucumberFormatter implements Reporter, Formatter {
             return;
         }
         if (file == null || file.getPath().isEmpty()) {
-            file = new File(ExtentProperties.INSTANCE.getReportPath());
+            file = new File(reportConfig.getReportPath());
         }
         if (!file.exists()) {
             file.getParentFile().mkdirs();
         }
+        reportFile = file;
         htmlReporter = new ExtentHtmlReporter(file);
     }
 
     static ExtentHtmlReporter getExtentHtmlReport() {
+        startReporting();
         return htmlReporter;
     }
 
@@ -64,7 +215,7 @@ public class ExtentCucumberFormatter implements Reporter, Formatter {
             return;
         }
         extentReports = new ExtentReports();
-        ExtentProperties extentProperties = ExtentProperties.INSTANCE;
+        ReportConfig extentProperties = reportConfig;
 
         // Remove this block in the next release
         if (extentProperties.getExtentXServerUrl() != null) {
@@ -84,6 +235,7 @@ public class ExtentCucumberFormatter implements Reporter, Formatter {
     }
 
     static ExtentReports getExtentReport() {
+        startReporting();
         return extentReports;
     }
 
@@ -96,50 +248,267 @@ public class ExtentCucumberFormatter implements Reporter, Formatter {
             return;
         }
 
-        ExtentProperties extentProperties = ExtentProperties.INSTANCE;
+        ReportConfig extentProperties = reportConfig;
 
         //if reporter is not null that means it is already attached
-        if (klovReporter != null) {
+        if (klovReporter != null || klovBatchWriter != null) {
             //Already attached, attaching it again will create a new build/klov report
             return;
         }
 
 
         if (extentProperties.getKlovServerUrl() != null) {
-            String hostname = extentProperties.getMongodbHost();
-            int port = extentProperties.getMongodbPort();
+            // Klov gets a report of its own, which is written by a thread of its own, one event at a time
+            // unless a batch size is set. That thread connects to MongoDB as well, so a slow or down MongoDB
+            // never holds up the run.
+            boolean batched = extentProperties.getKlovBatchSize() > 0;
+            klovBatchWriter = new KlovBatchWriter(new KlovReporterTarget(() -> {
+                KlovReporter reporter = newKlovReporter(extentProperties);
+                ExtentReports klovReports = new ExtentReports();
+                klovReports.attachReporter(reporter);
+                klovReporter = reporter;
+                return klovReports;
+            }), new File(reportFile.getAbsoluteFile().getParentFile(), "klov.spool").toPath(),
+                batched ? extentProperties.getKlovBatchSize() : 1,
+                batched ? extentProperties.getKlovLingerMillis() : 0,
+                extentProperties.getAsyncQueueSize(), extentProperties.getBackpressurePolicy());
+        }
+    }
 
-            String database = extentProperties.getMongodbDatabase();
+    private static KlovReporter newKlovReporter(ReportConfig extentProperties) {
+        String hostname = extentProperties.getMongodbHost();
+        int port = extentProperties.getMongodbPort();
 
-            String username = extentProperties.getMongodbUsername();
-            String password = extentProperties.getMongodbPassword();
+        String database = extentProperties.getMongodbDatabase();
 
+        String username = extentProperties.getMongodbUsername();
+        String password = extentProperties.getMongodbPassword();
+
+        //Create a new KlovReporter object
+        KlovReporter reporter = new KlovReporter();
+
+        String credentials = username != null && password != null ? username + ":" + password + "@" : "";
+        String uri = "mongodb://" + credentials + (hostname != null ? hostname : "localhost") + ":"
+            + (port > 0 ? port : 27017) + "/?connectTimeoutMS=" + KLOV_CONNECT_TIMEOUT_MILLIS
+            + "&serverSelectionTimeoutMS=" + KLOV_CONNECT_TIMEOUT_MILLIS
+            + (credentials.isEmpty() ? "" : "&authSource=" + database);
+        reporter.initMongoDbConnection(new MongoClientURI(uri));
+
+        reporter.setProjectName(extentProperties.getKlovProjectName());
+        reporter.setReportName(extentProperties.getKlovReportName());
+        reporter.setKlovUrl(extentProperties.getKlovServerUrl());
+        return reporter;
+    }
+
+    /**
+     * Gets the Klov reporter
+     * @return The Klov reporter, or null until the thread writing Klov connected to MongoDB
+     */
+    static KlovReporter getKlovReport() {
+        startReporting();
+        return klovReporter;
+    }
+
+    private static synchronized void setEventDispatcher() {
+        if (eventDispatcher != null) {
+            return;
+        }
+        ReportConfig extentProperties = reportConfig;
+        ReportEventHandler handler;
+        if (extentProperties.getOutputMode() == OutputMode.STREAMING) {
+            handler = new StreamingReportWriter(reportFile, false, reportingMetrics);
+        } else if (extentProperties.getOutputMode() == OutputMode.LAZY) {
+            handler = new StreamingReportWriter(reportFile, true, reportingMetrics);
+        } else if (extentProperties.getOutputMode() == OutputMode.SHARD) {
+            handler = new ShardWriter(ShardWriter.shardPath(reportFile, extentProperties.getShardName()));
+        } else {
+            handler = new ExtentReportBuilder(extentReports, reportingMetrics);
+        }
+        List<EventDispatcher> sinks = new ArrayList<>();
+        if (extentProperties.getOutputSinks().contains(OutputSink.JOURNAL)) {
+            // First and on the reporting thread, an event is in the journal before anything else is done with it
+            Path journal = extentProperties.getOutputMode() == OutputMode.SHARD
+                ? EventJournal.journalPath(ShardWriter.shardPath(reportFile, extentProperties.getShardName()))
+                : EventJournal.journalPath(reportFile);
+            sinks.add(new EventJournal(journal, EventJournal.DEFAULT_SEGMENT_SIZE,
+                extentProperties.getJournalSyncMillis(), extentProperties.isKeepJournal()));
+        }
+        if (extentProperties.isAsyncReporting()) {
+            sinks.add(new AsyncEventDispatcher(handler, extentProperties.getAsyncQueueSize(),
+                extentProperties.getBackpressurePolicy(), "extent-report-consumer", reportingMetrics));
+        } else {
+            sinks.add(new SynchronousEventDispatcher(handler));
+        }
+        if (klovBatchWriter != null) {
+            // Only queues the events, Klov is written by a thread of its own
+            sinks.add(new SynchronousEventDispatcher(klovBatchWriter));
+        }
+        for (OutputSink sink : extentProperties.getOutputSinks()) {
+            if (sink == OutputSink.JOURNAL) {
+                continue;
+            }
+            sinks.add(new AsyncEventDispatcher(newOutputSink(sink), extentProperties.getAsyncQueueSize(),
+                extentProperties.getBackpressurePolicy(), "extent-" + sink.name().toLowerCase(Locale.ROOT) + "-sink",
+                reportingMetrics));
+        }
+        eventDispatcher = new MeteredEventDispatcher(sinks.size() == 1 ? sinks.get(0)
+            : new FanOutEventDispatcher(sinks), reportingMetrics);
+        if (extentProperties.getHistoryPath() != null) {
             try {
-                //Create a new KlovReporter object
-                klovReporter = new KlovReporter();
-
-                if (username != null && password != null) {
-                    MongoClientURI uri = new MongoClientURI("mongodb://" + username + ":" + password + "@" + hostname + ":" + port + "/?authSource=" + database);
-                    klovReporter.initMongoDbConnection(uri);
-                } else {
-                    klovReporter.initMongoDbConnection(hostname, port);
-                }
+                runHistory = new RunHistory(new File(extentProperties.getHistoryPath()).toPath());
+            } catch (IOException e) {
+                System.err.println("The run history cannot be read, this run is not added to it: " + e);
+            }
+        }
+        attachmentStore = new AttachmentStore(reportFile.getAbsoluteFile().getParentFile().toPath(),
+            extentProperties.getAttachmentThreads(), extentProperties.getAttachmentMaxWidth(), eventDispatcher);
+        if (extentProperties.getLargeLogChars() > 0) {
+            // The shards share the report path, each clears its own texts only
+            String subdirectory = extentProperties.getOutputMode() == OutputMode.SHARD
+                ? ShardWriter.shardName(extentProperties.getShardName()) : null;
+            largeTextStore = new LargeTextStore(reportFile.getAbsoluteFile().getParentFile().toPath(), subdirectory,
+                extentProperties.getLargeLogChars());
+            largeTextStore.clear();
+        }
+    }
 
-                klovReporter.setProjectName(extentProperties.getKlovProjectName());
-                klovReporter.setReportName(extentProperties.getKlovReportName());
-                klovReporter.setKlovUrl(extentProperties.getKlovServerUrl());
+    /**
+     * Starts measuring the cost of reporting
+     */
+    private static synchronized void setReportingMetrics() {
+        if (reportingMetrics != null) {
+            return;
+        }
+        reportingMetrics = new ReportingMetrics(reportFile);
+        if (klovBatchWriter != null) {
+            reportingMetrics.setKlovBatchWriter(klovBatchWriter);
+        }
+    }
 
-                extentReports.attachReporter(klovReporter);
+    /**
+     * Writes the summary of the reporting metrics next to the report, if they are asked for
+     */
+    private static void writeReportingMetrics() {
+        if (reportingMetrics == null || !reportConfig.isReportingMetrics()) {
+            return;
+        }
+        Path summary = ReportingMetrics.summaryPath(reportFile);
+        try {
+            reportingMetrics.writeSummary(summary);
+        } catch (IOException e) {
+            System.err.println("The reporting metrics cannot be written to " + summary + ": " + e);
+        }
+    }
+
+    /**
+     * Sets up what is gathered over a run, unless it is set up already: the flushes, the durations, failures
+     * and tags the sections at its end are made of, and the progress
+     */
+    private static synchronized void setRun() {
+        if (eventDispatcher == null || flushScheduler != null) {
+            return;
+        }
+        flushScheduler = new FlushScheduler(eventDispatcher, reportConfig);
+        durationStore = new DurationStore();
+        failureClusters = new FailureClusters();
+        tagIndex = new TagIndex();
+        if (reportingMetrics != null && reportConfig != null && reportConfig.isReportingMetrics()) {
+            reportingMetrics.register();
+        }
+        setProgress();
+    }
+
+    /**
+     * Forgets what was gathered over the run which just ended, for the next one, if any, to start afresh
+     */
+    private static synchronized void endRun() {
+        flushScheduler = null;
+        durationStore = null;
+        failureClusters = null;
+        tagIndex = null;
+        if (reportingMetrics != null) {
+            reportingMetrics.unregister();
+        }
+        stopProgress();
+    }
 
-            } catch (Exception ex) {
-                klovReporter = null;
-                throw new IllegalArgumentException("Error setting up Klov Reporter", ex);
+    /**
+     * Starts counting the progress of the run, and serves it if a progress port is set. The number of scenarios
+     * of the last run in the history, if any, is taken as the number of scenarios to expect.
+     */
+    private static synchronized void setProgress() {
+        if (runProgress != null || reportConfig == null) {
+            return;
+        }
+        int expectedScenarios = 0;
+        if (runHistory != null) {
+            try {
+                List<RunHistory.RunSummary> lastRun = runHistory.recentRuns(1);
+                if (!lastRun.isEmpty()) {
+                    RunHistory.RunSummary run = lastRun.get(0);
+                    expectedScenarios = run.getPassed() + run.getFailed() + run.getSkipped();
+                }
+            } catch (IOException e) {
+                System.err.println("The run history cannot be read, the progress has no estimate of the time left: "
+                    + e);
+            }
+        }
+        runProgress = new RunProgress(System.nanoTime(), expectedScenarios);
+        if (reportConfig.getProgressPort() >= 0) {
+            try {
+                progressServer = new ProgressServer(runProgress, reportConfig.getProgressHost(),
+                    reportConfig.getProgressPort());
+                System.err.println("The progress of the run is served at http://" + reportConfig.getProgressHost()
+                    + ":" + progressServer.getPort() + ProgressServer.PATH);
+            } catch (UncheckedIOException e) {
+                System.err.println("The progress of the run is not served: " + e.getMessage());
             }
         }
     }
 
-    static KlovReporter getKlovReport() {
-        return klovReporter;
+    /**
+     * Stops serving the progress of the run and forgets it
+     */
+    private static synchronized void stopProgress() {
+        if (progressServer != null) {
+            progressServer.stop();
+            progressServer = null;
+        }
+        runProgress = null;
+    }
+
+    private static ReportEventHandler newOutputSink(OutputSink sink) {
+        Path reportPath = reportFile.toPath().toAbsolutePath();
+        String fileName = reportPath.getFileName().toString();
+        int extension = fileName.lastIndexOf('.');
+        String baseName = extension > 0 ? fileName.substring(0, extension) : fileName;
+        switch (sink) {
+            case JSONL:
+                return new JsonLinesWriter(reportPath.resolveSibling(baseName + ".jsonl"));
+            case JUNIT_XML:
+                return new JUnitXmlWriter(reportPath.resolveSibling(baseName + "-junit.xml"));
+            default:
+                throw new IllegalArgumentException("Unknown output sink " + sink);
+        }
+    }
+
+    static EventDispatcher getEventDispatcher() {
+        startReporting();
+        return eventDispatcher;
+    }
+
+    /**
+     * Gets the context of the feature file run by the current thread
+     * @return The execution context or null if the current thread is not running a feature file
+     */
+    static ExecutionContext getExecutionContext() {
+        return executionContexts.get(Thread.currentThread().getId());
+    }
+
+    private ExecutionContext context() {
+        // Cucumber always tells the uri first, but never fail a run if it did not
+        return executionContexts.computeIfAbsent(Thread.currentThread().getId(),
+            id -> new ExecutionContext(null, dispatcher, largeTexts));
     }
 
     public void syntaxError(String state, String event, List<String> legalEvents, String uri,
@@ -148,64 +517,103 @@ public class ExtentCucumberFormatter implements Reporter, Formatter {
     }
 
     public void uri(String uri) {
-
+        long startNanos = System.nanoTime();
+        try {
+            start();
+            executionContexts.put(Thread.currentThread().getId(), new ExecutionContext(uri, dispatcher, largeTexts));
+        } finally {
+            timed(ReportingMetrics.Callback.URI, startNanos);
+        }
     }
 
     public void feature(Feature feature) {
-        featureTestThreadLocal.set(getExtentReport().createTest(com.aventstack.extentreports.gherkin.model.Feature.class, feature.getName()));
-        ExtentTest test = featureTestThreadLocal.get();
-
-        for (Tag tag : feature.getTags()) {
-            test.assignCategory(tag.getName());
+        long startNanos = System.nanoTime();
+        try {
+            start();
+            ExecutionContext context = context();
+            ReportNode featureNode = new ReportNode(null);
+            context.setFeature(featureNode);
+            List<String> featureTags = tagNames(feature.getTags());
+            context.setFeatureTags(featureTags);
+            dispatcher.dispatch(new ReportEvent.FeatureStarted(featureNode, context.getUri(),
+                feature.getName(), featureTags));
+        } finally {
+            timed(ReportingMetrics.Callback.FEATURE, startNanos);
         }
     }
 
     public void scenarioOutline(ScenarioOutline scenarioOutline) {
-        scenarioOutlineFlag = true;
-        ExtentTest node = featureTestThreadLocal.get()
-            .createNode(com.aventstack.extentreports.gherkin.model.ScenarioOutline.class, scenarioOutline.getName());
-        scenarioOutlineThreadLocal.set(node);
+        long startNanos = System.nanoTime();
+        try {
+            start();
+            ExecutionContext context = context();
+            context.setScenarioOutlineFlag(true);
+            reportExampleResults(context);
+            ReportNode node = new ReportNode(context.getFeature());
+            context.setScenarioOutline(node);
+            dispatcher.dispatch(new ReportEvent.ScenarioOutlineStarted(node, scenarioOutline.getName()));
+        } finally {
+            timed(ReportingMetrics.Callback.SCENARIO_OUTLINE, startNanos);
+        }
     }
 
     public void examples(Examples examples) {
-        ExtentTest test = scenarioOutlineThreadLocal.get();
-
-        String[][] data = null;
-        List<ExamplesTableRow> rows = examples.getRows();
-        int rowSize = rows.size();
-        for (int i = 0; i < rowSize; i++) {
-            ExamplesTableRow examplesTableRow = rows.get(i);
-            List<String> cells = examplesTableRow.getCells();
-            int cellSize = cells.size();
-            if (data == null) {
-                data = new String[rowSize][cellSize];
-            }
-            for (int j = 0; j < cellSize; j++) {
-                data[i][j] = cells.get(j);
+        long startNanos = System.nanoTime();
+        try {
+            start();
+            ExecutionContext context = context();
+            int compactRows = config.getCompactOutlineRows();
+            // The header is the first row
+            boolean compact = compactRows > 0 && examples.getRows().size() > compactRows;
+            context.addExamples(examples.getId(), examples.getRows(), compact);
+            if (!compact) {
+                dispatcher.dispatch(new ReportEvent.ExamplesTable(context.getScenarioOutline(), examples.getId(),
+                    examples.getRows()));
             }
+        } finally {
+            timed(ReportingMetrics.Callback.EXAMPLES, startNanos);
         }
-        test.info(MarkupHelper.createTable(data));
     }
 
     public void startOfScenarioLifeCycle(Scenario scenario) {
-        if (scenarioOutlineFlag) {
-            scenarioOutlineFlag = false;
-        }
+        long startNanos = System.nanoTime();
+        try {
+            start();
+            ExecutionContext context = context();
+            context.setScenarioOutlineFlag(false);
 
-        ExtentTest scenarioNode;
-        if (scenarioOutlineThreadLocal.get() != null && scenario.getKeyword().trim()
-            .equalsIgnoreCase("Scenario Outline")) {
-            scenarioNode =
-                scenarioOutlineThreadLocal.get().createNode(com.aventstack.extentreports.gherkin.model.Scenario.class, scenario.getName());
-        } else {
-            scenarioNode =
-                featureTestThreadLocal.get().createNode(com.aventstack.extentreports.gherkin.model.Scenario.class, scenario.getName());
-        }
+            // A scenario expanded from an outline has the id of its example row, whatever the language
+            ReportEvent.ExampleRow example = context.getScenarioOutline() == null ? null
+                : context.takeExampleRow(scenario.getId());
+            boolean compact = example != null && context.isCompact(example.getExamplesId());
+            if (!compact || !Objects.equals(example.getExamplesId(), context.getExampleResultsId())) {
+                reportExampleResults(context);
+            }
+            ReportNode parent = example != null ? context.getScenarioOutline() : context.getFeature();
 
-        for (Tag tag : scenario.getTags()) {
-            scenarioNode.assignCategory(tag.getName());
+            ReportNode scenarioNode = new ReportNode(parent);
+            context.setScenario(scenarioNode);
+            List<String> scenarioTags = tagNames(scenario.getTags());
+            context.setScenarioTags(scenarioTags);
+            context.startScenarioTiming(scenario.getName(), scenario.getLine());
+            progress.scenarioStarted(Thread.currentThread().getId(), scenario.getName(), context.getScenarioLocation(),
+                System.nanoTime());
+            ReportEvent.ScenarioStarted started = new ReportEvent.ScenarioStarted(scenarioNode, scenario.getName(),
+                scenarioTags, example);
+            if (compact) {
+                // Even the start of the scenario is held back, it is only reported if the scenario fails
+                context.setCompactExample(example);
+                context.holdEvents();
+                context.hold(started);
+                return;
+            }
+            dispatcher.dispatch(started);
+            if (config.getReportLevel() != ReportLevel.FULL) {
+                context.holdEvents();
+            }
+        } finally {
+            timed(ReportingMetrics.Callback.START_OF_SCENARIO, startNanos);
         }
-        scenarioThreadLocal.set(scenarioNode);
     }
 
     public void background(Background background) {
@@ -217,18 +625,123 @@ public class ExtentCucumberFormatter implements Reporter, Formatter {
     }
 
     public void step(Step step) {
-        if (scenarioOutlineFlag) {
-            return;
+        long startNanos = System.nanoTime();
+        try {
+            start();
+            ExecutionContext context = context();
+            if (context.isScenarioOutlineFlag()) {
+                return;
+            }
+            context.getPendingSteps().add(step);
+        } finally {
+            timed(ReportingMetrics.Callback.STEP, startNanos);
         }
-        stepListThreadLocal.get().add(step);
     }
 
     public void endOfScenarioLifeCycle(Scenario scenario) {
-
+        long startNanos = System.nanoTime();
+        try {
+            start();
+            ExecutionContext context = context();
+            durations(context).record(DurationStore.SCENARIO, context.getScenarioName(), context.getScenarioLocation(),
+                context.getScenarioNanos());
+            progress.scenarioFinished(Thread.currentThread().getId(), context.getScenarioStatus());
+            tags.addScenario(context.getFeatureTags(), context.getScenarioTags(), context.getScenarioName(),
+                context.getScenarioLocation(), context.getScenarioStatus());
+            ReportEvent.ExampleRow compactExample = context.getCompactExample();
+            if (history != null && compactExample == null) {
+                // Held along with the scenario if its events are held, for the report level to decide on them
+                for (String note : recordHistory(context)) {
+                    if (context.getScenario() != null) {
+                        report(context, new ReportEvent.Log(context.getScenario(), note));
+                    }
+                }
+            }
+            if (attachments != null && context.isHoldingEvents()) {
+                // The attachments of a scenario whose events are held back are reported along with them
+                context.awaitAttachments();
+            }
+            List<ReportEvent.HookResult> hooks = context.takeHooks();
+            if (!hooks.isEmpty() && context.getScenario() != null) {
+                report(context, new ReportEvent.HooksFinished(context.getScenario(), hooks));
+            }
+            if (compactExample == null) {
+                reportHeldEvents(context, context.takeHeldEvents());
+            } else {
+                boolean reportedInFull = reportCompactExample(context, compactExample);
+                if (history != null) {
+                    // The scenario of a row which did not fail is only a row of the grid, its notes go to the outline
+                    ReportNode node = reportedInFull ? context.getScenario() : context.getScenarioOutline();
+                    String prefix = reportedInFull ? ""
+                        : "Examples row | " + String.join(" | ", compactExample.getRow().getCells()) + " |: ";
+                    for (String note : recordHistory(context)) {
+                        if (node != null) {
+                            dispatcher.dispatch(new ReportEvent.Log(node, prefix + note));
+                        }
+                    }
+                }
+            }
+            flusher.scenarioFinished();
+        } finally {
+            timed(ReportingMetrics.Callback.END_OF_SCENARIO, startNanos);
+        }
     }
 
     public void done() {
-        getExtentReport().flush();
+        long startNanos = System.nanoTime();
+        try {
+            start();
+            if (!formatterDone()) {
+                // The runners still going end the run, the report only gets what this one reported
+                dispatcher.dispatch(new ReportEvent.Flush());
+                dispatcher.drain();
+                return;
+            }
+            // Before the last flush, so no scheduled flush is left to write the report while the JVM exits
+            flusher.stop();
+            if (attachments != null) {
+                attachments.awaitPending();
+            }
+            if (largeTexts != null) {
+                largeTexts.awaitPending();
+            }
+            if (history != null) {
+                try {
+                    history.save();
+                    dispatcher.dispatch(new ReportEvent.TestRunnerOutput(HistorySection.render(
+                        history.recentRuns(HistorySection.TREND_RUNS), history.flakiest(HistorySection.FLAKIEST),
+                        history.regressions())));
+                } catch (IOException e) {
+                    System.err.println("The run history cannot be written: " + e);
+                }
+            }
+            List<FailureClusters.Cluster> clusters = failures.getClusters();
+            if (!clusters.isEmpty()) {
+                dispatcher.dispatch(new ReportEvent.TestRunnerOutput(FailureClusterSection.render(clusters)));
+            }
+            TagIndex.Snapshot index = tags.snapshot();
+            if (!index.getCategories().isEmpty() || !config.getTagFilters().isEmpty()) {
+                dispatcher.dispatch(new ReportEvent.TestRunnerOutput(TagSection.render(index,
+                    config.getTagFilters())));
+            }
+            int topN = config.getPerformanceTopN();
+            if (topN > 0) {
+                dispatcher.dispatch(new ReportEvent.TestRunnerOutput(
+                    PerformanceSection.render(durations.snapshot(), topN)));
+            }
+            dispatcher.dispatch(new ReportEvent.Flush());
+            // Drains the queues and stops the threads of the asynchronous dispatchers
+            dispatcher.shutdown();
+            endRun();
+            if (metrics != null && metrics.getDiscardedEvents() > 0) {
+                System.err.println(metrics.getDiscardedEvents() + " report events were discarded because the async "
+                    + "queue was full, the report is missing some nodes. Raise the async queue size or use the "
+                    + "BLOCK backpressure policy.");
+            }
+        } finally {
+            timed(ReportingMetrics.Callback.DONE, startNanos);
+        }
+        writeReportingMetrics();
     }
 
     public void close() {
@@ -236,74 +749,336 @@ public class ExtentCucumberFormatter implements Reporter, Formatter {
     }
 
     public void eof() {
-
+        long startNanos = System.nanoTime();
+        try {
+            start();
+            ExecutionContext context = executionContexts.remove(Thread.currentThread().getId());
+            if (context != null && attachments != null
+                && (config.getOutputMode() != OutputMode.EXTENT || klovBatchWriter != null
+                || !config.getOutputSinks().isEmpty())) {
+                // The feature is dropped from memory once it is written, its attachments have to be linked by then
+                context.awaitAttachments();
+            }
+            if (context != null && context.getFeature() != null) {
+                reportExampleResults(context);
+                dispatcher.dispatch(new ReportEvent.FeatureFinished(context.getFeature()));
+            }
+            progress.featureFinished();
+            flusher.featureFinished();
+        } finally {
+            timed(ReportingMetrics.Callback.EOF, startNanos);
+        }
     }
 
     public void before(Match match, Result result) {
-
+        recordHook(true, match, result);
     }
 
     public void result(Result result) {
-        if (scenarioOutlineFlag) {
-            return;
-        }
-
-        if (Result.PASSED.equals(result.getStatus())) {
-            stepTestThreadLocal.get().pass(Result.PASSED);
-        } else if (Result.FAILED.equals(result.getStatus())) {
-            stepTestThreadLocal.get().fail(result.getError());
-        } else if (Result.SKIPPED.equals(result)) {
-            stepTestThreadLocal.get().skip(Result.SKIPPED.getStatus());
-        } else if (Result.UNDEFINED.equals(result)) {
-            stepTestThreadLocal.get().skip(Result.UNDEFINED.getStatus());
+        long startNanos = System.nanoTime();
+        try {
+            start();
+            ExecutionContext context = context();
+            if (context.isScenarioOutlineFlag() || context.getStep() == null) {
+                return;
+            }
+            if (result.getDuration() != null) {
+                durations(context).record(DurationStore.STEP, context.getStepName(), context.getStepLocation(),
+                    result.getDuration());
+                context.addScenarioNanos(result.getDuration());
+            }
+            context.updateScenarioStatus(result.getStatus());
+            progress.stepFinished(result.getStatus());
+            long nanos = result.getDuration() == null ? 0 : result.getDuration();
+            Throwable error = result.getError();
+            if (error == null) {
+                report(context, new ReportEvent.StepFinished(context.getStep(), result.getStatus(), null, nanos, null,
+                    0));
+                return;
+            }
+            FailureClusters.Cluster cluster = failures.clusterOf(error);
+            int occurrence = cluster.add(context.getUri() + ": " + context.getScenarioName());
+            report(context, new ReportEvent.StepFinished(context.getStep(), result.getStatus(), error, nanos, cluster,
+                occurrence));
+        } finally {
+            timed(ReportingMetrics.Callback.RESULT, startNanos);
         }
     }
 
     public void after(Match match, Result result) {
-
+        recordHook(false, match, result);
     }
 
     public void match(Match match) {
-        Step step = stepListThreadLocal.get().poll();
-        String data[][] = null;
-        if (step.getRows() != null) {
-            List<DataTableRow> rows = step.getRows();
-            int rowSize = rows.size();
-            for (int i = 0; i < rowSize; i++) {
-                DataTableRow dataTableRow = rows.get(i);
-                List<String> cells = dataTableRow.getCells();
-                int cellSize = cells.size();
-                if (data == null) {
-                    data = new String[rowSize][cellSize];
-                }
-                for (int j = 0; j < cellSize; j++) {
-                    data[i][j] = cells.get(j);
-                }
+        long startNanos = System.nanoTime();
+        try {
+            start();
+            ExecutionContext context = context();
+            Step step = context.getPendingSteps().poll();
+            if (step == null) {
+                // A match without a step listed before it, there is nothing to report it against
+                context.setStep(null);
+                return;
             }
+            ReportNode stepNode = new ReportNode(context.getScenario());
+            context.setStep(stepNode);
+            context.setStepTiming(step.getKeyword() + step.getName(), match.getLocation());
+            report(context, new ReportEvent.StepStarted(stepNode, step.getKeyword(), step.getName(),
+                step.getRows()));
+        } finally {
+            timed(ReportingMetrics.Callback.MATCH, startNanos);
         }
+    }
 
-        ExtentTest scenarioTest = scenarioThreadLocal.get();
-        ExtentTest stepTest = null;
+    public void embedding(String mimeType, byte[] data) {
+        long startNanos = System.nanoTime();
+        try {
+            start();
+            if (attachments == null || data == null) {
+                return;
+            }
+            // Embeddings usually come from an after hook, once the last step has run. The steps held back
+            // are only created once the scenario ends, so meanwhile the embeddings go to the scenario.
+            ExecutionContext context = context();
+            boolean stepCreated = config.getReportLevel() == ReportLevel.FULL;
+            ReportNode node = context.getStep() != null && stepCreated ? context.getStep() : context.getScenario();
+            if (node != null) {
+                attachments.store(context, context.getScenario(), node, mimeType, data);
+            }
+        } finally {
+            timed(ReportingMetrics.Callback.EMBEDDING, startNanos);
+        }
+    }
 
+    public void write(String text) {
+        long startNanos = System.nanoTime();
         try {
-            stepTest = scenarioTest.createNode(new GherkinKeyword(step.getKeyword()), step.getKeyword() + step.getName());
-        } catch (ClassNotFoundException e) {
-            e.printStackTrace();
+            start();
+            ExecutionContext context = context();
+            // Written by a step, or by a hook before the first step
+            ReportNode node = context.getStep() != null ? context.getStep() : context.getScenario();
+            if (node != null && text != null) {
+                report(context, context.log(node, text));
+            }
+        } finally {
+            timed(ReportingMetrics.Callback.WRITE, startNanos);
         }
+    }
 
-        if (data != null) {
-            Markup table = MarkupHelper.createTable(data);
-            stepTest.info(table);
+    /**
+     * Gets the buffer the durations of the feature file of the given context are recorded into
+     */
+    private DurationStore.Buffer durations(ExecutionContext context) {
+        DurationStore.Buffer buffer = context.getDurations();
+        if (buffer == null) {
+            buffer = durations.newBuffer();
+            context.setDurations(buffer);
         }
+        return buffer;
+    }
 
-        stepTestThreadLocal.set(stepTest);
+    private void timed(ReportingMetrics.Callback callback, long startNanos) {
+        if (metrics != null) {
+            metrics.timed(callback, startNanos);
+        }
     }
 
-    public void embedding(String mimeType, byte[] data) {
+    /**
+     * Dispatches an event of the current scenario, unless the events of the scenario are held back
+     */
+    private void report(ExecutionContext context, ReportEvent event) {
+        if (!context.hold(event)) {
+            dispatcher.dispatch(event);
+        }
+    }
 
+    /**
+     * Reports the events held back for the scenario which just ended, as far as the report level wants them
+     */
+    private void reportHeldEvents(ExecutionContext context, List<ReportEvent> events) {
+        ReportLevel level = config.getReportLevel();
+        ReportNode scenario = context.getScenario();
+        if (scenario == null) {
+            return;
+        }
+        if (level == ReportLevel.FULL) {
+            for (ReportEvent event : events) {
+                dispatcher.dispatch(event);
+            }
+            return;
+        }
+        boolean passed = context.getScenarioStatus() == RunHistory.PASSED;
+        if (!passed && level == ReportLevel.FAILURES_ONLY_DETAIL) {
+            for (ReportEvent event : events) {
+                dispatcher.dispatch(event);
+            }
+            return;
+        }
+        ScenarioOutcome outcome = new ScenarioOutcome();
+        for (ReportEvent event : events) {
+            event.accept(outcome);
+        }
+        for (ReportEvent.AuthorAssigned authors : outcome.authors) {
+            dispatcher.dispatch(authors);
+        }
+        if (passed) {
+            dispatcher.dispatch(new ReportEvent.Log(scenario, outcome.steps + " steps passed in "
+                + PerformanceSection.millis(context.getScenarioNanos())));
+            return;
+        }
+        if (outcome.failedStep != null) {
+            dispatcher.dispatch(new ReportEvent.Log(scenario, Html.escape(outcome.failedStep)));
+        }
+        if (outcome.failure != null) {
+            ReportEvent.StepFinished failure = outcome.failure;
+            dispatcher.dispatch(new ReportEvent.StepFinished(scenario, failure.getStatus(), failure.getError(),
+                failure.getDurationNanos(), failure.getCluster(), failure.getOccurrence()));
+        }
     }
 
-    public void write(String text) {
+    /**
+     * Records the result of a hook. The hooks are only reported when their scenario ends, so that
+     * a scenario with many hooks costs a single event.
+     */
+    private void recordHook(boolean before, Match match, Result result) {
+        long startNanos = System.nanoTime();
+        try {
+            start();
+            ExecutionContext context = context();
+            String location = match.getLocation();
+            long nanos = result.getDuration() == null ? 0 : result.getDuration();
+            if (result.getDuration() != null) {
+                durations(context).record(DurationStore.HOOK, location, location, nanos);
+                context.addScenarioNanos(nanos);
+            }
+            context.updateScenarioStatus(result.getStatus());
+            context.addHook(new ReportEvent.HookResult(before, location, result.getStatus(), nanos, result.getError()));
+        } finally {
+            timed(ReportingMetrics.Callback.HOOK, startNanos);
+        }
+    }
+
+    /**
+     * Reports the scenario of a row of a compact examples table which just ended: as a row of the grid of
+     * results if it did not fail, and also in full if it failed
+     * @return true if the scenario was reported in full
+     */
+    private boolean reportCompactExample(ExecutionContext context, ReportEvent.ExampleRow example) {
+        List<ReportEvent> events = context.takeHeldEvents();
+        ScenarioOutcome outcome = new ScenarioOutcome();
+        for (ReportEvent event : events) {
+            event.accept(outcome);
+        }
+        String status = outcome.failure == null ? Result.PASSED : outcome.failure.getStatus();
+        String failure = null;
+        boolean failed = Result.FAILED.equals(status);
+        if (failed) {
+            failure = outcome.headline();
+            // The first held event is the start of the scenario
+            dispatcher.dispatch(events.get(0));
+            reportHeldEvents(context, events.subList(1, events.size()));
+        }
+        context.addExampleResult(example, new ReportEvent.ExampleResult(example.getRow(), status,
+            context.getScenarioNanos(), failure));
+        return failed;
+    }
+
+    private void reportExampleResults(ExecutionContext context) {
+        ReportEvent.ExampleResults results = context.takeExampleResults();
+        if (results != null) {
+            dispatcher.dispatch(results);
+        }
+    }
 
+    /**
+     * Adds the scenario which just ended to the run history
+     * @return What the history tells on the scenario, if it is flaky or slower than usual
+     */
+    private List<String> recordHistory(ExecutionContext context) {
+        RunHistory.Verdict verdict = history.record(context.getUri(), context.getScenarioLine(),
+            context.getScenarioName(), context.getScenarioStatus(), context.getScenarioNanos());
+        RunHistory.ScenarioHistory scenario = verdict.getScenario();
+        List<String> notes = new ArrayList<>(2);
+        if (scenario.getFlakiness() > 0) {
+            notes.add(String.format(Locale.ROOT, "Flaky: %d%% of the last results changed status (%s)",
+                Math.round(scenario.getFlakiness() * 100), scenario.getRecentResults()));
+        }
+        if (verdict.isRegression()) {
+            notes.add("Slower than usual: " + PerformanceSection.millis(verdict.getNanos()) + " against "
+                + PerformanceSection.millis(verdict.getUsualNanos()));
+        }
+        return notes;
+    }
+
+    /**
+     * Finds the number of steps of a scenario and the step or hook which failed, if any
+     */
+    private static final class ScenarioOutcome implements ReportEventHandler {
+        private final Map<ReportNode, String> stepNames = new HashMap<>();
+        private final List<ReportEvent.AuthorAssigned> authors = new ArrayList<>(1);
+        private int steps;
+        private String failedStep;
+        private ReportEvent.StepFinished failure;
+
+        @Override
+        public void onStepStarted(ReportEvent.StepStarted event) {
+            stepNames.put(event.getNode(), event.getKeyword() + event.getName());
+        }
+
+        @Override
+        public void onStepFinished(ReportEvent.StepFinished event) {
+            steps++;
+            String status = event.getStatus();
+            if (!Result.PASSED.equals(status) && (failure == null
+                || Result.FAILED.equals(status) && !Result.FAILED.equals(failure.getStatus()))) {
+                failure = event;
+                failedStep = stepNames.get(event.getNode());
+            }
+        }
+
+        @Override
+        public void onAuthorAssigned(ReportEvent.AuthorAssigned event) {
+            authors.add(event);
+        }
+
+        @Override
+        public void onHooksFinished(ReportEvent.HooksFinished event) {
+            for (ReportEvent.HookResult hook : event.getHooks()) {
+                if (Result.FAILED.equals(hook.getStatus())
+                    && (failure == null || !Result.FAILED.equals(failure.getStatus()))) {
+                    failure = new ReportEvent.StepFinished(event.getNode(), hook.getStatus(), hook.getError(),
+                        hook.getDurationNanos(), null, 0);
+                    failedStep = (hook.isBefore() ? "Before " : "After ") + hook.getLocation();
+                }
+            }
+        }
+
+        /**
+         * Gets the step or hook which did not pass, with the first line of its error
+         */
+        String headline() {
+            Throwable error = failure == null ? null : failure.getError();
+            if (error == null) {
+                return failedStep;
+            }
+            String message = error.toString();
+            int newline = message.indexOf('\n');
+            message = newline < 0 ? message : message.substring(0, newline);
+            return failedStep == null ? message : failedStep + ": " + message;
+        }
+    }
+
+    /**
+     * Gets the names of the given tags, each name being the single instance the tag index keeps of it
+     */
+    private List<String> tagNames(List<Tag> tags) {
+        if (tags.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> names = new ArrayList<>(tags.size());
+        for (Tag tag : tags) {
+            names.add(this.tags.intern(tag.getName()));
+        }
+        return names;
     }
 }
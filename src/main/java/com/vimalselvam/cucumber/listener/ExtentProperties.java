@@ -1,12 +1,44 @@
 package com.vimalselvam.cucumber.listener;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.function.Consumer;
 
 /**
- * An enum which holds the properties to be set for extent reporter
+ * An enum which holds the properties to be set for extent reporter.
+ * <p>
+ * Besides the setters, every property can be given by a configuration file, an environment variable or a
+ * system property. A system property wins over an environment variable, which wins over the configuration
+ * file, which wins over the default; a setter called afterwards wins over all of them. The reporting reads
+ * the properties once, when the first cucumber event arrives.
  */
 public enum ExtentProperties {
     INSTANCE;
+    /**
+     * The system property, or the environment variable in upper case, naming the configuration file
+     */
+    private static final String CONFIG_FILE = "extent.config";
+    /**
+     * The configuration file looked up on the classpath when none is named
+     */
+    private static final String CONFIG_RESOURCE = "extent.properties";
+    private static final String SYSTEM_PROPERTY_PREFIX = "extent.";
+    private static final String ENVIRONMENT_PREFIX = "EXTENT_";
     private String reportPath;
     private String extentXServerUrl;
     private String projectName;
@@ -20,18 +52,208 @@ public enum ExtentProperties {
     private String mongodbDatabase;
     private String mongodbUsername;
     private String mongodbPassword;
+    private int klovBatchSize;
+    private long klovLingerMillis;
+
+    //Async reporting properties
+    private boolean asyncReporting;
+    private int asyncQueueSize;
+    private BackpressurePolicy backpressurePolicy;
+
+    //Flush policy properties
+    private int flushEveryScenarios;
+    private long flushIntervalSeconds;
+    private boolean flushOnFeatureEnd;
+    private OutputMode outputMode;
+    private Set<OutputSink> outputSinks;
+    private long journalSyncMillis;
+    private boolean keepJournal;
+    private String shardName;
+
+    //Attachment properties
+    private int attachmentThreads;
+    private int attachmentMaxWidth;
+    private int performanceTopN;
+    private String historyPath;
+    private ReportLevel reportLevel;
+    private int compactOutlineRows;
+    private int largeLogChars;
+
+    //Progress endpoint properties
+    private int progressPort;
+    private String progressHost;
+
+    private List<String> tagFilters;
+
+    //Self instrumentation properties
+    private boolean reportingMetrics;
 
     ExtentProperties() {
-        this.reportPath = "output" + File.separator + "Run_" + System.currentTimeMillis() + File.separator
-                + "report.html";
         this.projectName = "default";
+        this.asyncQueueSize = 8192;
+        this.backpressurePolicy = BackpressurePolicy.BLOCK;
+        this.outputMode = OutputMode.EXTENT;
+        this.outputSinks = EnumSet.noneOf(OutputSink.class);
+        this.journalSyncMillis = 1000;
+        this.attachmentThreads = 2;
+        this.klovLingerMillis = 1000;
+        this.performanceTopN = 10;
+        this.reportLevel = ReportLevel.FULL;
+        this.progressPort = -1;
+        this.progressHost = "localhost";
+        this.tagFilters = Collections.emptyList();
+        configure(readConfigFile(System.getProperty(CONFIG_FILE, System.getenv(configEnvironmentVariable()))),
+            System.getenv(), System.getProperties());
+    }
+
+    /**
+     * Applies the properties given outside the code, a system property over an environment variable over
+     * the configuration file. An invalid value is reported and leaves the property as it was.
+     * @param file The properties of the configuration file, by name
+     * @param environment The environment variables, EXTENT_REPORT_PATH for the reportPath property
+     * @param systemProperties The system properties, extent.reportPath for the reportPath property
+     */
+    void configure(Properties file, Map<String, String> environment, Properties systemProperties) {
+        for (Map.Entry<String, Consumer<String>> setting : settings().entrySet()) {
+            String name = setting.getKey();
+            String value = systemProperties.getProperty(SYSTEM_PROPERTY_PREFIX + name);
+            if (value == null) {
+                value = environment.get(environmentVariable(name));
+            }
+            if (value == null) {
+                value = file.getProperty(name);
+            }
+            if (value == null || value.trim().isEmpty()) {
+                continue;
+            }
+            try {
+                setting.getValue().accept(value.trim());
+            } catch (IllegalArgumentException e) {
+                System.err.println("Ignoring the invalid extent property " + name + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * The setters of the properties which can be given outside the code, by property name
+     */
+    private Map<String, Consumer<String>> settings() {
+        Map<String, Consumer<String>> settings = new LinkedHashMap<>();
+        settings.put("reportPath", this::setReportPath);
+        settings.put("extentXServerUrl", this::setExtentXServerUrl);
+        settings.put("projectName", this::setProjectName);
+        settings.put("klovServerUrl", this::setKlovServerUrl);
+        settings.put("klovProjectName", this::setKlovProjectName);
+        settings.put("klovReportName", this::setKlovReportName);
+        settings.put("mongodbHost", this::setMongodbHost);
+        settings.put("mongodbPort", value -> setMongodbPort(Integer.parseInt(value)));
+        settings.put("mongodbDatabase", this::setMongodbDatabase);
+        settings.put("mongodbUsername", this::setMongodbUsername);
+        settings.put("mongodbPassword", this::setMongodbPassword);
+        settings.put("klovBatchSize", value -> setKlovBatchSize(Integer.parseInt(value)));
+        settings.put("klovLingerMillis", value -> setKlovLingerMillis(Long.parseLong(value)));
+        settings.put("asyncReporting", value -> setAsyncReporting(parseBoolean(value)));
+        settings.put("asyncQueueSize", value -> setAsyncQueueSize(Integer.parseInt(value)));
+        settings.put("backpressurePolicy", value -> setBackpressurePolicy(
+            BackpressurePolicy.valueOf(value.toUpperCase(Locale.ROOT))));
+        settings.put("flushEveryScenarios", value -> setFlushEveryScenarios(Integer.parseInt(value)));
+        settings.put("flushIntervalSeconds", value -> setFlushIntervalSeconds(Long.parseLong(value)));
+        settings.put("flushOnFeatureEnd", value -> setFlushOnFeatureEnd(parseBoolean(value)));
+        settings.put("outputMode", value -> setOutputMode(OutputMode.valueOf(value.toUpperCase(Locale.ROOT))));
+        settings.put("outputSinks", value -> setOutputSinks(parseOutputSinks(value)));
+        settings.put("journalSyncMillis", value -> setJournalSyncMillis(Long.parseLong(value)));
+        settings.put("keepJournal", value -> setKeepJournal(parseBoolean(value)));
+        settings.put("shardName", this::setShardName);
+        settings.put("attachmentThreads", value -> setAttachmentThreads(Integer.parseInt(value)));
+        settings.put("attachmentMaxWidth", value -> setAttachmentMaxWidth(Integer.parseInt(value)));
+        settings.put("performanceTopN", value -> setPerformanceTopN(Integer.parseInt(value)));
+        settings.put("historyPath", this::setHistoryPath);
+        settings.put("reportLevel", value -> setReportLevel(ReportLevel.valueOf(value.toUpperCase(Locale.ROOT))));
+        settings.put("compactOutlineRows", value -> setCompactOutlineRows(Integer.parseInt(value)));
+        settings.put("largeLogChars", value -> setLargeLogChars(Integer.parseInt(value)));
+        settings.put("progressPort", value -> setProgressPort(Integer.parseInt(value)));
+        settings.put("progressHost", this::setProgressHost);
+        settings.put("tagFilters", value -> setTagFilters(value.split(";")));
+        settings.put("reportingMetrics", value -> setReportingMetrics(parseBoolean(value)));
+        return settings;
+    }
+
+    private static boolean parseBoolean(String value) {
+        if (!"true".equalsIgnoreCase(value) && !"false".equalsIgnoreCase(value)) {
+            throw new IllegalArgumentException("expected true or false but was " + value);
+        }
+        return Boolean.parseBoolean(value);
+    }
+
+    private static OutputSink[] parseOutputSinks(String value) {
+        String[] names = value.split(",");
+        OutputSink[] sinks = new OutputSink[names.length];
+        for (int i = 0; i < names.length; i++) {
+            sinks[i] = OutputSink.valueOf(names[i].trim().toUpperCase(Locale.ROOT));
+        }
+        return sinks;
+    }
+
+    /**
+     * Gets the environment variable of a property: the property name in upper snake case, prefixed with EXTENT_
+     */
+    static String environmentVariable(String name) {
+        StringBuilder variable = new StringBuilder(ENVIRONMENT_PREFIX);
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (Character.isUpperCase(c)) {
+                variable.append('_');
+            }
+            variable.append(Character.toUpperCase(c));
+        }
+        return variable.toString();
+    }
+
+    private static String configEnvironmentVariable() {
+        return CONFIG_FILE.replace('.', '_').toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Reads the configuration file. A file of flat {@code key: value} lines, as written in YAML, is read as
+     * well, the quotes around the values being removed.
+     * @param path The path of the file, null to look for extent.properties on the classpath
+     * @return The properties of the file, none if there is no file
+     */
+    static Properties readConfigFile(String path) {
+        Properties properties = new Properties();
+        ClassLoader classLoader = ExtentProperties.class.getClassLoader();
+        try (InputStream in = path == null ? classLoader.getResourceAsStream(CONFIG_RESOURCE)
+            : Files.newInputStream(Paths.get(path))) {
+            if (in == null) {
+                return properties;
+            }
+            try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+                properties.load(reader);
+            }
+        } catch (IOException e) {
+            System.err.println("The extent configuration file " + path + " cannot be read: " + e);
+            return properties;
+        }
+        for (String name : properties.stringPropertyNames()) {
+            String value = properties.getProperty(name).trim();
+            if (value.length() > 1 && (value.charAt(0) == '"' || value.charAt(0) == '\'')
+                && value.charAt(value.length() - 1) == value.charAt(0)) {
+                properties.setProperty(name, value.substring(1, value.length() - 1));
+            }
+        }
+        return properties;
     }
 
     /**
      * Gets the report path
-     * @return The report path
+     * @return The report path, output/Run_&lt;time&gt;/report.html by default
      */
-    public String getReportPath() {
+    public synchronized String getReportPath() {
+        if (reportPath == null) {
+            // Named after the time the report is first asked for, which is the time the run starts
+            reportPath = "output" + File.separator + "Run_" + System.currentTimeMillis() + File.separator
+                + "report.html";
+        }
         return reportPath;
     }
 
@@ -39,7 +261,7 @@ public enum ExtentProperties {
      * Sets the report path
      * @param reportPath The report path value
      */
-    public void setReportPath(String reportPath) {
+    public synchronized void setReportPath(String reportPath) {
         this.reportPath = reportPath;
     }
 
@@ -206,4 +428,427 @@ public enum ExtentProperties {
     public void setMongodbPassword(String mongodbPassword) {
         this.mongodbPassword = mongodbPassword;
     }
+
+    /**
+     * Gets the number of events written to Klov at once by a background thread
+     * @return The Klov batch size, 0 if the events are written to Klov straight away
+     */
+    public int getKlovBatchSize() {
+        return klovBatchSize;
+    }
+
+    /**
+     * Sets the number of events written to Klov at once by the background thread which writes Klov. While Klov
+     * cannot be reached, the events are spooled next to the report and written once it is back.
+     * Must be set before the first cucumber runner is started.
+     * @param klovBatchSize The Klov batch size, 0 to write every event as soon as it arrives
+     */
+    public void setKlovBatchSize(int klovBatchSize) {
+        this.klovBatchSize = klovBatchSize;
+    }
+
+    /**
+     * Gets how long a batch of Klov events waits to fill up before being written anyway
+     * @return The Klov linger time in milliseconds
+     */
+    public long getKlovLingerMillis() {
+        return klovLingerMillis;
+    }
+
+    /**
+     * Sets how long a batch of Klov events waits to fill up before being written anyway
+     * @param klovLingerMillis The Klov linger time in milliseconds
+     */
+    public void setKlovLingerMillis(long klovLingerMillis) {
+        this.klovLingerMillis = klovLingerMillis;
+    }
+
+    /**
+     * Gets if the report is built asynchronously on a separate thread
+     * @return true if the report is built asynchronously
+     */
+    public boolean isAsyncReporting() {
+        return asyncReporting;
+    }
+
+    /**
+     * Sets if the report should be built asynchronously on a separate thread.
+     * Must be set before the first cucumber runner is started.
+     * @param asyncReporting true to build the report asynchronously
+     */
+    public void setAsyncReporting(boolean asyncReporting) {
+        this.asyncReporting = asyncReporting;
+    }
+
+    /**
+     * Gets the maximum number of report events waiting to be built in async mode
+     * @return The async queue size
+     */
+    public int getAsyncQueueSize() {
+        return asyncQueueSize;
+    }
+
+    /**
+     * Sets the maximum number of report events waiting to be built in async mode
+     * @param asyncQueueSize The async queue size
+     */
+    public void setAsyncQueueSize(int asyncQueueSize) {
+        this.asyncQueueSize = asyncQueueSize;
+    }
+
+    /**
+     * Gets what happens when the async queue is full
+     * @return The backpressure policy
+     */
+    public BackpressurePolicy getBackpressurePolicy() {
+        return backpressurePolicy;
+    }
+
+    /**
+     * Sets what happens when the async queue is full
+     * @param backpressurePolicy The backpressure policy
+     */
+    public void setBackpressurePolicy(BackpressurePolicy backpressurePolicy) {
+        this.backpressurePolicy = backpressurePolicy;
+    }
+
+    /**
+     * Gets the number of finished scenarios after which the report is flushed
+     * @return The number of scenarios, 0 if disabled
+     */
+    public int getFlushEveryScenarios() {
+        return flushEveryScenarios;
+    }
+
+    /**
+     * Sets the number of finished scenarios after which the report is flushed while the run is going.
+     * The report is always flushed at the end of the run.
+     * @param flushEveryScenarios The number of scenarios, 0 to disable
+     */
+    public void setFlushEveryScenarios(int flushEveryScenarios) {
+        this.flushEveryScenarios = flushEveryScenarios;
+    }
+
+    /**
+     * Gets the interval in seconds at which the report is flushed
+     * @return The interval in seconds, 0 if disabled
+     */
+    public long getFlushIntervalSeconds() {
+        return flushIntervalSeconds;
+    }
+
+    /**
+     * Sets the interval in seconds at which the report is flushed while the run is going
+     * @param flushIntervalSeconds The interval in seconds, 0 to disable
+     */
+    public void setFlushIntervalSeconds(long flushIntervalSeconds) {
+        this.flushIntervalSeconds = flushIntervalSeconds;
+    }
+
+    /**
+     * Gets if the report is flushed at the end of each feature
+     * @return true if the report is flushed at the end of each feature
+     */
+    public boolean isFlushOnFeatureEnd() {
+        return flushOnFeatureEnd;
+    }
+
+    /**
+     * Sets if the report should be flushed at the end of each feature
+     * @param flushOnFeatureEnd true to flush the report at the end of each feature
+     */
+    public void setFlushOnFeatureEnd(boolean flushOnFeatureEnd) {
+        this.flushOnFeatureEnd = flushOnFeatureEnd;
+    }
+
+    /**
+     * Gets the way the report is written to disk
+     * @return The output mode
+     */
+    public OutputMode getOutputMode() {
+        return outputMode;
+    }
+
+    /**
+     * Sets the way the report is written to disk.
+     * Must be set before the first cucumber runner is started.
+     * @param outputMode The output mode
+     */
+    public void setOutputMode(OutputMode outputMode) {
+        this.outputMode = outputMode == null ? OutputMode.EXTENT : outputMode;
+    }
+
+    /**
+     * Gets the outputs written next to the report
+     * @return The output sinks, none by default
+     */
+    public Set<OutputSink> getOutputSinks() {
+        return Collections.unmodifiableSet(EnumSet.copyOf(outputSinks));
+    }
+
+    /**
+     * Sets the outputs written next to the report, from the same events as the report. The JSONL and JUnit XML
+     * outputs are each written by a thread of its own, from a queue of {@link #getAsyncQueueSize()} events which
+     * follows the {@link #getBackpressurePolicy()}. The journal is appended to by the thread which reports the
+     * event. Must be set before the first cucumber runner is started.
+     * @param outputSinks The output sinks, none to only write the report
+     */
+    public void setOutputSinks(OutputSink... outputSinks) {
+        Set<OutputSink> sinks = EnumSet.noneOf(OutputSink.class);
+        Collections.addAll(sinks, outputSinks);
+        this.outputSinks = sinks;
+    }
+
+    /**
+     * Gets the interval at which the journal of {@link OutputSink#JOURNAL} is forced to disk
+     * @return The interval in milliseconds, 0 if the journal is only forced to disk when the report is flushed
+     */
+    public long getJournalSyncMillis() {
+        return journalSyncMillis;
+    }
+
+    /**
+     * Sets the interval at which the journal of {@link OutputSink#JOURNAL} is forced to disk. The journal
+     * survives the JVM being killed either way, forcing it to disk makes it survive the machine crashing.
+     * @param journalSyncMillis The interval in milliseconds, 0 to only force the journal to disk when the
+     * report is flushed
+     */
+    public void setJournalSyncMillis(long journalSyncMillis) {
+        this.journalSyncMillis = journalSyncMillis;
+    }
+
+    /**
+     * Gets if the journal of {@link OutputSink#JOURNAL} is kept when the run completes
+     * @return true if the journal is kept, false if it is deleted once the report is written
+     */
+    public boolean isKeepJournal() {
+        return keepJournal;
+    }
+
+    /**
+     * Sets if the journal of {@link OutputSink#JOURNAL} should be kept when the run completes. The journal is
+     * only needed to recover the report of a run which did not complete, so it is deleted by default.
+     * @param keepJournal true to keep the journal
+     */
+    public void setKeepJournal(boolean keepJournal) {
+        this.keepJournal = keepJournal;
+    }
+
+    /**
+     * Gets the number of threads which store the embedded attachments
+     * @return The number of attachment threads
+     */
+    public int getAttachmentThreads() {
+        return attachmentThreads;
+    }
+
+    /**
+     * Sets the number of threads which store the embedded attachments
+     * @param attachmentThreads The number of attachment threads
+     */
+    public void setAttachmentThreads(int attachmentThreads) {
+        this.attachmentThreads = attachmentThreads;
+    }
+
+    /**
+     * Gets the width embedded images are scaled down to
+     * @return The maximum image width in pixels, 0 if images are kept as they are
+     */
+    public int getAttachmentMaxWidth() {
+        return attachmentMaxWidth;
+    }
+
+    /**
+     * Sets the width embedded images wider than it are scaled down to
+     * @param attachmentMaxWidth The maximum image width in pixels, 0 to keep images as they are
+     */
+    public void setAttachmentMaxWidth(int attachmentMaxWidth) {
+        this.attachmentMaxWidth = attachmentMaxWidth;
+    }
+
+    /**
+     * Gets the name of the shard file written in {@link OutputMode#SHARD} mode
+     * @return The shard name or null to name the shard after the process id and host
+     */
+    public String getShardName() {
+        return shardName;
+    }
+
+    /**
+     * Sets the name of the shard file written in {@link OutputMode#SHARD} mode, which must be unique
+     * among the JVMs of the run
+     * @param shardName The shard name or null to name the shard after the process id and host
+     */
+    public void setShardName(String shardName) {
+        this.shardName = shardName;
+    }
+
+    /**
+     * Gets the number of slowest steps, scenarios and step definitions shown in the performance section
+     * @return The number of rows of each performance table, 0 if there is no performance section
+     */
+    public int getPerformanceTopN() {
+        return performanceTopN;
+    }
+
+    /**
+     * Sets the number of slowest steps, scenarios and step definitions shown in the performance section,
+     * which is added to the test runner output at the end of the run
+     * @param performanceTopN The number of rows of each performance table, 0 for no performance section
+     */
+    public void setPerformanceTopN(int performanceTopN) {
+        this.performanceTopN = performanceTopN;
+    }
+
+    /**
+     * Gets the directory the history of the runs is kept in
+     * @return The history directory or null if no history is kept
+     */
+    public String getHistoryPath() {
+        return historyPath;
+    }
+
+    /**
+     * Sets the directory the history of the runs is kept in. The history adds the trend of the last runs, the
+     * flaky scenarios and the scenarios slower than usual to the report. It has to outlive the report
+     * directory, which is a new one for every run by default.
+     * @param historyPath The history directory, null to keep no history
+     */
+    public void setHistoryPath(String historyPath) {
+        this.historyPath = historyPath;
+    }
+
+    /**
+     * Gets how much of a scenario is reported
+     * @return The report level
+     */
+    public ReportLevel getReportLevel() {
+        return reportLevel;
+    }
+
+    /**
+     * Sets how much of a scenario is reported. Below {@link ReportLevel#FULL}, the steps of a scenario are held
+     * back until the scenario ends, and are only reported if it did not pass.
+     * @param reportLevel The report level
+     */
+    public void setReportLevel(ReportLevel reportLevel) {
+        this.reportLevel = reportLevel;
+    }
+
+    /**
+     * Gets the number of rows from which an examples table is reported compactly
+     * @return The number of rows, 0 if the examples tables are never reported compactly
+     */
+    public int getCompactOutlineRows() {
+        return compactOutlineRows;
+    }
+
+    /**
+     * Sets the number of rows from which an examples table is reported compactly: its rows are reported as a
+     * grid of results on the scenario outline, and only the rows which failed are reported as scenarios with
+     * their steps. Smaller examples tables are reported with a scenario per row.
+     * @param compactOutlineRows The number of rows, 0 to never report an examples table compactly
+     */
+    public void setCompactOutlineRows(int compactOutlineRows) {
+        this.compactOutlineRows = compactOutlineRows;
+    }
+
+    /**
+     * Gets the number of characters above which a logged text is stored aside
+     * @return The number of characters, 0 if the logged texts are always kept in the report
+     */
+    public int getLargeLogChars() {
+        return largeLogChars;
+    }
+
+    /**
+     * Sets the number of characters above which a text logged by a step, with {@link Reporter#addStepLog(String)}
+     * or cucumber's {@code scenario.write}, is stored aside: it is written gzipped to a logs directory next to the
+     * report, and the report only keeps its first characters with a link to the full text.
+     * @param largeLogChars The number of characters, 0 to always keep the logged texts in the report
+     */
+    public void setLargeLogChars(int largeLogChars) {
+        this.largeLogChars = largeLogChars;
+    }
+
+    /**
+     * Gets the port the progress of the run is served on while it runs
+     * @return The port, 0 for any free port, -1 if the progress is not served
+     */
+    public int getProgressPort() {
+        return progressPort;
+    }
+
+    /**
+     * Sets the port the progress of the run is served on while it runs, as json at {@code /progress}: the
+     * finished features, scenarios and steps with their statuses, the steps per second, the slowest running
+     * scenario and, with a {@link #getHistoryPath()}, an estimate of the time left.
+     * @param progressPort The port, 0 for any free port, which is printed when the run starts, -1 to not serve
+     * the progress
+     */
+    public void setProgressPort(int progressPort) {
+        this.progressPort = progressPort;
+    }
+
+    /**
+     * Gets the host name or address the progress of the run is served on
+     * @return The host, localhost by default
+     */
+    public String getProgressHost() {
+        return progressHost;
+    }
+
+    /**
+     * Sets the host name or address the progress of the run is served on. The default localhost only lets the
+     * machine running the tests see it, 0.0.0.0 lets any machine see it.
+     * @param progressHost The host
+     */
+    public void setProgressHost(String progressHost) {
+        this.progressHost = progressHost;
+    }
+
+    /**
+     * Gets the tag expressions whose scenarios are listed at the end of the run
+     * @return The tag expressions, none by default
+     */
+    public List<String> getTagFilters() {
+        return tagFilters;
+    }
+
+    /**
+     * Sets the tag expressions whose scenarios are listed at the end of the run, next to the categories of the
+     * report, such as {@code @smoke and not @flaky}. The expressions are made of tags, {@code and},
+     * {@code or}, {@code not} and parentheses. In the configuration, the expressions are separated by
+     * semicolons.
+     * @param tagFilters The tag expressions
+     * @throws IllegalArgumentException If an expression is not a valid tag expression
+     */
+    public void setTagFilters(String... tagFilters) {
+        List<String> filters = new ArrayList<>();
+        for (String filter : tagFilters) {
+            if (!filter.trim().isEmpty()) {
+                filters.add(TagExpression.parse(filter).getText());
+            }
+        }
+        this.tagFilters = Collections.unmodifiableList(filters);
+    }
+
+    /**
+     * Gets whether the cost of reporting is published
+     * @return true if it is published over JMX and written at the end of the run
+     */
+    public boolean isReportingMetrics() {
+        return reportingMetrics;
+    }
+
+    /**
+     * Sets whether the cost of reporting is published: the time spent in each formatter callback, the nodes,
+     * logs and tables reported, and the time and output size of the flushes. They are published over JMX as
+     * {@code com.vimalselvam.cucumber.listener:type=ReportingMetrics} while the run goes, and written as json
+     * next to the report as {@code <report name>-metrics.json} once it is done.
+     * @param reportingMetrics true to publish the cost of reporting
+     */
+    public void setReportingMetrics(boolean reportingMetrics) {
+        this.reportingMetrics = reportingMetrics;
+    }
 }
@@ -0,0 +1,265 @@
+package com.vimalselvam.cucumber.listener;
+
+import com.aventstack.extentreports.ExtentReports;
+import com.aventstack.extentreports.ExtentTest;
+import com.aventstack.extentreports.GherkinKeyword;
+import gherkin.formatter.model.Result;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Applies the {@link ReportEvent}s to the {@link ExtentReports} instance
+ */
+final class ExtentReportBuilder implements ReportEventHandler {
+    private final ExtentReports extentReports;
+    /**
+     * The rendered examples tables and their headers by examples id, the header of the same examples is
+     * reported once per expanded scenario. They are dropped when their feature finishes.
+     */
+    private final ConcurrentMap<String, TableMarkup> examplesTables = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, String> examplesHeaders = new ConcurrentHashMap<>();
+    private final ConcurrentMap<ReportNode, Set<String>> featureExamples = new ConcurrentHashMap<>();
+    private final ReportingMetrics metrics;
+
+    ExtentReportBuilder(ExtentReports extentReports) {
+        this(extentReports, null);
+    }
+
+    /**
+     * @param extentReports The report the events are applied to
+     * @param metrics Where the flushes are counted, null to not count them
+     */
+    ExtentReportBuilder(ExtentReports extentReports, ReportingMetrics metrics) {
+        this.extentReports = extentReports;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void onFeatureStarted(ReportEvent.FeatureStarted event) {
+        ExtentTest test = extentReports
+            .createTest(com.aventstack.extentreports.gherkin.model.Feature.class, event.getName());
+        for (String tag : event.getTags()) {
+            test.assignCategory(tag);
+        }
+        event.getNode().setTest(test);
+    }
+
+    /**
+     * Drops the examples tables and headers of the feature
+     */
+    @Override
+    public void onFeatureFinished(ReportEvent.FeatureFinished event) {
+        Set<String> examplesIds = featureExamples.remove(event.getNode());
+        if (examplesIds == null) {
+            return;
+        }
+        for (String examplesId : examplesIds) {
+            examplesTables.remove(examplesId);
+            examplesHeaders.remove(examplesId);
+        }
+    }
+
+    @Override
+    public void onScenarioOutlineStarted(ReportEvent.ScenarioOutlineStarted event) {
+        ExtentTest parent = parentOf(event);
+        if (parent == null) {
+            return;
+        }
+        event.getNode().setTest(parent.createNode(
+            com.aventstack.extentreports.gherkin.model.ScenarioOutline.class, event.getName()));
+    }
+
+    @Override
+    public void onExamplesTable(ReportEvent.ExamplesTable event) {
+        ExtentTest test = event.getNode().getTest();
+        if (test == null || event.getRows().isEmpty()) {
+            return;
+        }
+        TableMarkup table;
+        if (event.getExamplesId() == null) {
+            table = TableMarkup.of(event.getRows());
+        } else {
+            cached(event.getNode(), event.getExamplesId());
+            table = examplesTables.computeIfAbsent(event.getExamplesId(), id -> TableMarkup.of(event.getRows()));
+        }
+        test.info(table);
+    }
+
+    @Override
+    public void onExampleResults(ReportEvent.ExampleResults event) {
+        ExtentTest test = event.getNode().getTest();
+        if (test == null || event.getResults().isEmpty()) {
+            return;
+        }
+        test.info(TableMarkup.ofResults(event.getHeader(), event.getResults()));
+        if (event.getSkippedCount() > 0) {
+            test.skip(event.getSummary());
+        } else {
+            test.pass(event.getSummary());
+        }
+    }
+
+    @Override
+    public void onScenarioStarted(ReportEvent.ScenarioStarted event) {
+        ExtentTest parent = parentOf(event);
+        if (parent == null) {
+            return;
+        }
+        ExtentTest scenarioNode = parent
+            .createNode(com.aventstack.extentreports.gherkin.model.Scenario.class, event.getName());
+        for (String tag : event.getTags()) {
+            scenarioNode.assignCategory(tag);
+        }
+        ReportEvent.ExampleRow example = event.getExample();
+        if (example != null) {
+            String header;
+            if (example.getExamplesId() == null) {
+                header = TableMarkup.renderRow(example.getHeader());
+            } else {
+                cached(event.getNode(), example.getExamplesId());
+                header = examplesHeaders.computeIfAbsent(example.getExamplesId(),
+                    id -> TableMarkup.renderRow(example.getHeader()));
+            }
+            scenarioNode.info(TableMarkup.of(header, example.getRow()));
+        }
+        event.getNode().setTest(scenarioNode);
+    }
+
+    @Override
+    public void onStepStarted(ReportEvent.StepStarted event) {
+        ExtentTest scenarioTest = parentOf(event);
+        if (scenarioTest == null) {
+            return;
+        }
+
+        GherkinKeyword keyword = GherkinKeywordResolver.resolve(event.getKeyword());
+        String name = event.getKeyword() + event.getName();
+        ExtentTest stepTest = keyword == null ? scenarioTest.createNode(name)
+            : scenarioTest.createNode(keyword, name);
+
+        if (!event.getRows().isEmpty()) {
+            stepTest.info(TableMarkup.of(event.getRows()));
+        }
+        event.getNode().setTest(stepTest);
+    }
+
+    @Override
+    public void onStepFinished(ReportEvent.StepFinished event) {
+        ExtentTest stepTest = event.getNode().getTest();
+        if (stepTest == null) {
+            return;
+        }
+
+        String status = event.getStatus();
+        if (Result.PASSED.equals(status)) {
+            stepTest.pass(Result.PASSED);
+        } else if (Result.FAILED.equals(status)) {
+            if (event.isRepeatedFailure()) {
+                stepTest.fail(FailureClusterSection.reference(event.getError(), event.getCluster(),
+                    event.getOccurrence()));
+            } else {
+                stepTest.fail(event.getError());
+                if (event.getCluster() != null) {
+                    stepTest.info(FailureClusterSection.firstFailure(event.getCluster()));
+                }
+            }
+        } else if (Result.SKIPPED.getStatus().equals(status)) {
+            stepTest.skip(Result.SKIPPED.getStatus());
+        } else if (Result.UNDEFINED.getStatus().equals(status)) {
+            stepTest.skip(Result.UNDEFINED.getStatus());
+        }
+    }
+
+    @Override
+    public void onHooksFinished(ReportEvent.HooksFinished event) {
+        ExtentTest scenarioTest = event.getNode().getTest();
+        if (scenarioTest == null) {
+            return;
+        }
+        for (ReportEvent.HookResult hook : event.getHooks()) {
+            ExtentTest hookTest = scenarioTest.createNode((hook.isBefore() ? "Before " : "After ")
+                + hook.getLocation(), PerformanceSection.millis(hook.getDurationNanos()));
+            String status = hook.getStatus();
+            if (Result.FAILED.equals(status)) {
+                hookTest.fail(hook.getError());
+            } else if (Result.PASSED.equals(status)) {
+                hookTest.pass(Result.PASSED);
+            } else {
+                hookTest.skip(status);
+            }
+        }
+    }
+
+    @Override
+    public void onLog(ReportEvent.Log event) {
+        ExtentTest test = event.getNode().getTest();
+        if (test != null) {
+            test.info(event.getMessage());
+        }
+    }
+
+    @Override
+    public void onScreenCapture(ReportEvent.ScreenCapture event) {
+        ExtentTest test = event.getNode().getTest();
+        if (test == null) {
+            return;
+        }
+        try {
+            if (event.isScreencast()) {
+                test.addScreencastFromPath(event.getPath());
+            } else if (event.getTitle() != null) {
+                test.addScreenCaptureFromPath(event.getPath(), event.getTitle());
+            } else {
+                test.addScreenCaptureFromPath(event.getPath());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void onAuthorAssigned(ReportEvent.AuthorAssigned event) {
+        ExtentTest test = event.getNode().getTest();
+        if (test != null) {
+            List<String> authors = event.getAuthors();
+            test.assignAuthor(authors.toArray(new String[authors.size()]));
+        }
+    }
+
+    @Override
+    public void onSystemInfo(ReportEvent.SystemInfo event) {
+        extentReports.setSystemInfo(event.getKey(), event.getValue());
+    }
+
+    @Override
+    public void onTestRunnerOutput(ReportEvent.TestRunnerOutput event) {
+        extentReports.setTestRunnerOutput(event.getOutput());
+    }
+
+    @Override
+    public void onFlush(ReportEvent.Flush event) {
+        long startNanos = System.nanoTime();
+        extentReports.flush();
+        if (metrics != null) {
+            metrics.flushed(System.nanoTime() - startNanos);
+        }
+    }
+
+    private void cached(ReportNode node, String examplesId) {
+        ReportNode feature = node;
+        while (feature.getParent() != null) {
+            feature = feature.getParent();
+        }
+        featureExamples.computeIfAbsent(feature, key -> ConcurrentHashMap.newKeySet()).add(examplesId);
+    }
+
+    private static ExtentTest parentOf(ReportEvent.NodeEvent event) {
+        ReportNode parent = event.getNode().getParent();
+        return parent == null ? null : parent.getTest();
+    }
+}
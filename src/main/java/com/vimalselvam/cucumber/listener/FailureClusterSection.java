@@ -0,0 +1,70 @@
+package com.vimalselvam.cucumber.listener;
+
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * Renders the failure clusters of a run as html, each with its number of failures, the stack trace of its
+ * first failure and links to the steps of the scenarios which failed
+ */
+final class FailureClusterSection {
+
+    private FailureClusterSection() {
+        // Defeat instantiation
+    }
+
+    /**
+     * Renders the failure clusters section
+     * @param clusters The clusters, the one with the most failures first
+     * @return The html of the section
+     */
+    static String render(List<FailureClusters.Cluster> clusters) {
+        StringBuilder out = new StringBuilder(4096);
+        out.append("<h5>Failure clusters</h5><table class='markup-table table '>")
+            .append("<tr><td>#</td><td>Failures</td><td>Failure</td><td>Scenarios</td></tr>");
+        for (FailureClusters.Cluster cluster : clusters) {
+            out.append("<tr id='").append(cluster.getAnchor()).append("'><td>").append(cluster.getId())
+                .append("</td><td>").append(cluster.getCount()).append("</td><td><details><summary>")
+                .append(Html.escape(cluster.getHeadline())).append("</summary><pre>")
+                .append(Html.escape(cluster.getStackTrace())).append("</pre></details></td><td>");
+            SortedMap<Integer, String> scenarios = cluster.getScenariosByOccurrence();
+            for (Map.Entry<Integer, String> scenario : scenarios.entrySet()) {
+                out.append("<a href='#").append(cluster.getFailureAnchor(scenario.getKey())).append("'>")
+                    .append(Html.escape(scenario.getValue())).append("</a><br/>");
+            }
+            if (cluster.getCount() > scenarios.size()) {
+                out.append("and ").append(cluster.getCount() - scenarios.size()).append(" more");
+            }
+            out.append("</td></tr>");
+        }
+        out.append("</table>");
+        return out.toString();
+    }
+
+    /**
+     * Renders a failure whose stack trace is the one of the first failure of its cluster
+     * @param error The failure
+     * @param cluster The cluster of the failure
+     * @param occurrence The number of the failure in its cluster
+     * @return The headline of the failure, with the anchor the cluster links to and a link to the cluster
+     */
+    static String reference(Throwable error, FailureClusters.Cluster cluster, int occurrence) {
+        return anchor(cluster, occurrence) + Html.escape(String.valueOf(error)) + "<br/><a href='#"
+            + cluster.getAnchor() + "'>Same stack trace as failure cluster #" + cluster.getId() + "</a>";
+    }
+
+    /**
+     * Renders the link from the first failure of a cluster, whose stack trace is reported, to its cluster
+     * @param cluster The cluster of the failure
+     * @return The anchor the cluster links to, with a link to the cluster
+     */
+    static String firstFailure(FailureClusters.Cluster cluster) {
+        return anchor(cluster, 1) + "<a href='#" + cluster.getAnchor() + "'>Failure cluster #" + cluster.getId()
+            + "</a>";
+    }
+
+    private static String anchor(FailureClusters.Cluster cluster, int occurrence) {
+        return "<span id='" + cluster.getFailureAnchor(occurrence) + "'></span>";
+    }
+}
@@ -0,0 +1,175 @@
+package com.vimalselvam.cucumber.listener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * Groups the failures of a run by their fingerprint: the exception type and its top stack frames without
+ * line numbers. The stack trace of a cluster is kept once, for its first failure, however many failures
+ * the cluster gets.
+ */
+final class FailureClusters {
+    private static final int FRAMES = 5;
+    private static final int SCENARIOS_PER_CLUSTER = 100;
+    /**
+     * The parts of the class names the JVM generates at runtime, which differ from run to run
+     */
+    private static final Pattern GENERATED = Pattern.compile(
+        "(\\$\\$Lambda\\$?|GeneratedMethodAccessor|GeneratedConstructorAccessor|\\$Proxy)[0-9a-fx/]*");
+
+    private final ConcurrentMap<String, Cluster> clusters = new ConcurrentHashMap<>();
+    private final AtomicInteger lastId = new AtomicInteger();
+
+    /**
+     * Gets the cluster of a failure, creating it for the first failure with this fingerprint
+     * @param error The failure
+     * @return The cluster of the failure
+     */
+    Cluster clusterOf(Throwable error) {
+        return clusters.computeIfAbsent(fingerprint(error), fingerprint -> new Cluster(lastId.incrementAndGet(),
+            error.toString(), Html.stackTrace(error)));
+    }
+
+    /**
+     * Gets the clusters of the run so far
+     * @return The clusters, the one with the most failures first
+     */
+    List<Cluster> getClusters() {
+        List<Cluster> sorted = new ArrayList<>(clusters.values());
+        sorted.sort((a, b) -> b.getCount() != a.getCount() ? Integer.compare(b.getCount(), a.getCount())
+            : Integer.compare(a.getId(), b.getId()));
+        return sorted;
+    }
+
+    /**
+     * Gets the fingerprint of a failure: the type of the exception and its top frames, without the line
+     * numbers and the names of the classes generated at runtime
+     * @param error The failure
+     * @return The fingerprint
+     */
+    static String fingerprint(Throwable error) {
+        String headline = error.toString();
+        int colon = headline.indexOf(':');
+        StringBuilder fingerprint = new StringBuilder(256).append(colon < 0 ? headline : headline.substring(0, colon));
+        StackTraceElement[] frames = error.getStackTrace();
+        if (frames.length > 0) {
+            for (int i = 0; i < Math.min(FRAMES, frames.length); i++) {
+                fingerprint.append('\n').append(frames[i].getClassName()).append('.')
+                    .append(frames[i].getMethodName());
+            }
+        } else {
+            // A failure recorded by another JVM, of which only the text of the stack trace is known
+            int count = 0;
+            for (String line : Html.stackTrace(error).split("\n")) {
+                String frame = line.trim();
+                if (!frame.startsWith("at ")) {
+                    continue;
+                }
+                int location = frame.indexOf('(');
+                fingerprint.append('\n').append(frame, 3, location < 0 ? frame.length() : location);
+                if (++count == FRAMES) {
+                    break;
+                }
+            }
+        }
+        return GENERATED.matcher(fingerprint).replaceAll("$1");
+    }
+
+    /**
+     * The failures sharing a fingerprint
+     */
+    static final class Cluster {
+        private final int id;
+        private final String headline;
+        private final String stackTrace;
+        private final AtomicInteger count = new AtomicInteger();
+        private final ConcurrentSkipListMap<Integer, String> scenarios = new ConcurrentSkipListMap<>();
+
+        private Cluster(int id, String headline, String stackTrace) {
+            this.id = id;
+            this.headline = headline;
+            this.stackTrace = stackTrace;
+        }
+
+        /**
+         * Adds a failure to the cluster
+         * @param scenario The scenario which failed
+         * @return The number of failures of the cluster so far, 1 for the first one
+         */
+        int add(String scenario) {
+            int occurrence = count.incrementAndGet();
+            if (occurrence <= SCENARIOS_PER_CLUSTER) {
+                scenarios.put(occurrence, scenario);
+            }
+            return occurrence;
+        }
+
+        /**
+         * Gets the number of the cluster, in the order the clusters were found
+         * @return The cluster number
+         */
+        int getId() {
+            return id;
+        }
+
+        /**
+         * Gets the anchor of the cluster in the failure clusters section
+         * @return The html id of the cluster
+         */
+        String getAnchor() {
+            return "failure-cluster-" + id;
+        }
+
+        /**
+         * Gets the anchor of a failure of the cluster, at the step which failed
+         * @param occurrence The number of the failure in the cluster
+         * @return The html id of the failure
+         */
+        String getFailureAnchor(int occurrence) {
+            return getAnchor() + "-" + occurrence;
+        }
+
+        /**
+         * Gets the headline of the first failure of the cluster
+         * @return The exception type and message
+         */
+        String getHeadline() {
+            return headline;
+        }
+
+        /**
+         * Gets the stack trace of the first failure of the cluster
+         * @return The stack trace text
+         */
+        String getStackTrace() {
+            return stackTrace;
+        }
+
+        int getCount() {
+            return count.get();
+        }
+
+        /**
+         * Gets the scenarios which failed, up to the first hundred
+         * @return The scenarios in the order they failed
+         */
+        List<String> getScenarios() {
+            return new ArrayList<>(scenarios.values());
+        }
+
+        /**
+         * Gets the scenarios which failed, up to the first hundred, by the number of their failure in the cluster
+         * @return The scenarios in the order they failed
+         */
+        SortedMap<Integer, String> getScenariosByOccurrence() {
+            return new TreeMap<>(scenarios);
+        }
+    }
+}
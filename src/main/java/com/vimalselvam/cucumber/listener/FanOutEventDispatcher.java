@@ -0,0 +1,69 @@
+package com.vimalselvam.cucumber.listener;
+
+import java.util.List;
+
+/**
+ * Hands every event to the dispatchers of several output sinks. A sink with an {@link AsyncEventDispatcher}
+ * of its own is written by its own thread from its own queue, so a slow sink only holds the others up once
+ * its queue is full, and never if it discards the events it has no room for.
+ */
+final class FanOutEventDispatcher implements EventDispatcher {
+    private final EventDispatcher[] sinks;
+
+    FanOutEventDispatcher(List<EventDispatcher> sinks) {
+        this.sinks = sinks.toArray(new EventDispatcher[0]);
+    }
+
+    @Override
+    public void dispatch(ReportEvent event) {
+        RuntimeException failure = null;
+        for (EventDispatcher sink : sinks) {
+            try {
+                sink.dispatch(event);
+            } catch (RuntimeException e) {
+                // The other sinks still get the event
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    @Override
+    public void dispatchAll(List<ReportEvent> events) {
+        RuntimeException failure = null;
+        for (EventDispatcher sink : sinks) {
+            try {
+                sink.dispatchAll(events);
+            } catch (RuntimeException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    @Override
+    public void drain() {
+        for (EventDispatcher sink : sinks) {
+            sink.drain();
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        for (EventDispatcher sink : sinks) {
+            sink.shutdown();
+        }
+    }
+}
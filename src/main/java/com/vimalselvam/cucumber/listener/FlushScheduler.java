@@ -0,0 +1,101 @@
+package com.vimalselvam.cucumber.listener;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Flushes the report while the run is still going, according to the flush policy of the
+ * {@link ReportConfig}. The flushes are requested from a background thread, so the cucumber
+ * threads never write the report themselves. With the synchronous dispatcher they still wait for
+ * a flush going on to end before they report anything more; with asynchronous reporting they do not.
+ */
+final class FlushScheduler {
+    private final EventDispatcher eventDispatcher;
+    private final int flushEveryScenarios;
+    private final boolean flushOnFeatureEnd;
+    private final ScheduledExecutorService executor;
+    private final AtomicLong finishedScenarios = new AtomicLong();
+    private final AtomicBoolean flushPending = new AtomicBoolean();
+
+    FlushScheduler(EventDispatcher eventDispatcher, ReportConfig config) {
+        this.eventDispatcher = eventDispatcher;
+        this.flushEveryScenarios = config.getFlushEveryScenarios();
+        this.flushOnFeatureEnd = config.isFlushOnFeatureEnd();
+        long flushIntervalSeconds = config.getFlushIntervalSeconds();
+
+        if (flushEveryScenarios <= 0 && !flushOnFeatureEnd && flushIntervalSeconds <= 0) {
+            this.executor = null;
+            return;
+        }
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "extent-report-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (flushIntervalSeconds > 0) {
+            executor.scheduleWithFixedDelay(this::flush, flushIntervalSeconds, flushIntervalSeconds,
+                TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * To be called whenever a scenario is finished
+     */
+    void scenarioFinished() {
+        if (flushEveryScenarios > 0 && finishedScenarios.incrementAndGet() % flushEveryScenarios == 0) {
+            requestFlush();
+        }
+    }
+
+    /**
+     * To be called whenever a feature is finished
+     */
+    void featureFinished() {
+        if (flushOnFeatureEnd) {
+            requestFlush();
+        }
+    }
+
+    /**
+     * Stops the flushes, waiting for a flush going on to end rather than interrupting it halfway through
+     * writing the report. The report is flushed once more at the end of the run, which covers the flushes
+     * requested afterwards.
+     */
+    void stop() {
+        if (executor == null) {
+            return;
+        }
+        // The scheduled flushes are cancelled, a requested one still runs
+        executor.shutdown();
+        try {
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void requestFlush() {
+        // A flush which is already waiting will cover this request as well
+        if (flushPending.compareAndSet(false, true) && !executor.isShutdown()) {
+            try {
+                executor.execute(this::flush);
+            } catch (RejectedExecutionException e) {
+                // Stopped in the meantime
+            }
+        }
+    }
+
+    private void flush() {
+        flushPending.set(false);
+        try {
+            eventDispatcher.dispatch(new ReportEvent.Flush());
+        } catch (RuntimeException e) {
+            // The next flush will try again, a scheduled task must not die on it
+            e.printStackTrace();
+        }
+    }
+}
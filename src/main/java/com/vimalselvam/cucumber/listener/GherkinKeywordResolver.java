@@ -0,0 +1,99 @@
+package com.vimalselvam.cucumber.listener;
+
+import com.aventstack.extentreports.GherkinKeyword;
+import gherkin.I18n;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Resolves the step keywords of every gherkin dialect to the {@link GherkinKeyword} of their english
+ * counterpart. The keywords are looked up once, so no class is looked up by name for each step.
+ */
+final class GherkinKeywordResolver {
+    private static final String[] KEYWORD_KEYS = {"given", "when", "then", "and", "but"};
+    private static final String[] ENGLISH_KEYWORDS = {"Given", "When", "Then", "And", "But"};
+    private static final int AND = 3;
+    private static final String ANY_KEYWORD = "*";
+
+    private static final Map<String, GherkinKeyword> KEYWORDS = loadKeywords();
+    /**
+     * The keywords as cucumber passes them, trailing space included, so the steps do not have to be trimmed
+     */
+    private static final ConcurrentMap<String, GherkinKeyword> RESOLVED = new ConcurrentHashMap<>();
+
+    private GherkinKeywordResolver() {
+    }
+
+    /**
+     * Gets the gherkin keyword of a step keyword
+     * @param keyword The keyword of the step in any dialect, for example "Given " or "Soit "
+     * @return The gherkin keyword or null if the keyword is not known, in which case the step should be
+     * reported as a generic node
+     */
+    static GherkinKeyword resolve(String keyword) {
+        if (keyword == null) {
+            return null;
+        }
+        GherkinKeyword resolved = RESOLVED.get(keyword);
+        if (resolved == null) {
+            resolved = KEYWORDS.get(keyword.trim());
+            if (resolved != null) {
+                RESOLVED.putIfAbsent(keyword, resolved);
+            }
+        }
+        return resolved;
+    }
+
+    private static Map<String, GherkinKeyword> loadKeywords() {
+        GherkinKeyword[] englishKeywords = new GherkinKeyword[ENGLISH_KEYWORDS.length];
+        for (int i = 0; i < ENGLISH_KEYWORDS.length; i++) {
+            try {
+                englishKeywords[i] = new GherkinKeyword(ENGLISH_KEYWORDS[i]);
+            } catch (ClassNotFoundException e) {
+                e.printStackTrace();
+            }
+        }
+
+        Map<String, GherkinKeyword> keywords = new HashMap<>();
+        // English wins where a word has another meaning in another dialect
+        for (int i = 0; i < ENGLISH_KEYWORDS.length; i++) {
+            put(keywords, ENGLISH_KEYWORDS[i], englishKeywords[i]);
+        }
+        // A "*" step continues the step before it
+        put(keywords, ANY_KEYWORD, englishKeywords[AND]);
+        for (I18n dialect : dialects()) {
+            for (int i = 0; i < KEYWORD_KEYS.length; i++) {
+                List<String> dialectKeywords = dialect.keywords(KEYWORD_KEYS[i]);
+                if (dialectKeywords == null) {
+                    continue;
+                }
+                for (String dialectKeyword : dialectKeywords) {
+                    put(keywords, dialectKeyword.trim(), englishKeywords[i]);
+                }
+            }
+        }
+        return Collections.unmodifiableMap(keywords);
+    }
+
+    private static void put(Map<String, GherkinKeyword> keywords, String keyword, GherkinKeyword gherkinKeyword) {
+        if (gherkinKeyword != null && !keywords.containsKey(keyword)) {
+            keywords.put(keyword, gherkinKeyword);
+        }
+    }
+
+    private static List<I18n> dialects() {
+        try {
+            List<I18n> dialects = I18n.getAll();
+            return dialects == null ? Collections.<I18n>emptyList() : dialects;
+        } catch (RuntimeException e) {
+            // Without the dialects only the english keywords are known
+            e.printStackTrace();
+            return Collections.emptyList();
+        }
+    }
+}
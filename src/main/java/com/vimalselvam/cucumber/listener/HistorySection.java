@@ -0,0 +1,91 @@
+package com.vimalselvam.cucumber.listener;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Renders the history of the run as html: the trend of the last runs, the flakiest scenarios and the
+ * scenarios which took much longer than usual
+ */
+final class HistorySection {
+    static final int TREND_RUNS = 30;
+    static final int FLAKIEST = 10;
+    private static final int BAR_WIDTH = 12;
+    private static final int CHART_HEIGHT = 60;
+
+    private HistorySection() {
+        // Defeat instantiation
+    }
+
+    /**
+     * Renders the history section
+     * @param runs The last runs, oldest first
+     * @param flakiest The flakiest scenarios, flakiest first
+     * @param regressions The scenarios of this run which took much longer than usual
+     * @return The html of the section
+     */
+    static String render(List<RunHistory.RunSummary> runs, List<RunHistory.ScenarioHistory> flakiest,
+        List<RunHistory.Verdict> regressions) {
+        StringBuilder out = new StringBuilder(4096);
+        out.append("<h5>History</h5>");
+        appendTrend(out, runs);
+
+        out.append("<p>Flaky scenarios</p><table class='markup-table table '>")
+            .append("<tr><td>Scenario</td><td>Feature</td><td>Flakiness</td><td>Last results</td>")
+            .append("<td>Failed runs</td></tr>");
+        for (RunHistory.ScenarioHistory scenario : flakiest) {
+            out.append("<tr><td>").append(Html.escape(scenario.getName())).append("</td><td>")
+                .append(Html.escape(scenario.getUri())).append("</td><td>")
+                .append(Math.round(scenario.getFlakiness() * 100)).append("%</td><td>")
+                .append(scenario.getRecentResults()).append("</td><td>")
+                .append(scenario.getFailures()).append(" / ").append(scenario.getRuns()).append("</td></tr>");
+        }
+        out.append("</table>");
+
+        out.append("<p>Slower than usual</p><table class='markup-table table '>")
+            .append("<tr><td>Scenario</td><td>Feature</td><td>Duration</td><td>Usual</td></tr>");
+        for (RunHistory.Verdict regression : regressions) {
+            out.append("<tr><td>").append(Html.escape(regression.getScenario().getName())).append("</td><td>")
+                .append(Html.escape(regression.getScenario().getUri())).append("</td><td>")
+                .append(PerformanceSection.millis(regression.getNanos())).append("</td><td>")
+                .append(PerformanceSection.millis(regression.getUsualNanos())).append("</td></tr>");
+        }
+        out.append("</table>");
+        return out.toString();
+    }
+
+    /**
+     * Appends the passed, failed and skipped scenarios of every run as stacked bars
+     */
+    private static void appendTrend(StringBuilder out, List<RunHistory.RunSummary> runs) {
+        int highest = 1;
+        for (RunHistory.RunSummary run : runs) {
+            highest = Math.max(highest, run.getPassed() + run.getFailed() + run.getSkipped());
+        }
+        out.append("<p>Last ").append(runs.size()).append(" runs</p><svg width='").append(runs.size() * BAR_WIDTH)
+            .append("' height='").append(CHART_HEIGHT).append("'>");
+        for (int i = 0; i < runs.size(); i++) {
+            RunHistory.RunSummary run = runs.get(i);
+            out.append("<g><title>")
+                .append(String.format(Locale.ROOT, "%tF %<tT, %d passed, %d failed, %d skipped, %d s",
+                    run.getStartMillis(), run.getPassed(), run.getFailed(), run.getSkipped(),
+                    run.getDurationMillis() / 1000))
+                .append("</title>");
+            int y = CHART_HEIGHT;
+            y = appendBar(out, i, y, run.getPassed() * CHART_HEIGHT / highest, "#32a852");
+            y = appendBar(out, i, y, run.getSkipped() * CHART_HEIGHT / highest, "#fb8c00");
+            appendBar(out, i, y, run.getFailed() * CHART_HEIGHT / highest, "#e53935");
+            out.append("</g>");
+        }
+        out.append("</svg>");
+    }
+
+    private static int appendBar(StringBuilder out, int index, int bottom, int height, String color) {
+        if (height > 0) {
+            out.append("<rect x='").append(index * BAR_WIDTH).append("' y='").append(bottom - height)
+                .append("' width='").append(BAR_WIDTH - 2).append("' height='").append(height)
+                .append("' fill='").append(color).append("'/>");
+        }
+        return bottom - height;
+    }
+}
@@ -0,0 +1,71 @@
+package com.vimalselvam.cucumber.listener;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+/**
+ * Few helpers to write the html output which is not rendered by ExtentReports
+ */
+final class Html {
+
+    private Html() {
+        // Defeat instantiation
+    }
+
+    /**
+     * Escapes the given text to be used in html content or attribute values
+     * @param text The text to be escaped
+     * @return The escaped text, an empty string for null
+     */
+    static String escape(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder builder = null;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            String replacement;
+            switch (c) {
+                case '<':
+                    replacement = "&lt;";
+                    break;
+                case '>':
+                    replacement = "&gt;";
+                    break;
+                case '&':
+                    replacement = "&amp;";
+                    break;
+                case '"':
+                    replacement = "&quot;";
+                    break;
+                case '\'':
+                    replacement = "&#39;";
+                    break;
+                default:
+                    replacement = null;
+            }
+            if (replacement == null) {
+                if (builder != null) {
+                    builder.append(c);
+                }
+                continue;
+            }
+            if (builder == null) {
+                builder = new StringBuilder(text.length() + 16).append(text, 0, i);
+            }
+            builder.append(replacement);
+        }
+        return builder == null ? text : builder.toString();
+    }
+
+    /**
+     * Gets the stack trace of the given error
+     * @param error The error
+     * @return The stack trace as printed by {@link Throwable#printStackTrace()}
+     */
+    static String stackTrace(Throwable error) {
+        StringWriter writer = new StringWriter();
+        error.printStackTrace(new PrintWriter(writer));
+        return writer.toString();
+    }
+}
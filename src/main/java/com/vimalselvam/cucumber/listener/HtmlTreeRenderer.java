@@ -0,0 +1,134 @@
+package com.vimalselvam.cucumber.listener;
+
+import com.aventstack.extentreports.Status;
+
+import java.util.List;
+
+/**
+ * Renders the {@link ReportTreeNode}s as plain html, without any script
+ */
+final class HtmlTreeRenderer {
+    static final String STYLE = "<style>"
+        + "body{font-family:Roboto,Arial,sans-serif;font-size:14px;margin:20px;color:#333}"
+        + "details{margin:4px 0 4px 16px}summary{cursor:pointer;padding:2px 0}"
+        + ".status{display:inline-block;width:44px;font-size:11px;text-align:center;color:#fff;border-radius:2px}"
+        + ".pass{background:#32a852}.fail,.fatal,.error{background:#e53935}.skip,.warning{background:#fb8c00}"
+        + ".info,.debug{background:#1e88e5}"
+        + ".tag{font-size:11px;background:#eee;border-radius:2px;padding:0 4px;margin-left:4px}"
+        + ".detail{margin:2px 0 2px 60px}pre{background:#f7f7f7;padding:6px;overflow:auto}"
+        + "table.table{border-collapse:collapse}table.table td{border:1px solid #ddd;padding:2px 6px}"
+        + ".summary td{padding:2px 12px}"
+        + "</style>";
+
+    /**
+     * Loads the contents of a scenario from its chunk when the scenario is expanded. A chunk is a script
+     * which hands the contents of the scenarios of a feature to {@code extentChunk}, as a json array. It is
+     * added to the page through a script element, which unlike fetch works from a {@code file://} url too,
+     * and loaded once for all the scenarios of the feature.
+     */
+    static final String LAZY_SCRIPT = "<script>"
+        + "var chunks={};"
+        + "function extentChunk(src,contents){if(chunks[src]){chunks[src].resolve(contents);}}"
+        + "function loadChunk(src){if(!chunks[src]){var chunk={};chunk.promise=new Promise(function(resolve,reject){"
+        + "chunk.resolve=resolve;var s=document.createElement('script');s.src=src;"
+        + "s.onerror=function(){s.parentNode.removeChild(s);reject(new Error(src+' cannot be loaded'));};"
+        + "document.head.appendChild(s);});chunks[src]=chunk;}"
+        + "return chunks[src].promise;}"
+        + "document.addEventListener('toggle',function(e){var d=e.target;"
+        + "if(!d.open||!d.dataset||!d.dataset.chunk||d.dataset.loaded){return;}"
+        + "d.dataset.loaded='true';var body=d.querySelector('.lazy');"
+        + "loadChunk(d.dataset.chunk).then(function(c){body.innerHTML=c[d.dataset.scenario];},function(err){"
+        + "delete chunks[d.dataset.chunk];delete d.dataset.loaded;"
+        + "body.textContent='The steps cannot be loaded ('+err.message+')';});"
+        + "},true);"
+        + "</script>";
+
+    private HtmlTreeRenderer() {
+        // Defeat instantiation
+    }
+
+    /**
+     * Appends the given node and all its children
+     * @param out The builder to append to
+     * @param node The node to be rendered
+     */
+    static void appendNode(StringBuilder out, ReportTreeNode node) {
+        boolean open = node.getKind() == ReportTreeNode.Kind.FEATURE
+            || node.getStatus() == Status.FAIL;
+        out.append(open ? "<details open>" : "<details>");
+        out.append("<summary>");
+        appendStatus(out, node);
+        out.append(' ');
+        appendTitle(out, node);
+        out.append("</summary>");
+        appendDetails(out, node);
+        for (ReportTreeNode child : node.getChildren()) {
+            appendNode(out, child);
+        }
+        out.append("</details>");
+    }
+
+    /**
+     * Appends the given node and its children down to the scenarios. What is inside the scenarios is
+     * rendered apart, to be loaded when the scenario is expanded.
+     * @param out The builder to append to
+     * @param node The node to be rendered
+     * @param chunk The path of the chunk the scenario contents are written to, relative to the report
+     * @param scenarioContents The list to add the html of the contents of the scenarios to, in order
+     */
+    static void appendSummary(StringBuilder out, ReportTreeNode node, String chunk, List<String> scenarioContents) {
+        if (node.getKind() != ReportTreeNode.Kind.SCENARIO) {
+            out.append(node.getKind() == ReportTreeNode.Kind.FEATURE ? "<details open>" : "<details>");
+            out.append("<summary>");
+            appendStatus(out, node);
+            out.append(' ');
+            appendTitle(out, node);
+            out.append("</summary>");
+            appendDetails(out, node);
+            for (ReportTreeNode child : node.getChildren()) {
+                appendSummary(out, child, chunk, scenarioContents);
+            }
+            out.append("</details>");
+            return;
+        }
+        StringBuilder content = new StringBuilder(1024);
+        appendDetails(content, node);
+        for (ReportTreeNode child : node.getChildren()) {
+            appendNode(content, child);
+        }
+        out.append("<details data-chunk='").append(Html.escape(chunk)).append("' data-scenario='")
+            .append(scenarioContents.size()).append("'><summary>");
+        scenarioContents.add(content.toString());
+        appendStatus(out, node);
+        out.append(' ');
+        appendTitle(out, node);
+        out.append("</summary><div class='lazy'></div></details>");
+    }
+
+    static void appendStatus(StringBuilder out, ReportTreeNode node) {
+        String status = node.getStatus().toString();
+        out.append("<span class='status ").append(status.toLowerCase()).append("'>").append(status)
+            .append("</span>");
+    }
+
+    static void appendTitle(StringBuilder out, ReportTreeNode node) {
+        if (node.getKind() == ReportTreeNode.Kind.STEP || node.getKind() == ReportTreeNode.Kind.HOOK) {
+            out.append("<b>").append(Html.escape(node.getKeyword())).append("</b>");
+        } else {
+            out.append("<b>").append(Html.escape(node.getKeyword())).append(":</b> ");
+        }
+        out.append(Html.escape(node.getName()));
+        for (String tag : node.getTags()) {
+            out.append("<span class='tag'>").append(Html.escape(tag)).append("</span>");
+        }
+        for (String author : node.getAuthors()) {
+            out.append("<span class='tag'>&#64;").append(Html.escape(author)).append("</span>");
+        }
+    }
+
+    static void appendDetails(StringBuilder out, ReportTreeNode node) {
+        for (String detail : node.getDetails()) {
+            out.append("<div class='detail'>").append(detail).append("</div>");
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package com.vimalselvam.cucumber.listener;
+
+import gherkin.formatter.model.Result;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Writes a JUnit XML report, with a test suite per feature and a test case per scenario. A feature is
+ * rendered as soon as it is finished and forgotten; flushing writes the features finished so far.
+ * <p>
+ * Not thread safe, it is meant to be the handler of its own {@link AsyncEventDispatcher}.
+ */
+final class JUnitXmlWriter implements ReportEventHandler {
+    private final Path path;
+    private final Map<ReportNode, Suite> runningSuites = new IdentityHashMap<>();
+    private final Map<ReportNode, TestCase> runningCases = new IdentityHashMap<>();
+    private final Map<ReportNode, String> outlineNames = new IdentityHashMap<>();
+    private final List<String> finishedSuites = new ArrayList<>();
+    private int tests;
+    private int failures;
+    private int skipped;
+    private long nanos;
+
+    /**
+     * @param path The file the report is written to, which is replaced
+     */
+    JUnitXmlWriter(Path path) {
+        this.path = path;
+    }
+
+    @Override
+    public void onFeatureStarted(ReportEvent.FeatureStarted event) {
+        runningSuites.put(event.getNode(), new Suite(event.getName()));
+    }
+
+    @Override
+    public void onFeatureFinished(ReportEvent.FeatureFinished event) {
+        ReportNode featureNode = event.getNode();
+        Suite suite = runningSuites.remove(featureNode);
+        runningCases.keySet().removeIf(node -> suiteOf(node) == null);
+        outlineNames.keySet().removeIf(node -> suiteOf(node) == null);
+        if (suite == null) {
+            return;
+        }
+        finishedSuites.add(suite.render());
+        tests += suite.cases.size();
+        failures += suite.count(TestCase.FAILED);
+        skipped += suite.count(TestCase.SKIPPED);
+        nanos += suite.nanos();
+    }
+
+    @Override
+    public void onScenarioOutlineStarted(ReportEvent.ScenarioOutlineStarted event) {
+        if (suiteOf(event.getNode()) != null) {
+            outlineNames.put(event.getNode(), event.getName());
+        }
+    }
+
+    /**
+     * Adds a test case per row of a compact examples table, but for the failed rows which are reported as
+     * scenarios of their own
+     */
+    @Override
+    public void onExampleResults(ReportEvent.ExampleResults event) {
+        Suite suite = suiteOf(event.getNode());
+        if (suite == null) {
+            return;
+        }
+        String outlineName = outlineNames.get(event.getNode());
+        for (ReportEvent.ExampleResult result : event.getResults()) {
+            if (result.isFailed()) {
+                continue;
+            }
+            TestCase testCase = new TestCase(suite.name, outlineName + " ["
+                + String.join(" | ", result.getRow().getCells()) + "]");
+            testCase.add(result.getStatus(), result.getDurationNanos(), null);
+            suite.cases.add(testCase);
+        }
+    }
+
+    @Override
+    public void onScenarioStarted(ReportEvent.ScenarioStarted event) {
+        Suite suite = suiteOf(event.getNode());
+        if (suite == null) {
+            return;
+        }
+        String name = event.getName();
+        if (event.getExample() != null) {
+            name += " [" + String.join(" | ", event.getExample().getRow().getCells()) + "]";
+        }
+        TestCase testCase = new TestCase(suite.name, name);
+        suite.cases.add(testCase);
+        runningCases.put(event.getNode(), testCase);
+    }
+
+    @Override
+    public void onStepFinished(ReportEvent.StepFinished event) {
+        ReportNode node = event.getNode();
+        TestCase testCase = runningCases.get(node);
+        if (testCase == null && node.getParent() != null) {
+            testCase = runningCases.get(node.getParent());
+        }
+        if (testCase != null) {
+            testCase.add(event.getStatus(), event.getDurationNanos(), event.getError());
+        }
+    }
+
+    @Override
+    public void onHooksFinished(ReportEvent.HooksFinished event) {
+        TestCase testCase = runningCases.get(event.getNode());
+        if (testCase == null) {
+            return;
+        }
+        for (ReportEvent.HookResult hook : event.getHooks()) {
+            testCase.add(hook.getStatus(), hook.getDurationNanos(), hook.getError());
+        }
+    }
+
+    @Override
+    public void onFlush(ReportEvent.Flush event) {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(path.toAbsolutePath().getParent());
+            try (Writer out = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+                out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<testsuites tests=\"" + tests
+                    + "\" failures=\"" + failures + "\" errors=\"0\" skipped=\"" + skipped + "\" time=\""
+                    + seconds(nanos) + "\">\n");
+                for (String suite : finishedSuites) {
+                    out.write(suite);
+                }
+                out.write("</testsuites>\n");
+            }
+            try {
+                Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to write the JUnit XML report " + path, e);
+        }
+    }
+
+    /**
+     * Gets the suite of the feature a node belongs to
+     * @return The suite or null if the feature is not running
+     */
+    private Suite suiteOf(ReportNode node) {
+        while (node.getParent() != null) {
+            node = node.getParent();
+        }
+        return runningSuites.get(node);
+    }
+
+    private static String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1e9);
+    }
+
+    /**
+     * Escapes a text for xml, dropping the control characters xml does not allow
+     */
+    private static String xml(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder allowed = null;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            boolean control = c < 0x20 && c != '\t' && c != '\n' && c != '\r';
+            if (control && allowed == null) {
+                allowed = new StringBuilder(text.length()).append(text, 0, i);
+            } else if (!control && allowed != null) {
+                allowed.append(c);
+            }
+        }
+        return Html.escape(allowed == null ? text : allowed.toString());
+    }
+
+    private static final class Suite {
+        private final String name;
+        private final List<TestCase> cases = new ArrayList<>();
+
+        private Suite(String name) {
+            this.name = name;
+        }
+
+        private int count(int status) {
+            int count = 0;
+            for (TestCase testCase : cases) {
+                if (testCase.status == status) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        private long nanos() {
+            long nanos = 0;
+            for (TestCase testCase : cases) {
+                nanos += testCase.nanos;
+            }
+            return nanos;
+        }
+
+        private String render() {
+            StringBuilder out = new StringBuilder(256 * (cases.size() + 1));
+            out.append("<testsuite name=\"").append(xml(name)).append("\" tests=\"").append(cases.size())
+                .append("\" failures=\"").append(count(TestCase.FAILED)).append("\" errors=\"0\" skipped=\"")
+                .append(count(TestCase.SKIPPED)).append("\" time=\"").append(seconds(nanos())).append("\">\n");
+            for (TestCase testCase : cases) {
+                testCase.render(out);
+            }
+            return out.append("</testsuite>\n").toString();
+        }
+    }
+
+    private static final class TestCase {
+        private static final int PASSED = 0;
+        private static final int SKIPPED = 1;
+        private static final int FAILED = 2;
+
+        private final String className;
+        private final String name;
+        private int status = PASSED;
+        private String skippedStatus;
+        private Throwable error;
+        private long nanos;
+
+        private TestCase(String className, String name) {
+            this.className = className;
+            this.name = name;
+        }
+
+        /**
+         * Adds the result of a step or hook. The first failure makes the case failed; otherwise, any step which
+         * did not pass makes it skipped.
+         */
+        private void add(String stepStatus, long stepNanos, Throwable stepError) {
+            nanos += stepNanos;
+            if (Result.FAILED.equals(stepStatus)) {
+                if (status != FAILED) {
+                    status = FAILED;
+                    error = stepError;
+                }
+            } else if (!Result.PASSED.equals(stepStatus) && status == PASSED) {
+                status = SKIPPED;
+                skippedStatus = stepStatus;
+            }
+        }
+
+        private void render(StringBuilder out) {
+            out.append("  <testcase classname=\"").append(xml(className)).append("\" name=\"").append(xml(name))
+                .append("\" time=\"").append(seconds(nanos)).append('"');
+            if (status == PASSED) {
+                out.append("/>\n");
+                return;
+            }
+            out.append(">\n");
+            if (status == SKIPPED) {
+                out.append("    <skipped message=\"").append(xml(skippedStatus)).append("\"/>\n");
+            } else if (error == null) {
+                out.append("    <failure message=\"failed\"/>\n");
+            } else {
+                String headline = error.toString();
+                int colon = headline.indexOf(':');
+                out.append("    <failure message=\"").append(xml(headline)).append("\" type=\"")
+                    .append(xml(colon < 0 ? headline : headline.substring(0, colon))).append("\">")
+                    .append(xml(Html.stackTrace(error))).append("</failure>\n");
+            }
+            out.append("  </testcase>\n");
+        }
+    }
+}
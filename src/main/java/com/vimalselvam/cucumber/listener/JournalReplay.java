@@ -0,0 +1,133 @@
+package com.vimalselvam.cucumber.listener;
+
+import com.aventstack.extentreports.ExtentReports;
+import com.aventstack.extentreports.reporter.ExtentHtmlReporter;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+
+/**
+ * Rebuilds the report of a run from the journal written with {@link OutputSink#JOURNAL}, typically after the
+ * JVM died before the end of the run. The journal is replayed up to its last complete event.
+ * <p>
+ * From the command line: {@code java com.vimalselvam.cucumber.listener.JournalReplay <report.journal>
+ * <report.html>}
+ */
+public final class JournalReplay {
+
+    private JournalReplay() {
+        // Defeat instantiation
+    }
+
+    /**
+     * Replays the given journal into a new html report
+     * @param journal The journal file
+     * @param reportFile The html report to write
+     * @throws IOException If the journal cannot be read
+     */
+    public static void replay(File journal, File reportFile) throws IOException {
+        File parent = reportFile.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+        ExtentReports extentReports = new ExtentReports();
+        extentReports.attachReporter(new ExtentHtmlReporter(reportFile));
+        replay(journal, extentReports);
+        extentReports.flush();
+    }
+
+    /**
+     * Adds the features and the system info of the given journal to the given report. The report is not
+     * flushed.
+     * @param journal The journal file
+     * @param extentReports The report to add the journal to
+     * @throws IOException If the journal cannot be read
+     */
+    public static void replay(File journal, ExtentReports extentReports) throws IOException {
+        replay(journal.toPath(), new ExtentReportBuilder(extentReports));
+    }
+
+    /**
+     * Replays the events of a journal, in the order they were appended, to the given handler
+     * @param journal The journal file
+     * @param handler The handler of the events
+     * @return The number of replayed events
+     * @throws IOException If the journal cannot be read or is not a journal at all
+     */
+    static int replay(Path journal, ReportEventHandler handler) throws IOException {
+        ShardReader decoder = new ShardReader("the journal " + journal);
+        CRC32 crc = new CRC32();
+        byte[] payload = new byte[256];
+        int events = 0;
+        try (DataInputStream in = new DataInputStream(
+            new BufferedInputStream(Files.newInputStream(journal), 65536))) {
+            if (in.readInt() != EventJournal.MAGIC) {
+                throw new IOException(journal + " is not a journal");
+            }
+            int version = in.readInt();
+            if (version != ShardFormat.VERSION) {
+                throw new IOException("The journal " + journal + " has the unsupported version " + version);
+            }
+            while (true) {
+                int length;
+                int checksum;
+                try {
+                    int first = in.read();
+                    if (first == -1) {
+                        // A kept journal, cut right after its last record at the end of the run
+                        return events;
+                    }
+                    length = first << 24 | in.readUnsignedByte() << 16 | in.readUnsignedByte() << 8
+                        | in.readUnsignedByte();
+                    if (length == 0) {
+                        // The end of the journal, or a record which was being appended when the JVM died
+                        return events;
+                    }
+                    checksum = in.readInt();
+                    if (length < 0) {
+                        System.err.println(damaged(journal, events));
+                        return events;
+                    }
+                    if (length > payload.length) {
+                        payload = new byte[Math.max(length, payload.length * 2)];
+                    }
+                    in.readFully(payload, 0, length);
+                } catch (EOFException e) {
+                    System.err.println("The journal " + journal + " is truncated, its last event is lost");
+                    return events;
+                }
+                crc.reset();
+                crc.update(payload, 0, length);
+                if ((int) crc.getValue() != checksum) {
+                    System.err.println(damaged(journal, events));
+                    return events;
+                }
+                ReportEvent event = decoder.readEvent(new DataInputStream(new ByteArrayInputStream(payload, 0,
+                    length)));
+                if (event != null) {
+                    event.accept(handler);
+                    events++;
+                }
+            }
+        }
+    }
+
+    private static String damaged(Path journal, int events) {
+        return "The journal " + journal + " is damaged after " + events + " events, which are the only ones replayed";
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: java " + JournalReplay.class.getName() + " <report.journal> <report.html>");
+            System.exit(2);
+        }
+        replay(new File(args[0]), new File(args[1]));
+    }
+}
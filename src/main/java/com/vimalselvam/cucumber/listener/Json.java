@@ -0,0 +1,39 @@
+package com.vimalselvam.cucumber.listener;
+
+/**
+ * Few helpers to write the json output of the report
+ */
+final class Json {
+
+    private Json() {
+        // Defeat instantiation
+    }
+
+    /**
+     * Appends a json string
+     * @param out Where the string is appended
+     * @param value The value of the string, null for a json null
+     */
+    static void appendString(StringBuilder out, String value) {
+        if (value == null) {
+            out.append("null");
+            return;
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.append('\\').append(c);
+            } else if (c == '\n') {
+                out.append("\\n");
+            } else if (c == '\t') {
+                out.append("\\t");
+            } else if (c < 0x20) {
+                out.append(String.format("\\u%04x", (int) c));
+            } else {
+                out.append(c);
+            }
+        }
+        out.append('"');
+    }
+}
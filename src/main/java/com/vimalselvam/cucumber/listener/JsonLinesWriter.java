@@ -0,0 +1,314 @@
+package com.vimalselvam.cucumber.listener;
+
+import gherkin.formatter.model.Row;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes every event as a line of json, for tools which process the run rather than look at it.
+ * Each node gets an id: the events which create a node carry its id and the id of its parent, the other
+ * events the id of the node they target. A feature's nodes are forgotten once it is finished.
+ * <p>
+ * Not thread safe, it is meant to be the handler of its own {@link AsyncEventDispatcher}.
+ */
+final class JsonLinesWriter implements ReportEventHandler {
+    private final Path path;
+    private final Map<ReportNode, Integer> nodeIds = new IdentityHashMap<>();
+    private final StringBuilder line = new StringBuilder(1024);
+    private Writer out;
+    private int lastId;
+
+    /**
+     * @param path The file the events are written to, which is replaced
+     */
+    JsonLinesWriter(Path path) {
+        this.path = path;
+    }
+
+    @Override
+    public void onFeatureStarted(ReportEvent.FeatureStarted event) {
+        begin("featureStarted");
+        line.append(",\"node\":").append(newId(event.getNode()));
+        field("uri", event.getUri());
+        field("name", event.getName());
+        strings("tags", event.getTags());
+        end();
+    }
+
+    @Override
+    public void onFeatureFinished(ReportEvent.FeatureFinished event) {
+        ReportNode featureNode = event.getNode();
+        Integer id = nodeIds.get(featureNode);
+        nodeIds.keySet().removeIf(node -> rootOf(node) == featureNode);
+        if (id == null) {
+            return;
+        }
+        begin("featureFinished");
+        line.append(",\"node\":").append(id);
+        end();
+    }
+
+    @Override
+    public void onScenarioOutlineStarted(ReportEvent.ScenarioOutlineStarted event) {
+        if (!beginChild("scenarioOutlineStarted", event)) {
+            return;
+        }
+        field("name", event.getName());
+        end();
+    }
+
+    @Override
+    public void onExamplesTable(ReportEvent.ExamplesTable event) {
+        if (!begin("examplesTable", event)) {
+            return;
+        }
+        field("examplesId", event.getExamplesId());
+        rows(event.getRows());
+        end();
+    }
+
+    @Override
+    public void onExampleResults(ReportEvent.ExampleResults event) {
+        if (!begin("exampleResults", event)) {
+            return;
+        }
+        field("examplesId", event.getExamplesId());
+        strings("header", event.getHeader().getCells());
+        line.append(",\"results\":[");
+        List<ReportEvent.ExampleResult> results = event.getResults();
+        for (int i = 0, size = results.size(); i < size; i++) {
+            ReportEvent.ExampleResult result = results.get(i);
+            line.append(i == 0 ? "{" : ",{").append("\"cells\":");
+            appendStrings(result.getRow().getCells());
+            field("status", result.getStatus());
+            line.append(",\"durationNanos\":").append(result.getDurationNanos());
+            if (result.getFailure() != null) {
+                field("failure", result.getFailure());
+            }
+            line.append('}');
+        }
+        line.append(']');
+        end();
+    }
+
+    @Override
+    public void onScenarioStarted(ReportEvent.ScenarioStarted event) {
+        if (!beginChild("scenarioStarted", event)) {
+            return;
+        }
+        field("name", event.getName());
+        strings("tags", event.getTags());
+        if (event.getExample() != null) {
+            strings("example", event.getExample().getRow().getCells());
+        }
+        end();
+    }
+
+    @Override
+    public void onStepStarted(ReportEvent.StepStarted event) {
+        if (!beginChild("stepStarted", event)) {
+            return;
+        }
+        field("keyword", event.getKeyword());
+        field("name", event.getName());
+        rows(event.getRows());
+        end();
+    }
+
+    @Override
+    public void onStepFinished(ReportEvent.StepFinished event) {
+        if (!begin("stepFinished", event)) {
+            return;
+        }
+        field("status", event.getStatus());
+        line.append(",\"durationNanos\":").append(event.getDurationNanos());
+        error(event.getError());
+        if (event.getCluster() != null) {
+            line.append(",\"failureCluster\":").append(event.getCluster().getId());
+        }
+        end();
+    }
+
+    @Override
+    public void onHooksFinished(ReportEvent.HooksFinished event) {
+        if (!begin("hooksFinished", event)) {
+            return;
+        }
+        line.append(",\"hooks\":[");
+        List<ReportEvent.HookResult> hooks = event.getHooks();
+        for (int i = 0; i < hooks.size(); i++) {
+            ReportEvent.HookResult hook = hooks.get(i);
+            line.append(i == 0 ? "{" : ",{").append("\"before\":").append(hook.isBefore());
+            field("location", hook.getLocation());
+            field("status", hook.getStatus());
+            line.append(",\"durationNanos\":").append(hook.getDurationNanos());
+            error(hook.getError());
+            line.append('}');
+        }
+        line.append(']');
+        end();
+    }
+
+    @Override
+    public void onLog(ReportEvent.Log event) {
+        if (!begin("log", event)) {
+            return;
+        }
+        field("message", event.getMessage());
+        end();
+    }
+
+    @Override
+    public void onScreenCapture(ReportEvent.ScreenCapture event) {
+        if (!begin("screenCapture", event)) {
+            return;
+        }
+        field("path", event.getPath());
+        field("title", event.getTitle());
+        line.append(",\"screencast\":").append(event.isScreencast());
+        end();
+    }
+
+    @Override
+    public void onAuthorAssigned(ReportEvent.AuthorAssigned event) {
+        if (!begin("authorAssigned", event)) {
+            return;
+        }
+        strings("authors", event.getAuthors());
+        end();
+    }
+
+    @Override
+    public void onSystemInfo(ReportEvent.SystemInfo event) {
+        begin("systemInfo");
+        field("key", event.getKey());
+        field("value", event.getValue());
+        end();
+    }
+
+    @Override
+    public void onTestRunnerOutput(ReportEvent.TestRunnerOutput event) {
+        begin("testRunnerOutput");
+        field("output", event.getOutput());
+        end();
+    }
+
+    @Override
+    public void onFlush(ReportEvent.Flush event) {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to write the event log " + path, e);
+        }
+    }
+
+    private void begin(String type) {
+        line.setLength(0);
+        line.append("{\"event\":\"").append(type).append('"');
+    }
+
+    /**
+     * Begins the line of an event targeting a node
+     * @return false if the node is not known, in which case nothing is written
+     */
+    private boolean begin(String type, ReportEvent.NodeEvent event) {
+        Integer id = nodeIds.get(event.getNode());
+        if (id == null) {
+            return false;
+        }
+        begin(type);
+        line.append(",\"node\":").append(id);
+        return true;
+    }
+
+    /**
+     * Begins the line of an event creating a node
+     * @return false if the parent is not known, in which case nothing is written
+     */
+    private boolean beginChild(String type, ReportEvent.NodeEvent event) {
+        ReportNode parentNode = event.getNode().getParent();
+        Integer parentId = parentNode == null ? null : nodeIds.get(parentNode);
+        if (parentId == null) {
+            return false;
+        }
+        begin(type);
+        line.append(",\"node\":").append(newId(event.getNode())).append(",\"parent\":").append(parentId);
+        return true;
+    }
+
+    private void field(String name, String value) {
+        line.append(",\"").append(name).append("\":");
+        Json.appendString(line, value);
+    }
+
+    private void strings(String name, List<String> values) {
+        line.append(",\"").append(name).append("\":");
+        appendStrings(values);
+    }
+
+    private void appendStrings(List<String> values) {
+        line.append('[');
+        for (int i = 0, size = values.size(); i < size; i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            Json.appendString(line, values.get(i));
+        }
+        line.append(']');
+    }
+
+    private void rows(List<? extends Row> rows) {
+        line.append(",\"rows\":[");
+        for (int i = 0, size = rows.size(); i < size; i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            appendStrings(rows.get(i).getCells());
+        }
+        line.append(']');
+    }
+
+    private void error(Throwable error) {
+        if (error != null) {
+            field("error", error.toString());
+            field("stackTrace", Html.stackTrace(error));
+        }
+    }
+
+    private void end() {
+        line.append("}\n");
+        try {
+            if (out == null) {
+                Files.createDirectories(path.toAbsolutePath().getParent());
+                out = Files.newBufferedWriter(path, StandardCharsets.UTF_8);
+            }
+            out.append(line);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to write the event log " + path, e);
+        }
+    }
+
+    private int newId(ReportNode node) {
+        int id = ++lastId;
+        nodeIds.put(node, id);
+        return id;
+    }
+
+    private static ReportNode rootOf(ReportNode node) {
+        while (node.getParent() != null) {
+            node = node.getParent();
+        }
+        return node;
+    }
+}
@@ -0,0 +1,535 @@
+package com.vimalselvam.cucumber.listener;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands the report events over to a writer thread, which writes them to Klov in batches. While Klov cannot
+ * be reached, the events are appended to a local spool file instead and written from there, in order, as
+ * soon as Klov is back. The events are queued as shard records, which are also what the spool is made of.
+ * <p>
+ * A batch is handed to the Klov reporter one event at a time, each event still being its own MongoDB write:
+ * the batches take the writes off the cucumber threads, they do not make fewer of them.
+ * <p>
+ * The cucumber threads never wait for the writer thread. When the queue is full, the event is appended to
+ * the spool, as are the events after it until the writer thread caught up, unless the backpressure policy
+ * is {@link BackpressurePolicy#DISCARD} and the event may be dropped, in which case it is counted as lost.
+ */
+final class KlovBatchWriter implements ReportEventHandler {
+    private static final long RETRY_INTERVAL_MILLIS = 5000;
+
+    private final KlovTarget target;
+    private final Path spoolPath;
+    private final int batchSize;
+    private final long lingerNanos;
+    private final BackpressurePolicy backpressurePolicy;
+    private final BlockingQueue<Object> queue;
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+    private final ShardWriter encoder = new ShardWriter(new DataOutputStream(buffer), "the Klov queue");
+    private final ShardReader decoder = new ShardReader("the Klov queue");
+    private final Thread writer;
+
+    // Guarded by the encoder, as the cucumber threads spool the events the queue has no room for
+    private DataOutputStream spool;
+    /**
+     * Whether the cucumber threads spool their events, the queue having been full. The events still queued
+     * then come before the spooled ones.
+     */
+    private boolean overflowing;
+
+    // Only touched by the writer thread
+    private final List<byte[]> held = new ArrayList<>();
+    private long spoolOffset;
+    private long lastRetry;
+    private boolean failing;
+
+    private final AtomicLong spooledRecords = new AtomicLong();
+    private final AtomicLong writtenEvents = new AtomicLong();
+    private final AtomicLong lostEvents = new AtomicLong();
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong writeNanos = new AtomicLong();
+    private final AtomicLong maxWriteNanos = new AtomicLong();
+
+    /**
+     * @param target Where the events are written to
+     * @param spoolPath The file the events are spooled to while the target cannot be reached
+     * @param batchSize The most events written at once
+     * @param lingerMillis How long to wait for a batch to fill up before writing it anyway
+     * @param queueSize The number of events which can be waiting for the writer thread
+     */
+    KlovBatchWriter(KlovTarget target, Path spoolPath, int batchSize, long lingerMillis, int queueSize) {
+        this(target, spoolPath, batchSize, lingerMillis, queueSize, BackpressurePolicy.BLOCK);
+    }
+
+    /**
+     * @param target Where the events are written to
+     * @param spoolPath The file the events are spooled to while the target cannot be reached, a spool left
+     * by a previous run is discarded
+     * @param batchSize The most events written at once
+     * @param lingerMillis How long to wait for a batch to fill up before writing it anyway
+     * @param queueSize The number of events which can be waiting for the writer thread
+     * @param backpressurePolicy What happens to an event the queue is full for
+     */
+    KlovBatchWriter(KlovTarget target, Path spoolPath, int batchSize, long lingerMillis, int queueSize,
+        BackpressurePolicy backpressurePolicy) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("The Klov batch size should be at least 1");
+        }
+        if (queueSize < 1) {
+            throw new IllegalArgumentException("The Klov queue size should be at least 1");
+        }
+        this.target = target;
+        this.spoolPath = spoolPath;
+        this.batchSize = batchSize;
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, lingerMillis));
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+        this.backpressurePolicy = backpressurePolicy == null ? BackpressurePolicy.BLOCK : backpressurePolicy;
+        try {
+            // Its events belong to the nodes of the run which left it, they cannot be part of this one
+            if (Files.deleteIfExists(spoolPath)) {
+                System.err.println("The Klov spool " + spoolPath + " left by a previous run is discarded");
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        this.writer = new Thread(this::write, "extent-klov-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void onFeatureStarted(ReportEvent.FeatureStarted event) {
+        enqueue(event);
+    }
+
+    @Override
+    public void onFeatureFinished(ReportEvent.FeatureFinished event) {
+        enqueue(event);
+    }
+
+    @Override
+    public void onScenarioOutlineStarted(ReportEvent.ScenarioOutlineStarted event) {
+        enqueue(event);
+    }
+
+    @Override
+    public void onExamplesTable(ReportEvent.ExamplesTable event) {
+        enqueue(event);
+    }
+
+    @Override
+    public void onExampleResults(ReportEvent.ExampleResults event) {
+        enqueue(event);
+    }
+
+    @Override
+    public void onScenarioStarted(ReportEvent.ScenarioStarted event) {
+        enqueue(event);
+    }
+
+    @Override
+    public void onStepStarted(ReportEvent.StepStarted event) {
+        enqueue(event);
+    }
+
+    @Override
+    public void onStepFinished(ReportEvent.StepFinished event) {
+        enqueue(event);
+    }
+
+    @Override
+    public void onHooksFinished(ReportEvent.HooksFinished event) {
+        enqueue(event);
+    }
+
+    @Override
+    public void onLog(ReportEvent.Log event) {
+        enqueue(event);
+    }
+
+    @Override
+    public void onScreenCapture(ReportEvent.ScreenCapture event) {
+        enqueue(event);
+    }
+
+    @Override
+    public void onAuthorAssigned(ReportEvent.AuthorAssigned event) {
+        enqueue(event);
+    }
+
+    @Override
+    public void onSystemInfo(ReportEvent.SystemInfo event) {
+        enqueue(event);
+    }
+
+    /**
+     * Waits until every event queued so far is written to Klov or spooled
+     */
+    @Override
+    public void onFlush(ReportEvent.Flush event) {
+        FlushRequest request = new FlushRequest();
+        try {
+            queue.put(request);
+            request.latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Flushes and stops the writer thread. Events handled afterwards are never written.
+     */
+    void shutdown() {
+        onFlush(new ReportEvent.Flush());
+        writer.interrupt();
+    }
+
+    /**
+     * Gets the number of events waiting for the writer thread
+     * @return The queue depth
+     */
+    int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * Gets the number of events in the spool file, waiting for Klov to be reachable again
+     * @return The spool depth
+     */
+    long getSpoolDepth() {
+        return spooledRecords.get();
+    }
+
+    /**
+     * Gets the number of events written to Klov
+     * @return The number of written events
+     */
+    long getWrittenEventCount() {
+        return writtenEvents.get();
+    }
+
+    /**
+     * Gets the number of events which were neither written nor spooled
+     * @return The number of lost events
+     */
+    long getLostEventCount() {
+        return lostEvents.get();
+    }
+
+    /**
+     * Gets the average time a batch took to write, failed attempts included
+     * @return The average write latency in nanoseconds
+     */
+    long getAverageWriteNanos() {
+        long count = writes.get();
+        return count == 0 ? 0 : writeNanos.get() / count;
+    }
+
+    /**
+     * Gets the longest time a batch took to write, failed attempts included
+     * @return The maximum write latency in nanoseconds
+     */
+    long getMaxWriteNanos() {
+        return maxWriteNanos.get();
+    }
+
+    private void enqueue(ReportEvent event) {
+        // Queued under the lock too, a node has to be queued before the events which refer to it
+        synchronized (encoder) {
+            event.accept(encoder);
+            if (buffer.size() == 0) {
+                // The event targets a node which is unknown or already finished
+                return;
+            }
+            byte[] record = buffer.toByteArray();
+            buffer.reset();
+            if (!overflowing && queue.offer(record)) {
+                return;
+            }
+            if (!overflowing && backpressurePolicy == BackpressurePolicy.DISCARD
+                && AsyncEventDispatcher.isDiscardable(event)) {
+                lostEvents.incrementAndGet();
+                return;
+            }
+            overflowing = true;
+            appendToSpool(Collections.singletonList(record), 0);
+        }
+    }
+
+    private void write() {
+        List<byte[]> batch = new ArrayList<>(batchSize);
+        while (true) {
+            FlushRequest flushRequest;
+            try {
+                flushRequest = collect(batch);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (!batch.isEmpty()) {
+                writeOrSpool(batch);
+                batch.clear();
+            }
+            if (flushRequest != null) {
+                flush();
+                flushRequest.latch.countDown();
+            } else if ((!held.isEmpty() || spooledRecords.get() > 0)
+                && (!failing || System.currentTimeMillis() - lastRetry >= RETRY_INTERVAL_MILLIS)) {
+                replaySpool();
+            }
+        }
+    }
+
+    /**
+     * Waits for the next batch, which is complete when it is full, the linger time is over or a flush
+     * is requested
+     * @return The flush request which ended the batch, if any
+     */
+    private FlushRequest collect(List<byte[]> batch) throws InterruptedException {
+        // Wakes up now and then to retry the spool, or straight away to catch up with it while Klov is up
+        boolean catchingUp = !failing && spooledRecords.get() > 0;
+        Object item = queue.poll(catchingUp ? 0 : RETRY_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        long deadline = System.nanoTime() + lingerNanos;
+        while (item != null) {
+            if (item instanceof FlushRequest) {
+                return (FlushRequest) item;
+            }
+            batch.add((byte[]) item);
+            if (batch.size() >= batchSize) {
+                return null;
+            }
+            long remaining = deadline - System.nanoTime();
+            item = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+        }
+        return null;
+    }
+
+    private void writeOrSpool(List<byte[]> batch) {
+        synchronized (encoder) {
+            if (!overflowing && spooledRecords.get() > 0) {
+                // The spooled events go first
+                appendToSpool(batch, 0);
+                return;
+            }
+        }
+        int written = held.isEmpty() ? writeRecords(batch) : 0;
+        if (written == batch.size()) {
+            return;
+        }
+        synchronized (encoder) {
+            if (!overflowing) {
+                appendToSpool(batch, written);
+                return;
+            }
+        }
+        // The cucumber threads spooled newer events meanwhile, these ones have to be written before them
+        held.addAll(batch.subList(written, batch.size()));
+    }
+
+    private void flush() {
+        if ((!held.isEmpty() || spooledRecords.get() > 0) && !replaySpool()) {
+            System.err.println((held.size() + spooledRecords.get()) + " report events could not be written to Klov"
+                + " yet, they are spooled in " + spoolPath);
+            return;
+        }
+        try {
+            target.flush();
+        } catch (KlovWriteException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Writes the given records to the target
+     * @return The number of records written before the target failed
+     */
+    private int writeRecords(List<byte[]> records) {
+        List<ReportEvent> events = new ArrayList<>(records.size());
+        int[] recordIndexes = new int[records.size()];
+        for (int i = 0; i < records.size(); i++) {
+            try {
+                DataInputStream in = new DataInputStream(new ByteArrayInputStream(records.get(i)));
+                recordIndexes[events.size()] = i;
+                events.add(decoder.readEvent(in));
+            } catch (IOException e) {
+                // Cannot happen with records of our own encoder, and would fail again
+                lostEvents.incrementAndGet();
+                e.printStackTrace();
+            }
+        }
+
+        long start = System.nanoTime();
+        try {
+            target.write(events);
+            writtenEvents.addAndGet(events.size());
+            failing = false;
+            return records.size();
+        } catch (KlovWriteException e) {
+            writtenEvents.addAndGet(e.getWritten());
+            if (!failing) {
+                System.err.println("Klov cannot be reached, the report events are spooled to " + spoolPath
+                    + " until it is back: " + e.getCause());
+            }
+            failing = true;
+            return e.getWritten() < events.size() ? recordIndexes[e.getWritten()] : records.size();
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            writes.incrementAndGet();
+            writeNanos.addAndGet(elapsed);
+            maxWriteNanos.accumulateAndGet(elapsed, Math::max);
+        }
+    }
+
+    /**
+     * Appends the given records to the spool, holding the lock of the encoder
+     */
+    private void appendToSpool(List<byte[]> records, int from) {
+        try {
+            if (spool == null) {
+                Files.createDirectories(spoolPath.toAbsolutePath().getParent());
+                spool = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(spoolPath,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND), 65536));
+            }
+            for (int i = from; i < records.size(); i++) {
+                byte[] record = records.get(i);
+                spool.writeInt(record.length);
+                spool.write(record);
+            }
+            spool.flush();
+            spooledRecords.addAndGet(records.size() - from);
+        } catch (IOException e) {
+            lostEvents.addAndGet(records.size() - from);
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Writes the held and the spooled records to the target, from where the last replay stopped
+     * @return true if they were all written
+     */
+    private boolean replaySpool() {
+        lastRetry = System.currentTimeMillis();
+        List<FlushRequest> flushRequests = new ArrayList<>();
+        try {
+            return replayHeldAndSpooled(flushRequests);
+        } finally {
+            // Queued behind records which were held, which are written or spooled by now
+            for (FlushRequest request : flushRequests) {
+                request.latch.countDown();
+            }
+        }
+    }
+
+    private boolean replayHeldAndSpooled(List<FlushRequest> flushRequests) {
+        boolean klovWasDown = failing;
+        synchronized (encoder) {
+            if (overflowing) {
+                // No records are queued anymore, those left come before the spooled ones
+                List<Object> queued = new ArrayList<>();
+                queue.drainTo(queued);
+                for (Object item : queued) {
+                    if (item instanceof FlushRequest) {
+                        flushRequests.add((FlushRequest) item);
+                    } else {
+                        held.add((byte[]) item);
+                    }
+                }
+            }
+        }
+        while (!held.isEmpty()) {
+            List<byte[]> records = held.subList(0, Math.min(batchSize, held.size()));
+            int written = writeRecords(records);
+            records.subList(0, written).clear();
+            if (!records.isEmpty()) {
+                return false;
+            }
+        }
+        try {
+            try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(spoolPath), 65536))) {
+                long skipped = 0;
+                while (skipped < spoolOffset) {
+                    long count = in.skip(spoolOffset - skipped);
+                    if (count <= 0) {
+                        throw new EOFException("The spool " + spoolPath + " is shorter than expected");
+                    }
+                    skipped += count;
+                }
+                List<byte[]> records = new ArrayList<>(batchSize);
+                while (spooledRecords.get() > 0) {
+                    records.clear();
+                    for (long i = 0, count = Math.min(batchSize, spooledRecords.get()); i < count; i++) {
+                        byte[] record = new byte[in.readInt()];
+                        in.readFully(record);
+                        records.add(record);
+                    }
+                    int written = writeRecords(records);
+                    for (int i = 0; i < written; i++) {
+                        spoolOffset += 4 + records.get(i).length;
+                    }
+                    spooledRecords.addAndGet(-written);
+                    if (written < records.size()) {
+                        return false;
+                    }
+                }
+            }
+            synchronized (encoder) {
+                if (spooledRecords.get() > 0) {
+                    // Spooled while the last ones were written, left for the next replay
+                    return true;
+                }
+                deleteSpool();
+            }
+            if (klovWasDown) {
+                System.err.println("Klov is back, the spooled report events are written");
+            }
+            return true;
+        } catch (IOException e) {
+            // The spool is unreadable, there is no way to write its events anymore
+            synchronized (encoder) {
+                lostEvents.addAndGet(spooledRecords.getAndSet(0));
+                e.printStackTrace();
+                deleteSpool();
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Closes and deletes the spool, holding the lock of the encoder, so the next event is queued again
+     */
+    private void deleteSpool() {
+        overflowing = false;
+        spoolOffset = 0;
+        try {
+            if (spool != null) {
+                spool.close();
+                spool = null;
+            }
+            Files.deleteIfExists(spoolPath);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static final class FlushRequest {
+        private final CountDownLatch latch = new CountDownLatch(1);
+    }
+}
@@ -0,0 +1,63 @@
+package com.vimalselvam.cucumber.listener;
+
+import com.aventstack.extentreports.ExtentReports;
+
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Writes the events to an {@link ExtentReports} instance which only has the Klov reporter attached, so
+ * the MongoDB writes of the Klov reporter happen on the thread of the {@link KlovBatchWriter}.
+ * The connection to MongoDB is made on that thread as well, by the first write, and made again by the
+ * next write while it fails.
+ */
+final class KlovReporterTarget implements KlovTarget {
+    private final Callable<ExtentReports> connector;
+    private ExtentReports klovReports;
+    private ExtentReportBuilder builder;
+
+    /**
+     * @param connector Connects to MongoDB and gives the report the Klov reporter is attached to
+     */
+    KlovReporterTarget(Callable<ExtentReports> connector) {
+        this.connector = connector;
+    }
+
+    @Override
+    public void write(List<ReportEvent> events) throws KlovWriteException {
+        connect();
+        for (int i = 0, size = events.size(); i < size; i++) {
+            try {
+                events.get(i).accept(builder);
+            } catch (UncheckedIOException e) {
+                // A missing screenshot, writing it again would not help
+                e.printStackTrace();
+            } catch (RuntimeException e) {
+                throw new KlovWriteException(i, e);
+            }
+        }
+    }
+
+    @Override
+    public void flush() throws KlovWriteException {
+        connect();
+        try {
+            klovReports.flush();
+        } catch (RuntimeException e) {
+            throw new KlovWriteException(0, e);
+        }
+    }
+
+    private void connect() throws KlovWriteException {
+        if (klovReports != null) {
+            return;
+        }
+        try {
+            klovReports = connector.call();
+        } catch (Exception e) {
+            throw new KlovWriteException(0, e);
+        }
+        builder = new ExtentReportBuilder(klovReports);
+    }
+}
@@ -0,0 +1,22 @@
+package com.vimalselvam.cucumber.listener;
+
+import java.util.List;
+
+/**
+ * Where {@link KlovBatchWriter} writes the batches of report events to
+ */
+interface KlovTarget {
+
+    /**
+     * Writes the given events, in order
+     * @param events The batch of events
+     * @throws KlovWriteException If the events could not all be written
+     */
+    void write(List<ReportEvent> events) throws KlovWriteException;
+
+    /**
+     * Makes sure everything written so far is stored
+     * @throws KlovWriteException If the store cannot be reached
+     */
+    void flush() throws KlovWriteException;
+}
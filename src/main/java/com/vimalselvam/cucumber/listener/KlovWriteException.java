@@ -0,0 +1,26 @@
+package com.vimalselvam.cucumber.listener;
+
+/**
+ * Thrown when a batch of report events could not be written to Klov
+ */
+final class KlovWriteException extends Exception {
+    private static final long serialVersionUID = 1L;
+    private final int written;
+
+    /**
+     * @param written The number of events of the batch which were written before the failure
+     * @param cause The failure
+     */
+    KlovWriteException(int written, Throwable cause) {
+        super("Unable to write to Klov after " + written + " events", cause);
+        this.written = written;
+    }
+
+    /**
+     * Gets the number of events of the batch which were written before the failure
+     * @return The number of written events
+     */
+    int getWritten() {
+        return written;
+    }
+}
@@ -0,0 +1,171 @@
+package com.vimalselvam.cucumber.listener;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Stores the large texts logged by the steps in a logs directory next to the report, gzipped, so that the
+ * report only keeps a preview of them with a link to the full text. The text is compressed and written by a
+ * worker thread, a chunk at a time, so storing it never takes a copy of the whole text. At most a few texts
+ * wait for the worker; past that the logging thread stores the text itself, so the texts waiting to be
+ * written stay bounded. The JVMs of a sharded run each store their texts in a directory of their own under the
+ * logs directory, so that none of them deletes the texts of another.
+ */
+final class LargeTextStore {
+    /**
+     * The number of characters of a large text kept in the report
+     */
+    static final int PREVIEW_CHARS = 1000;
+    /**
+     * The number of characters of a large text stored aside, the rest of the text is dropped
+     */
+    static final int MAX_STORED_CHARS = 16 * 1024 * 1024;
+    private static final int QUEUED_TEXTS = 4;
+    private static final String EXTENSION = ".txt.gz";
+    private static final int CHUNK_CHARS = 8192;
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private final Path directory;
+    private final String relativeDirectory;
+    private final int thresholdChars;
+    private final ExecutorService executor;
+    private final Object pendingLock = new Object();
+    private int pending;
+
+    /**
+     * @param reportDirectory The directory the report is written to
+     * @param thresholdChars The number of characters above which a text is stored aside
+     */
+    LargeTextStore(Path reportDirectory, int thresholdChars) {
+        this(reportDirectory, null, thresholdChars);
+    }
+
+    /**
+     * @param reportDirectory The directory the report is written to
+     * @param subdirectory The directory of this JVM under the logs directory or null to store in the logs
+     * directory itself
+     * @param thresholdChars The number of characters above which a text is stored aside
+     */
+    LargeTextStore(Path reportDirectory, String subdirectory, int thresholdChars) {
+        this.relativeDirectory = subdirectory == null ? "logs" : "logs/" + subdirectory;
+        this.directory = reportDirectory.resolve(relativeDirectory);
+        this.thresholdChars = thresholdChars;
+        this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(QUEUED_TEXTS), runnable -> {
+                Thread thread = new Thread(runnable, "extent-report-large-texts");
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Deletes the texts stored by a previous run in the directory of this store, as the report which linked
+     * them is replaced. The other files of the directory, and the directories of the other shards, are left
+     * alone.
+     */
+    void clear() {
+        try (DirectoryStream<Path> texts = Files.newDirectoryStream(directory, "*" + EXTENSION)) {
+            for (Path text : texts) {
+                Files.deleteIfExists(text);
+            }
+        } catch (NoSuchFileException e) {
+            // No run stored any text yet
+        } catch (IOException e) {
+            System.err.println("The logged texts of the previous run cannot be deleted: " + e);
+        }
+    }
+
+    /**
+     * Gets what the report keeps of a logged text, and stores the text aside in the background if it is large
+     * @param text The logged text
+     * @return The text itself if it is not above the threshold, otherwise the html of its preview with a link
+     * to the full text
+     */
+    String capture(String text) {
+        if (text == null || text.length() <= thresholdChars) {
+            return text;
+        }
+        String fileName = UUID.randomUUID() + EXTENSION;
+        StringBuilder out = new StringBuilder(PREVIEW_CHARS + 256);
+        int preview = Math.min(PREVIEW_CHARS, text.length());
+        if (Character.isHighSurrogate(text.charAt(preview - 1))) {
+            // Keep the pair of a character outside the basic plane together
+            preview--;
+        }
+        int stored = Math.min(MAX_STORED_CHARS, text.length());
+        if (stored < text.length() && Character.isHighSurrogate(text.charAt(stored - 1))) {
+            stored--;
+        }
+        out.append("<pre>").append(Html.escape(text.substring(0, preview))).append("</pre>");
+        out.append("<a href='").append(relativeDirectory).append('/').append(fileName).append("'>");
+        if (stored < text.length()) {
+            out.append("First ").append(stored).append(" of ").append(text.length()).append(" characters</a>");
+        } else {
+            out.append("Full text, ").append(text.length()).append(" characters</a>");
+        }
+
+        synchronized (pendingLock) {
+            pending++;
+        }
+        int length = stored;
+        executor.execute(() -> {
+            try {
+                store(directory.resolve(fileName), text, length);
+            } catch (IOException e) {
+                // The preview is still better than keeping the whole text in the report
+                System.err.println("Unable to store a logged text of " + text.length() + " characters, its link is "
+                    + "broken: " + e);
+            } finally {
+                synchronized (pendingLock) {
+                    pending--;
+                    pendingLock.notifyAll();
+                }
+            }
+        });
+        return out.toString();
+    }
+
+    /**
+     * Blocks until every text captured so far has been written
+     */
+    void awaitPending() {
+        synchronized (pendingLock) {
+            while (pending > 0) {
+                try {
+                    pendingLock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private static void store(Path path, String text, int length) throws IOException {
+        Files.createDirectories(path.getParent());
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            try (Writer out = new OutputStreamWriter(new GZIPOutputStream(new BufferedOutputStream(
+                Channels.newOutputStream(channel), BUFFER_BYTES), BUFFER_BYTES), StandardCharsets.UTF_8)) {
+                for (int start = 0; start < length; start += CHUNK_CHARS) {
+                    out.write(text, start, Math.min(CHUNK_CHARS, length - start));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.vimalselvam.cucumber.listener;
+
+import java.util.List;
+
+/**
+ * Counts the events on their way to the report in the {@link ReportingMetrics}, on the dispatching thread,
+ * before handing them over to the dispatcher of the report
+ */
+final class MeteredEventDispatcher implements EventDispatcher {
+    private final EventDispatcher delegate;
+    private final ReportingMetrics metrics;
+
+    MeteredEventDispatcher(EventDispatcher delegate, ReportingMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void dispatch(ReportEvent event) {
+        metrics.count(event);
+        delegate.dispatch(event);
+    }
+
+    @Override
+    public void dispatchAll(List<ReportEvent> events) {
+        for (ReportEvent event : events) {
+            metrics.count(event);
+        }
+        delegate.dispatchAll(events);
+    }
+
+    @Override
+    public void drain() {
+        delegate.drain();
+    }
+
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+    }
+}
@@ -0,0 +1,30 @@
+package com.vimalselvam.cucumber.listener;
+
+/**
+ * The way the report is written to disk
+ */
+public enum OutputMode {
+    /**
+     * The whole report is kept in memory and rendered by the ExtentReports html reporter
+     */
+    EXTENT,
+
+    /**
+     * Each feature is written to a fragment file as soon as it is finished and dropped from memory.
+     * The fragments are stitched into a single html report whenever the report is flushed, then deleted.
+     */
+    STREAMING,
+
+    /**
+     * Like {@link #STREAMING}, except the report only holds the headlines of the features and scenarios.
+     * The steps of each feature are written to a script in {@code <report name>-chunks/} next to the report,
+     * and a scenario's steps are only loaded when it is expanded.
+     */
+    LAZY,
+
+    /**
+     * No report is written. The events are written to a shard file in {@code <report name>-shards/} next to
+     * the report instead, to be merged with the shards of the other JVMs of the run by {@link ReportMerger}.
+     */
+    SHARD
+}
@@ -0,0 +1,23 @@
+package com.vimalselvam.cucumber.listener;
+
+/**
+ * An output written next to the report, from the same events as the report
+ */
+public enum OutputSink {
+    /**
+     * Every event as a line of json in {@code <report name>.jsonl}, for tools which process the run
+     */
+    JSONL,
+
+    /**
+     * A JUnit XML report in {@code <report name>-junit.xml}, with a test suite per feature and a test case
+     * per scenario, for the CI servers which read it
+     */
+    JUNIT_XML,
+
+    /**
+     * Every event appended to {@code <report name>.journal} as soon as it happens, from which
+     * {@link JournalReplay} rebuilds the report of a run whose JVM died before the end
+     */
+    JOURNAL
+}
@@ -0,0 +1,109 @@
+package com.vimalselvam.cucumber.listener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Renders the durations of a run as html: the time spent in hooks versus steps, the slowest steps and
+ * scenarios, and the percentiles of every step definition
+ */
+final class PerformanceSection {
+
+    private PerformanceSection() {
+        // Defeat instantiation
+    }
+
+    /**
+     * Renders the performance section
+     * @param durations The durations of the run
+     * @param topN The number of slowest steps, scenarios and step definitions to show
+     * @return The html of the section
+     */
+    static String render(DurationStore.Snapshot durations, int topN) {
+        StringBuilder out = new StringBuilder(4096);
+        out.append("<h5>Performance</h5>");
+
+        long stepNanos = durations.total(DurationStore.STEP);
+        long hookNanos = durations.total(DurationStore.HOOK);
+        long totalNanos = stepNanos + hookNanos;
+        out.append("<table class='markup-table table '>")
+            .append("<tr><td></td><td>Count</td><td>Time</td><td>Share</td></tr>");
+        appendShare(out, "Steps", durations.count(DurationStore.STEP), stepNanos, totalNanos);
+        appendShare(out, "Hooks", durations.count(DurationStore.HOOK), hookNanos, totalNanos);
+        out.append("</table>");
+
+        appendSlowest(out, "Slowest steps", durations, DurationStore.STEP, topN);
+        appendSlowest(out, "Slowest scenarios", durations, DurationStore.SCENARIO, topN);
+
+        Map<String, long[]> byLocation = durations.byLocation(DurationStore.STEP);
+        Map<String, Long> totals = new HashMap<>();
+        for (Map.Entry<String, long[]> definition : byLocation.entrySet()) {
+            totals.put(definition.getKey(), sum(definition.getValue()));
+        }
+        List<Map.Entry<String, long[]>> definitions = new ArrayList<>(byLocation.entrySet());
+        definitions.sort((a, b) -> Long.compare(totals.get(b.getKey()), totals.get(a.getKey())));
+        out.append("<p>Step definitions by total time</p>")
+            .append("<table class='markup-table table '><tr><td>Step definition</td><td>Count</td><td>Total</td>")
+            .append("<td>p50</td><td>p95</td><td>p99</td><td>Max</td></tr>");
+        for (Map.Entry<String, long[]> definition : definitions.subList(0, Math.min(topN, definitions.size()))) {
+            long[] sorted = definition.getValue();
+            out.append("<tr><td>").append(Html.escape(definition.getKey())).append("</td><td>")
+                .append(sorted.length).append("</td><td>")
+                .append(millis(totals.get(definition.getKey()))).append("</td><td>")
+                .append(millis(percentile(sorted, 50))).append("</td><td>")
+                .append(millis(percentile(sorted, 95))).append("</td><td>")
+                .append(millis(percentile(sorted, 99))).append("</td><td>")
+                .append(millis(sorted[sorted.length - 1])).append("</td></tr>");
+        }
+        out.append("</table>");
+        return out.toString();
+    }
+
+    /**
+     * Gets a percentile by the nearest rank method
+     * @param sorted The sorted values, at least one
+     * @param percent The percentile, from 1 to 100
+     * @return The value of the percentile
+     */
+    static long percentile(long[] sorted, int percent) {
+        int rank = (int) Math.ceil(percent / 100.0 * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    private static void appendShare(StringBuilder out, String label, int count, long nanos, long totalNanos) {
+        out.append("<tr><td>").append(label).append("</td><td>").append(count).append("</td><td>")
+            .append(millis(nanos)).append("</td><td>")
+            .append(totalNanos == 0 ? 0 : Math.round(nanos * 100.0 / totalNanos)).append("%</td></tr>");
+    }
+
+    private static void appendSlowest(StringBuilder out, String title, DurationStore.Snapshot durations,
+        byte kind, int topN) {
+        out.append("<p>").append(title).append("</p><table class='markup-table table '>");
+        for (int index : durations.slowest(kind, topN)) {
+            out.append("<tr><td>").append(Html.escape(durations.getName(index))).append("</td><td>")
+                .append(Html.escape(durations.getLocation(index))).append("</td><td>")
+                .append(millis(durations.getDuration(index))).append("</td></tr>");
+        }
+        out.append("</table>");
+    }
+
+    private static long sum(long[] values) {
+        long sum = 0;
+        for (long value : values) {
+            sum += value;
+        }
+        return sum;
+    }
+
+    /**
+     * Formats a duration in milliseconds, the same way in every locale
+     * @param nanos The duration in nanoseconds
+     * @return The formatted duration
+     */
+    static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.1f ms", nanos / 1000000.0);
+    }
+}
@@ -0,0 +1,82 @@
+package com.vimalselvam.cucumber.listener;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Serves the {@link RunProgress} of the run in json over http, at {@code /progress}, until it is stopped at the
+ * end of the run. The requests are answered by a single thread of the JDK http server, from the counters only,
+ * so polling the server never holds up a running scenario.
+ */
+final class ProgressServer {
+    static final String PATH = "/progress";
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /**
+     * Starts serving the progress
+     * @param progress The progress of the run
+     * @param host The host name or address to listen on
+     * @param port The port to listen on, 0 for any free port
+     * @throws UncheckedIOException If the server cannot listen on the given address
+     */
+    ProgressServer(RunProgress progress, String host, int port) {
+        try {
+            this.server = HttpServer.create(new InetSocketAddress(host, port), 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to serve the progress on " + host + ":" + port, e);
+        }
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "extent-progress-server");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext(PATH, exchange -> respond(exchange, progress));
+        server.start();
+    }
+
+    /**
+     * Gets the port the server listens on
+     * @return The port
+     */
+    int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops serving the progress, along with the threads of the server
+     */
+    void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private static void respond(HttpExchange exchange, RunProgress progress) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", "GET");
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = progress.toJson(System.nanoTime()).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.getResponseHeaders().set("Cache-Control", "no-store");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.vimalselvam.cucumber.listener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The {@link ExtentProperties} as they were when the reporting started. The reporting reads its settings
+ * from this snapshot only, so a property changed during the run cannot leave it half configured, and
+ * reading a setting on every event costs a plain field read.
+ */
+final class ReportConfig {
+    private final String reportPath;
+    private final String extentXServerUrl;
+    private final String projectName;
+    private final String klovServerUrl;
+    private final String klovProjectName;
+    private final String klovReportName;
+    private final String mongodbHost;
+    private final int mongodbPort;
+    private final String mongodbDatabase;
+    private final String mongodbUsername;
+    private final String mongodbPassword;
+    private final int klovBatchSize;
+    private final long klovLingerMillis;
+    private final boolean asyncReporting;
+    private final int asyncQueueSize;
+    private final BackpressurePolicy backpressurePolicy;
+    private final int flushEveryScenarios;
+    private final long flushIntervalSeconds;
+    private final boolean flushOnFeatureEnd;
+    private final OutputMode outputMode;
+    private final Set<OutputSink> outputSinks;
+    private final long journalSyncMillis;
+    private final boolean keepJournal;
+    private final String shardName;
+    private final int attachmentThreads;
+    private final int attachmentMaxWidth;
+    private final int performanceTopN;
+    private final String historyPath;
+    private final ReportLevel reportLevel;
+    private final int compactOutlineRows;
+    private final int largeLogChars;
+    private final int progressPort;
+    private final String progressHost;
+    private final List<TagExpression> tagFilters;
+    private final boolean reportingMetrics;
+
+    /**
+     * Takes a snapshot of the properties
+     * @param properties The properties
+     */
+    @SuppressWarnings("deprecation")
+    ReportConfig(ExtentProperties properties) {
+        this.reportPath = properties.getReportPath();
+        this.extentXServerUrl = properties.getExtentXServerUrl();
+        this.projectName = properties.getProjectName();
+        this.klovServerUrl = properties.getKlovServerUrl();
+        this.klovProjectName = properties.getKlovProjectName();
+        this.klovReportName = properties.getKlovReportName();
+        this.mongodbHost = properties.getMongodbHost();
+        this.mongodbPort = properties.getMongodbPort();
+        this.mongodbDatabase = properties.getMongodbDatabase();
+        this.mongodbUsername = properties.getMongodbUsername();
+        this.mongodbPassword = properties.getMongodbPassword();
+        this.klovBatchSize = properties.getKlovBatchSize();
+        this.klovLingerMillis = properties.getKlovLingerMillis();
+        this.asyncReporting = properties.isAsyncReporting();
+        this.asyncQueueSize = properties.getAsyncQueueSize();
+        this.backpressurePolicy = properties.getBackpressurePolicy();
+        this.flushEveryScenarios = properties.getFlushEveryScenarios();
+        this.flushIntervalSeconds = properties.getFlushIntervalSeconds();
+        this.flushOnFeatureEnd = properties.isFlushOnFeatureEnd();
+        this.outputMode = properties.getOutputMode();
+        this.outputSinks = properties.getOutputSinks();
+        this.journalSyncMillis = properties.getJournalSyncMillis();
+        this.keepJournal = properties.isKeepJournal();
+        this.shardName = properties.getShardName();
+        this.attachmentThreads = properties.getAttachmentThreads();
+        this.attachmentMaxWidth = properties.getAttachmentMaxWidth();
+        this.performanceTopN = properties.getPerformanceTopN();
+        this.historyPath = properties.getHistoryPath();
+        this.reportLevel = properties.getReportLevel() == null ? ReportLevel.FULL : properties.getReportLevel();
+        this.compactOutlineRows = properties.getCompactOutlineRows();
+        this.largeLogChars = properties.getLargeLogChars();
+        this.progressPort = properties.getProgressPort();
+        this.progressHost = properties.getProgressHost();
+        List<TagExpression> filters = new ArrayList<>();
+        for (String filter : properties.getTagFilters()) {
+            filters.add(TagExpression.parse(filter));
+        }
+        this.tagFilters = Collections.unmodifiableList(filters);
+        this.reportingMetrics = properties.isReportingMetrics();
+    }
+
+    String getReportPath() {
+        return reportPath;
+    }
+
+    String getExtentXServerUrl() {
+        return extentXServerUrl;
+    }
+
+    String getProjectName() {
+        return projectName;
+    }
+
+    String getKlovServerUrl() {
+        return klovServerUrl;
+    }
+
+    String getKlovProjectName() {
+        return klovProjectName;
+    }
+
+    String getKlovReportName() {
+        return klovReportName;
+    }
+
+    String getMongodbHost() {
+        return mongodbHost;
+    }
+
+    int getMongodbPort() {
+        return mongodbPort;
+    }
+
+    String getMongodbDatabase() {
+        return mongodbDatabase;
+    }
+
+    String getMongodbUsername() {
+        return mongodbUsername;
+    }
+
+    String getMongodbPassword() {
+        return mongodbPassword;
+    }
+
+    int getKlovBatchSize() {
+        return klovBatchSize;
+    }
+
+    long getKlovLingerMillis() {
+        return klovLingerMillis;
+    }
+
+    boolean isAsyncReporting() {
+        return asyncReporting;
+    }
+
+    int getAsyncQueueSize() {
+        return asyncQueueSize;
+    }
+
+    BackpressurePolicy getBackpressurePolicy() {
+        return backpressurePolicy;
+    }
+
+    int getFlushEveryScenarios() {
+        return flushEveryScenarios;
+    }
+
+    long getFlushIntervalSeconds() {
+        return flushIntervalSeconds;
+    }
+
+    boolean isFlushOnFeatureEnd() {
+        return flushOnFeatureEnd;
+    }
+
+    OutputMode getOutputMode() {
+        return outputMode;
+    }
+
+    Set<OutputSink> getOutputSinks() {
+        return outputSinks;
+    }
+
+    long getJournalSyncMillis() {
+        return journalSyncMillis;
+    }
+
+    boolean isKeepJournal() {
+        return keepJournal;
+    }
+
+    String getShardName() {
+        return shardName;
+    }
+
+    int getAttachmentThreads() {
+        return attachmentThreads;
+    }
+
+    int getAttachmentMaxWidth() {
+        return attachmentMaxWidth;
+    }
+
+    int getPerformanceTopN() {
+        return performanceTopN;
+    }
+
+    String getHistoryPath() {
+        return historyPath;
+    }
+
+    ReportLevel getReportLevel() {
+        return reportLevel;
+    }
+
+    int getCompactOutlineRows() {
+        return compactOutlineRows;
+    }
+
+    int getLargeLogChars() {
+        return largeLogChars;
+    }
+
+    int getProgressPort() {
+        return progressPort;
+    }
+
+    String getProgressHost() {
+        return progressHost;
+    }
+
+    List<TagExpression> getTagFilters() {
+        return tagFilters;
+    }
+
+    boolean isReportingMetrics() {
+        return reportingMetrics;
+    }
+}
@@ -0,0 +1,596 @@
+package com.vimalselvam.cucumber.listener;
+
+import gherkin.formatter.model.Result;
+import gherkin.formatter.model.Row;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * An immutable record of something that happened during the run. The formatter only creates these
+ * on the cucumber thread; turning them into report nodes is left to the {@link ReportEventHandler}.
+ * Table rows are shared with the gherkin model rather than copied, cucumber never changes them once parsed.
+ */
+abstract class ReportEvent {
+
+    abstract void accept(ReportEventHandler handler);
+
+    private static List<String> copyOf(List<String> values) {
+        if (values == null || values.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(new ArrayList<>(values));
+    }
+
+    private static List<? extends Row> rowsOf(List<? extends Row> rows) {
+        return rows == null ? Collections.<Row>emptyList() : Collections.unmodifiableList(rows);
+    }
+
+    /**
+     * A row of an examples table, along with the header of its table
+     */
+    static final class ExampleRow {
+        private final String examplesId;
+        private final Row header;
+        private final Row row;
+
+        ExampleRow(String examplesId, Row header, Row row) {
+            this.examplesId = examplesId;
+            this.header = header;
+            this.row = row;
+        }
+
+        /**
+         * Gets the id of the examples block the row belongs to
+         * @return The examples id
+         */
+        String getExamplesId() {
+            return examplesId;
+        }
+
+        Row getHeader() {
+            return header;
+        }
+
+        Row getRow() {
+            return row;
+        }
+    }
+
+    /**
+     * The result of a scenario expanded from a row of a compact examples table
+     */
+    static final class ExampleResult {
+        private final Row row;
+        private final String status;
+        private final long durationNanos;
+        private final String failure;
+
+        ExampleResult(Row row, String status, long durationNanos, String failure) {
+            this.row = row;
+            this.status = status;
+            this.durationNanos = durationNanos;
+            this.failure = failure;
+        }
+
+        Row getRow() {
+            return row;
+        }
+
+        /**
+         * Gets the cucumber status of the scenario, the one of its first step or hook which did not pass
+         * @return The status
+         */
+        String getStatus() {
+            return status;
+        }
+
+        long getDurationNanos() {
+            return durationNanos;
+        }
+
+        /**
+         * Gets what failed, the scenario of a failed row being reported in full as well
+         * @return The headline of the failure, or null if the scenario did not fail
+         */
+        String getFailure() {
+            return failure;
+        }
+
+        boolean isFailed() {
+            return Result.FAILED.equals(status);
+        }
+    }
+
+    /**
+     * The result of a before or after hook of a scenario
+     */
+    static final class HookResult {
+        private final boolean before;
+        private final String location;
+        private final String status;
+        private final long durationNanos;
+        private final Throwable error;
+
+        HookResult(boolean before, String location, String status, long durationNanos, Throwable error) {
+            this.before = before;
+            this.location = location;
+            this.status = status;
+            this.durationNanos = durationNanos;
+            this.error = error;
+        }
+
+        /**
+         * Gets if the hook ran before the scenario
+         * @return true for a before hook, false for an after hook
+         */
+        boolean isBefore() {
+            return before;
+        }
+
+        String getLocation() {
+            return location;
+        }
+
+        String getStatus() {
+            return status;
+        }
+
+        /**
+         * Gets how long the hook took
+         * @return The duration in nanoseconds or 0 if cucumber did not measure it
+         */
+        long getDurationNanos() {
+            return durationNanos;
+        }
+
+        Throwable getError() {
+            return error;
+        }
+    }
+
+    /**
+     * A base for the events which target a single node
+     */
+    abstract static class NodeEvent extends ReportEvent {
+        private final ReportNode node;
+
+        NodeEvent(ReportNode node) {
+            this.node = node;
+        }
+
+        ReportNode getNode() {
+            return node;
+        }
+    }
+
+    static final class FeatureStarted extends NodeEvent {
+        private final String uri;
+        private final String name;
+        private final List<String> tags;
+
+        FeatureStarted(ReportNode node, String uri, String name, List<String> tags) {
+            super(node);
+            this.uri = uri;
+            this.name = name;
+            this.tags = copyOf(tags);
+        }
+
+        String getUri() {
+            return uri;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        List<String> getTags() {
+            return tags;
+        }
+
+        @Override
+        void accept(ReportEventHandler handler) {
+            handler.onFeatureStarted(this);
+        }
+    }
+
+    static final class FeatureFinished extends NodeEvent {
+
+        FeatureFinished(ReportNode node) {
+            super(node);
+        }
+
+        @Override
+        void accept(ReportEventHandler handler) {
+            handler.onFeatureFinished(this);
+        }
+    }
+
+    static final class ScenarioOutlineStarted extends NodeEvent {
+        private final String name;
+
+        ScenarioOutlineStarted(ReportNode node, String name) {
+            super(node);
+            this.name = name;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        @Override
+        void accept(ReportEventHandler handler) {
+            handler.onScenarioOutlineStarted(this);
+        }
+    }
+
+    static final class ExamplesTable extends NodeEvent {
+        private final String examplesId;
+        private final List<? extends Row> rows;
+
+        ExamplesTable(ReportNode node, String examplesId, List<? extends Row> rows) {
+            super(node);
+            this.examplesId = examplesId;
+            this.rows = rowsOf(rows);
+        }
+
+        String getExamplesId() {
+            return examplesId;
+        }
+
+        List<? extends Row> getRows() {
+            return rows;
+        }
+
+        @Override
+        void accept(ReportEventHandler handler) {
+            handler.onExamplesTable(this);
+        }
+    }
+
+    /**
+     * The results of the rows of an examples table which is reported compactly, as a grid on the outline
+     * rather than as a scenario per row. The rows which failed are also reported as scenarios of their own.
+     */
+    static final class ExampleResults extends NodeEvent {
+        private final String examplesId;
+        private final Row header;
+        private final List<ExampleResult> results;
+        private final int passed;
+        private final int failed;
+        private final long durationNanos;
+
+        ExampleResults(ReportNode node, String examplesId, Row header, List<ExampleResult> results) {
+            super(node);
+            this.examplesId = examplesId;
+            this.header = header;
+            this.results = Collections.unmodifiableList(results);
+            int passedRows = 0;
+            int failedRows = 0;
+            long nanos = 0;
+            for (ExampleResult result : results) {
+                if (Result.PASSED.equals(result.getStatus())) {
+                    passedRows++;
+                } else if (result.isFailed()) {
+                    failedRows++;
+                }
+                nanos += result.getDurationNanos();
+            }
+            this.passed = passedRows;
+            this.failed = failedRows;
+            this.durationNanos = nanos;
+        }
+
+        String getExamplesId() {
+            return examplesId;
+        }
+
+        Row getHeader() {
+            return header;
+        }
+
+        /**
+         * Gets the results in the order the rows ran
+         * @return The example results
+         */
+        List<ExampleResult> getResults() {
+            return results;
+        }
+
+        /**
+         * Gets the number of rows which neither passed nor failed
+         * @return The number of skipped, pending or undefined rows
+         */
+        int getSkippedCount() {
+            return results.size() - passed - failed;
+        }
+
+        /**
+         * Sums the results up
+         * @return The number of rows of each status and their total duration
+         */
+        String getSummary() {
+            return String.format(Locale.ROOT, "%d example rows: %d passed, %d failed, %d skipped in %s",
+                results.size(), passed, failed, getSkippedCount(), PerformanceSection.millis(durationNanos));
+        }
+
+        @Override
+        void accept(ReportEventHandler handler) {
+            handler.onExampleResults(this);
+        }
+    }
+
+    static final class ScenarioStarted extends NodeEvent {
+        private final String name;
+        private final List<String> tags;
+        private final ExampleRow example;
+
+        ScenarioStarted(ReportNode node, String name, List<String> tags, ExampleRow example) {
+            super(node);
+            this.name = name;
+            this.tags = copyOf(tags);
+            this.example = example;
+        }
+
+        /**
+         * Gets the examples row the scenario was expanded from
+         * @return The example row or null if the scenario is not part of an outline
+         */
+        ExampleRow getExample() {
+            return example;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        List<String> getTags() {
+            return tags;
+        }
+
+        @Override
+        void accept(ReportEventHandler handler) {
+            handler.onScenarioStarted(this);
+        }
+    }
+
+    static final class StepStarted extends NodeEvent {
+        private final String keyword;
+        private final String name;
+        private final List<? extends Row> rows;
+
+        StepStarted(ReportNode node, String keyword, String name, List<? extends Row> rows) {
+            super(node);
+            this.keyword = keyword;
+            this.name = name;
+            this.rows = rowsOf(rows);
+        }
+
+        String getKeyword() {
+            return keyword;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        List<? extends Row> getRows() {
+            return rows;
+        }
+
+        @Override
+        void accept(ReportEventHandler handler) {
+            handler.onStepStarted(this);
+        }
+    }
+
+    static final class StepFinished extends NodeEvent {
+        private final String status;
+        private final Throwable error;
+        private final long durationNanos;
+        private final FailureClusters.Cluster cluster;
+        private final int occurrence;
+
+        StepFinished(ReportNode node, String status, Throwable error) {
+            this(node, status, error, 0, null, 0);
+        }
+
+        /**
+         * @param occurrence The number of the failure in its cluster, 1 for the first one, 0 if not clustered
+         */
+        StepFinished(ReportNode node, String status, Throwable error, long durationNanos,
+            FailureClusters.Cluster cluster, int occurrence) {
+            super(node);
+            this.status = status;
+            this.error = error;
+            this.durationNanos = durationNanos;
+            this.cluster = cluster;
+            this.occurrence = occurrence;
+        }
+
+        String getStatus() {
+            return status;
+        }
+
+        Throwable getError() {
+            return error;
+        }
+
+        /**
+         * Gets how long the step took
+         * @return The duration in nanoseconds or 0 if cucumber did not measure it
+         */
+        long getDurationNanos() {
+            return durationNanos;
+        }
+
+        /**
+         * Gets the cluster of the failure
+         * @return The failure cluster or null if the step did not fail or was not clustered
+         */
+        FailureClusters.Cluster getCluster() {
+            return cluster;
+        }
+
+        /**
+         * Gets if the stack trace of the failure was already reported, with the first failure of its cluster
+         * @return true if only the headline of the failure needs to be reported
+         */
+        boolean isRepeatedFailure() {
+            return occurrence > 1;
+        }
+
+        /**
+         * Gets the number of the failure in its cluster
+         * @return 1 for the first failure of the cluster, 0 if the failure was not clustered
+         */
+        int getOccurrence() {
+            return occurrence;
+        }
+
+        @Override
+        void accept(ReportEventHandler handler) {
+            handler.onStepFinished(this);
+        }
+    }
+
+    /**
+     * The hooks of a scenario, reported all at once when the scenario ends
+     */
+    static final class HooksFinished extends NodeEvent {
+        private final List<HookResult> hooks;
+
+        HooksFinished(ReportNode node, List<HookResult> hooks) {
+            super(node);
+            this.hooks = Collections.unmodifiableList(hooks);
+        }
+
+        /**
+         * Gets the hooks in the order they ran
+         * @return The hook results
+         */
+        List<HookResult> getHooks() {
+            return hooks;
+        }
+
+        @Override
+        void accept(ReportEventHandler handler) {
+            handler.onHooksFinished(this);
+        }
+    }
+
+    static final class Log extends NodeEvent {
+        private final String message;
+
+        Log(ReportNode node, String message) {
+            super(node);
+            this.message = message;
+        }
+
+        String getMessage() {
+            return message;
+        }
+
+        @Override
+        void accept(ReportEventHandler handler) {
+            handler.onLog(this);
+        }
+    }
+
+    static final class ScreenCapture extends NodeEvent {
+        private final String path;
+        private final String title;
+        private final boolean screencast;
+
+        ScreenCapture(ReportNode node, String path, String title, boolean screencast) {
+            super(node);
+            this.path = path;
+            this.title = title;
+            this.screencast = screencast;
+        }
+
+        String getPath() {
+            return path;
+        }
+
+        String getTitle() {
+            return title;
+        }
+
+        boolean isScreencast() {
+            return screencast;
+        }
+
+        @Override
+        void accept(ReportEventHandler handler) {
+            handler.onScreenCapture(this);
+        }
+    }
+
+    static final class AuthorAssigned extends NodeEvent {
+        private final List<String> authors;
+
+        AuthorAssigned(ReportNode node, List<String> authors) {
+            super(node);
+            this.authors = copyOf(authors);
+        }
+
+        List<String> getAuthors() {
+            return authors;
+        }
+
+        @Override
+        void accept(ReportEventHandler handler) {
+            handler.onAuthorAssigned(this);
+        }
+    }
+
+    static final class SystemInfo extends ReportEvent {
+        private final String key;
+        private final String value;
+
+        SystemInfo(String key, String value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        String getKey() {
+            return key;
+        }
+
+        String getValue() {
+            return value;
+        }
+
+        @Override
+        void accept(ReportEventHandler handler) {
+            handler.onSystemInfo(this);
+        }
+    }
+
+    static final class TestRunnerOutput extends ReportEvent {
+        private final String output;
+
+        TestRunnerOutput(String output) {
+            this.output = output;
+        }
+
+        String getOutput() {
+            return output;
+        }
+
+        @Override
+        void accept(ReportEventHandler handler) {
+            handler.onTestRunnerOutput(this);
+        }
+    }
+
+    static final class Flush extends ReportEvent {
+        @Override
+        void accept(ReportEventHandler handler) {
+            handler.onFlush(this);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.vimalselvam.cucumber.listener;
+
+/**
+ * Receives the {@link ReportEvent}s of a run. Every method does nothing by default, so a handler
+ * only needs to implement the events it is interested in.
+ */
+interface ReportEventHandler {
+
+    default void onFeatureStarted(ReportEvent.FeatureStarted event) {
+    }
+
+    default void onFeatureFinished(ReportEvent.FeatureFinished event) {
+    }
+
+    default void onScenarioOutlineStarted(ReportEvent.ScenarioOutlineStarted event) {
+    }
+
+    default void onExamplesTable(ReportEvent.ExamplesTable event) {
+    }
+
+    default void onExampleResults(ReportEvent.ExampleResults event) {
+    }
+
+    default void onScenarioStarted(ReportEvent.ScenarioStarted event) {
+    }
+
+    default void onStepStarted(ReportEvent.StepStarted event) {
+    }
+
+    default void onStepFinished(ReportEvent.StepFinished event) {
+    }
+
+    default void onHooksFinished(ReportEvent.HooksFinished event) {
+    }
+
+    default void onLog(ReportEvent.Log event) {
+    }
+
+    default void onScreenCapture(ReportEvent.ScreenCapture event) {
+    }
+
+    default void onAuthorAssigned(ReportEvent.AuthorAssigned event) {
+    }
+
+    default void onSystemInfo(ReportEvent.SystemInfo event) {
+    }
+
+    default void onTestRunnerOutput(ReportEvent.TestRunnerOutput event) {
+    }
+
+    default void onFlush(ReportEvent.Flush event) {
+    }
+
+    /**
+     * Called when the dispatcher shuts down, once the events dispatched before are handled, to close the
+     * files the handler writes. An event handled afterwards may open them again.
+     */
+    default void close() {
+    }
+}
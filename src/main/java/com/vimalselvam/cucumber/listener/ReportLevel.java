@@ -0,0 +1,23 @@
+package com.vimalselvam.cucumber.listener;
+
+/**
+ * How much of a scenario is reported
+ */
+public enum ReportLevel {
+    /**
+     * Every step is reported with everything logged against it
+     */
+    FULL,
+
+    /**
+     * A passed scenario is reported as a single node with its number of steps and duration. The other
+     * scenarios are reported in full.
+     */
+    FAILURES_ONLY_DETAIL,
+
+    /**
+     * Only the scenarios are reported. A passed scenario gets its number of steps and duration, the other
+     * scenarios get the step which did not pass along with its error.
+     */
+    SUMMARY
+}
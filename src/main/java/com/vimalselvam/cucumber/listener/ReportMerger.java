@@ -0,0 +1,93 @@
+package com.vimalselvam.cucumber.listener;
+
+import com.aventstack.extentreports.ExtentReports;
+import com.aventstack.extentreports.reporter.ExtentHtmlReporter;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Merges the shard files written by the JVMs of a split run, with {@link OutputMode#SHARD}, into a single
+ * report. The shards are read one after the other and only once, so merging takes as long as the shards
+ * are big.
+ * <p>
+ * From the command line: {@code java com.vimalselvam.cucumber.listener.ReportMerger <report.html>
+ * <shard file or directory>...}
+ */
+public final class ReportMerger {
+
+    private ReportMerger() {
+        // Defeat instantiation
+    }
+
+    /**
+     * Merges the given shards into a new html report
+     * @param shards The shard files, their features are added to the report in this order
+     * @param reportFile The html report to write
+     * @throws IOException If a shard cannot be read
+     */
+    public static void merge(Collection<File> shards, File reportFile) throws IOException {
+        File parent = reportFile.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+        ExtentReports extentReports = new ExtentReports();
+        extentReports.attachReporter(new ExtentHtmlReporter(reportFile));
+        merge(shards, extentReports);
+        extentReports.flush();
+    }
+
+    /**
+     * Adds the features, the system info and the sections added at the end of the runs of the given shards
+     * to the given report. The report is not flushed.
+     * @param shards The shard files, their features are added to the report in this order
+     * @param extentReports The report to add the shards to
+     * @throws IOException If a shard cannot be read
+     */
+    public static void merge(Collection<File> shards, ExtentReports extentReports) throws IOException {
+        ExtentReportBuilder builder = new ExtentReportBuilder(extentReports);
+        for (File shard : shards) {
+            new ShardReader(shard.toPath()).replay(builder);
+        }
+    }
+
+    /**
+     * Finds the shard files in the given directory
+     * @param directory The directory to look into
+     * @return The shard files sorted by name
+     */
+    public static List<File> findShards(File directory) {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(ShardFormat.EXTENSION));
+        if (files == null) {
+            return new ArrayList<>();
+        }
+        Arrays.sort(files);
+        return new ArrayList<>(Arrays.asList(files));
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: java " + ReportMerger.class.getName()
+                + " <report.html> <shard file or directory>...");
+            System.exit(2);
+        }
+        List<File> shards = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            File file = new File(args[i]);
+            if (file.isDirectory()) {
+                shards.addAll(findShards(file));
+            } else {
+                shards.add(file);
+            }
+        }
+        if (shards.isEmpty()) {
+            System.err.println("No shard found in " + Arrays.asList(args).subList(1, args.length));
+            System.exit(1);
+        }
+        merge(shards, new File(args[0]));
+    }
+}
@@ -0,0 +1,37 @@
+package com.vimalselvam.cucumber.listener;
+
+import com.aventstack.extentreports.ExtentTest;
+
+/**
+ * A handle to a node of the report. The handle is created on the cucumber thread as soon as the
+ * gherkin element is seen, while the underlying {@link ExtentTest} is bound later by whoever applies
+ * the {@link ReportEvent}s to the report.
+ */
+final class ReportNode {
+    private final ReportNode parent;
+    private volatile ExtentTest test;
+
+    ReportNode(ReportNode parent) {
+        this.parent = parent;
+    }
+
+    /**
+     * Gets the parent node
+     * @return The parent node or null for a feature
+     */
+    ReportNode getParent() {
+        return parent;
+    }
+
+    /**
+     * Gets the bound extent test
+     * @return The extent test or null if the node was not created (yet)
+     */
+    ExtentTest getTest() {
+        return test;
+    }
+
+    void setTest(ExtentTest test) {
+        this.test = test;
+    }
+}
@@ -0,0 +1,133 @@
+package com.vimalselvam.cucumber.listener;
+
+import com.aventstack.extentreports.Status;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A lightweight node of the report tree, used by the output modes which render the report
+ * themselves instead of going through ExtentReports. The helper threads of a scenario may log against
+ * a node while the cucumber thread adds its children, so the mutators are guarded by the node and the
+ * getters return a copy to render from.
+ */
+final class ReportTreeNode {
+
+    /**
+     * The kind of gherkin element a node stands for
+     */
+    enum Kind {
+        FEATURE, SCENARIO_OUTLINE, SCENARIO, STEP, HOOK
+    }
+
+    private final ReportTreeNode parent;
+    private final Kind kind;
+    private final String keyword;
+    private final String name;
+    private final List<String> tags;
+    private final List<String> authors = new ArrayList<>(0);
+    private final List<String> details = new ArrayList<>(2);
+    private final List<ReportTreeNode> children = new ArrayList<>();
+    private volatile Status status;
+
+    ReportTreeNode(ReportTreeNode parent, Kind kind, String keyword, String name, List<String> tags) {
+        this.parent = parent;
+        this.kind = kind;
+        this.keyword = keyword;
+        this.name = name;
+        this.tags = tags == null ? Collections.<String>emptyList() : tags;
+        this.status = Status.PASS;
+        if (parent != null) {
+            parent.addChild(this);
+        }
+    }
+
+    ReportTreeNode getParent() {
+        return parent;
+    }
+
+    Kind getKind() {
+        return kind;
+    }
+
+    String getKeyword() {
+        return keyword;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    List<String> getTags() {
+        return tags;
+    }
+
+    synchronized List<String> getAuthors() {
+        return new ArrayList<>(authors);
+    }
+
+    /**
+     * Gets the html snippets logged against this node, in order
+     * @return A copy of the html snippets
+     */
+    synchronized List<String> getDetails() {
+        return new ArrayList<>(details);
+    }
+
+    synchronized List<ReportTreeNode> getChildren() {
+        return new ArrayList<>(children);
+    }
+
+    Status getStatus() {
+        return status;
+    }
+
+    synchronized void addDetail(String html) {
+        details.add(html);
+    }
+
+    synchronized void addAuthors(List<String> authors) {
+        this.authors.addAll(authors);
+    }
+
+    private synchronized void addChild(ReportTreeNode child) {
+        children.add(child);
+    }
+
+    /**
+     * Updates the status of this node and rolls a worse status up to the parents
+     * @param status The new status
+     */
+    void updateStatus(Status status) {
+        for (ReportTreeNode node = this; node != null; node = node.parent) {
+            if (!node.worsenStatus(status)) {
+                return;
+            }
+        }
+    }
+
+    private synchronized boolean worsenStatus(Status status) {
+        if (severity(status) <= severity(this.status)) {
+            return false;
+        }
+        this.status = status;
+        return true;
+    }
+
+    private static int severity(Status status) {
+        switch (status) {
+            case FAIL:
+            case FATAL:
+            case ERROR:
+                return 3;
+            case WARNING:
+            case SKIP:
+                return 2;
+            case PASS:
+                return 1;
+            default:
+                return 0;
+        }
+    }
+}
@@ -1,21 +1,29 @@
 package com.vimalselvam.cucumber.listener;
 
 import com.aventstack.extentreports.ExtentReports;
-import com.aventstack.extentreports.ExtentTest;
 import com.aventstack.extentreports.reporter.ExtentHtmlReporter;
 import com.aventstack.extentreports.reporter.KlovReporter;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.HashMap;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * This class houses few utilities required for the report
+ * This class houses few utilities required for the report. They can be called from any thread: the threads
+ * a scenario starts log to it through the {@link ScenarioHandle} the scenario thread hands over to them.
  */
 public class Reporter {
-    private static Map<String, Boolean> systemInfoKeyMap = new HashMap<>();
+    /**
+     * The keys of the system information set so far, which is set once per key
+     */
+    private static final Set<String> systemInfoKeys = ConcurrentHashMap.newKeySet();
 
     private Reporter() {
         // Defeat instantiation
@@ -66,13 +74,55 @@ public class Reporter {
         getExtentHtmlReport().loadXMLConfig(file);
     }
 
+    /**
+     * Gets the scenario running on the current thread, for the threads it starts to log to it
+     *
+     * @return The handle of the current scenario
+     * @throws IllegalStateException If no scenario is running on the current thread
+     */
+    public static ScenarioHandle getScenarioHandle() {
+        return new ScenarioHandle(getExecutionContext(), getCurrentScenario());
+    }
+
     /**
      * Adds an info message to the current step
      *
      * @param message The message to be logged to the current step
      */
     public static void addStepLog(String message) {
-        getCurrentStep().info(message);
+        report(getExecutionContext().log(getCurrentStep(), message));
+    }
+
+    /**
+     * Adds an info message to the running step of the given scenario, from any thread
+     *
+     * @param scenario The scenario, as handed over by the thread running it
+     * @param message  The message to be logged to the running step, or to the scenario if it is between steps
+     *                 or has ended
+     */
+    public static void addStepLog(ScenarioHandle scenario, String message) {
+        report(scenario, Collections.<ReportEvent>singletonList(scenario.getContext().log(scenario.getCurrentStep(),
+            message)));
+    }
+
+    /**
+     * Adds info messages to the current step, in order and in one go
+     *
+     * @param messages The messages to be logged to the current step
+     */
+    public static void addStepLogs(Collection<String> messages) {
+        addStepLogs(new ScenarioHandle(getExecutionContext(), getCurrentScenario()), getCurrentStep(), messages);
+    }
+
+    /**
+     * Adds info messages to the running step of the given scenario, in order and in one go, from any thread
+     *
+     * @param scenario The scenario, as handed over by the thread running it
+     * @param messages The messages to be logged to the running step, or to the scenario if it is between steps
+     *                 or has ended
+     */
+    public static void addStepLogs(ScenarioHandle scenario, Collection<String> messages) {
+        addStepLogs(scenario, scenario.getCurrentStep(), messages);
     }
 
     /**
@@ -81,7 +131,18 @@ public class Reporter {
      * @param message The message to be logged to the current scenario
      */
     public static void addScenarioLog(String message) {
-        getCurrentScenario().info(message);
+        report(getExecutionContext().log(getCurrentScenario(), message));
+    }
+
+    /**
+     * Adds an info message to the given scenario, from any thread
+     *
+     * @param scenario The scenario, as handed over by the thread running it
+     * @param message  The message to be logged to the scenario
+     */
+    public static void addScenarioLog(ScenarioHandle scenario, String message) {
+        report(scenario, Collections.<ReportEvent>singletonList(scenario.getContext().log(scenario.getScenario(),
+            message)));
     }
 
     /**
@@ -91,7 +152,7 @@ public class Reporter {
      * @throws IOException Exception if imagePath is erroneous
      */
     public static void addScreenCaptureFromPath(String imagePath) throws IOException {
-        getCurrentStep().addScreenCaptureFromPath(imagePath);
+        dispatchScreenCapture(new ReportEvent.ScreenCapture(getCurrentStep(), imagePath, null, false));
     }
 
     /**
@@ -102,7 +163,7 @@ public class Reporter {
      * @throws IOException Exception if imagePath is erroneous
      */
     public static void addScreenCaptureFromPath(String imagePath, String title) throws IOException {
-        getCurrentStep().addScreenCaptureFromPath(imagePath, title);
+        dispatchScreenCapture(new ReportEvent.ScreenCapture(getCurrentStep(), imagePath, title, false));
     }
 
     /**
@@ -112,24 +173,32 @@ public class Reporter {
      * @throws IOException Exception if imagePath is erroneous
      */
     public static void addScreenCast(String screenCastPath) throws IOException {
-        getCurrentStep().addScreencastFromPath(screenCastPath);
+        dispatchScreenCapture(new ReportEvent.ScreenCapture(getCurrentStep(), screenCastPath, null, true));
     }
 
     /**
-     * Sets the system information with the given key value pair
+     * Sets the system information with the given key value pair. The first value set for a key is kept.
      *
      * @param key   The name of the key
      * @param value The value of the given key
      */
     public static void setSystemInfo(String key, String value) {
-        if (systemInfoKeyMap.isEmpty() || !systemInfoKeyMap.containsKey(key)) {
-            systemInfoKeyMap.put(key, false);
-        }
-        if (systemInfoKeyMap.get(key)) {
+        setSystemInfo(key, value, ExtentCucumberFormatter.getEventDispatcher());
+    }
+
+    /**
+     * Sets the system information with the given key value pair, if the key was never set
+     */
+    static void setSystemInfo(String key, String value, EventDispatcher dispatcher) {
+        if (!systemInfoKeys.add(key)) {
             return;
         }
-        getExtentReport().setSystemInfo(key, value);
-        systemInfoKeyMap.put(key, true);
+        try {
+            dispatcher.dispatch(new ReportEvent.SystemInfo(key, value));
+        } catch (RuntimeException e) {
+            systemInfoKeys.remove(key);
+            throw e;
+        }
     }
 
     /**
@@ -138,7 +207,11 @@ public class Reporter {
      * @param log The list of string messages
      */
     public static void setTestRunnerOutput(List<String> log) {
-        getExtentReport().setTestRunnerOutput(log);
+        List<ReportEvent> events = new ArrayList<>(log.size());
+        for (String output : log) {
+            events.add(new ReportEvent.TestRunnerOutput(output));
+        }
+        ExtentCucumberFormatter.getEventDispatcher().dispatchAll(events);
     }
 
     /**
@@ -147,7 +220,7 @@ public class Reporter {
      * @param outputMessage The message to be shown in the test runner output screen
      */
     public static void setTestRunnerOutput(String outputMessage) {
-        getExtentReport().setTestRunnerOutput(outputMessage);
+        ExtentCucumberFormatter.getEventDispatcher().dispatch(new ReportEvent.TestRunnerOutput(outputMessage));
     }
 
     /**
@@ -155,14 +228,67 @@ public class Reporter {
      * @param authorName The author name of the current scenario
      */
     public static void assignAuthor(String... authorName) {
-        getCurrentScenario().assignAuthor(authorName);
+        report(new ReportEvent.AuthorAssigned(getCurrentScenario(), Arrays.asList(authorName)));
+    }
+
+    private static ReportNode getCurrentStep() {
+        ReportNode step = getExecutionContext().getStep();
+        if (step == null) {
+            throw new IllegalStateException("No step is running on thread " + Thread.currentThread().getName());
+        }
+        return step;
     }
 
-    private static ExtentTest getCurrentStep() {
-        return ExtentCucumberFormatter.stepTestThreadLocal.get();
+    private static ReportNode getCurrentScenario() {
+        ReportNode scenario = getExecutionContext().getScenario();
+        if (scenario == null) {
+            throw new IllegalStateException("No scenario is running on thread " + Thread.currentThread().getName());
+        }
+        return scenario;
     }
 
-    private static ExtentTest getCurrentScenario() {
-        return ExtentCucumberFormatter.scenarioThreadLocal.get();
+    private static ExecutionContext getExecutionContext() {
+        ExecutionContext context = ExtentCucumberFormatter.getExecutionContext();
+        if (context == null) {
+            throw new IllegalStateException("No feature is running on thread " + Thread.currentThread().getName());
+        }
+        return context;
+    }
+
+    /**
+     * Dispatches an event of the current scenario, unless the events of the scenario are held back until it ends
+     */
+    private static void report(ReportEvent event) {
+        ExecutionContext context = getExecutionContext();
+        if (!context.hold(event)) {
+            context.getDispatcher().dispatch(event);
+        }
+    }
+
+    /**
+     * Dispatches events of the given scenario, unless the events of the scenario are held back until it ends
+     */
+    private static void report(ScenarioHandle scenario, List<ReportEvent> events) {
+        ExecutionContext context = scenario.getContext();
+        if (!context.hold(scenario.getScenario(), events)) {
+            context.getDispatcher().dispatchAll(events);
+        }
+    }
+
+    private static void addStepLogs(ScenarioHandle scenario, ReportNode step, Collection<String> messages) {
+        List<ReportEvent> events = new ArrayList<>(messages.size());
+        for (String message : messages) {
+            events.add(scenario.getContext().log(step, message));
+        }
+        report(scenario, events);
+    }
+
+    private static void dispatchScreenCapture(ReportEvent.ScreenCapture event) throws IOException {
+        try {
+            report(event);
+        } catch (UncheckedIOException e) {
+            // Only happens when the report is built synchronously
+            throw e.getCause();
+        }
     }
 }
@@ -0,0 +1,418 @@
+package com.vimalselvam.cucumber.listener;
+
+import gherkin.formatter.model.Row;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures what reporting costs the run: the time spent in the formatter callbacks, the nodes, logs and tables
+ * reported, the time and output size of the flushes, and the backlog of Klov. Every counter is a
+ * {@link LongAdder}, so the threads running the scenarios never contend on them and measuring costs them
+ * a couple of additions.
+ */
+final class ReportingMetrics implements ReportEventHandler, ReportingMetricsMXBean {
+    static final String OBJECT_NAME = "com.vimalselvam.cucumber.listener:type=ReportingMetrics";
+
+    /**
+     * The formatter callbacks which are timed
+     */
+    enum Callback {
+        URI("uri"),
+        FEATURE("feature"),
+        SCENARIO_OUTLINE("scenarioOutline"),
+        EXAMPLES("examples"),
+        START_OF_SCENARIO("startOfScenarioLifeCycle"),
+        STEP("step"),
+        MATCH("match"),
+        RESULT("result"),
+        HOOK("beforeAndAfter"),
+        EMBEDDING("embedding"),
+        WRITE("write"),
+        END_OF_SCENARIO("endOfScenarioLifeCycle"),
+        EOF("eof"),
+        DONE("done");
+
+        private final String callbackName;
+
+        Callback(String callbackName) {
+            this.callbackName = callbackName;
+        }
+    }
+
+    private final File reportFile;
+    private final LongAdder[] callbackCounts = new LongAdder[Callback.values().length];
+    private final LongAdder[] callbackNanos = new LongAdder[Callback.values().length];
+    private final LongAdder events = new LongAdder();
+    private final LongAdder discardedEvents = new LongAdder();
+    private final LongAdder features = new LongAdder();
+    private final LongAdder scenarioOutlines = new LongAdder();
+    private final LongAdder scenarios = new LongAdder();
+    private final LongAdder steps = new LongAdder();
+    private final LongAdder logChars = new LongAdder();
+    private final LongAdder tableCells = new LongAdder();
+    private final LongAdder tableChars = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder flushNanos = new LongAdder();
+    private final LongAccumulator maxFlushNanos = new LongAccumulator(Math::max, 0);
+    private volatile long reportBytes;
+    private volatile KlovBatchWriter klovBatchWriter;
+    // Guarded by this
+    private ObjectName registeredName;
+
+    /**
+     * @param reportFile The report file whose size is taken after every flush, null if there is none
+     */
+    ReportingMetrics(File reportFile) {
+        this.reportFile = reportFile;
+        for (int i = 0; i < callbackCounts.length; i++) {
+            callbackCounts[i] = new LongAdder();
+            callbackNanos[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Counts a call of a formatter callback which is returning
+     * @param callback The callback
+     * @param startNanos The {@link System#nanoTime()} the callback was called at
+     */
+    void timed(Callback callback, long startNanos) {
+        long nanos = System.nanoTime() - startNanos;
+        callbackCounts[callback.ordinal()].increment();
+        callbackNanos[callback.ordinal()].add(nanos);
+    }
+
+    /**
+     * Counts a flush of the report which just ended
+     * @param nanos The time the flush took
+     */
+    void flushed(long nanos) {
+        flushes.increment();
+        flushNanos.add(nanos);
+        maxFlushNanos.accumulate(nanos);
+        if (reportFile != null) {
+            reportBytes = reportFile.length();
+        }
+    }
+
+    /**
+     * Takes in the queue and write latency of the writer of Klov, when Klov is written in batches
+     * @param klovBatchWriter The writer of Klov
+     */
+    void setKlovBatchWriter(KlovBatchWriter klovBatchWriter) {
+        this.klovBatchWriter = klovBatchWriter;
+    }
+
+    /**
+     * Counts an event dropped because the asynchronous report queue was full
+     */
+    void discarded() {
+        discardedEvents.increment();
+    }
+
+    /**
+     * Publishes the metrics over JMX, unless they are published already or other metrics are published under
+     * the same name
+     */
+    synchronized void register() {
+        if (registeredName != null) {
+            return;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            server.registerMBean(new StandardMBean(this, ReportingMetricsMXBean.class, true), name);
+            registeredName = name;
+        } catch (JMException e) {
+            System.err.println("The reporting metrics are not published over JMX: " + e);
+        }
+    }
+
+    /**
+     * Stops publishing the metrics over JMX, if they were published by {@link #register()}
+     */
+    synchronized void unregister() {
+        if (registeredName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(registeredName);
+        } catch (JMException e) {
+            System.err.println("The reporting metrics cannot be withdrawn from JMX: " + e);
+        }
+        registeredName = null;
+    }
+
+    /**
+     * Gets where the summary of the metrics is written for a report
+     * @param reportFile The report file
+     * @return The {@code <report name>-metrics.json} file next to the report
+     */
+    static Path summaryPath(File reportFile) {
+        Path reportPath = reportFile.toPath().toAbsolutePath();
+        String fileName = reportPath.getFileName().toString();
+        int extension = fileName.lastIndexOf('.');
+        String baseName = extension > 0 ? fileName.substring(0, extension) : fileName;
+        return reportPath.resolveSibling(baseName + "-metrics.json");
+    }
+
+    /**
+     * Writes the summary of the metrics
+     * @param path Where the summary is written
+     * @throws IOException If the summary cannot be written
+     */
+    void writeSummary(Path path) throws IOException {
+        Files.createDirectories(path.getParent());
+        Files.write(path, toJson().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Renders the metrics as a json object
+     * @return The metrics in json
+     */
+    String toJson() {
+        StringBuilder out = new StringBuilder(1024);
+        out.append("{\"callbacks\":{");
+        for (Callback callback : Callback.values()) {
+            if (callback.ordinal() > 0) {
+                out.append(',');
+            }
+            Json.appendString(out, callback.callbackName);
+            out.append(":{\"count\":").append(callbackCounts[callback.ordinal()].sum())
+                .append(",\"millis\":").append(millis(callbackNanos[callback.ordinal()].sum())).append('}');
+        }
+        out.append("},\"events\":").append(events.sum());
+        out.append(",\"discardedEvents\":").append(discardedEvents.sum());
+        out.append(",\"nodes\":{\"features\":").append(features.sum())
+            .append(",\"scenarioOutlines\":").append(scenarioOutlines.sum())
+            .append(",\"scenarios\":").append(scenarios.sum())
+            .append(",\"steps\":").append(steps.sum()).append('}');
+        out.append(",\"logChars\":").append(logChars.sum());
+        out.append(",\"tables\":{\"cells\":").append(tableCells.sum())
+            .append(",\"chars\":").append(tableChars.sum()).append('}');
+        out.append(",\"flushes\":{\"count\":").append(flushes.sum())
+            .append(",\"millis\":").append(millis(flushNanos.sum()))
+            .append(",\"maxMillis\":").append(millis(maxFlushNanos.get()))
+            .append(",\"reportBytes\":").append(reportBytes).append('}');
+        KlovBatchWriter klov = klovBatchWriter;
+        if (klov != null) {
+            out.append(",\"klov\":{\"queueDepth\":").append(klov.getQueueDepth())
+                .append(",\"spoolDepth\":").append(klov.getSpoolDepth())
+                .append(",\"writtenEvents\":").append(klov.getWrittenEventCount())
+                .append(",\"lostEvents\":").append(klov.getLostEventCount())
+                .append(",\"averageWriteMillis\":").append(millis(klov.getAverageWriteNanos()))
+                .append(",\"maxWriteMillis\":").append(millis(klov.getMaxWriteNanos())).append('}');
+        }
+        return out.append('}').toString();
+    }
+
+    @Override
+    public Map<String, Long> getCallbackCounts() {
+        return sums(callbackCounts);
+    }
+
+    @Override
+    public Map<String, Long> getCallbackNanos() {
+        return sums(callbackNanos);
+    }
+
+    @Override
+    public long getEvents() {
+        return events.sum();
+    }
+
+    @Override
+    public long getDiscardedEvents() {
+        return discardedEvents.sum();
+    }
+
+    @Override
+    public long getFeatures() {
+        return features.sum();
+    }
+
+    @Override
+    public long getScenarioOutlines() {
+        return scenarioOutlines.sum();
+    }
+
+    @Override
+    public long getScenarios() {
+        return scenarios.sum();
+    }
+
+    @Override
+    public long getSteps() {
+        return steps.sum();
+    }
+
+    @Override
+    public long getLogChars() {
+        return logChars.sum();
+    }
+
+    @Override
+    public long getTableCells() {
+        return tableCells.sum();
+    }
+
+    @Override
+    public long getTableChars() {
+        return tableChars.sum();
+    }
+
+    @Override
+    public long getFlushes() {
+        return flushes.sum();
+    }
+
+    @Override
+    public long getFlushNanos() {
+        return flushNanos.sum();
+    }
+
+    @Override
+    public long getMaxFlushNanos() {
+        return maxFlushNanos.get();
+    }
+
+    @Override
+    public long getReportBytes() {
+        return reportBytes;
+    }
+
+    @Override
+    public long getKlovQueueDepth() {
+        KlovBatchWriter klov = klovBatchWriter;
+        return klov == null ? 0 : klov.getQueueDepth();
+    }
+
+    @Override
+    public long getKlovSpoolDepth() {
+        KlovBatchWriter klov = klovBatchWriter;
+        return klov == null ? 0 : klov.getSpoolDepth();
+    }
+
+    @Override
+    public long getKlovWrittenEvents() {
+        KlovBatchWriter klov = klovBatchWriter;
+        return klov == null ? 0 : klov.getWrittenEventCount();
+    }
+
+    @Override
+    public long getKlovLostEvents() {
+        KlovBatchWriter klov = klovBatchWriter;
+        return klov == null ? 0 : klov.getLostEventCount();
+    }
+
+    @Override
+    public long getKlovAverageWriteNanos() {
+        KlovBatchWriter klov = klovBatchWriter;
+        return klov == null ? 0 : klov.getAverageWriteNanos();
+    }
+
+    @Override
+    public long getKlovMaxWriteNanos() {
+        KlovBatchWriter klov = klovBatchWriter;
+        return klov == null ? 0 : klov.getMaxWriteNanos();
+    }
+
+    @Override
+    public void onFeatureStarted(ReportEvent.FeatureStarted event) {
+        features.increment();
+    }
+
+    @Override
+    public void onScenarioOutlineStarted(ReportEvent.ScenarioOutlineStarted event) {
+        scenarioOutlines.increment();
+    }
+
+    @Override
+    public void onExamplesTable(ReportEvent.ExamplesTable event) {
+        countTable(event.getRows());
+    }
+
+    @Override
+    public void onExampleResults(ReportEvent.ExampleResults event) {
+        countRow(event.getHeader());
+        for (ReportEvent.ExampleResult result : event.getResults()) {
+            countRow(result.getRow());
+            if (result.getFailure() != null) {
+                tableChars.add(result.getFailure().length());
+            }
+        }
+    }
+
+    @Override
+    public void onScenarioStarted(ReportEvent.ScenarioStarted event) {
+        scenarios.increment();
+    }
+
+    @Override
+    public void onStepStarted(ReportEvent.StepStarted event) {
+        steps.increment();
+        countTable(event.getRows());
+    }
+
+    @Override
+    public void onLog(ReportEvent.Log event) {
+        if (event.getMessage() != null) {
+            logChars.add(event.getMessage().length());
+        }
+    }
+
+    /**
+     * Counts an event on its way to the report
+     */
+    void count(ReportEvent event) {
+        events.increment();
+        event.accept(this);
+    }
+
+    private void countTable(List<? extends Row> rows) {
+        if (rows == null) {
+            return;
+        }
+        for (Row row : rows) {
+            countRow(row);
+        }
+    }
+
+    private void countRow(Row row) {
+        if (row == null || row.getCells() == null) {
+            return;
+        }
+        long chars = 0;
+        for (String cell : row.getCells()) {
+            chars += cell == null ? 0 : cell.length();
+        }
+        tableCells.add(row.getCells().size());
+        tableChars.add(chars);
+    }
+
+    private static Map<String, Long> sums(LongAdder[] adders) {
+        Map<String, Long> sums = new LinkedHashMap<>();
+        for (Callback callback : Callback.values()) {
+            sums.put(callback.callbackName, adders[callback.ordinal()].sum());
+        }
+        return sums;
+    }
+
+    private static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+}
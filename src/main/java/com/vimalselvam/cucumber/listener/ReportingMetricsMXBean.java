@@ -0,0 +1,117 @@
+package com.vimalselvam.cucumber.listener;
+
+import java.util.Map;
+
+/**
+ * The cost of reporting a run so far, as published over JMX under
+ * {@code com.vimalselvam.cucumber.listener:type=ReportingMetrics}
+ */
+public interface ReportingMetricsMXBean {
+
+    /**
+     * Gets the number of calls of each formatter callback
+     * @return The number of calls, by callback name
+     */
+    Map<String, Long> getCallbackCounts();
+
+    /**
+     * Gets the time spent in each formatter callback, which is the time reporting costs the running threads
+     * @return The total time in nanoseconds, by callback name
+     */
+    Map<String, Long> getCallbackNanos();
+
+    /**
+     * @return The number of events reported
+     */
+    long getEvents();
+
+    /**
+     * @return The number of events dropped because the asynchronous report queue was full
+     */
+    long getDiscardedEvents();
+
+    /**
+     * @return The number of features reported
+     */
+    long getFeatures();
+
+    /**
+     * @return The number of scenario outlines reported
+     */
+    long getScenarioOutlines();
+
+    /**
+     * @return The number of scenarios reported
+     */
+    long getScenarios();
+
+    /**
+     * @return The number of steps reported
+     */
+    long getSteps();
+
+    /**
+     * @return The number of characters of the logs reported
+     */
+    long getLogChars();
+
+    /**
+     * @return The number of cells of the data tables and examples tables reported
+     */
+    long getTableCells();
+
+    /**
+     * @return The number of characters in the cells of the data tables and examples tables reported
+     */
+    long getTableChars();
+
+    /**
+     * @return The number of times the report was written
+     */
+    long getFlushes();
+
+    /**
+     * @return The total time spent writing the report, in nanoseconds
+     */
+    long getFlushNanos();
+
+    /**
+     * @return The longest time spent writing the report once, in nanoseconds
+     */
+    long getMaxFlushNanos();
+
+    /**
+     * @return The size of the report file after it was last written, in bytes
+     */
+    long getReportBytes();
+
+    /**
+     * @return The number of events waiting for the Klov writer thread, 0 unless Klov is written in batches
+     */
+    long getKlovQueueDepth();
+
+    /**
+     * @return The number of events spooled while Klov cannot be reached, 0 unless Klov is written in batches
+     */
+    long getKlovSpoolDepth();
+
+    /**
+     * @return The number of events written to Klov, 0 unless Klov is written in batches
+     */
+    long getKlovWrittenEvents();
+
+    /**
+     * @return The number of events neither written to Klov nor spooled, 0 unless Klov is written in batches
+     */
+    long getKlovLostEvents();
+
+    /**
+     * @return The average time a batch took to write to Klov, in nanoseconds
+     */
+    long getKlovAverageWriteNanos();
+
+    /**
+     * @return The longest time a batch took to write to Klov, in nanoseconds
+     */
+    long getKlovMaxWriteNanos();
+}
@@ -0,0 +1,494 @@
+package com.vimalselvam.cucumber.listener;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Remembers the status and duration of every scenario across runs, in a directory of its own:
+ * <ul>
+ * <li>{@code results.log}, every result of every run, only ever appended to</li>
+ * <li>{@code runs.dat}, a fixed size summary record per run, of which the last ones make the trend</li>
+ * <li>{@code scenarios.idx}, the recent history of every scenario by feature uri and scenario line,
+ * rewritten at the end of each run</li>
+ * </ul>
+ * Only the index is read when a run starts, and only the index and this run's records are written when it
+ * ends, so neither gets slower as the history grows. The log rebuilds the index if it is lost.
+ */
+final class RunHistory {
+    static final byte PASSED = 0;
+    static final byte SKIPPED = 1;
+    static final byte FAILED = 2;
+
+    /**
+     * The number of recent results the flakiness and the usual duration of a scenario are computed from
+     */
+    static final int WINDOW = 20;
+
+    private static final int INDEX_MAGIC = 0x45434849;
+    private static final int INDEX_VERSION = 2;
+    private static final int RUN_RECORD_SIZE = 28;
+    private static final int MIN_DURATIONS = 5;
+    private static final double REGRESSION_FACTOR = 2.0;
+    private static final long REGRESSION_MIN_NANOS = 100000000L;
+
+    private final Path indexPath;
+    private final Path logPath;
+    private final Path runsPath;
+    private final long runStartMillis;
+    private final Map<String, ScenarioHistory> scenarios = new HashMap<>();
+    private final List<Verdict> pending = new ArrayList<>();
+    private final List<Verdict> regressions = new ArrayList<>();
+    private final int[] runCounts = new int[3];
+    private long runRecordPosition = -1;
+
+    /**
+     * Opens the history kept in the given directory, creating it if need be
+     * @param directory The history directory
+     * @throws IOException If the history cannot be read
+     */
+    RunHistory(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        this.indexPath = directory.resolve("scenarios.idx");
+        this.logPath = directory.resolve("results.log");
+        this.runsPath = directory.resolve("runs.dat");
+        this.runStartMillis = System.currentTimeMillis();
+        if (Files.exists(indexPath)) {
+            try {
+                readIndex();
+                return;
+            } catch (IOException e) {
+                System.err.println("The history index " + indexPath + " cannot be read, it is rebuilt: " + e);
+                scenarios.clear();
+            }
+        }
+        if (Files.exists(logPath)) {
+            rebuildIndex();
+        }
+    }
+
+    /**
+     * Maps a cucumber status to the status kept in the history
+     * @param status The cucumber status
+     * @return {@link #PASSED}, {@link #FAILED} or {@link #SKIPPED} for any other status
+     */
+    static byte statusOf(String status) {
+        if ("passed".equals(status)) {
+            return PASSED;
+        }
+        return "failed".equals(status) ? FAILED : SKIPPED;
+    }
+
+    /**
+     * Records the result of a scenario of this run
+     * @param uri The uri of the feature file
+     * @param line The line of the scenario, which tells it apart from the others of the feature file
+     * @param name The name of the scenario
+     * @param status {@link #PASSED}, {@link #FAILED} or {@link #SKIPPED}
+     * @param nanos The duration of the scenario in nanoseconds
+     * @return What the history says about the result
+     */
+    synchronized Verdict record(String uri, int line, String name, byte status, long nanos) {
+        ScenarioHistory scenario = scenarios.computeIfAbsent(key(uri, line),
+            key -> new ScenarioHistory(uri, line, name));
+        long usualNanos = scenario.getMedianNanos();
+        boolean regression = status == PASSED && scenario.durationCount >= MIN_DURATIONS
+            && nanos > usualNanos * REGRESSION_FACTOR && nanos - usualNanos > REGRESSION_MIN_NANOS;
+        scenario.add(status, nanos);
+        Verdict verdict = new Verdict(scenario, status, nanos, usualNanos, regression);
+        pending.add(verdict);
+        if (regression) {
+            regressions.add(verdict);
+        }
+        runCounts[status]++;
+        return verdict;
+    }
+
+    /**
+     * Writes the results recorded since the last save. Saving again later in the same run updates the
+     * summary of the run rather than adding another one.
+     * @throws IOException If the history cannot be written
+     */
+    synchronized void save() throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(logPath,
+            StandardOpenOption.CREATE, StandardOpenOption.APPEND), 65536))) {
+            for (Verdict verdict : pending) {
+                out.writeLong(runStartMillis);
+                ShardFormat.writeString(out, verdict.getScenario().getUri());
+                out.writeInt(verdict.getScenario().getLine());
+                ShardFormat.writeString(out, verdict.getScenario().getName());
+                out.writeByte(verdict.getStatus());
+                out.writeLong(verdict.getNanos());
+            }
+        }
+        pending.clear();
+
+        try (RandomAccessFile runs = new RandomAccessFile(runsPath.toFile(), "rw")) {
+            if (runRecordPosition < 0) {
+                runRecordPosition = runs.length() / RUN_RECORD_SIZE * RUN_RECORD_SIZE;
+            }
+            runs.seek(runRecordPosition);
+            runs.writeLong(runStartMillis);
+            runs.writeLong(System.currentTimeMillis() - runStartMillis);
+            runs.writeInt(runCounts[PASSED]);
+            runs.writeInt(runCounts[FAILED]);
+            runs.writeInt(runCounts[SKIPPED]);
+        }
+
+        writeIndex();
+    }
+
+    /**
+     * Gets the summaries of the last runs, this one included once it is saved
+     * @param count The maximum number of runs
+     * @return The run summaries, oldest first
+     * @throws IOException If the run summaries cannot be read
+     */
+    synchronized List<RunSummary> recentRuns(int count) throws IOException {
+        if (!Files.exists(runsPath)) {
+            return Collections.emptyList();
+        }
+        try (RandomAccessFile runs = new RandomAccessFile(runsPath.toFile(), "r")) {
+            long records = runs.length() / RUN_RECORD_SIZE;
+            long first = Math.max(0, records - count);
+            runs.seek(first * RUN_RECORD_SIZE);
+            List<RunSummary> summaries = new ArrayList<>((int) (records - first));
+            for (long i = first; i < records; i++) {
+                summaries.add(new RunSummary(runs.readLong(), runs.readLong(), runs.readInt(), runs.readInt(),
+                    runs.readInt()));
+            }
+            return summaries;
+        }
+    }
+
+    /**
+     * Gets the scenarios which changed status the most over their recent results
+     * @param count The maximum number of scenarios
+     * @return The flaky scenarios, flakiest first
+     */
+    synchronized List<ScenarioHistory> flakiest(int count) {
+        List<ScenarioHistory> flaky = new ArrayList<>();
+        for (ScenarioHistory scenario : scenarios.values()) {
+            if (scenario.getFlakiness() > 0) {
+                flaky.add(scenario);
+            }
+        }
+        flaky.sort((a, b) -> Double.compare(b.getFlakiness(), a.getFlakiness()));
+        return flaky.size() > count ? new ArrayList<>(flaky.subList(0, count)) : flaky;
+    }
+
+    /**
+     * Gets the scenarios of this run which took much longer than usual
+     * @return The verdicts of the slowed down scenarios, in the order they ran
+     */
+    synchronized List<Verdict> regressions() {
+        return new ArrayList<>(regressions);
+    }
+
+    private static String key(String uri, int line) {
+        return uri + ':' + line;
+    }
+
+    private void readIndex() throws IOException {
+        try (DataInputStream in = new DataInputStream(
+            new BufferedInputStream(Files.newInputStream(indexPath), 65536))) {
+            if (in.readInt() != INDEX_MAGIC || in.readInt() != INDEX_VERSION) {
+                throw new IOException(indexPath + " is not a history index of this version");
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String uri = ShardFormat.readString(in);
+                int line = in.readInt();
+                ScenarioHistory scenario = new ScenarioHistory(uri, line, ShardFormat.readString(in));
+                scenario.statusBits = in.readLong();
+                scenario.resultCount = in.readInt();
+                scenario.runs = in.readInt();
+                scenario.failures = in.readInt();
+                int durations = in.readInt();
+                for (int d = 0; d < durations; d++) {
+                    scenario.addDuration(in.readLong());
+                }
+                scenarios.put(key(scenario.getUri(), scenario.getLine()), scenario);
+            }
+        }
+    }
+
+    private void rebuildIndex() throws IOException {
+        try (DataInputStream in = new DataInputStream(
+            new BufferedInputStream(Files.newInputStream(logPath), 65536))) {
+            while (true) {
+                String uri;
+                int line;
+                String name;
+                byte status;
+                long nanos;
+                try {
+                    in.readLong();
+                    uri = ShardFormat.readString(in);
+                    line = in.readInt();
+                    name = ShardFormat.readString(in);
+                    status = in.readByte();
+                    nanos = in.readLong();
+                } catch (EOFException e) {
+                    return;
+                }
+                scenarios.computeIfAbsent(key(uri, line), key -> new ScenarioHistory(uri, line, name))
+                    .add(status, nanos);
+            }
+        }
+    }
+
+    private void writeIndex() throws IOException {
+        Path temporary = indexPath.resolveSibling(indexPath.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+            new BufferedOutputStream(Files.newOutputStream(temporary), 65536))) {
+            out.writeInt(INDEX_MAGIC);
+            out.writeInt(INDEX_VERSION);
+            out.writeInt(scenarios.size());
+            for (ScenarioHistory scenario : scenarios.values()) {
+                ShardFormat.writeString(out, scenario.getUri());
+                out.writeInt(scenario.getLine());
+                ShardFormat.writeString(out, scenario.getName());
+                out.writeLong(scenario.statusBits);
+                out.writeInt(scenario.resultCount);
+                out.writeInt(scenario.runs);
+                out.writeInt(scenario.failures);
+                long[] durations = scenario.getDurations();
+                out.writeInt(durations.length);
+                for (long duration : durations) {
+                    out.writeLong(duration);
+                }
+            }
+        }
+        try {
+            Files.move(temporary, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary, indexPath, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * The recent history of a scenario
+     */
+    static final class ScenarioHistory {
+        private final String uri;
+        private final int line;
+        private final String name;
+        /**
+         * The passed (0) and failed (1) results, the latest in the lowest bit
+         */
+        private long statusBits;
+        private int resultCount;
+        private int runs;
+        private int failures;
+        /**
+         * The durations of the last passed runs, as a ring
+         */
+        private final long[] durations = new long[WINDOW];
+        private int durationCount;
+        private int nextDuration;
+
+        private ScenarioHistory(String uri, int line, String name) {
+            this.uri = uri;
+            this.line = line;
+            this.name = name;
+        }
+
+        String getUri() {
+            return uri;
+        }
+
+        int getLine() {
+            return line;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        /**
+         * Gets the number of runs of the scenario
+         * @return The number of runs, skipped ones included
+         */
+        int getRuns() {
+            return runs;
+        }
+
+        int getFailures() {
+            return failures;
+        }
+
+        /**
+         * Gets how often the scenario changed from passed to failed or back over its recent results
+         * @return The share of the recent results which changed status, from 0 to 1
+         */
+        double getFlakiness() {
+            int window = Math.min(resultCount, WINDOW);
+            if (window < 2) {
+                return 0;
+            }
+            long changes = (statusBits ^ (statusBits >>> 1)) & ((1L << (window - 1)) - 1);
+            return Long.bitCount(changes) / (double) (window - 1);
+        }
+
+        /**
+         * Gets the recent results as a string of P and F
+         * @return The recent results, oldest first
+         */
+        String getRecentResults() {
+            int window = Math.min(resultCount, WINDOW);
+            StringBuilder results = new StringBuilder(window);
+            for (int i = window - 1; i >= 0; i--) {
+                results.append((statusBits >>> i & 1) == 1 ? 'F' : 'P');
+            }
+            return results.toString();
+        }
+
+        /**
+         * Gets the usual duration of the scenario
+         * @return The median duration of the last passed runs in nanoseconds, 0 if it never passed
+         */
+        long getMedianNanos() {
+            if (durationCount == 0) {
+                return 0;
+            }
+            long[] sorted = Arrays.copyOf(durations, durationCount);
+            Arrays.sort(sorted);
+            return sorted[durationCount / 2];
+        }
+
+        /**
+         * Gets the durations of the last passed runs
+         * @return The durations in nanoseconds, oldest first
+         */
+        long[] getDurations() {
+            long[] ordered = new long[durationCount];
+            int start = durationCount < WINDOW ? 0 : nextDuration;
+            for (int i = 0; i < durationCount; i++) {
+                ordered[i] = durations[(start + i) % WINDOW];
+            }
+            return ordered;
+        }
+
+        private void add(byte status, long nanos) {
+            runs++;
+            if (status == SKIPPED) {
+                return;
+            }
+            statusBits = statusBits << 1 | (status == FAILED ? 1 : 0);
+            resultCount = Math.min(resultCount + 1, Long.SIZE);
+            if (status == FAILED) {
+                failures++;
+            } else {
+                addDuration(nanos);
+            }
+        }
+
+        private void addDuration(long nanos) {
+            durations[nextDuration] = nanos;
+            nextDuration = (nextDuration + 1) % WINDOW;
+            durationCount = Math.min(durationCount + 1, WINDOW);
+        }
+    }
+
+    /**
+     * The result of a scenario in this run, along with what its history says about it
+     */
+    static final class Verdict {
+        private final ScenarioHistory scenario;
+        private final byte status;
+        private final long nanos;
+        private final long usualNanos;
+        private final boolean regression;
+
+        private Verdict(ScenarioHistory scenario, byte status, long nanos, long usualNanos, boolean regression) {
+            this.scenario = scenario;
+            this.status = status;
+            this.nanos = nanos;
+            this.usualNanos = usualNanos;
+            this.regression = regression;
+        }
+
+        ScenarioHistory getScenario() {
+            return scenario;
+        }
+
+        byte getStatus() {
+            return status;
+        }
+
+        long getNanos() {
+            return nanos;
+        }
+
+        /**
+         * Gets the usual duration of the scenario, before this run
+         * @return The median duration in nanoseconds, 0 if it never passed before
+         */
+        long getUsualNanos() {
+            return usualNanos;
+        }
+
+        /**
+         * Gets if the scenario took much longer than usual
+         * @return true if the duration is a regression
+         */
+        boolean isRegression() {
+            return regression;
+        }
+    }
+
+    /**
+     * The summary of a run
+     */
+    static final class RunSummary {
+        private final long startMillis;
+        private final long durationMillis;
+        private final int passed;
+        private final int failed;
+        private final int skipped;
+
+        RunSummary(long startMillis, long durationMillis, int passed, int failed, int skipped) {
+            this.startMillis = startMillis;
+            this.durationMillis = durationMillis;
+            this.passed = passed;
+            this.failed = failed;
+            this.skipped = skipped;
+        }
+
+        long getStartMillis() {
+            return startMillis;
+        }
+
+        long getDurationMillis() {
+            return durationMillis;
+        }
+
+        int getPassed() {
+            return passed;
+        }
+
+        int getFailed() {
+            return failed;
+        }
+
+        int getSkipped() {
+            return skipped;
+        }
+    }
+}
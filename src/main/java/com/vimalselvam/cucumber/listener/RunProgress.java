@@ -0,0 +1,186 @@
+package com.vimalselvam.cucumber.listener;
+
+import gherkin.formatter.model.Result;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The progress of the run so far, counted by the threads running the scenarios and read by whoever polls it.
+ * The counters are {@link LongAdder}s, so counting never contends between the running threads, and reading
+ * them takes no lock a running thread could wait on. Only the readers synchronize, on the samples the
+ * throughput is computed from.
+ */
+final class RunProgress {
+    /**
+     * The number of throughput samples kept, one a second at most
+     */
+    static final int SAMPLES = 30;
+
+    private final long startNanos;
+    private final int expectedScenarios;
+    private final LongAdder features = new LongAdder();
+    private final LongAdder scenarios = new LongAdder();
+    private final LongAdder passedScenarios = new LongAdder();
+    private final LongAdder failedScenarios = new LongAdder();
+    private final LongAdder steps = new LongAdder();
+    private final LongAdder passedSteps = new LongAdder();
+    private final LongAdder failedSteps = new LongAdder();
+    /**
+     * The scenario each thread is running, by thread id
+     */
+    private final ConcurrentMap<Long, RunningScenario> running = new ConcurrentHashMap<>();
+
+    // Guarded by this, a ring of the step counts seen by the readers
+    private final long[] sampleNanos = new long[SAMPLES];
+    private final long[] sampleSteps = new long[SAMPLES];
+    private int sampleCount;
+    private int nextSample;
+
+    /**
+     * Starts counting
+     * @param startNanos The {@link System#nanoTime()} the run started at
+     * @param expectedScenarios The number of scenarios the run is expected to have, 0 if unknown
+     */
+    RunProgress(long startNanos, int expectedScenarios) {
+        this.startNanos = startNanos;
+        this.expectedScenarios = expectedScenarios;
+    }
+
+    void scenarioStarted(long threadId, String name, String location, long nanos) {
+        running.put(threadId, new RunningScenario(name, location, nanos));
+    }
+
+    void stepFinished(String status) {
+        steps.increment();
+        if (Result.PASSED.equals(status)) {
+            passedSteps.increment();
+        } else if (Result.FAILED.equals(status)) {
+            failedSteps.increment();
+        }
+    }
+
+    /**
+     * Counts the scenario the given thread was running
+     * @param threadId The id of the thread
+     * @param status {@link RunHistory#PASSED}, {@link RunHistory#FAILED} or {@link RunHistory#SKIPPED}
+     */
+    void scenarioFinished(long threadId, byte status) {
+        running.remove(threadId);
+        scenarios.increment();
+        if (status == RunHistory.PASSED) {
+            passedScenarios.increment();
+        } else if (status == RunHistory.FAILED) {
+            failedScenarios.increment();
+        }
+    }
+
+    void featureFinished() {
+        features.increment();
+    }
+
+    /**
+     * Renders the progress as a json object
+     * @param nowNanos The current {@link System#nanoTime()}
+     * @return The progress in json
+     */
+    String toJson(long nowNanos) {
+        long finishedScenarios = scenarios.sum();
+        long passed = passedScenarios.sum();
+        long failed = failedScenarios.sum();
+        long finishedSteps = steps.sum();
+        long passedStepCount = passedSteps.sum();
+        long failedStepCount = failedSteps.sum();
+        RunningScenario slowest = null;
+        int runningCount = 0;
+        for (RunningScenario scenario : running.values()) {
+            runningCount++;
+            if (slowest == null || scenario.startNanos < slowest.startNanos) {
+                slowest = scenario;
+            }
+        }
+
+        StringBuilder out = new StringBuilder(512);
+        out.append("{\"elapsedSeconds\":").append(seconds(nowNanos - startNanos));
+        out.append(",\"features\":").append(features.sum());
+        out.append(",\"scenarios\":{\"running\":").append(runningCount)
+            .append(",\"finished\":").append(finishedScenarios)
+            .append(",\"passed\":").append(passed)
+            .append(",\"failed\":").append(failed)
+            .append(",\"skipped\":").append(finishedScenarios - passed - failed).append('}');
+        out.append(",\"steps\":{\"finished\":").append(finishedSteps)
+            .append(",\"passed\":").append(passedStepCount)
+            .append(",\"failed\":").append(failedStepCount)
+            .append(",\"skipped\":").append(finishedSteps - passedStepCount - failedStepCount).append('}');
+        out.append(",\"stepsPerSecond\":").append(String.format(Locale.ROOT, "%.1f",
+            stepsPerSecond(nowNanos, finishedSteps)));
+        out.append(",\"slowestRunningScenario\":");
+        if (slowest == null) {
+            out.append("null");
+        } else {
+            out.append("{\"name\":");
+            Json.appendString(out, slowest.name);
+            out.append(",\"location\":");
+            Json.appendString(out, slowest.location);
+            out.append(",\"runningSeconds\":").append(seconds(nowNanos - slowest.startNanos)).append('}');
+        }
+        out.append(",\"expectedScenarios\":").append(expectedScenarios > 0 ? expectedScenarios : "null");
+        long eta = etaSeconds(nowNanos, finishedScenarios);
+        out.append(",\"etaSeconds\":").append(eta >= 0 ? eta : "null");
+        return out.append('}').toString();
+    }
+
+    /**
+     * Computes the throughput since the oldest sample kept, which covers the last {@link #SAMPLES} seconds
+     * when polled every second, or since the start of the run for the first poll
+     */
+    synchronized double stepsPerSecond(long nowNanos, long finishedSteps) {
+        long fromNanos = startNanos;
+        long fromSteps = 0;
+        if (sampleCount > 0) {
+            int oldest = sampleCount < SAMPLES ? 0 : nextSample;
+            fromNanos = sampleNanos[oldest];
+            fromSteps = sampleSteps[oldest];
+        }
+        int newest = (nextSample + SAMPLES - 1) % SAMPLES;
+        if (sampleCount == 0 || nowNanos - sampleNanos[newest] >= TimeUnit.SECONDS.toNanos(1)) {
+            sampleNanos[nextSample] = nowNanos;
+            sampleSteps[nextSample] = finishedSteps;
+            nextSample = (nextSample + 1) % SAMPLES;
+            sampleCount = Math.min(sampleCount + 1, SAMPLES);
+        }
+        long elapsed = nowNanos - fromNanos;
+        return elapsed <= 0 ? 0 : (finishedSteps - fromSteps) * (double) TimeUnit.SECONDS.toNanos(1) / elapsed;
+    }
+
+    /**
+     * Estimates the time left from the scenarios left and the average rate of the scenarios so far
+     * @return The estimate in seconds, -1 if the number of scenarios is unknown or none has finished yet
+     */
+    private long etaSeconds(long nowNanos, long finishedScenarios) {
+        if (expectedScenarios <= 0 || finishedScenarios == 0) {
+            return -1;
+        }
+        long left = Math.max(0, expectedScenarios - finishedScenarios);
+        return TimeUnit.NANOSECONDS.toSeconds((nowNanos - startNanos) / finishedScenarios * left);
+    }
+
+    private static long seconds(long nanos) {
+        return TimeUnit.NANOSECONDS.toSeconds(nanos);
+    }
+
+    private static final class RunningScenario {
+        private final String name;
+        private final String location;
+        private final long startNanos;
+
+        RunningScenario(String name, String location, long startNanos) {
+            this.name = name;
+            this.location = location;
+            this.startNanos = startNanos;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.vimalselvam.cucumber.listener;
+
+/**
+ * A scenario which is running, for the threads it starts to log to it. The threads of a scenario do not
+ * know which scenario they work for, so the scenario thread takes a handle with
+ * {@link Reporter#getScenarioHandle()} and hands it over to them.
+ */
+public final class ScenarioHandle {
+    private final ExecutionContext context;
+    private final ReportNode scenario;
+
+    ScenarioHandle(ExecutionContext context, ReportNode scenario) {
+        this.context = context;
+        this.scenario = scenario;
+    }
+
+    ExecutionContext getContext() {
+        return context;
+    }
+
+    ReportNode getScenario() {
+        return scenario;
+    }
+
+    /**
+     * Gets the step of the scenario which is running
+     * @return The running step, or the scenario itself if it is between steps or has ended
+     */
+    ReportNode getCurrentStep() {
+        ReportNode step = context.getStep();
+        return step != null && context.getScenario() == scenario ? step : scenario;
+    }
+}
@@ -0,0 +1,98 @@
+package com.vimalselvam.cucumber.listener;
+
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The layout of a shard file. A shard starts with {@link #MAGIC} and {@link #VERSION}, followed by one
+ * record per event, preceded by its length in bytes so that a corrupt record can be skipped: the record
+ * type, the id of the node the event targets and the fields of the event.
+ * Strings are written as their UTF-8 length and bytes, -1 standing for null, so they are not limited
+ * to 64k like {@link DataOutput#writeUTF(String)}.
+ * <p>
+ * The lengths read are checked against the bytes left in the input, which are known as the strings are
+ * read from a record in memory or from a file, so a corrupt length fails the record rather than allocating
+ * up to 2 GB.
+ */
+final class ShardFormat {
+    static final int MAGIC = 0x45435348;
+    static final int VERSION = 4;
+    static final String EXTENSION = ".shard";
+
+    static final byte FEATURE_STARTED = 1;
+    static final byte FEATURE_FINISHED = 2;
+    static final byte SCENARIO_OUTLINE_STARTED = 3;
+    static final byte EXAMPLES_TABLE = 4;
+    static final byte SCENARIO_STARTED = 5;
+    static final byte STEP_STARTED = 6;
+    static final byte STEP_FINISHED = 7;
+    static final byte LOG = 8;
+    static final byte SCREEN_CAPTURE = 9;
+    static final byte AUTHOR_ASSIGNED = 10;
+    static final byte SYSTEM_INFO = 11;
+    static final byte HOOKS_FINISHED = 12;
+    static final byte EXAMPLE_RESULTS = 13;
+    static final byte TEST_RUNNER_OUTPUT = 14;
+
+    /**
+     * The parent id of a feature
+     */
+    static final int NO_NODE = 0;
+
+    private ShardFormat() {
+    }
+
+    static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        checkLength(in, length, 1);
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static void writeStrings(DataOutput out, List<String> values) throws IOException {
+        out.writeInt(values.size());
+        for (int i = 0, size = values.size(); i < size; i++) {
+            writeString(out, values.get(i));
+        }
+    }
+
+    static List<String> readStrings(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        if (size == 0) {
+            return Collections.emptyList();
+        }
+        // Each string takes at least its length
+        checkLength(in, size, 4);
+        List<String> values = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            values.add(readString(in));
+        }
+        return values;
+    }
+
+    private static void checkLength(DataInputStream in, int count, int minimumBytes) throws IOException {
+        if (count < 0 || (long) count * minimumBytes > in.available()) {
+            throw new EOFException("A length of " + count + " goes past the end of the record");
+        }
+    }
+}
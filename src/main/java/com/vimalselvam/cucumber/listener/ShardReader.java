@@ -0,0 +1,285 @@
+package com.vimalselvam.cucumber.listener;
+
+import gherkin.formatter.model.Comment;
+import gherkin.formatter.model.DataTableRow;
+import gherkin.formatter.model.Row;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads a shard file written by {@link ShardWriter} back into {@link ReportEvent}s
+ */
+final class ShardReader {
+    private static final List<Comment> NO_COMMENTS = Collections.emptyList();
+
+    private final Path shardPath;
+    private final String description;
+    private final Map<Integer, ReportNode> nodes = new HashMap<>();
+
+    ShardReader(Path shardPath) {
+        this.shardPath = shardPath;
+        this.description = "the shard " + shardPath;
+    }
+
+    /**
+     * Creates a reader of single records, read with {@link #readEvent(DataInputStream)}
+     * @param description What the records come from, for the error messages
+     */
+    ShardReader(String description) {
+        this.shardPath = null;
+        this.description = description;
+    }
+
+    /**
+     * Replays the events of the shard, in the order they were written, to the given handler. A shard
+     * cut short by a crashed JVM is replayed up to its last complete event, and a corrupt event is skipped.
+     * @param handler The handler of the events
+     * @throws IOException If the shard cannot be read or is not a shard at all
+     */
+    void replay(ReportEventHandler handler) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+            new BufferedInputStream(Files.newInputStream(shardPath), 65536))) {
+            if (in.readInt() != ShardFormat.MAGIC) {
+                throw new IOException(shardPath + " is not a shard file");
+            }
+            int version = in.readInt();
+            if (version != ShardFormat.VERSION) {
+                throw new IOException("The shard " + shardPath + " has the unsupported version " + version);
+            }
+            long size = Files.size(shardPath);
+            long position = 8;
+            int skipped = 0;
+            while (true) {
+                byte[] record;
+                try {
+                    int first = in.read();
+                    if (first == -1) {
+                        break;
+                    }
+                    int length = first << 24 | in.readUnsignedByte() << 16 | in.readUnsignedByte() << 8
+                        | in.readUnsignedByte();
+                    position += 4;
+                    if (length < 0) {
+                        System.err.println("The shard " + shardPath + " is corrupt at byte " + position
+                            + ", the events after it are lost");
+                        break;
+                    }
+                    if (length > size - position) {
+                        throw new EOFException();
+                    }
+                    record = new byte[length];
+                    in.readFully(record);
+                    position += length;
+                } catch (EOFException e) {
+                    System.err.println("The shard " + shardPath + " is truncated, its last event is lost");
+                    break;
+                }
+                ReportEvent event;
+                try {
+                    event = readEvent(new DataInputStream(new ByteArrayInputStream(record)));
+                } catch (IOException e) {
+                    // The length of the record is known, the records after it can still be read
+                    skipped++;
+                    continue;
+                }
+                if (event != null) {
+                    event.accept(handler);
+                }
+            }
+            if (skipped > 0) {
+                System.err.println(skipped + " corrupt events of the shard " + shardPath + " were skipped");
+            }
+        }
+    }
+
+    /**
+     * Reads the next event. The nodes the event refers to must have been read by this reader before.
+     * @param in The input positioned at the start of an event record
+     * @return The event or null at the end of the input
+     * @throws EOFException If the input ends in the middle of the event
+     * @throws IOException If the input cannot be read or is not an event record
+     */
+    ReportEvent readEvent(DataInputStream in) throws IOException {
+        int type = in.read();
+        if (type == -1) {
+            return null;
+        }
+        int id = in.readInt();
+        switch ((byte) type) {
+            case ShardFormat.FEATURE_STARTED: {
+                in.readInt();
+                ReportNode node = newNode(id, null);
+                String uri = ShardFormat.readString(in);
+                String name = ShardFormat.readString(in);
+                return new ReportEvent.FeatureStarted(node, uri, name, ShardFormat.readStrings(in));
+            }
+            case ShardFormat.FEATURE_FINISHED: {
+                ReportNode feature = nodeOf(id);
+                // Nothing refers to the nodes of a finished feature any more
+                nodes.values().removeIf(node -> rootOf(node) == feature);
+                return new ReportEvent.FeatureFinished(feature);
+            }
+            case ShardFormat.SCENARIO_OUTLINE_STARTED: {
+                ReportNode node = newNode(id, nodeOf(in.readInt()));
+                return new ReportEvent.ScenarioOutlineStarted(node, ShardFormat.readString(in));
+            }
+            case ShardFormat.EXAMPLES_TABLE: {
+                String examplesId = ShardFormat.readString(in);
+                return new ReportEvent.ExamplesTable(nodeOf(id), examplesId, readRows(in));
+            }
+            case ShardFormat.EXAMPLE_RESULTS: {
+                String examplesId = ShardFormat.readString(in);
+                Row header = row(ShardFormat.readStrings(in));
+                int size = in.readInt();
+                List<ReportEvent.ExampleResult> results = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    Row row = row(ShardFormat.readStrings(in));
+                    String status = ShardFormat.readString(in);
+                    long durationNanos = in.readLong();
+                    results.add(new ReportEvent.ExampleResult(row, status, durationNanos, ShardFormat.readString(in)));
+                }
+                return new ReportEvent.ExampleResults(nodeOf(id), examplesId, header, results);
+            }
+            case ShardFormat.SCENARIO_STARTED: {
+                ReportNode node = newNode(id, nodeOf(in.readInt()));
+                String name = ShardFormat.readString(in);
+                List<String> tags = ShardFormat.readStrings(in);
+                ReportEvent.ExampleRow example = null;
+                if (in.readBoolean()) {
+                    String examplesId = ShardFormat.readString(in);
+                    Row header = row(ShardFormat.readStrings(in));
+                    example = new ReportEvent.ExampleRow(examplesId, header, row(ShardFormat.readStrings(in)));
+                }
+                return new ReportEvent.ScenarioStarted(node, name, tags, example);
+            }
+            case ShardFormat.STEP_STARTED: {
+                ReportNode node = newNode(id, nodeOf(in.readInt()));
+                String keyword = ShardFormat.readString(in);
+                String name = ShardFormat.readString(in);
+                return new ReportEvent.StepStarted(node, keyword, name, readRows(in));
+            }
+            case ShardFormat.STEP_FINISHED: {
+                String status = ShardFormat.readString(in);
+                long durationNanos = in.readLong();
+                return new ReportEvent.StepFinished(nodeOf(id), status, readError(in), durationNanos, null, 0);
+            }
+            case ShardFormat.HOOKS_FINISHED: {
+                int size = in.readInt();
+                List<ReportEvent.HookResult> hooks = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    boolean before = in.readBoolean();
+                    String location = ShardFormat.readString(in);
+                    String status = ShardFormat.readString(in);
+                    long durationNanos = in.readLong();
+                    hooks.add(new ReportEvent.HookResult(before, location, status, durationNanos, readError(in)));
+                }
+                return new ReportEvent.HooksFinished(nodeOf(id), hooks);
+            }
+            case ShardFormat.LOG:
+                return new ReportEvent.Log(nodeOf(id), ShardFormat.readString(in));
+            case ShardFormat.SCREEN_CAPTURE: {
+                String path = ShardFormat.readString(in);
+                String title = ShardFormat.readString(in);
+                return new ReportEvent.ScreenCapture(nodeOf(id), path, title, in.readBoolean());
+            }
+            case ShardFormat.AUTHOR_ASSIGNED:
+                return new ReportEvent.AuthorAssigned(nodeOf(id), ShardFormat.readStrings(in));
+            case ShardFormat.SYSTEM_INFO: {
+                String key = ShardFormat.readString(in);
+                return new ReportEvent.SystemInfo(key, ShardFormat.readString(in));
+            }
+            case ShardFormat.TEST_RUNNER_OUTPUT:
+                return new ReportEvent.TestRunnerOutput(ShardFormat.readString(in));
+            default:
+                throw new IOException("Unknown event type " + type + " in " + description);
+        }
+    }
+
+    private ReportNode nodeOf(int id) throws IOException {
+        ReportNode node = nodes.get(id);
+        if (node == null) {
+            throw new IOException("Unknown node " + id + " in " + description);
+        }
+        return node;
+    }
+
+    private ReportNode newNode(int id, ReportNode parent) {
+        ReportNode node = new ReportNode(parent);
+        nodes.put(id, node);
+        return node;
+    }
+
+    private static ReportNode rootOf(ReportNode node) {
+        while (node.getParent() != null) {
+            node = node.getParent();
+        }
+        return node;
+    }
+
+    private static Throwable readError(DataInputStream in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        String headline = ShardFormat.readString(in);
+        return new RecordedError(headline, ShardFormat.readString(in));
+    }
+
+    private static List<Row> readRows(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        if (size == 0) {
+            return Collections.emptyList();
+        }
+        List<Row> rows = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            rows.add(row(ShardFormat.readStrings(in)));
+        }
+        return rows;
+    }
+
+    private static Row row(List<String> cells) {
+        return new DataTableRow(NO_COMMENTS, cells, 0);
+    }
+
+    /**
+     * A failure of another JVM, of which only the text is known
+     */
+    private static final class RecordedError extends Throwable {
+        private static final long serialVersionUID = 1L;
+        private final String headline;
+        private final String stackTrace;
+
+        RecordedError(String headline, String stackTrace) {
+            super(headline, null, false, false);
+            this.headline = headline;
+            this.stackTrace = stackTrace;
+        }
+
+        @Override
+        public String toString() {
+            return headline;
+        }
+
+        @Override
+        public void printStackTrace(PrintStream s) {
+            s.print(stackTrace);
+        }
+
+        @Override
+        public void printStackTrace(PrintWriter s) {
+            s.print(stackTrace);
+        }
+    }
+}
@@ -0,0 +1,429 @@
+package com.vimalselvam.cucumber.listener;
+
+import gherkin.formatter.model.Row;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.File;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the events of this JVM to a shard file, which {@link ReportMerger} combines with the shards
+ * of the other JVMs into a single report. The nodes of a feature are forgotten once it is finished.
+ */
+final class ShardWriter implements ReportEventHandler {
+    private final String description;
+    /**
+     * The shard file the framed records go to, null when the records are written straight to {@link #out}
+     */
+    private final Path shardPath;
+    /**
+     * The open shard file, null once it is closed until the next record
+     */
+    private DataOutputStream file;
+    private final ByteArrayOutputStream record;
+    private final DataOutputStream out;
+    private final Map<ReportNode, Integer> nodeIds = new IdentityHashMap<>();
+    private int lastNodeId = ShardFormat.NO_NODE;
+
+    ShardWriter(Path shardPath) {
+        this.description = "the shard " + shardPath;
+        this.shardPath = shardPath;
+        try {
+            Files.createDirectories(shardPath.toAbsolutePath().getParent());
+            this.file = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(shardPath), 65536));
+            file.writeInt(ShardFormat.MAGIC);
+            file.writeInt(ShardFormat.VERSION);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to create the shard " + shardPath, e);
+        }
+        this.record = new ByteArrayOutputStream(256);
+        this.out = new DataOutputStream(record);
+    }
+
+    /**
+     * Creates a writer which writes the records of the events to the given output, without any header
+     * or length, the output framing them its own way
+     * @param out The output
+     * @param description What the output is, for the error messages
+     */
+    ShardWriter(DataOutputStream out, String description) {
+        this.description = description;
+        this.shardPath = null;
+        this.file = null;
+        this.record = null;
+        this.out = out;
+    }
+
+    /**
+     * Gets the path of the shard of this JVM
+     * @param reportFile The report file of the run
+     * @param shardName The name of the shard or null to name it after the process id and host
+     * @return The shard path in the {@code <report name>-shards} directory next to the report
+     */
+    static Path shardPath(File reportFile, String shardName) {
+        Path reportPath = reportFile.toPath().toAbsolutePath();
+        String fileName = reportPath.getFileName().toString();
+        int extension = fileName.lastIndexOf('.');
+        String baseName = extension > 0 ? fileName.substring(0, extension) : fileName;
+        return reportPath.resolveSibling(baseName + "-shards").resolve(shardName(shardName) + ShardFormat.EXTENSION);
+    }
+
+    /**
+     * Gets the name of the shard of this JVM, safe to use in a file name
+     * @param shardName The name of the shard or null to name it after the process id and host
+     * @return The shard name
+     */
+    static String shardName(String shardName) {
+        if (shardName == null || shardName.isEmpty()) {
+            // pid@host
+            shardName = ManagementFactory.getRuntimeMXBean().getName();
+        }
+        return shardName.replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+
+    @Override
+    public synchronized void onFeatureStarted(ReportEvent.FeatureStarted event) {
+        try {
+            out.writeByte(ShardFormat.FEATURE_STARTED);
+            out.writeInt(newId(event.getNode()));
+            out.writeInt(ShardFormat.NO_NODE);
+            ShardFormat.writeString(out, event.getUri());
+            ShardFormat.writeString(out, event.getName());
+            ShardFormat.writeStrings(out, event.getTags());
+            endRecord();
+        } catch (IOException e) {
+            throw failure(e);
+        }
+    }
+
+    @Override
+    public synchronized void onFeatureFinished(ReportEvent.FeatureFinished event) {
+        ReportNode featureNode = event.getNode();
+        Integer id = nodeIds.get(featureNode);
+        nodeIds.keySet().removeIf(node -> rootOf(node) == featureNode);
+        if (id == null) {
+            return;
+        }
+        try {
+            out.writeByte(ShardFormat.FEATURE_FINISHED);
+            out.writeInt(id);
+            endRecord();
+        } catch (IOException e) {
+            throw failure(e);
+        }
+    }
+
+    @Override
+    public synchronized void onScenarioOutlineStarted(ReportEvent.ScenarioOutlineStarted event) {
+        if (!startChild(ShardFormat.SCENARIO_OUTLINE_STARTED, event)) {
+            return;
+        }
+        try {
+            ShardFormat.writeString(out, event.getName());
+            endRecord();
+        } catch (IOException e) {
+            throw failure(e);
+        }
+    }
+
+    @Override
+    public synchronized void onExamplesTable(ReportEvent.ExamplesTable event) {
+        Integer id = nodeIds.get(event.getNode());
+        if (id == null) {
+            return;
+        }
+        try {
+            out.writeByte(ShardFormat.EXAMPLES_TABLE);
+            out.writeInt(id);
+            ShardFormat.writeString(out, event.getExamplesId());
+            writeRows(event.getRows());
+            endRecord();
+        } catch (IOException e) {
+            throw failure(e);
+        }
+    }
+
+    @Override
+    public synchronized void onExampleResults(ReportEvent.ExampleResults event) {
+        Integer id = nodeIds.get(event.getNode());
+        if (id == null) {
+            return;
+        }
+        try {
+            out.writeByte(ShardFormat.EXAMPLE_RESULTS);
+            out.writeInt(id);
+            ShardFormat.writeString(out, event.getExamplesId());
+            ShardFormat.writeStrings(out, event.getHeader().getCells());
+            List<ReportEvent.ExampleResult> results = event.getResults();
+            out.writeInt(results.size());
+            for (ReportEvent.ExampleResult result : results) {
+                ShardFormat.writeStrings(out, result.getRow().getCells());
+                ShardFormat.writeString(out, result.getStatus());
+                out.writeLong(result.getDurationNanos());
+                ShardFormat.writeString(out, result.getFailure());
+            }
+            endRecord();
+        } catch (IOException e) {
+            throw failure(e);
+        }
+    }
+
+    @Override
+    public synchronized void onScenarioStarted(ReportEvent.ScenarioStarted event) {
+        if (!startChild(ShardFormat.SCENARIO_STARTED, event)) {
+            return;
+        }
+        try {
+            ShardFormat.writeString(out, event.getName());
+            ShardFormat.writeStrings(out, event.getTags());
+            ReportEvent.ExampleRow example = event.getExample();
+            out.writeBoolean(example != null);
+            if (example != null) {
+                ShardFormat.writeString(out, example.getExamplesId());
+                ShardFormat.writeStrings(out, example.getHeader().getCells());
+                ShardFormat.writeStrings(out, example.getRow().getCells());
+            }
+            endRecord();
+        } catch (IOException e) {
+            throw failure(e);
+        }
+    }
+
+    @Override
+    public synchronized void onStepStarted(ReportEvent.StepStarted event) {
+        if (!startChild(ShardFormat.STEP_STARTED, event)) {
+            return;
+        }
+        try {
+            ShardFormat.writeString(out, event.getKeyword());
+            ShardFormat.writeString(out, event.getName());
+            writeRows(event.getRows());
+            endRecord();
+        } catch (IOException e) {
+            throw failure(e);
+        }
+    }
+
+    @Override
+    public synchronized void onStepFinished(ReportEvent.StepFinished event) {
+        Integer id = nodeIds.get(event.getNode());
+        if (id == null) {
+            return;
+        }
+        try {
+            out.writeByte(ShardFormat.STEP_FINISHED);
+            out.writeInt(id);
+            ShardFormat.writeString(out, event.getStatus());
+            out.writeLong(event.getDurationNanos());
+            writeError(event.getError());
+            endRecord();
+        } catch (IOException e) {
+            throw failure(e);
+        }
+    }
+
+    @Override
+    public synchronized void onHooksFinished(ReportEvent.HooksFinished event) {
+        Integer id = nodeIds.get(event.getNode());
+        if (id == null) {
+            return;
+        }
+        try {
+            out.writeByte(ShardFormat.HOOKS_FINISHED);
+            out.writeInt(id);
+            List<ReportEvent.HookResult> hooks = event.getHooks();
+            out.writeInt(hooks.size());
+            for (ReportEvent.HookResult hook : hooks) {
+                out.writeBoolean(hook.isBefore());
+                ShardFormat.writeString(out, hook.getLocation());
+                ShardFormat.writeString(out, hook.getStatus());
+                out.writeLong(hook.getDurationNanos());
+                writeError(hook.getError());
+            }
+            endRecord();
+        } catch (IOException e) {
+            throw failure(e);
+        }
+    }
+
+    @Override
+    public synchronized void onLog(ReportEvent.Log event) {
+        Integer id = nodeIds.get(event.getNode());
+        if (id == null) {
+            return;
+        }
+        try {
+            out.writeByte(ShardFormat.LOG);
+            out.writeInt(id);
+            ShardFormat.writeString(out, event.getMessage());
+            endRecord();
+        } catch (IOException e) {
+            throw failure(e);
+        }
+    }
+
+    @Override
+    public synchronized void onScreenCapture(ReportEvent.ScreenCapture event) {
+        Integer id = nodeIds.get(event.getNode());
+        if (id == null) {
+            return;
+        }
+        try {
+            out.writeByte(ShardFormat.SCREEN_CAPTURE);
+            out.writeInt(id);
+            ShardFormat.writeString(out, event.getPath());
+            ShardFormat.writeString(out, event.getTitle());
+            out.writeBoolean(event.isScreencast());
+            endRecord();
+        } catch (IOException e) {
+            throw failure(e);
+        }
+    }
+
+    @Override
+    public synchronized void onAuthorAssigned(ReportEvent.AuthorAssigned event) {
+        Integer id = nodeIds.get(event.getNode());
+        if (id == null) {
+            return;
+        }
+        try {
+            out.writeByte(ShardFormat.AUTHOR_ASSIGNED);
+            out.writeInt(id);
+            ShardFormat.writeStrings(out, event.getAuthors());
+            endRecord();
+        } catch (IOException e) {
+            throw failure(e);
+        }
+    }
+
+    @Override
+    public synchronized void onSystemInfo(ReportEvent.SystemInfo event) {
+        try {
+            out.writeByte(ShardFormat.SYSTEM_INFO);
+            out.writeInt(ShardFormat.NO_NODE);
+            ShardFormat.writeString(out, event.getKey());
+            ShardFormat.writeString(out, event.getValue());
+            endRecord();
+        } catch (IOException e) {
+            throw failure(e);
+        }
+    }
+
+    @Override
+    public synchronized void onTestRunnerOutput(ReportEvent.TestRunnerOutput event) {
+        try {
+            out.writeByte(ShardFormat.TEST_RUNNER_OUTPUT);
+            out.writeInt(ShardFormat.NO_NODE);
+            ShardFormat.writeString(out, event.getOutput());
+            endRecord();
+        } catch (IOException e) {
+            throw failure(e);
+        }
+    }
+
+    @Override
+    public synchronized void onFlush(ReportEvent.Flush event) {
+        try {
+            if (shardPath == null) {
+                out.flush();
+            } else if (file != null) {
+                file.flush();
+            }
+        } catch (IOException e) {
+            throw failure(e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (file == null) {
+            return;
+        }
+        try {
+            file.close();
+        } catch (IOException e) {
+            throw failure(e);
+        } finally {
+            file = null;
+        }
+    }
+
+    /**
+     * Writes the type, id and parent id of a new node
+     * @return false if the parent is not known, in which case nothing is written
+     */
+    private boolean startChild(byte type, ReportEvent.NodeEvent event) {
+        ReportNode parentNode = event.getNode().getParent();
+        Integer parentId = parentNode == null ? null : nodeIds.get(parentNode);
+        if (parentId == null) {
+            return false;
+        }
+        try {
+            out.writeByte(type);
+            out.writeInt(newId(event.getNode()));
+            out.writeInt(parentId);
+        } catch (IOException e) {
+            throw failure(e);
+        }
+        return true;
+    }
+
+    /**
+     * Writes the record just encoded to the shard file, preceded by its length, when writing a shard file
+     */
+    private void endRecord() throws IOException {
+        if (shardPath == null || record.size() == 0) {
+            return;
+        }
+        if (file == null) {
+            // Closed at the end of a run, another runner of this JVM goes on
+            file = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(shardPath, StandardOpenOption.APPEND), 65536));
+        }
+        file.writeInt(record.size());
+        record.writeTo(file);
+        record.reset();
+    }
+
+    private void writeRows(List<? extends Row> rows) throws IOException {
+        out.writeInt(rows.size());
+        for (int i = 0, size = rows.size(); i < size; i++) {
+            ShardFormat.writeStrings(out, rows.get(i).getCells());
+        }
+    }
+
+    private void writeError(Throwable error) throws IOException {
+        out.writeBoolean(error != null);
+        if (error != null) {
+            ShardFormat.writeString(out, error.toString());
+            ShardFormat.writeString(out, Html.stackTrace(error));
+        }
+    }
+
+    private int newId(ReportNode node) {
+        int id = ++lastNodeId;
+        nodeIds.put(node, id);
+        return id;
+    }
+
+    private UncheckedIOException failure(IOException e) {
+        return new UncheckedIOException("Unable to write " + description, e);
+    }
+
+    private static ReportNode rootOf(ReportNode node) {
+        while (node.getParent() != null) {
+            node = node.getParent();
+        }
+        return node;
+    }
+}
@@ -0,0 +1,411 @@
+package com.vimalselvam.cucumber.listener;
+
+import com.aventstack.extentreports.Status;
+import gherkin.formatter.model.Result;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Writes each feature to a fragment file as soon as it is finished and forgets about it, so only the
+ * features which are still running are kept in memory. Flushing stitches the fragments written since the
+ * last flush into the html report, after the features it already holds, and deletes them.
+ * <p>
+ * When lazy, a fragment only holds the headlines of the feature and its scenarios. What is inside the
+ * scenarios goes to a chunk per feature, a script in {@code <report name>-chunks/} next to the report,
+ * which the report loads when a scenario is expanded.
+ */
+final class StreamingReportWriter implements ReportEventHandler {
+    private final Path reportPath;
+    private final Path fragmentDirectory;
+    private final Path chunkDirectory;
+    private final boolean lazy;
+    private final Map<ReportNode, ReportTreeNode> runningNodes = new ConcurrentHashMap<>();
+    private final Queue<Path> fragments = new ConcurrentLinkedQueue<>();
+    private final Queue<String> testRunnerOutputs = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger fragmentCount = new AtomicInteger();
+    private final AtomicInteger features = new AtomicInteger();
+    private final AtomicInteger failedFeatures = new AtomicInteger();
+    private final AtomicInteger scenarios = new AtomicInteger();
+    private final AtomicInteger failedScenarios = new AtomicInteger();
+    private final AtomicInteger skippedScenarios = new AtomicInteger();
+    private final AtomicInteger steps = new AtomicInteger();
+    private final ReportingMetrics metrics;
+    /**
+     * Where the features stitched so far are in the report file, only used by the flushes
+     */
+    private long stitchedStart;
+    private long stitchedEnd;
+
+    StreamingReportWriter(File reportFile, boolean lazy) {
+        this(reportFile, lazy, null);
+    }
+
+    /**
+     * Creates a writer of the given report
+     * @param reportFile The html report
+     * @param lazy true to write what is inside the scenarios to chunks, which are loaded on demand
+     * @param metrics Where the flushes are counted, null to not count them
+     */
+    StreamingReportWriter(File reportFile, boolean lazy, ReportingMetrics metrics) {
+        this.reportPath = reportFile.toPath().toAbsolutePath();
+        String fileName = reportPath.getFileName().toString();
+        int extension = fileName.lastIndexOf('.');
+        String baseName = extension > 0 ? fileName.substring(0, extension) : fileName;
+        this.fragmentDirectory = reportPath.resolveSibling(baseName + "-fragments");
+        this.chunkDirectory = reportPath.resolveSibling(baseName + "-chunks");
+        this.lazy = lazy;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void onFeatureStarted(ReportEvent.FeatureStarted event) {
+        runningNodes.put(event.getNode(), new ReportTreeNode(null, ReportTreeNode.Kind.FEATURE, "Feature",
+            event.getName(), event.getTags()));
+    }
+
+    @Override
+    public void onFeatureFinished(ReportEvent.FeatureFinished event) {
+        ReportNode featureNode = event.getNode();
+        ReportTreeNode feature = runningNodes.remove(featureNode);
+        runningNodes.keySet().removeIf(node -> rootOf(node) == featureNode);
+        if (feature == null) {
+            return;
+        }
+        count(feature);
+
+        int number = fragmentCount.incrementAndGet();
+        StringBuilder out = new StringBuilder(4096);
+        if (lazy) {
+            String chunkName = chunkDirectory.getFileName() + "/" + String.format("feature-%05d.js", number);
+            List<String> scenarioContents = new ArrayList<>();
+            HtmlTreeRenderer.appendSummary(out, feature, chunkName, scenarioContents);
+            writeChunk(chunkName, scenarioContents);
+        } else {
+            HtmlTreeRenderer.appendNode(out, feature);
+        }
+        Path fragment = fragmentDirectory.resolve(String.format("feature-%05d.html", number));
+        try {
+            Files.createDirectories(fragmentDirectory);
+            Files.write(fragment, out.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to write the report fragment " + fragment, e);
+        }
+        fragments.add(fragment);
+    }
+
+    @Override
+    public void onScenarioOutlineStarted(ReportEvent.ScenarioOutlineStarted event) {
+        addChild(event, ReportTreeNode.Kind.SCENARIO_OUTLINE, "Scenario Outline", event.getName(), null);
+    }
+
+    @Override
+    public void onExamplesTable(ReportEvent.ExamplesTable event) {
+        ReportTreeNode outline = runningNodes.get(event.getNode());
+        if (outline != null && !event.getRows().isEmpty()) {
+            StringBuilder table = new StringBuilder();
+            TableMarkup.appendTable(table, event.getRows());
+            outline.addDetail(table.toString());
+        }
+    }
+
+    @Override
+    public void onExampleResults(ReportEvent.ExampleResults event) {
+        ReportTreeNode outline = runningNodes.get(event.getNode());
+        if (outline == null || event.getResults().isEmpty()) {
+            return;
+        }
+        outline.addDetail(TableMarkup.ofResults(event.getHeader(), event.getResults()).getMarkup());
+        outline.addDetail(Html.escape(event.getSummary()));
+        if (event.getSkippedCount() > 0) {
+            outline.updateStatus(Status.SKIP);
+        }
+        // The failed rows are counted as the scenarios they are reported as
+        for (ReportEvent.ExampleResult result : event.getResults()) {
+            if (!result.isFailed()) {
+                scenarios.incrementAndGet();
+                if (!Result.PASSED.equals(result.getStatus())) {
+                    skippedScenarios.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    @Override
+    public void onScenarioStarted(ReportEvent.ScenarioStarted event) {
+        addChild(event, ReportTreeNode.Kind.SCENARIO, "Scenario", event.getName(), event.getTags());
+    }
+
+    @Override
+    public void onStepStarted(ReportEvent.StepStarted event) {
+        ReportTreeNode step = addChild(event, ReportTreeNode.Kind.STEP, event.getKeyword(), event.getName(), null);
+        if (step != null && !event.getRows().isEmpty()) {
+            StringBuilder table = new StringBuilder();
+            TableMarkup.appendTable(table, event.getRows());
+            step.addDetail(table.toString());
+        }
+    }
+
+    @Override
+    public void onStepFinished(ReportEvent.StepFinished event) {
+        ReportTreeNode step = runningNodes.get(event.getNode());
+        if (step == null) {
+            return;
+        }
+        String status = event.getStatus();
+        if (Result.FAILED.equals(status)) {
+            step.updateStatus(Status.FAIL);
+            if (event.isRepeatedFailure()) {
+                step.addDetail(FailureClusterSection.reference(event.getError(), event.getCluster(),
+                    event.getOccurrence()));
+            } else if (event.getError() != null) {
+                step.addDetail("<pre>" + Html.escape(Html.stackTrace(event.getError())) + "</pre>");
+                if (event.getCluster() != null) {
+                    step.addDetail(FailureClusterSection.firstFailure(event.getCluster()));
+                }
+            }
+        } else if (Result.SKIPPED.getStatus().equals(status) || Result.UNDEFINED.getStatus().equals(status)) {
+            step.updateStatus(Status.SKIP);
+            step.addDetail(Html.escape(status));
+        }
+    }
+
+    @Override
+    public void onHooksFinished(ReportEvent.HooksFinished event) {
+        ReportTreeNode scenario = runningNodes.get(event.getNode());
+        if (scenario == null) {
+            return;
+        }
+        for (ReportEvent.HookResult hook : event.getHooks()) {
+            ReportTreeNode node = new ReportTreeNode(scenario, ReportTreeNode.Kind.HOOK,
+                hook.isBefore() ? "Before " : "After ", hook.getLocation(), null);
+            node.addDetail(PerformanceSection.millis(hook.getDurationNanos()));
+            String status = hook.getStatus();
+            if (Result.FAILED.equals(status)) {
+                node.updateStatus(Status.FAIL);
+                if (hook.getError() != null) {
+                    node.addDetail("<pre>" + Html.escape(Html.stackTrace(hook.getError())) + "</pre>");
+                }
+            } else if (!Result.PASSED.equals(status)) {
+                node.updateStatus(Status.SKIP);
+                node.addDetail(Html.escape(status));
+            }
+        }
+    }
+
+    @Override
+    public void onLog(ReportEvent.Log event) {
+        ReportTreeNode node = runningNodes.get(event.getNode());
+        if (node != null) {
+            node.addDetail(event.getMessage());
+        }
+    }
+
+    @Override
+    public void onScreenCapture(ReportEvent.ScreenCapture event) {
+        ReportTreeNode node = runningNodes.get(event.getNode());
+        if (node == null) {
+            return;
+        }
+        String path = Html.escape(event.getPath());
+        if (event.isScreencast()) {
+            node.addDetail("<video controls width='400' src='" + path + "'></video>");
+        } else {
+            node.addDetail("<a href='" + path + "'><img width='200' src='" + path + "' title='"
+                + Html.escape(event.getTitle()) + "'></a>");
+        }
+    }
+
+    @Override
+    public void onAuthorAssigned(ReportEvent.AuthorAssigned event) {
+        ReportTreeNode node = runningNodes.get(event.getNode());
+        if (node != null) {
+            node.addAuthors(event.getAuthors());
+        }
+    }
+
+    @Override
+    public void onTestRunnerOutput(ReportEvent.TestRunnerOutput event) {
+        testRunnerOutputs.add(event.getOutput());
+    }
+
+    /**
+     * Writes the report: the features stitched by the previous flush, copied from the report itself, then the
+     * fragments finished since. The fragments are deleted once they are in the report, and so is their
+     * directory once it is empty.
+     */
+    @Override
+    public void onFlush(ReportEvent.Flush event) {
+        long startNanos = System.nanoTime();
+        Path temporary = reportPath.resolveSibling(reportPath.getFileName() + ".tmp");
+        List<Path> stitched = new ArrayList<>(fragments);
+        long start;
+        long end;
+        try {
+            Files.createDirectories(reportPath.getParent());
+            try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                write(out, header());
+                start = out.position();
+                if (stitchedEnd > stitchedStart) {
+                    try (FileChannel in = FileChannel.open(reportPath, StandardOpenOption.READ)) {
+                        transfer(in, stitchedStart, stitchedEnd, out);
+                    }
+                }
+                for (Path fragment : stitched) {
+                    try (FileChannel in = FileChannel.open(fragment, StandardOpenOption.READ)) {
+                        transfer(in, 0, in.size(), out);
+                    }
+                }
+                end = out.position();
+                for (String output : testRunnerOutputs) {
+                    write(out, "<div class='runner-output'>" + output + "</div>");
+                }
+                write(out, "</body></html>");
+            }
+            try {
+                Files.move(temporary, reportPath, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, reportPath, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to write the report " + reportPath, e);
+        }
+        stitchedStart = start;
+        stitchedEnd = end;
+        fragments.removeAll(stitched);
+        deleteFragments(stitched);
+        if (metrics != null) {
+            metrics.flushed(System.nanoTime() - startNanos);
+        }
+    }
+
+    private void deleteFragments(List<Path> stitched) {
+        try {
+            for (Path fragment : stitched) {
+                Files.deleteIfExists(fragment);
+            }
+            if (fragments.isEmpty()) {
+                Files.deleteIfExists(fragmentDirectory);
+            }
+        } catch (DirectoryNotEmptyException e) {
+            // A fragment of another run left behind, or written meanwhile
+        } catch (IOException e) {
+            System.err.println("Unable to delete the report fragments in " + fragmentDirectory + ": " + e);
+        }
+    }
+
+    private ReportTreeNode addChild(ReportEvent.NodeEvent event, ReportTreeNode.Kind kind, String keyword,
+        String name, List<String> tags) {
+        ReportNode parentNode = event.getNode().getParent();
+        ReportTreeNode parent = parentNode == null ? null : runningNodes.get(parentNode);
+        if (parent == null) {
+            return null;
+        }
+        ReportTreeNode child = new ReportTreeNode(parent, kind, keyword, name, tags);
+        runningNodes.put(event.getNode(), child);
+        return child;
+    }
+
+    private void count(ReportTreeNode node) {
+        switch (node.getKind()) {
+            case FEATURE:
+                features.incrementAndGet();
+                if (node.getStatus() == Status.FAIL) {
+                    failedFeatures.incrementAndGet();
+                }
+                break;
+            case SCENARIO:
+                scenarios.incrementAndGet();
+                if (node.getStatus() == Status.FAIL) {
+                    failedScenarios.incrementAndGet();
+                } else if (node.getStatus() == Status.SKIP) {
+                    skippedScenarios.incrementAndGet();
+                }
+                break;
+            case STEP:
+                steps.incrementAndGet();
+                break;
+            default:
+                break;
+        }
+        for (ReportTreeNode child : node.getChildren()) {
+            count(child);
+        }
+    }
+
+    /**
+     * Writes the contents of the scenarios of a feature as a script handing them to the report, as a json
+     * array of html strings
+     * @param chunkName The path of the chunk relative to the report, which the report knows it by
+     */
+    private void writeChunk(String chunkName, List<String> scenarioContents) {
+        StringBuilder script = new StringBuilder(8192).append("extentChunk(");
+        Json.appendString(script, chunkName);
+        script.append(",[");
+        for (int i = 0; i < scenarioContents.size(); i++) {
+            if (i > 0) {
+                script.append(',');
+            }
+            Json.appendString(script, scenarioContents.get(i));
+        }
+        script.append("]);\n");
+        Path chunk = reportPath.resolveSibling(chunkName);
+        try {
+            Files.createDirectories(chunkDirectory);
+            Files.write(chunk, script.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to write the report chunk " + chunk, e);
+        }
+    }
+
+    private String header() {
+        return "<!DOCTYPE html><html><head><meta charset='utf-8'><title>Cucumber Report</title>"
+            + HtmlTreeRenderer.STYLE + (lazy ? HtmlTreeRenderer.LAZY_SCRIPT : "")
+            + "</head><body><h2>Cucumber Report</h2>"
+            + "<table class='summary'><tr><td>Features</td><td>" + features.get() + "</td><td>Failed</td><td>"
+            + failedFeatures.get() + "</td></tr><tr><td>Scenarios</td><td>" + scenarios.get()
+            + "</td><td>Failed</td><td>" + failedScenarios.get() + "</td><td>Skipped</td><td>"
+            + skippedScenarios.get() + "</td></tr><tr><td>Steps</td><td>" + steps.get()
+            + "</td></tr></table>";
+    }
+
+    private static ReportNode rootOf(ReportNode node) {
+        while (node.getParent() != null) {
+            node = node.getParent();
+        }
+        return node;
+    }
+
+    private static void transfer(FileChannel in, long start, long end, FileChannel out) throws IOException {
+        long position = start;
+        while (position < end) {
+            position += in.transferTo(position, end - position, out);
+        }
+    }
+
+    private static void write(FileChannel channel, String text) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.vimalselvam.cucumber.listener;
+
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Handles every event straight away on the calling thread. The events of parallel runners are handled
+ * concurrently, but a flush waits for them and holds them off while the report is written.
+ */
+final class SynchronousEventDispatcher implements EventDispatcher {
+    private final ReportEventHandler handler;
+    private final ReadWriteLock flushLock = new ReentrantReadWriteLock();
+
+    SynchronousEventDispatcher(ReportEventHandler handler) {
+        this.handler = handler;
+    }
+
+    @Override
+    public void dispatch(ReportEvent event) {
+        Lock lock = event instanceof ReportEvent.Flush ? flushLock.writeLock() : flushLock.readLock();
+        lock.lock();
+        try {
+            event.accept(handler);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Handles the given events under a single hold of the flush lock, so a flush comes before or after all of them
+     */
+    @Override
+    public void dispatchAll(List<ReportEvent> events) {
+        boolean flush = false;
+        for (ReportEvent event : events) {
+            flush |= event instanceof ReportEvent.Flush;
+        }
+        Lock lock = flush ? flushLock.writeLock() : flushLock.readLock();
+        lock.lock();
+        try {
+            for (ReportEvent event : events) {
+                event.accept(handler);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void drain() {
+        // Nothing is ever pending
+    }
+
+    @Override
+    public void shutdown() {
+        Lock lock = flushLock.writeLock();
+        lock.lock();
+        try {
+            handler.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.vimalselvam.cucumber.listener;
+
+import com.aventstack.extentreports.markuputils.Markup;
+import gherkin.formatter.model.Row;
+
+import java.util.List;
+
+/**
+ * A data table or examples table rendered straight from the gherkin rows. Unlike
+ * {@link com.aventstack.extentreports.markuputils.MarkupHelper#createTable(String[][])}, no intermediate
+ * matrix is built, rows may have any number of cells and the markup is rendered only once.
+ */
+final class TableMarkup implements Markup {
+    private static final long serialVersionUID = 1L;
+    private static final String TABLE_START = "<table class='markup-table table '>";
+    private static final String TABLE_END = "</table>";
+
+    private final String markup;
+
+    private TableMarkup(String markup) {
+        this.markup = markup;
+    }
+
+    /**
+     * Renders the given rows as a table
+     * @param rows The rows of the table
+     * @return The table markup
+     */
+    static TableMarkup of(List<? extends Row> rows) {
+        StringBuilder out = new StringBuilder(TABLE_START.length() + sizeOf(rows) + TABLE_END.length());
+        appendTable(out, rows);
+        return new TableMarkup(out.toString());
+    }
+
+    /**
+     * Renders a table made of an already rendered header and a single row
+     * @param header The header rendered by {@link #renderRow(Row)}
+     * @param row The row of the table
+     * @return The table markup
+     */
+    static TableMarkup of(String header, Row row) {
+        StringBuilder out = new StringBuilder(TABLE_START.length() + header.length() + sizeOf(row)
+            + TABLE_END.length());
+        out.append(TABLE_START).append(header);
+        appendRow(out, row);
+        return new TableMarkup(out.append(TABLE_END).toString());
+    }
+
+    /**
+     * Renders the results of the rows of a compact examples table, each row followed by its status, duration
+     * and failure
+     * @param header The header of the examples table
+     * @param results The results of the rows
+     * @return The table markup
+     */
+    static TableMarkup ofResults(Row header, List<ReportEvent.ExampleResult> results) {
+        StringBuilder out = new StringBuilder(TABLE_START.length() + (sizeOf(header) + 96) * (results.size() + 1)
+            + TABLE_END.length());
+        out.append(TABLE_START).append("<tr>");
+        appendCells(out, header.getCells());
+        out.append("<td>Status</td><td>Duration</td><td>Failure</td></tr>");
+        for (int i = 0, size = results.size(); i < size; i++) {
+            ReportEvent.ExampleResult result = results.get(i);
+            out.append("<tr>");
+            appendCells(out, result.getRow().getCells());
+            out.append("<td>").append(Html.escape(result.getStatus())).append("</td><td>")
+                .append(PerformanceSection.millis(result.getDurationNanos())).append("</td><td>");
+            if (result.getFailure() != null) {
+                out.append(Html.escape(result.getFailure()));
+            }
+            out.append("</td></tr>");
+        }
+        return new TableMarkup(out.append(TABLE_END).toString());
+    }
+
+    /**
+     * Renders a single row, to be reused as a header
+     * @param row The row
+     * @return The row markup
+     */
+    static String renderRow(Row row) {
+        StringBuilder out = new StringBuilder(sizeOf(row));
+        appendRow(out, row);
+        return out.toString();
+    }
+
+    /**
+     * Appends the given rows as a table
+     * @param out The builder to append to
+     * @param rows The rows of the table
+     */
+    static void appendTable(StringBuilder out, List<? extends Row> rows) {
+        out.append(TABLE_START);
+        for (int i = 0, size = rows.size(); i < size; i++) {
+            appendRow(out, rows.get(i));
+        }
+        out.append(TABLE_END);
+    }
+
+    @Override
+    public String getMarkup() {
+        return markup;
+    }
+
+    private static void appendRow(StringBuilder out, Row row) {
+        out.append("<tr>");
+        appendCells(out, row.getCells());
+        out.append("</tr>");
+    }
+
+    private static void appendCells(StringBuilder out, List<String> cells) {
+        for (int i = 0, size = cells.size(); i < size; i++) {
+            out.append("<td>").append(Html.escape(cells.get(i))).append("</td>");
+        }
+    }
+
+    private static int sizeOf(List<? extends Row> rows) {
+        int size = 0;
+        for (int i = 0, count = rows.size(); i < count; i++) {
+            size += sizeOf(rows.get(i));
+        }
+        return size;
+    }
+
+    private static int sizeOf(Row row) {
+        List<String> cells = row.getCells();
+        // <tr></tr> plus <td></td> around each cell
+        int size = 9 + 9 * cells.size();
+        for (int i = 0, count = cells.size(); i < count; i++) {
+            String cell = cells.get(i);
+            size += cell == null ? 0 : cell.length();
+        }
+        return size;
+    }
+}
@@ -0,0 +1,158 @@
+package com.vimalselvam.cucumber.listener;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A tag expression such as {@code @smoke and not (@flaky or @wip)}, evaluated over the scenarios of a
+ * {@link TagIndex} as a whole rather than scenario by scenario. {@code not} binds tighter than {@code and},
+ * which binds tighter than {@code or}.
+ */
+final class TagExpression {
+    private final String text;
+    private final Node root;
+
+    private TagExpression(String text, Node root) {
+        this.text = text;
+        this.root = root;
+    }
+
+    /**
+     * Parses a tag expression
+     * @param text The expression
+     * @return The parsed expression
+     * @throws IllegalArgumentException If the expression is not a valid tag expression
+     */
+    static TagExpression parse(String text) {
+        Parser parser = new Parser(text);
+        Node root = parser.or();
+        if (parser.position < parser.tokens.size()) {
+            throw new IllegalArgumentException("Unexpected '" + parser.tokens.get(parser.position)
+                + "' in the tag expression " + text);
+        }
+        return new TagExpression(text.trim(), root);
+    }
+
+    String getText() {
+        return text;
+    }
+
+    /**
+     * Finds the scenarios matching the expression
+     * @param scenariosOfTag The scenarios of each tag, by tag name
+     * @param scenarioCount The number of scenarios
+     * @return The matching scenarios
+     */
+    BitSet evaluate(Function<String, BitSet> scenariosOfTag, int scenarioCount) {
+        return root.evaluate(scenariosOfTag, scenarioCount);
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+
+    private interface Node {
+        BitSet evaluate(Function<String, BitSet> scenariosOfTag, int scenarioCount);
+    }
+
+    private static final class Parser {
+        private final String text;
+        private final List<String> tokens = new ArrayList<>();
+        private int position;
+
+        Parser(String text) {
+            this.text = text;
+            StringBuilder token = new StringBuilder();
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c == '(' || c == ')' || Character.isWhitespace(c)) {
+                    if (token.length() > 0) {
+                        tokens.add(token.toString());
+                        token.setLength(0);
+                    }
+                    if (!Character.isWhitespace(c)) {
+                        tokens.add(String.valueOf(c));
+                    }
+                } else {
+                    token.append(c);
+                }
+            }
+            if (token.length() > 0) {
+                tokens.add(token.toString());
+            }
+            if (tokens.isEmpty()) {
+                throw new IllegalArgumentException("The tag expression is empty");
+            }
+        }
+
+        Node or() {
+            Node left = and();
+            while (accept("or")) {
+                Node l = left;
+                Node r = and();
+                left = (scenariosOfTag, count) -> {
+                    BitSet result = l.evaluate(scenariosOfTag, count);
+                    result.or(r.evaluate(scenariosOfTag, count));
+                    return result;
+                };
+            }
+            return left;
+        }
+
+        Node and() {
+            Node left = not();
+            while (accept("and")) {
+                Node l = left;
+                Node r = not();
+                left = (scenariosOfTag, count) -> {
+                    BitSet result = l.evaluate(scenariosOfTag, count);
+                    result.and(r.evaluate(scenariosOfTag, count));
+                    return result;
+                };
+            }
+            return left;
+        }
+
+        Node not() {
+            if (accept("not")) {
+                Node operand = not();
+                return (scenariosOfTag, count) -> {
+                    BitSet result = operand.evaluate(scenariosOfTag, count);
+                    result.flip(0, count);
+                    return result;
+                };
+            }
+            if (accept("(")) {
+                Node inner = or();
+                if (!accept(")")) {
+                    throw new IllegalArgumentException("Missing ')' in the tag expression " + text);
+                }
+                return inner;
+            }
+            if (position == tokens.size()) {
+                throw new IllegalArgumentException("The tag expression " + text + " ends too early");
+            }
+            String tag = tokens.get(position++);
+            if (!tag.startsWith("@") || tag.length() == 1) {
+                throw new IllegalArgumentException("Expected a tag but got '" + tag + "' in the tag expression "
+                    + text);
+            }
+            return (scenariosOfTag, count) -> {
+                BitSet scenarios = scenariosOfTag.apply(tag);
+                // A copy, the operators change the set they are given
+                return scenarios == null ? new BitSet(count) : (BitSet) scenarios.clone();
+            };
+        }
+
+        private boolean accept(String token) {
+            if (position < tokens.size() && tokens.get(position).equals(token)) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.vimalselvam.cucumber.listener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The tags of a run and the scenarios carrying each of them, built as the scenarios end. A tag name is kept
+ * once however many nodes carry it, and each tag has the ordered list of its scenarios, so the categories
+ * of the report and the tag filters are computed from the lists rather than by scanning every scenario.
+ */
+final class TagIndex {
+    private static final int[] NO_SCENARIOS = new int[0];
+
+    /**
+     * The interned tag names, looked up by every runner for every node
+     */
+    private final ConcurrentMap<String, String> dictionary = new ConcurrentHashMap<>();
+    // Guarded by this
+    private final Map<String, Integer> tagIds = new HashMap<>();
+    private final List<String> tagNames = new ArrayList<>();
+    private final List<Posting> postings = new ArrayList<>();
+    private final List<Scenario> scenarios = new ArrayList<>();
+
+    /**
+     * Gets the single instance kept of a tag name
+     * @param tag The tag name
+     * @return The interned tag name
+     */
+    String intern(String tag) {
+        String interned = dictionary.get(tag);
+        if (interned != null) {
+            return interned;
+        }
+        interned = dictionary.putIfAbsent(tag, tag);
+        return interned == null ? tag : interned;
+    }
+
+    /**
+     * Adds a scenario which ended
+     * @param featureTags The tags of its feature
+     * @param scenarioTags The tags of the scenario
+     * @param name The name of the scenario
+     * @param location The location of the scenario
+     * @param status {@link RunHistory#PASSED}, {@link RunHistory#FAILED} or {@link RunHistory#SKIPPED}
+     */
+    synchronized void addScenario(List<String> featureTags, List<String> scenarioTags, String name,
+        String location, byte status) {
+        int scenario = scenarios.size();
+        scenarios.add(new Scenario(name, location, status));
+        addPostings(featureTags, scenario);
+        addPostings(scenarioTags, scenario);
+    }
+
+    private void addPostings(List<String> tags, int scenario) {
+        for (String tag : tags) {
+            Integer id = tagIds.get(tag);
+            if (id == null) {
+                id = tagNames.size();
+                tagIds.put(tag, id);
+                tagNames.add(tag);
+                postings.add(new Posting());
+            }
+            postings.get(id).add(scenario);
+        }
+    }
+
+    /**
+     * Takes a snapshot of the index
+     * @return The scenarios and categories of the run so far
+     */
+    synchronized Snapshot snapshot() {
+        List<Category> categories = new ArrayList<>(tagNames.size());
+        for (int id = 0; id < tagNames.size(); id++) {
+            Posting posting = postings.get(id);
+            categories.add(new Category(tagNames.get(id), Arrays.copyOf(posting.scenarios, posting.size)));
+        }
+        categories.sort((a, b) -> a.scenarios.length != b.scenarios.length
+            ? Integer.compare(b.scenarios.length, a.scenarios.length) : a.name.compareTo(b.name));
+        return new Snapshot(new ArrayList<>(scenarios), categories);
+    }
+
+    /**
+     * The scenarios carrying a tag, in the order they ended
+     */
+    private static final class Posting {
+        private int[] scenarios = NO_SCENARIOS;
+        private int size;
+
+        void add(int scenario) {
+            if (size > 0 && scenarios[size - 1] == scenario) {
+                // Carried by both the feature and the scenario
+                return;
+            }
+            if (size == scenarios.length) {
+                scenarios = Arrays.copyOf(scenarios, Math.max(4, size * 2));
+            }
+            scenarios[size++] = scenario;
+        }
+    }
+
+    /**
+     * The scenarios and categories of the run at some point
+     */
+    static final class Snapshot {
+        private final List<Scenario> scenarios;
+        private final List<Category> categories;
+        private final Map<String, Category> categoriesByName = new HashMap<>();
+
+        private Snapshot(List<Scenario> scenarios, List<Category> categories) {
+            this.scenarios = scenarios;
+            this.categories = categories;
+            for (Category category : categories) {
+                categoriesByName.put(category.name, category);
+            }
+        }
+
+        int getScenarioCount() {
+            return scenarios.size();
+        }
+
+        Scenario getScenario(int scenario) {
+            return scenarios.get(scenario);
+        }
+
+        /**
+         * Gets the categories, the one with the most scenarios first
+         */
+        List<Category> getCategories() {
+            return categories;
+        }
+
+        /**
+         * Finds the scenarios matching a tag expression
+         * @param expression The tag expression
+         * @return The scenarios, in the order they ended
+         */
+        int[] filter(TagExpression expression) {
+            BitSet matching = expression.evaluate(tag -> {
+                Category category = categoriesByName.get(tag);
+                return category == null ? null : category.toBitSet();
+            }, scenarios.size());
+            return matching.stream().toArray();
+        }
+    }
+
+    static final class Category {
+        private final String name;
+        private final int[] scenarios;
+
+        private Category(String name, int[] scenarios) {
+            this.name = name;
+            this.scenarios = scenarios;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        /**
+         * Gets the scenarios carrying the tag, directly or through their feature
+         * @return The scenarios, in the order they ended
+         */
+        int[] getScenarios() {
+            return scenarios;
+        }
+
+        private BitSet toBitSet() {
+            BitSet bits = new BitSet();
+            for (int scenario : scenarios) {
+                bits.set(scenario);
+            }
+            return bits;
+        }
+    }
+
+    static final class Scenario {
+        private final String name;
+        private final String location;
+        private final byte status;
+
+        private Scenario(String name, String location, byte status) {
+            this.name = name;
+            this.location = location;
+            this.status = status;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        String getLocation() {
+            return location;
+        }
+
+        byte getStatus() {
+            return status;
+        }
+    }
+}
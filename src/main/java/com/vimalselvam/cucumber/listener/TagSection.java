@@ -0,0 +1,74 @@
+package com.vimalselvam.cucumber.listener;
+
+import java.util.List;
+
+/**
+ * Renders the categories of a run as html, each with the number of its scenarios by status and the list of
+ * its scenarios, and the scenarios matching each of the tag filters asked for
+ */
+final class TagSection {
+    /**
+     * The most scenarios listed for a category or a filter, the counts cover all of them
+     */
+    static final int SCENARIOS_LISTED = 100;
+
+    private TagSection() {
+        // Defeat instantiation
+    }
+
+    /**
+     * Renders the categories section
+     * @param index The tags of the run
+     * @param filters The tag filters to render, in order
+     * @return The html of the section
+     */
+    static String render(TagIndex.Snapshot index, List<TagExpression> filters) {
+        StringBuilder out = new StringBuilder(4096);
+        if (!filters.isEmpty()) {
+            out.append("<h5>Tag filters</h5>");
+            appendHeader(out, "Filter");
+            for (TagExpression filter : filters) {
+                appendRow(out, filter.getText(), index.filter(filter), index);
+            }
+            out.append("</table>");
+        }
+        out.append("<h5>Categories</h5>");
+        appendHeader(out, "Category");
+        for (TagIndex.Category category : index.getCategories()) {
+            appendRow(out, category.getName(), category.getScenarios(), index);
+        }
+        out.append("</table>");
+        return out.toString();
+    }
+
+    private static void appendHeader(StringBuilder out, String title) {
+        out.append("<table class='markup-table table '><tr><td>").append(title)
+            .append("</td><td>Scenarios</td><td>Passed</td><td>Failed</td><td>Skipped</td></tr>");
+    }
+
+    private static void appendRow(StringBuilder out, String title, int[] scenarios, TagIndex.Snapshot index) {
+        int passed = 0;
+        int failed = 0;
+        for (int scenario : scenarios) {
+            byte status = index.getScenario(scenario).getStatus();
+            if (status == RunHistory.PASSED) {
+                passed++;
+            } else if (status == RunHistory.FAILED) {
+                failed++;
+            }
+        }
+        out.append("<tr><td><details><summary>").append(Html.escape(title)).append("</summary>");
+        int listed = Math.min(SCENARIOS_LISTED, scenarios.length);
+        for (int i = 0; i < listed; i++) {
+            TagIndex.Scenario scenario = index.getScenario(scenarios[i]);
+            out.append(Html.escape(scenario.getName())).append(" <small>")
+                .append(Html.escape(scenario.getLocation())).append("</small><br/>");
+        }
+        if (scenarios.length > listed) {
+            out.append("and ").append(scenarios.length - listed).append(" more");
+        }
+        out.append("</details></td><td>").append(scenarios.length).append("</td><td>").append(passed)
+            .append("</td><td>").append(failed).append("</td><td>").append(scenarios.length - passed - failed)
+            .append("</td></tr>");
+    }
+}
@@ -0,0 +1,130 @@
+package com.vimalselvam.cucumber.listener;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AsyncEventDispatcherTest {
+    private final ReportNode scenario = new ReportNode(null);
+
+    @Test
+    public void waitsForSpaceInTheQueueAndHandlesTheEventsInOrder() throws InterruptedException {
+        RecordingHandler handler = new RecordingHandler();
+        AsyncEventDispatcher dispatcher = new AsyncEventDispatcher(handler, 1, BackpressurePolicy.BLOCK);
+        dispatcher.dispatch(log("first"));
+        assertTrue(handler.handling.await(5, TimeUnit.SECONDS));
+        dispatcher.dispatch(log("second"));
+
+        Thread cucumber = new Thread(() -> dispatcher.dispatch(log("third")));
+        cucumber.start();
+        waitUntilBlocked(cucumber);
+        handler.release.countDown();
+        cucumber.join(5000);
+        dispatcher.drain();
+
+        assertEquals(Arrays.asList("first", "second", "third"), handler.messages);
+        assertEquals(0, dispatcher.getDiscardedEventCount());
+        dispatcher.shutdown();
+    }
+
+    @Test
+    public void onlyDiscardsTheNodeEventsWhenTheQueueIsFull() throws InterruptedException {
+        RecordingHandler handler = new RecordingHandler();
+        ReportingMetrics metrics = new ReportingMetrics(null);
+        AsyncEventDispatcher dispatcher = new AsyncEventDispatcher(handler, 1, BackpressurePolicy.DISCARD,
+            "extent-test-consumer", metrics);
+        dispatcher.dispatch(log("first"));
+        assertTrue(handler.handling.await(5, TimeUnit.SECONDS));
+        dispatcher.dispatch(log("second"));
+        dispatcher.dispatch(log("dropped"));
+
+        // The queue is still full, the flush waits for space rather than being dropped
+        Thread cucumber = new Thread(() -> {
+            dispatcher.dispatch(new ReportEvent.FeatureFinished(scenario));
+            dispatcher.dispatch(new ReportEvent.Flush());
+        });
+        cucumber.start();
+        waitUntilBlocked(cucumber);
+        handler.release.countDown();
+        cucumber.join(5000);
+        dispatcher.drain();
+
+        assertEquals(Arrays.asList("first", "second", "feature finished", "flush"), handler.messages);
+        assertEquals(1, dispatcher.getDiscardedEventCount());
+        assertEquals(1, metrics.getDiscardedEvents());
+        dispatcher.shutdown();
+    }
+
+    @Test
+    public void stopsTheConsumerAndStartsItAgainOnTheNextEvent() throws InterruptedException {
+        RecordingHandler handler = new RecordingHandler();
+        handler.release.countDown();
+        AsyncEventDispatcher dispatcher = new AsyncEventDispatcher(handler, 4, BackpressurePolicy.BLOCK,
+            "extent-test-restart", null);
+        dispatcher.dispatch(log("first"));
+        dispatcher.shutdown();
+        assertEquals(Collections.singletonList("first"), handler.messages);
+        assertEquals(0, consumers("extent-test-restart"));
+
+        dispatcher.dispatch(log("second"));
+        dispatcher.shutdown();
+        assertEquals(Arrays.asList("first", "second"), handler.messages);
+        assertEquals(0, consumers("extent-test-restart"));
+    }
+
+    private static long consumers(String name) {
+        return Thread.getAllStackTraces().keySet().stream()
+            .filter(thread -> thread.getName().equals(name) && thread.isAlive()).count();
+    }
+
+    private ReportEvent.Log log(String message) {
+        return new ReportEvent.Log(scenario, message);
+    }
+
+    private static void waitUntilBlocked(Thread thread) throws InterruptedException {
+        for (int i = 0; i < 500 && thread.getState() != Thread.State.WAITING; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(Thread.State.WAITING, thread.getState());
+    }
+
+    /**
+     * Records the events it handles, the first one only once it is released
+     */
+    private static final class RecordingHandler implements ReportEventHandler {
+        private final List<String> messages = Collections.synchronizedList(new ArrayList<String>());
+        private final CountDownLatch handling = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public void onLog(ReportEvent.Log event) {
+            if (messages.isEmpty()) {
+                handling.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            messages.add(event.getMessage());
+        }
+
+        @Override
+        public void onFeatureFinished(ReportEvent.FeatureFinished event) {
+            messages.add("feature finished");
+        }
+
+        @Override
+        public void onFlush(ReportEvent.Flush event) {
+            messages.add("flush");
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.vimalselvam.cucumber.listener;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class AttachmentStoreTest {
+    private static final byte[] DATA = "A page source".getBytes(StandardCharsets.UTF_8);
+
+    private final List<ReportEvent.Log> logs = Collections.synchronizedList(new ArrayList<ReportEvent.Log>());
+    private final EventDispatcher dispatcher = new SynchronousEventDispatcher(new ReportEventHandler() {
+        @Override
+        public void onLog(ReportEvent.Log event) {
+            logs.add(event);
+        }
+    });
+
+    @Test
+    public void storesTheSameContentOnceAndHoldsItsLinkWithTheScenario() throws IOException {
+        Path directory = Files.createTempDirectory("extent-attachments");
+        AttachmentStore store = new AttachmentStore(directory, 2, 0, dispatcher);
+        ExecutionContext context = new ExecutionContext("a.feature", dispatcher, null);
+        ReportNode scenario = new ReportNode(null);
+        context.setScenario(scenario);
+        ReportNode step = new ReportNode(scenario);
+        store.store(context, scenario, step, "text/plain", DATA);
+        context.awaitAttachments();
+        assertEquals(1, logs.size());
+
+        context.holdEvents();
+        store.store(context, scenario, scenario, "text/plain", DATA.clone());
+        context.awaitAttachments();
+        List<ReportEvent> held = context.takeHeldEvents();
+        assertEquals(1, held.size());
+        ReportEvent.Log link = (ReportEvent.Log) held.get(0);
+        assertSame(scenario, link.getNode());
+        assertEquals(logs.get(0).getMessage(), link.getMessage());
+        assertEquals(1, logs.size());
+        try (Stream<Path> files = Files.list(directory.resolve("attachments"))) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    public void linksNothingWhenTheAttachmentCannotBeWrittenAndTriesAgainLater() throws IOException {
+        Path directory = Files.createTempDirectory("extent-attachments");
+        // The attachments directory cannot be created where a file is
+        Files.write(directory.resolve("attachments"), DATA);
+        AttachmentStore store = new AttachmentStore(directory, 1, 0, dispatcher);
+        ExecutionContext context = new ExecutionContext("a.feature", dispatcher, null);
+        ReportNode scenario = new ReportNode(null);
+        context.setScenario(scenario);
+        store.store(context, scenario, scenario, "text/plain", DATA);
+        store.awaitPending();
+        assertEquals(0, logs.size());
+
+        Files.delete(directory.resolve("attachments"));
+        store.store(context, scenario, scenario, "text/plain", DATA);
+        store.awaitPending();
+        assertEquals(1, logs.size());
+        assertTrue(logs.get(0).getMessage().contains("Attachment (text/plain)"));
+    }
+}
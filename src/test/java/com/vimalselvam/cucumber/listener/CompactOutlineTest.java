@@ -0,0 +1,158 @@
+package com.vimalselvam.cucumber.listener;
+
+import gherkin.formatter.model.Comment;
+import gherkin.formatter.model.Examples;
+import gherkin.formatter.model.ExamplesTableRow;
+import gherkin.formatter.model.Feature;
+import gherkin.formatter.model.Match;
+import gherkin.formatter.model.Result;
+import gherkin.formatter.model.Scenario;
+import gherkin.formatter.model.ScenarioOutline;
+import gherkin.formatter.model.Step;
+import gherkin.formatter.model.Tag;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class CompactOutlineTest {
+    private static final List<Comment> NO_COMMENTS = Collections.emptyList();
+    private static final List<Tag> NO_TAGS = Collections.emptyList();
+
+    private final List<ReportEvent> events = new ArrayList<>();
+    private ExtentCucumberFormatter formatter;
+
+    @After
+    public void resetCompactOutlineRows() {
+        ExtentProperties.INSTANCE.setCompactOutlineRows(0);
+    }
+
+    @Test
+    public void reportsTheRowsAsAGridAndOnlyTheFailedRowInFull() {
+        ExtentProperties.INSTANCE.setCompactOutlineRows(3);
+        formatter = newFormatter();
+        startOutline("Scenario Outline", "examples", "1", "2", "3", "4");
+        runRow("Scenario Outline", "examples;2", Result.PASSED);
+        runRow("Scenario Outline", "examples;3", Result.FAILED);
+        runRow("Scenario Outline", "examples;4", Result.SKIPPED.getStatus());
+        runRow("Scenario Outline", "examples;5", Result.PASSED);
+        formatter.eof();
+
+        ReportEvent.ScenarioOutlineStarted outline = (ReportEvent.ScenarioOutlineStarted) events.get(1);
+        // No examples table, and only the failed row as a scenario with its steps
+        ReportEvent.ScenarioStarted failed = (ReportEvent.ScenarioStarted) events.get(2);
+        assertSame(outline.getNode(), failed.getNode().getParent());
+        assertEquals(Arrays.asList("2"), failed.getExample().getRow().getCells());
+        assertTrue(events.get(3) instanceof ReportEvent.StepStarted);
+        assertEquals(Result.FAILED, ((ReportEvent.StepFinished) events.get(4)).getStatus());
+
+        ReportEvent.ExampleResults grid = (ReportEvent.ExampleResults) events.get(5);
+        assertSame(outline.getNode(), grid.getNode());
+        assertEquals(Arrays.asList("n"), grid.getHeader().getCells());
+        List<ReportEvent.ExampleResult> results = grid.getResults();
+        assertEquals(4, results.size());
+        assertEquals(Result.PASSED, results.get(0).getStatus());
+        assertNull(results.get(0).getFailure());
+        assertEquals(Result.FAILED, results.get(1).getStatus());
+        assertEquals("Given it runs: java.lang.IllegalStateException: broken", results.get(1).getFailure());
+        assertEquals(Result.SKIPPED.getStatus(), results.get(2).getStatus());
+        assertEquals(Arrays.asList("4"), results.get(3).getRow().getCells());
+        assertEquals(1, grid.getSkippedCount());
+        assertTrue(grid.getSummary().startsWith("4 example rows: 2 passed, 1 failed, 1 skipped in "));
+        assertTrue(events.get(6) instanceof ReportEvent.FeatureFinished);
+        assertEquals(7, events.size());
+    }
+
+    @Test
+    public void findsTheRowsOfAnOutlineWhateverTheLanguage() {
+        ExtentProperties.INSTANCE.setCompactOutlineRows(3);
+        formatter = newFormatter();
+        startOutline("Szenariogrundriss", "beispiele", "1", "2");
+        runRow("Szenariogrundriss", "beispiele;2", Result.PASSED);
+        formatter.eof();
+
+        ReportEvent.ScenarioOutlineStarted outline = (ReportEvent.ScenarioOutlineStarted) events.get(1);
+        // Too few rows to be compact
+        assertTrue(events.get(2) instanceof ReportEvent.ExamplesTable);
+        ReportEvent.ScenarioStarted row = (ReportEvent.ScenarioStarted) events.get(3);
+        assertSame(outline.getNode(), row.getNode().getParent());
+        assertEquals(Arrays.asList("1"), row.getExample().getRow().getCells());
+    }
+
+    private void startOutline(String keyword, String examplesId, String... cells) {
+        formatter.uri("features/outline.feature");
+        formatter.feature(new Feature(NO_COMMENTS, NO_TAGS, "Feature", "Outlines", "", 1, "outlines"));
+        formatter.scenarioOutline(new ScenarioOutline(NO_COMMENTS, NO_TAGS, keyword, "An outline", "", 2,
+            "outlines;an-outline"));
+        formatter.step(new Step(NO_COMMENTS, "Given ", "it runs <n>", 3, null, null));
+        List<ExamplesTableRow> rows = new ArrayList<>();
+        rows.add(new ExamplesTableRow(NO_COMMENTS, Collections.singletonList("n"), 5, examplesId + ";1"));
+        for (int i = 0; i < cells.length; i++) {
+            rows.add(new ExamplesTableRow(NO_COMMENTS, Collections.singletonList(cells[i]), 6 + i,
+                examplesId + ";" + (i + 2)));
+        }
+        formatter.examples(new Examples(NO_COMMENTS, NO_TAGS, "Examples", "", "", 4, examplesId, rows));
+    }
+
+    private void runRow(String keyword, String rowId, String status) {
+        Scenario scenario = new Scenario(NO_COMMENTS, NO_TAGS, keyword, "An outline", "", 6, rowId);
+        formatter.startOfScenarioLifeCycle(scenario);
+        formatter.step(new Step(NO_COMMENTS, "Given ", "it runs", 3, null, null));
+        formatter.match(new Match(Collections.emptyList(), "Steps.run()"));
+        Throwable error = Result.FAILED.equals(status) ? new IllegalStateException("broken") : null;
+        formatter.result(new Result(status, 1000L, error, null));
+        formatter.endOfScenarioLifeCycle(scenario);
+    }
+
+    private ExtentCucumberFormatter newFormatter() {
+        return new ExtentCucumberFormatter(new SynchronousEventDispatcher(new ReportEventHandler() {
+            @Override
+            public void onFeatureStarted(ReportEvent.FeatureStarted event) {
+                events.add(event);
+            }
+
+            @Override
+            public void onFeatureFinished(ReportEvent.FeatureFinished event) {
+                events.add(event);
+            }
+
+            @Override
+            public void onScenarioOutlineStarted(ReportEvent.ScenarioOutlineStarted event) {
+                events.add(event);
+            }
+
+            @Override
+            public void onExamplesTable(ReportEvent.ExamplesTable event) {
+                events.add(event);
+            }
+
+            @Override
+            public void onExampleResults(ReportEvent.ExampleResults event) {
+                events.add(event);
+            }
+
+            @Override
+            public void onScenarioStarted(ReportEvent.ScenarioStarted event) {
+                events.add(event);
+            }
+
+            @Override
+            public void onStepStarted(ReportEvent.StepStarted event) {
+                events.add(event);
+            }
+
+            @Override
+            public void onStepFinished(ReportEvent.StepFinished event) {
+                events.add(event);
+            }
+        }));
+    }
+}
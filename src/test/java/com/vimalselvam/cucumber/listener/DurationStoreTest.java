@@ -0,0 +1,51 @@
+package com.vimalselvam.cucumber.listener;
+
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class DurationStoreTest {
+
+    @Test
+    public void findsTheSlowestDurationsOfAKind() {
+        DurationStore store = new DurationStore();
+        DurationStore.Buffer steps = store.newBuffer();
+        DurationStore.Buffer hooks = store.newBuffer();
+        for (int i = 0; i < 2000; i++) {
+            steps.record(DurationStore.STEP, "step " + (i % 100), "Steps.step()", (i * 7919L) % 2000);
+            hooks.record(DurationStore.HOOK, "Hooks.before()", "Hooks.before()", 5000);
+        }
+        DurationStore.Snapshot snapshot = store.snapshot();
+
+        int[] slowest = snapshot.slowest(DurationStore.STEP, 3);
+        assertEquals(3, slowest.length);
+        assertEquals(1999L, snapshot.getDuration(slowest[0]));
+        assertEquals(1998L, snapshot.getDuration(slowest[1]));
+        assertEquals(1997L, snapshot.getDuration(slowest[2]));
+        assertEquals(2000, snapshot.count(DurationStore.HOOK));
+        assertEquals(2000L * 5000, snapshot.total(DurationStore.HOOK));
+        assertEquals(0, snapshot.slowest(DurationStore.SCENARIO, 3).length);
+    }
+
+    @Test
+    public void groupsTheDurationsByLocation() {
+        DurationStore store = new DurationStore();
+        // The same location recorded by two feature runs
+        DurationStore.Buffer first = store.newBuffer();
+        DurationStore.Buffer second = store.newBuffer();
+        for (int i = 1; i <= 100; i++) {
+            (i % 2 == 0 ? first : second).record(DurationStore.STEP, "a step", "Steps.a()", 101 - i);
+        }
+        second.record(DurationStore.STEP, "another step", "Steps.b()", 42);
+
+        Map<String, long[]> byLocation = store.snapshot().byLocation(DurationStore.STEP);
+        assertEquals(2, byLocation.size());
+        long[] a = byLocation.get("Steps.a()");
+        assertEquals(50L, PerformanceSection.percentile(a, 50));
+        assertEquals(95L, PerformanceSection.percentile(a, 95));
+        assertEquals(99L, PerformanceSection.percentile(a, 99));
+        assertEquals(42L, PerformanceSection.percentile(byLocation.get("Steps.b()"), 99));
+    }
+}
@@ -0,0 +1,127 @@
+package com.vimalselvam.cucumber.listener;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class EventJournalTest {
+    private Path journal;
+
+    @Before
+    public void createJournalPath() throws IOException {
+        journal = Files.createTempDirectory("extent-journal").resolve("report.journal");
+    }
+
+    @Test
+    public void replaysTheEventsOverSeveralSegments() throws IOException {
+        // Segments smaller than most records, so nearly every record maps a new one
+        EventJournal writer = new EventJournal(journal, 64, 0);
+        appendFeature(writer, 20);
+        writer.dispatch(new ReportEvent.Flush());
+
+        List<String> logs = new ArrayList<>();
+        int events = JournalReplay.replay(journal, new ReportEventHandler() {
+            @Override
+            public void onLog(ReportEvent.Log event) {
+                logs.add(event.getMessage());
+            }
+        });
+
+        assertEquals(2 + 20 * 2 + 1, events);
+        assertEquals(20, logs.size());
+        assertEquals("log 19 " + String.join("", Collections.nCopies(20, "x")), logs.get(19));
+    }
+
+    @Test
+    public void replaysADamagedJournalUpToItsLastIntactEvent() throws IOException {
+        EventJournal writer = new EventJournal(journal, EventJournal.DEFAULT_SEGMENT_SIZE, 0);
+        appendFeature(writer, 3);
+        writer.dispatch(new ReportEvent.SystemInfo("os", "linux"));
+        writer.dispatch(new ReportEvent.Flush());
+
+        try (RandomAccessFile file = new RandomAccessFile(journal.toFile(), "rw")) {
+            // The last byte of the system info record
+            long position = endOfRecords() - 1;
+            file.seek(position);
+            int last = file.read();
+            file.seek(position);
+            file.write(last ^ 0xff);
+        }
+
+        assertEquals(2 + 3 * 2 + 1, JournalReplay.replay(journal, new ReportEventHandler() { }));
+    }
+
+    @Test
+    public void namesTheJournalOfAShardAfterTheShard() {
+        File report = new File("output/report.html");
+
+        assertEquals(ShardWriter.shardPath(report, "jvm-1").resolveSibling("jvm-1.journal"),
+            EventJournal.journalPath(ShardWriter.shardPath(report, "jvm-1")));
+        assertFalse(EventJournal.journalPath(ShardWriter.shardPath(report, "jvm-1"))
+            .equals(EventJournal.journalPath(ShardWriter.shardPath(report, "jvm-2"))));
+    }
+
+    @Test
+    public void deletesTheJournalOnceDrainedUnlessItIsKept() throws IOException {
+        EventJournal deleted = new EventJournal(journal, EventJournal.DEFAULT_SEGMENT_SIZE, 1000);
+        appendFeature(deleted, 1);
+        deleted.drain();
+        assertFalse(Files.exists(journal));
+
+        EventJournal kept = new EventJournal(journal, EventJournal.DEFAULT_SEGMENT_SIZE, 1000, true);
+        appendFeature(kept, 1);
+        kept.drain();
+        assertEquals(endOfRecords(), Files.size(journal));
+
+        // A runner still going opens the journal again, after what it holds
+        appendFeature(kept, 2);
+        kept.drain();
+        assertEquals(endOfRecords(), Files.size(journal));
+        assertEquals(2 + 1 * 2 + 1 + 2 + 2 * 2 + 1, JournalReplay.replay(journal, new ReportEventHandler() { }));
+    }
+
+    private static void appendFeature(EventJournal writer, int logs) {
+        ReportNode feature = new ReportNode(null);
+        ReportNode scenario = new ReportNode(feature);
+        writer.dispatch(new ReportEvent.FeatureStarted(feature, "a.feature", "A feature",
+            Collections.<String>emptyList()));
+        writer.dispatch(new ReportEvent.ScenarioStarted(scenario, "A scenario", Collections.<String>emptyList(),
+            null));
+        for (int i = 0; i < logs; i++) {
+            ReportNode step = new ReportNode(scenario);
+            writer.dispatch(new ReportEvent.StepStarted(step, "Given ", "step " + i, null));
+            writer.dispatch(new ReportEvent.Log(step, "log " + i + " " + String.join("", Collections.nCopies(i + 1,
+                "x"))));
+        }
+        writer.dispatch(new ReportEvent.FeatureFinished(feature));
+    }
+
+    /**
+     * Finds the end of the last record, the journal being zero padded after it or cut right after it
+     */
+    private long endOfRecords() throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(journal.toFile(), "r")) {
+            long position = 8;
+            while (position < file.length()) {
+                file.seek(position);
+                int length = file.readInt();
+                if (length == 0) {
+                    break;
+                }
+                position += 8 + length;
+            }
+            return position;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.vimalselvam.cucumber.listener;
+
+import gherkin.formatter.model.Comment;
+import gherkin.formatter.model.DataTableRow;
+import gherkin.formatter.model.Feature;
+import gherkin.formatter.model.Match;
+import gherkin.formatter.model.Result;
+import gherkin.formatter.model.Scenario;
+import gherkin.formatter.model.Step;
+import gherkin.formatter.model.Tag;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Fires the events of many feature files from many threads at once through a single formatter and
+ * checks that every node ends up under the right parent
+ */
+public class ExtentCucumberFormatterConcurrencyTest {
+    private static final int THREADS = 32;
+    private static final int FEATURES = 256;
+    private static final int SCENARIOS = 8;
+    private static final int STEPS = 6;
+    private static final List<Comment> NO_COMMENTS = Collections.emptyList();
+
+    @Test
+    public void keepsTheTreeIntactUnderParallelRuns() throws Exception {
+        RecordingHandler handler = new RecordingHandler();
+        ExtentCucumberFormatter formatter = new ExtentCucumberFormatter(new SynchronousEventDispatcher(handler));
+
+        // Pooled threads run several feature files each, as TestNG does with parallel data providers
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int f = 0; f < FEATURES; f++) {
+            final int feature = f;
+            futures.add(executor.submit(() -> {
+                start.await();
+                runFeature(formatter, feature);
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(FEATURES, handler.features.size());
+        for (RecordedNode feature : handler.features) {
+            assertNull(feature.parent);
+            assertEquals(SCENARIOS, feature.children.size());
+            for (RecordedNode scenario : feature.children) {
+                assertEquals(feature, scenario.parent);
+                assertEquals(feature.name, scenario.name.substring(0, scenario.name.indexOf('/')));
+                assertEquals(STEPS, scenario.children.size());
+                for (int i = 0; i < STEPS; i++) {
+                    RecordedNode step = scenario.children.get(i);
+                    assertEquals(scenario.name + "/" + i, step.name);
+                    assertEquals(i == 0 ? 3 : 0, step.rows);
+                    assertEquals(Result.PASSED, step.status);
+                }
+            }
+        }
+        assertNull(ExtentCucumberFormatter.getExecutionContext());
+    }
+
+    @Test
+    public void doesNotFailWhenTheUriIsNotTold() {
+        RecordingHandler handler = new RecordingHandler();
+        ExtentCucumberFormatter formatter = new ExtentCucumberFormatter(new SynchronousEventDispatcher(handler));
+
+        Thread thread = new Thread(() -> {
+            formatter.feature(feature("feature-x"));
+            formatter.startOfScenarioLifeCycle(scenario("feature-x/0"));
+            formatter.step(step("feature-x/0/0", null));
+            formatter.match(new Match(Collections.emptyList(), "MyStepdefs.step()"));
+            formatter.result(new Result(Result.PASSED, 1L, null));
+            formatter.endOfScenarioLifeCycle(scenario("feature-x/0"));
+            formatter.eof();
+        });
+        thread.start();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            throw new AssertionError(e);
+        }
+
+        assertEquals(1, handler.features.size());
+        RecordedNode step = handler.features.get(0).children.get(0).children.get(0);
+        assertNotNull(step);
+        assertEquals(Result.PASSED, step.status);
+    }
+
+    private static void runFeature(ExtentCucumberFormatter formatter, int index) {
+        String featureName = "feature-" + index;
+        formatter.uri("features/" + featureName + ".feature");
+        formatter.feature(feature(featureName));
+        for (int s = 0; s < SCENARIOS; s++) {
+            String scenarioName = featureName + "/" + s;
+            Scenario scenario = scenario(scenarioName);
+            formatter.startOfScenarioLifeCycle(scenario);
+            formatter.scenario(scenario);
+            for (int i = 0; i < STEPS; i++) {
+                formatter.step(step(scenarioName + "/" + i, i == 0 ? rows(3) : null));
+            }
+            for (int i = 0; i < STEPS; i++) {
+                formatter.match(new Match(Collections.emptyList(), "MyStepdefs.step()"));
+                Thread.yield();
+                formatter.result(new Result(Result.PASSED, 1000L, null));
+            }
+            formatter.endOfScenarioLifeCycle(scenario);
+        }
+        formatter.eof();
+    }
+
+    private static Feature feature(String name) {
+        return new Feature(NO_COMMENTS, Collections.singletonList(new Tag("@stress", 1)), "Feature", name, "", 1,
+            name);
+    }
+
+    private static Scenario scenario(String name) {
+        return new Scenario(NO_COMMENTS, Collections.<Tag>emptyList(), "Scenario", name, "", 2, name);
+    }
+
+    private static Step step(String name, List<DataTableRow> rows) {
+        return new Step(NO_COMMENTS, "Given ", name, 3, rows, null);
+    }
+
+    private static List<DataTableRow> rows(int count) {
+        List<DataTableRow> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            rows.add(new DataTableRow(NO_COMMENTS, Arrays.asList("user" + i, "pass" + i), 4 + i));
+        }
+        return rows;
+    }
+
+    private static final class RecordedNode {
+        private final RecordedNode parent;
+        private final String name;
+        private final int rows;
+        private final List<RecordedNode> children = Collections.synchronizedList(new ArrayList<>());
+        private volatile String status;
+
+        private RecordedNode(RecordedNode parent, String name, int rows) {
+            this.parent = parent;
+            this.name = name;
+            this.rows = rows;
+            if (parent != null) {
+                parent.children.add(this);
+            }
+        }
+    }
+
+    private static final class RecordingHandler implements ReportEventHandler {
+        private final Map<ReportNode, RecordedNode> nodes = new ConcurrentHashMap<>();
+        private final List<RecordedNode> features = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public void onFeatureStarted(ReportEvent.FeatureStarted event) {
+            RecordedNode feature = new RecordedNode(null, event.getName(), 0);
+            nodes.put(event.getNode(), feature);
+            features.add(feature);
+        }
+
+        @Override
+        public void onScenarioStarted(ReportEvent.ScenarioStarted event) {
+            RecordedNode parent = nodes.get(event.getNode().getParent());
+            nodes.put(event.getNode(), new RecordedNode(parent, event.getName(), 0));
+        }
+
+        @Override
+        public void onStepStarted(ReportEvent.StepStarted event) {
+            RecordedNode parent = nodes.get(event.getNode().getParent());
+            nodes.put(event.getNode(), new RecordedNode(parent, event.getName(), event.getRows().size()));
+        }
+
+        @Override
+        public void onStepFinished(ReportEvent.StepFinished event) {
+            nodes.get(event.getNode()).status = event.getStatus();
+        }
+    }
+}
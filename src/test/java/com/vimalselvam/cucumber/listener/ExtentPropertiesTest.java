@@ -0,0 +1,74 @@
+package com.vimalselvam.cucumber.listener;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+
+public class ExtentPropertiesTest {
+    private final ExtentProperties properties = ExtentProperties.INSTANCE;
+    private final String projectName = properties.getProjectName();
+    private final int asyncQueueSize = properties.getAsyncQueueSize();
+    private final ReportLevel reportLevel = properties.getReportLevel();
+
+    @After
+    public void restoreProperties() {
+        properties.setProjectName(projectName);
+        properties.setAsyncQueueSize(asyncQueueSize);
+        properties.setReportLevel(reportLevel);
+    }
+
+    @Test
+    public void prefersSystemPropertiesOverEnvironmentOverFile() {
+        Properties file = new Properties();
+        file.setProperty("projectName", "from file");
+        file.setProperty("asyncQueueSize", "16");
+        file.setProperty("reportLevel", "summary");
+        Map<String, String> environment = new HashMap<>();
+        environment.put("EXTENT_PROJECT_NAME", "from environment");
+        environment.put("EXTENT_ASYNC_QUEUE_SIZE", "32");
+        Properties systemProperties = new Properties();
+        systemProperties.setProperty("extent.projectName", "from system property");
+
+        properties.configure(file, environment, systemProperties);
+
+        assertEquals("from system property", properties.getProjectName());
+        assertEquals(32, properties.getAsyncQueueSize());
+        assertEquals(ReportLevel.SUMMARY, properties.getReportLevel());
+    }
+
+    @Test
+    public void keepsThePropertyAsItWasOnAnInvalidValue() {
+        Properties file = new Properties();
+        file.setProperty("asyncQueueSize", "many");
+        file.setProperty("reportLevel", "everything");
+
+        properties.configure(file, Collections.<String, String>emptyMap(), new Properties());
+
+        assertEquals(asyncQueueSize, properties.getAsyncQueueSize());
+        assertEquals(reportLevel, properties.getReportLevel());
+    }
+
+    @Test
+    public void readsAFlatYamlFile() throws IOException {
+        Path file = Files.createTempFile("extent", ".yml");
+        Files.write(file, Arrays.asList("# Extent settings", "projectName: \"My project\"", "outputMode: streaming"),
+            StandardCharsets.UTF_8);
+
+        Properties config = ExtentProperties.readConfigFile(file.toString());
+
+        assertEquals("My project", config.getProperty("projectName"));
+        assertEquals("streaming", config.getProperty("outputMode"));
+        assertEquals("EXTENT_PERFORMANCE_TOP_N", ExtentProperties.environmentVariable("performanceTopN"));
+    }
+}
@@ -0,0 +1,80 @@
+package com.vimalselvam.cucumber.listener;
+
+import org.junit.Test;
+
+import java.io.PrintWriter;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class FailureClustersTest {
+
+    @Test
+    public void groupsTheFailuresOfTheSameTypeAndFrames() {
+        FailureClusters failures = new FailureClusters();
+        FailureClusters.Cluster first = failures.clusterOf(failure(new IllegalStateException("element #1"), 10));
+        FailureClusters.Cluster second = failures.clusterOf(failure(new IllegalStateException("element #2"), 42));
+        FailureClusters.Cluster other = failures.clusterOf(failure(new IllegalArgumentException("element #1"), 10));
+
+        assertSame(first, second);
+        assertNotSame(first, other);
+        assertEquals(1, first.add("a.feature: first"));
+        assertEquals(2, second.add("a.feature: second"));
+        assertEquals(1, other.add("b.feature: other"));
+        assertEquals("java.lang.IllegalStateException: element #1", first.getHeadline());
+
+        List<FailureClusters.Cluster> clusters = failures.getClusters();
+        assertEquals(2, clusters.size());
+        assertSame(first, clusters.get(0));
+        assertEquals(2, first.getScenarios().size());
+
+        String section = FailureClusterSection.render(clusters);
+        assertTrue(section.contains("<a href='#failure-cluster-1-2'>a.feature: second</a>"));
+        assertTrue(FailureClusterSection.reference(new IllegalStateException(), first, 2)
+            .startsWith("<span id='failure-cluster-1-2'></span>"));
+    }
+
+    @Test
+    public void ignoresTheNamesOfGeneratedClasses() {
+        Throwable lambda = new IllegalStateException();
+        lambda.setStackTrace(new StackTraceElement[] {
+            new StackTraceElement("com.example.Steps$$Lambda$14/0x0000000800c0b440", "run", null, -1)
+        });
+        Throwable otherLambda = new IllegalStateException();
+        otherLambda.setStackTrace(new StackTraceElement[] {
+            new StackTraceElement("com.example.Steps$$Lambda$27/0x0000000800d1c000", "run", null, -1)
+        });
+
+        assertEquals(FailureClusters.fingerprint(lambda), FailureClusters.fingerprint(otherLambda));
+    }
+
+    @Test
+    public void fingerprintsAFailureKnownOnlyByItsText() {
+        Throwable live = failure(new IllegalStateException("broken"), 10);
+        String text = Html.stackTrace(failure(new IllegalStateException("broken"), 99));
+        Throwable recorded = new Throwable("recorded", null, false, false) {
+            @Override
+            public String toString() {
+                return "java.lang.IllegalStateException: broken";
+            }
+
+            @Override
+            public void printStackTrace(PrintWriter s) {
+                s.print(text);
+            }
+        };
+
+        assertEquals(FailureClusters.fingerprint(live), FailureClusters.fingerprint(recorded));
+    }
+
+    private static Throwable failure(Throwable error, int line) {
+        error.setStackTrace(new StackTraceElement[] {
+            new StackTraceElement("com.example.Page", "click", "Page.java", line),
+            new StackTraceElement("com.example.Steps", "clickTheButton", "Steps.java", line + 1)
+        });
+        return error;
+    }
+}
@@ -0,0 +1,28 @@
+package com.vimalselvam.cucumber.listener;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class GherkinKeywordResolverTest {
+    @Test
+    public void resolvesEnglishKeywordsOnce() {
+        assertNotNull(GherkinKeywordResolver.resolve("Given "));
+        assertSame(GherkinKeywordResolver.resolve("Given "), GherkinKeywordResolver.resolve("Given"));
+    }
+
+    @Test
+    public void resolvesLocalisedKeywordsToTheirEnglishCounterpart() {
+        assertSame(GherkinKeywordResolver.resolve("Given "), GherkinKeywordResolver.resolve("Soit "));
+        assertSame(GherkinKeywordResolver.resolve("When "), GherkinKeywordResolver.resolve("Quand "));
+        assertSame(GherkinKeywordResolver.resolve("And "), GherkinKeywordResolver.resolve("* "));
+    }
+
+    @Test
+    public void doesNotResolveUnknownKeywords() {
+        assertNull(GherkinKeywordResolver.resolve("Whatever "));
+        assertNull(GherkinKeywordResolver.resolve(null));
+    }
+}
@@ -0,0 +1,49 @@
+package com.vimalselvam.cucumber.listener;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+
+import static org.junit.Assert.assertTrue;
+
+public class JUnitXmlWriterTest {
+
+    @Test
+    public void writesATestCasePerScenario() throws IOException {
+        Path report = Files.createTempDirectory("extent-junit").resolve("report-junit.xml");
+        JUnitXmlWriter writer = new JUnitXmlWriter(report);
+        ReportNode feature = new ReportNode(null);
+        writer.onFeatureStarted(new ReportEvent.FeatureStarted(feature, "a.feature", "A <feature>",
+            Collections.<String>emptyList()));
+        runScenario(writer, feature, "passes", "passed", null);
+        runScenario(writer, feature, "fails", "failed", new IllegalStateException("broken"));
+        runScenario(writer, feature, "is pending", "pending", null);
+        writer.onFlush(new ReportEvent.Flush());
+        String unfinished = new String(Files.readAllBytes(report), StandardCharsets.UTF_8);
+        writer.onFeatureFinished(new ReportEvent.FeatureFinished(feature));
+        writer.onFlush(new ReportEvent.Flush());
+
+        String xml = new String(Files.readAllBytes(report), StandardCharsets.UTF_8);
+        assertTrue(unfinished.contains("<testsuites tests=\"0\""));
+        assertTrue(xml.contains("<testsuites tests=\"3\" failures=\"1\" errors=\"0\" skipped=\"1\" time=\"0.003\">"));
+        assertTrue(xml.contains("<testsuite name=\"A &lt;feature&gt;\" tests=\"3\""));
+        assertTrue(xml.contains("<testcase classname=\"A &lt;feature&gt;\" name=\"passes\" time=\"0.001\"/>"));
+        assertTrue(xml.contains("<failure message=\"java.lang.IllegalStateException: broken\" "
+            + "type=\"java.lang.IllegalStateException\">java.lang.IllegalStateException: broken"));
+        assertTrue(xml.contains("<skipped message=\"pending\"/>"));
+    }
+
+    private static void runScenario(JUnitXmlWriter writer, ReportNode feature, String name, String status,
+        Throwable error) {
+        ReportNode scenario = new ReportNode(feature);
+        ReportNode step = new ReportNode(scenario);
+        writer.onScenarioStarted(new ReportEvent.ScenarioStarted(scenario, name, Collections.<String>emptyList(),
+            null));
+        writer.onStepStarted(new ReportEvent.StepStarted(step, "Given ", "a step", null));
+        writer.onStepFinished(new ReportEvent.StepFinished(step, status, error, 1000000L, null, 0));
+    }
+}
@@ -0,0 +1,46 @@
+package com.vimalselvam.cucumber.listener;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class JsonLinesWriterTest {
+
+    @Test
+    public void writesAnEventPerLine() throws IOException {
+        Path log = Files.createTempDirectory("extent-jsonl").resolve("report.jsonl");
+        JsonLinesWriter writer = new JsonLinesWriter(log);
+        ReportNode feature = new ReportNode(null);
+        ReportNode scenario = new ReportNode(feature);
+        ReportNode step = new ReportNode(scenario);
+        writer.onFeatureStarted(new ReportEvent.FeatureStarted(feature, "a.feature", "A feature",
+            Arrays.asList("@a", "@b")));
+        writer.onScenarioStarted(new ReportEvent.ScenarioStarted(scenario, "A \"quoted\" scenario",
+            Collections.<String>emptyList(), null));
+        writer.onStepStarted(new ReportEvent.StepStarted(step, "Given ", "a step", null));
+        writer.onStepFinished(new ReportEvent.StepFinished(step, "passed", null, 1500L, null, 0));
+        writer.onFeatureFinished(new ReportEvent.FeatureFinished(feature));
+        // The feature is forgotten once it is finished
+        writer.onLog(new ReportEvent.Log(step, "too late"));
+        writer.onFlush(new ReportEvent.Flush());
+
+        List<String> lines = Files.readAllLines(log, StandardCharsets.UTF_8);
+        assertEquals(Arrays.asList(
+            "{\"event\":\"featureStarted\",\"node\":1,\"uri\":\"a.feature\",\"name\":\"A feature\","
+                + "\"tags\":[\"@a\",\"@b\"]}",
+            "{\"event\":\"scenarioStarted\",\"node\":2,\"parent\":1,\"name\":\"A \\\"quoted\\\" scenario\","
+                + "\"tags\":[]}",
+            "{\"event\":\"stepStarted\",\"node\":3,\"parent\":2,\"keyword\":\"Given \",\"name\":\"a step\","
+                + "\"rows\":[]}",
+            "{\"event\":\"stepFinished\",\"node\":3,\"status\":\"passed\",\"durationNanos\":1500}",
+            "{\"event\":\"featureFinished\",\"node\":1}"), lines);
+    }
+}
@@ -0,0 +1,188 @@
+package com.vimalselvam.cucumber.listener;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class KlovBatchWriterTest {
+    private final InMemoryKlov klov = new InMemoryKlov();
+    private Path spool;
+    private KlovBatchWriter writer;
+
+    @Before
+    public void createSpoolPath() throws IOException {
+        spool = Files.createTempDirectory("extent-klov").resolve("klov.spool");
+    }
+
+    @After
+    public void stopWriter() {
+        writer.shutdown();
+    }
+
+    @Test
+    public void writesTheEventsInBatches() {
+        writer = new KlovBatchWriter(klov, spool, 10, 60000, 100);
+        sendLogs(23);
+        writer.onFlush(new ReportEvent.Flush());
+
+        assertEquals(expectedLogs(23), klov.logs());
+        assertEquals(Arrays.asList(10, 10, 5), klov.batchSizes);
+        assertEquals(1, klov.flushes);
+        assertEquals(0, writer.getQueueDepth());
+        assertEquals(25, writer.getWrittenEventCount());
+        assertTrue(writer.getMaxWriteNanos() >= writer.getAverageWriteNanos());
+    }
+
+    @Test
+    public void spoolsTheEventsWhileKlovIsDownAndWritesThemInOrderOnceItIsBack() {
+        writer = new KlovBatchWriter(klov, spool, 4, 0, 100);
+        klov.remainingCapacity = 3;
+        sendLogs(10);
+        writer.onFlush(new ReportEvent.Flush());
+
+        assertEquals(3, klov.events.size());
+        assertEquals(9, writer.getSpoolDepth());
+        ReportingMetrics metrics = new ReportingMetrics(null);
+        metrics.setKlovBatchWriter(writer);
+        assertEquals(9, metrics.getKlovSpoolDepth());
+        assertEquals(3, metrics.getKlovWrittenEvents());
+        assertTrue(metrics.toJson().contains("\"klov\":{\"queueDepth\":0,\"spoolDepth\":9,"));
+        assertTrue(Files.exists(spool));
+        assertEquals(0, klov.flushes);
+
+        klov.remainingCapacity = Integer.MAX_VALUE;
+        writer.onFlush(new ReportEvent.Flush());
+
+        assertEquals(expectedLogs(10), klov.logs());
+        assertEquals(0, writer.getSpoolDepth());
+        assertFalse(Files.exists(spool));
+        assertEquals(1, klov.flushes);
+        assertEquals(0, writer.getLostEventCount());
+    }
+
+    @Test
+    public void spoolsTheEventsTheQueueHasNoRoomForAndWritesThemAfterTheQueuedOnes() {
+        writer = new KlovBatchWriter(klov, spool, 2, 0, 2);
+        klov.gate = new CountDownLatch(1);
+        sendLogs(20);
+
+        assertTrue(writer.getSpoolDepth() > 0);
+        klov.gate.countDown();
+        writer.onFlush(new ReportEvent.Flush());
+
+        assertEquals(expectedLogs(20), klov.logs());
+        assertEquals(0, writer.getSpoolDepth());
+        assertFalse(Files.exists(spool));
+        assertEquals(0, writer.getLostEventCount());
+    }
+
+    @Test
+    public void countsTheEventsTheQueueHasNoRoomForAsLostWhenDiscarding() {
+        writer = new KlovBatchWriter(klov, spool, 2, 0, 2, BackpressurePolicy.DISCARD);
+        klov.gate = new CountDownLatch(1);
+        sendLogs(20);
+
+        assertEquals(0, writer.getSpoolDepth());
+        klov.gate.countDown();
+        writer.onFlush(new ReportEvent.Flush());
+
+        assertTrue(writer.getLostEventCount() > 0);
+        assertEquals(22, writer.getLostEventCount() + writer.getWrittenEventCount());
+    }
+
+    @Test
+    public void discardsTheSpoolOfAPreviousRun() throws IOException {
+        Files.write(spool, new byte[] {0, 0, 0, 1, 42});
+        writer = new KlovBatchWriter(klov, spool, 10, 0, 100);
+        sendLogs(1);
+        writer.onFlush(new ReportEvent.Flush());
+
+        assertEquals(expectedLogs(1), klov.logs());
+        assertFalse(Files.exists(spool));
+    }
+
+    /**
+     * Sends a feature and a scenario with the given number of logs
+     */
+    private void sendLogs(int count) {
+        ReportNode feature = new ReportNode(null);
+        ReportNode scenario = new ReportNode(feature);
+        writer.onFeatureStarted(new ReportEvent.FeatureStarted(feature, "a.feature", "Feature",
+            Collections.<String>emptyList()));
+        writer.onScenarioStarted(new ReportEvent.ScenarioStarted(scenario, "Scenario",
+            Collections.<String>emptyList(), null));
+        for (int i = 0; i < count; i++) {
+            writer.onLog(new ReportEvent.Log(scenario, "log " + i));
+        }
+    }
+
+    private static List<String> expectedLogs(int count) {
+        List<String> logs = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            logs.add("log " + i);
+        }
+        return logs;
+    }
+
+    /**
+     * Stands in for Klov, writing the events to memory until its capacity is used up
+     */
+    private static final class InMemoryKlov implements KlovTarget {
+        private final List<ReportEvent> events = new ArrayList<>();
+        private final List<Integer> batchSizes = new ArrayList<>();
+        private volatile int remainingCapacity = Integer.MAX_VALUE;
+        private volatile int flushes;
+        /**
+         * Holds up the writes while it is not counted down, null for none
+         */
+        private volatile CountDownLatch gate;
+
+        @Override
+        public synchronized void write(List<ReportEvent> batch) throws KlovWriteException {
+            CountDownLatch writable = gate;
+            if (writable != null) {
+                try {
+                    writable.await();
+                } catch (InterruptedException e) {
+                    throw new KlovWriteException(0, e);
+                }
+            }
+            batchSizes.add(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                if (remainingCapacity == 0) {
+                    throw new KlovWriteException(i, new IllegalStateException("Klov is down"));
+                }
+                remainingCapacity--;
+                events.add(batch.get(i));
+            }
+        }
+
+        @Override
+        public synchronized void flush() {
+            flushes++;
+        }
+
+        synchronized List<String> logs() {
+            List<String> logs = new ArrayList<>();
+            for (ReportEvent event : events) {
+                if (event instanceof ReportEvent.Log) {
+                    logs.add(((ReportEvent.Log) event).getMessage());
+                }
+            }
+            return logs;
+        }
+    }
+}
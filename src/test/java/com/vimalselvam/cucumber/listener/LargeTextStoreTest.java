@@ -0,0 +1,150 @@
+package com.vimalselvam.cucumber.listener;
+
+import gherkin.formatter.model.Comment;
+import gherkin.formatter.model.Feature;
+import gherkin.formatter.model.Match;
+import gherkin.formatter.model.Scenario;
+import gherkin.formatter.model.Step;
+import gherkin.formatter.model.Tag;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class LargeTextStoreTest {
+    private static final List<Comment> NO_COMMENTS = Collections.emptyList();
+    private static final Pattern LINK = Pattern.compile("<a href='(logs/[^']+)'>");
+
+    private final String reportPath = ExtentProperties.INSTANCE.getReportPath();
+
+    @After
+    public void restoreProperties() {
+        ExtentProperties.INSTANCE.setLargeLogChars(0);
+        ExtentProperties.INSTANCE.setReportPath(reportPath);
+    }
+
+    @Test
+    public void keepsAPreviewOfALargeTextAndStoresTheWholeTextAside() throws IOException {
+        Path directory = Files.createTempDirectory("extent-large-text");
+        LargeTextStore store = new LargeTextStore(directory, 100);
+        String small = "<b>small</b>";
+        assertSame(small, store.capture(small));
+
+        StringBuilder payload = new StringBuilder();
+        while (payload.length() < 100000) {
+            // A character outside the basic plane, split over the chunks the text is written in
+            payload.append("{\"emoji\":\"😀\",\"html\":\"<br/>\"},");
+        }
+        String text = payload.toString();
+        String kept = store.capture(text);
+        store.awaitPending();
+
+        assertTrue(kept.startsWith("<pre>{&quot;emoji&quot;"));
+        assertTrue(kept.length() < LargeTextStore.PREVIEW_CHARS * 4);
+        assertTrue(kept.contains("Full text, " + text.length() + " characters"));
+        assertEquals(text, read(directory.resolve(link(kept))));
+    }
+
+    @Test
+    public void logsTheTextWrittenByAStep() throws IOException {
+        Path report = Files.createTempDirectory("extent-write").resolve("report.html");
+        ExtentProperties.INSTANCE.setReportPath(report.toString());
+        ExtentProperties.INSTANCE.setLargeLogChars(1000);
+        List<ReportEvent.Log> logs = new ArrayList<>();
+        ExtentCucumberFormatter formatter = new ExtentCucumberFormatter(new SynchronousEventDispatcher(
+            new ReportEventHandler() {
+                @Override
+                public void onLog(ReportEvent.Log event) {
+                    logs.add(event);
+                }
+            }));
+        formatter.uri("features/write.feature");
+        formatter.feature(new Feature(NO_COMMENTS, Collections.<Tag>emptyList(), "Feature", "Write", "", 1,
+            "write"));
+        formatter.startOfScenarioLifeCycle(new Scenario(NO_COMMENTS, Collections.<Tag>emptyList(), "Scenario",
+            "Writing", "", 2, "writing"));
+        formatter.step(new Step(NO_COMMENTS, "Given ", "a page source", 3, null, null));
+        formatter.match(new Match(Collections.emptyList(), "Steps.write()"));
+        formatter.write("short");
+        char[] page = new char[5000];
+        Arrays.fill(page, 'x');
+        formatter.write(new String(page));
+        Reporter.addStepLog(new String(page));
+
+        formatter.done();
+
+        assertEquals(3, logs.size());
+        assertEquals("short", logs.get(0).getMessage());
+        assertEquals(new String(page), read(report.resolveSibling(link(logs.get(1).getMessage()))));
+        assertEquals(new String(page), read(report.resolveSibling(link(logs.get(2).getMessage()))));
+    }
+
+    @Test
+    public void deletesTheTextsOfThePreviousRunOnly() throws IOException {
+        Path directory = Files.createTempDirectory("extent-large-text");
+        Path logs = Files.createDirectories(directory.resolve("logs"));
+        Files.write(logs.resolve("previous.txt.gz"), new byte[0]);
+        Files.write(logs.resolve("application.log"), new byte[0]);
+
+        new LargeTextStore(directory, 100).clear();
+
+        assertFalse(Files.exists(logs.resolve("previous.txt.gz")));
+        assertTrue(Files.exists(logs.resolve("application.log")));
+    }
+
+    @Test
+    public void leavesTheTextsOfTheOtherShardsAlone() throws IOException {
+        Path directory = Files.createTempDirectory("extent-large-text");
+        Path logs = Files.createDirectories(directory.resolve("logs"));
+        Files.write(Files.createDirectories(logs.resolve("shard-1")).resolve("previous.txt.gz"), new byte[0]);
+        Files.write(Files.createDirectories(logs.resolve("shard-2")).resolve("other.txt.gz"), new byte[0]);
+        Files.write(logs.resolve("unsharded.txt.gz"), new byte[0]);
+
+        LargeTextStore store = new LargeTextStore(directory, "shard-1", 100);
+        store.clear();
+        char[] text = new char[200];
+        Arrays.fill(text, 'x');
+        String kept = store.capture(new String(text));
+        store.awaitPending();
+
+        assertFalse(Files.exists(logs.resolve("shard-1").resolve("previous.txt.gz")));
+        assertTrue(Files.exists(logs.resolve("shard-2").resolve("other.txt.gz")));
+        assertTrue(Files.exists(logs.resolve("unsharded.txt.gz")));
+        assertTrue(link(kept).startsWith("logs/shard-1/"));
+        assertEquals(new String(text), read(directory.resolve(link(kept))));
+    }
+
+    private static String link(String html) {
+        Matcher link = LINK.matcher(html);
+        assertTrue(html, link.find());
+        return link.group(1);
+    }
+
+    private static String read(Path gzipped) throws IOException {
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(gzipped))) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            for (int read = in.read(buffer); read != -1; read = in.read(buffer)) {
+                bytes.write(buffer, 0, read);
+            }
+            return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.vimalselvam.cucumber.listener;
+
+import gherkin.formatter.model.Result;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ConnectException;
+import java.net.HttpURLConnection;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ProgressServerTest {
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    public void servesTheProgressOfTheRun() throws IOException {
+        RunProgress progress = new RunProgress(System.nanoTime(), 0);
+        progress.scenarioStarted(1, "Slow \"one\"", "a.feature:3", System.nanoTime() - 60 * SECOND);
+        progress.scenarioStarted(2, "Fast one", "a.feature:9", System.nanoTime());
+        progress.stepFinished(Result.PASSED);
+        progress.stepFinished(Result.FAILED);
+        progress.stepFinished(Result.SKIPPED.getStatus());
+
+        ProgressServer server = new ProgressServer(progress, "localhost", 0);
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + server.getPort()
+                + ProgressServer.PATH).openConnection();
+            assertEquals(200, connection.getResponseCode());
+            assertTrue(connection.getContentType().startsWith("application/json"));
+            String body = read(connection.getInputStream());
+            assertTrue(body, body.contains("\"scenarios\":{\"running\":2,\"finished\":0"));
+            assertTrue(body, body.contains("\"steps\":{\"finished\":3,\"passed\":1,\"failed\":1,\"skipped\":1}"));
+            assertTrue(body, body.contains("\"slowestRunningScenario\":{\"name\":\"Slow \\\"one\\\"\","
+                + "\"location\":\"a.feature:3\",\"runningSeconds\":60}"));
+            assertTrue(body, body.contains("\"etaSeconds\":null"));
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void estimatesTheTimeLeftFromTheExpectedScenarios() {
+        long start = 0;
+        RunProgress progress = new RunProgress(start, 10);
+        for (int i = 0; i < 4; i++) {
+            progress.scenarioStarted(1, "Scenario " + i, "a.feature:" + i, start);
+            progress.stepFinished(Result.PASSED);
+            progress.scenarioFinished(1, RunHistory.PASSED);
+        }
+        progress.featureFinished();
+
+        // 4 scenarios in 40 seconds, 6 left
+        String json = progress.toJson(start + 40 * SECOND);
+        assertTrue(json, json.contains("\"features\":1"));
+        assertTrue(json, json.contains("\"scenarios\":{\"running\":0,\"finished\":4,\"passed\":4,\"failed\":0"));
+        assertTrue(json, json.contains("\"slowestRunningScenario\":null"));
+        assertTrue(json, json.contains("\"stepsPerSecond\":0.1"));
+        assertTrue(json, json.endsWith("\"expectedScenarios\":10,\"etaSeconds\":60}"));
+    }
+
+    @Test
+    public void stopsServingAndLeavesNoThreadBehind() throws IOException, InterruptedException {
+        ProgressServer server = new ProgressServer(new RunProgress(System.nanoTime(), 0), "localhost", 0);
+        int port = server.getPort();
+        server.stop();
+
+        try (Socket socket = new Socket("localhost", port)) {
+            fail("The server still listens on " + port);
+        } catch (ConnectException e) {
+            // Stopped
+        }
+        for (int i = 0; i < 100 && progressServerThreads() > 0; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, progressServerThreads());
+    }
+
+    private static long progressServerThreads() {
+        return Thread.getAllStackTraces().keySet().stream()
+            .filter(thread -> thread.getName().equals("extent-progress-server")).count();
+    }
+
+    private static String read(InputStream in) throws IOException {
+        try (InputStream input = in) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            for (int read = input.read(buffer); read != -1; read = input.read(buffer)) {
+                out.write(buffer, 0, read);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.vimalselvam.cucumber.listener;
+
+import gherkin.formatter.model.Comment;
+import gherkin.formatter.model.Feature;
+import gherkin.formatter.model.Match;
+import gherkin.formatter.model.Result;
+import gherkin.formatter.model.Scenario;
+import gherkin.formatter.model.Step;
+import gherkin.formatter.model.Tag;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ReportLevelTest {
+    private static final List<Comment> NO_COMMENTS = Collections.emptyList();
+
+    private final List<ReportEvent> events = new ArrayList<>();
+    private final List<ReportEvent.AuthorAssigned> authors = new ArrayList<>();
+    private ExtentCucumberFormatter formatter;
+
+    private ExtentCucumberFormatter newFormatter() {
+        return new ExtentCucumberFormatter(new SynchronousEventDispatcher(new ReportEventHandler() {
+            @Override
+            public void onScenarioStarted(ReportEvent.ScenarioStarted event) {
+                events.add(event);
+            }
+
+            @Override
+            public void onStepStarted(ReportEvent.StepStarted event) {
+                events.add(event);
+            }
+
+            @Override
+            public void onStepFinished(ReportEvent.StepFinished event) {
+                events.add(event);
+            }
+
+            @Override
+            public void onLog(ReportEvent.Log event) {
+                events.add(event);
+            }
+
+            @Override
+            public void onAuthorAssigned(ReportEvent.AuthorAssigned event) {
+                authors.add(event);
+            }
+        }));
+    }
+
+    @After
+    public void resetReportLevel() {
+        ExtentProperties.INSTANCE.setReportLevel(ReportLevel.FULL);
+    }
+
+    @Test
+    public void collapsesThePassedScenariosOnly() {
+        ExtentProperties.INSTANCE.setReportLevel(ReportLevel.FAILURES_ONLY_DETAIL);
+        formatter = newFormatter();
+        formatter.uri("features/a.feature");
+        formatter.feature(new Feature(NO_COMMENTS, Collections.<Tag>emptyList(), "Feature", "A", "", 1, "a"));
+        runScenario("passed", Result.PASSED);
+        runScenario("failed", Result.FAILED);
+        formatter.eof();
+
+        assertEquals(8, events.size());
+        ReportEvent.ScenarioStarted passed = (ReportEvent.ScenarioStarted) events.get(0);
+        ReportEvent.Log summary = (ReportEvent.Log) events.get(1);
+        assertSame(passed.getNode(), summary.getNode());
+        assertTrue(summary.getMessage().startsWith("2 steps passed in "));
+        assertEquals("failed", ((ReportEvent.ScenarioStarted) events.get(2)).getName());
+        assertEquals("a log", ((ReportEvent.Log) events.get(4)).getMessage());
+        assertEquals(Result.FAILED, ((ReportEvent.StepFinished) events.get(7)).getStatus());
+        // Held with the steps, and still reported for the collapsed scenario
+        assertEquals(2, authors.size());
+        assertSame(passed.getNode(), authors.get(0).getNode());
+        assertEquals(Collections.singletonList("Ann"), authors.get(0).getAuthors());
+    }
+
+    @Test
+    public void reportsTheFailedStepAgainstTheScenario() {
+        ExtentProperties.INSTANCE.setReportLevel(ReportLevel.SUMMARY);
+        formatter = newFormatter();
+        formatter.uri("features/a.feature");
+        formatter.feature(new Feature(NO_COMMENTS, Collections.<Tag>emptyList(), "Feature", "A", "", 1, "a"));
+        runScenario("failed", Result.FAILED);
+        formatter.eof();
+
+        assertEquals(3, events.size());
+        ReportEvent.ScenarioStarted scenario = (ReportEvent.ScenarioStarted) events.get(0);
+        assertEquals("Then it fails", ((ReportEvent.Log) events.get(1)).getMessage());
+        ReportEvent.StepFinished failure = (ReportEvent.StepFinished) events.get(2);
+        assertSame(scenario.getNode(), failure.getNode());
+        assertEquals(Result.FAILED, failure.getStatus());
+        assertEquals("java.lang.IllegalStateException: broken", failure.getError().toString());
+    }
+
+    private void runScenario(String name, String lastStatus) {
+        Scenario scenario = new Scenario(NO_COMMENTS, Collections.<Tag>emptyList(), "Scenario", name, "", 2, name);
+        formatter.startOfScenarioLifeCycle(scenario);
+        formatter.step(new Step(NO_COMMENTS, "Given ", "it runs", 3, null, null));
+        formatter.step(new Step(NO_COMMENTS, "Then ", "it fails", 4, null, null));
+        formatter.match(new Match(Collections.emptyList(), "Steps.run()"));
+        Reporter.assignAuthor("Ann");
+        Reporter.addStepLog("a log");
+        formatter.result(new Result(Result.PASSED, 1000L, null));
+        formatter.match(new Match(Collections.emptyList(), "Steps.fail()"));
+        Throwable error = Result.FAILED.equals(lastStatus) ? new IllegalStateException("broken") : null;
+        formatter.result(new Result(lastStatus, 1000L, error, null));
+        formatter.endOfScenarioLifeCycle(scenario);
+    }
+}
@@ -0,0 +1,169 @@
+package com.vimalselvam.cucumber.listener;
+
+import gherkin.formatter.model.Comment;
+import gherkin.formatter.model.Feature;
+import gherkin.formatter.model.Match;
+import gherkin.formatter.model.Result;
+import gherkin.formatter.model.Scenario;
+import gherkin.formatter.model.Step;
+import gherkin.formatter.model.Tag;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ReporterTest {
+    private static final List<Comment> NO_COMMENTS = Collections.emptyList();
+    private static final int THREADS = 8;
+    private static final int LOGS = 2000;
+
+    private final List<ReportEvent.Log> logs = Collections.synchronizedList(new ArrayList<ReportEvent.Log>());
+    private final List<ReportEvent.StepStarted> steps = new ArrayList<>();
+    private final ExecutorService helpers = Executors.newFixedThreadPool(THREADS);
+    private ExtentCucumberFormatter formatter;
+
+    @After
+    public void stopHelpers() {
+        helpers.shutdownNow();
+        ExtentProperties.INSTANCE.setReportLevel(ReportLevel.FULL);
+    }
+
+    @Test
+    public void logsFromTheThreadsAScenarioStarts() throws Exception {
+        formatter = newFormatter();
+        startFeature();
+        Scenario parallel = startScenario("parallel");
+        ScenarioHandle scenario = Reporter.getScenarioHandle();
+
+        List<Future<?>> results = logFromHelpers(scenario);
+        for (Future<?> result : results) {
+            result.get(30, TimeUnit.SECONDS);
+        }
+        formatter.result(new Result(Result.PASSED, 1000L, null));
+        formatter.endOfScenarioLifeCycle(parallel);
+
+        assertEquals(THREADS * LOGS, logs.size());
+        int[] next = new int[THREADS];
+        for (ReportEvent.Log log : logs) {
+            assertSame(steps.get(0).getNode(), log.getNode());
+            // Every helper's logs arrive in the order it logged them
+            String[] parts = log.getMessage().split(" ");
+            int helper = Integer.parseInt(parts[0]);
+            assertEquals(next[helper]++, Integer.parseInt(parts[1]));
+        }
+    }
+
+    @Test
+    public void holdsTheLogsOfTheThreadsAScenarioStartsWithItsOtherEvents() throws Exception {
+        ExtentProperties.INSTANCE.setReportLevel(ReportLevel.FAILURES_ONLY_DETAIL);
+        formatter = newFormatter();
+        startFeature();
+        Scenario heldBack = startScenario("held back");
+        ScenarioHandle scenario = Reporter.getScenarioHandle();
+
+        for (Future<?> result : logFromHelpers(scenario)) {
+            result.get(30, TimeUnit.SECONDS);
+        }
+        assertTrue(logs.isEmpty());
+        formatter.result(new Result(Result.FAILED, 1000L, new IllegalStateException("broken"), null));
+        formatter.endOfScenarioLifeCycle(heldBack);
+        assertEquals(THREADS * LOGS, logs.size());
+
+        // A log of a scenario which has ended goes to the scenario itself, and is not held back by the next one
+        startScenario("next");
+        Reporter.addStepLog(scenario, "late");
+        assertSame(scenario.getScenario(), logs.get(logs.size() - 1).getNode());
+    }
+
+    @Test
+    public void setsTheSystemInfoOnceFromConcurrentThreads() throws Exception {
+        List<ReportEvent.SystemInfo> systemInfo = Collections.synchronizedList(
+            new ArrayList<ReportEvent.SystemInfo>());
+        EventDispatcher dispatcher = new SynchronousEventDispatcher(new ReportEventHandler() {
+            @Override
+            public void onSystemInfo(ReportEvent.SystemInfo event) {
+                systemInfo.add(event);
+            }
+        });
+        String key = "concurrent-key-" + System.nanoTime();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            String value = "value " + i;
+            results.add(helpers.submit((Callable<Void>) () -> {
+                start.await();
+                for (int j = 0; j < LOGS; j++) {
+                    Reporter.setSystemInfo(key, value, dispatcher);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> result : results) {
+            result.get(30, TimeUnit.SECONDS);
+        }
+
+        assertEquals(1, systemInfo.size());
+        assertEquals(key, systemInfo.get(0).getKey());
+    }
+
+    private List<Future<?>> logFromHelpers(ScenarioHandle scenario) {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            int helper = i;
+            results.add(helpers.submit((Callable<Void>) () -> {
+                start.await();
+                for (int j = 0; j < LOGS; j += 4) {
+                    Reporter.addStepLog(scenario, helper + " " + j);
+                    Reporter.addStepLogs(scenario, Arrays.asList(helper + " " + (j + 1), helper + " " + (j + 2),
+                        helper + " " + (j + 3)));
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        return results;
+    }
+
+    private ExtentCucumberFormatter newFormatter() {
+        return new ExtentCucumberFormatter(new SynchronousEventDispatcher(new ReportEventHandler() {
+            @Override
+            public void onStepStarted(ReportEvent.StepStarted event) {
+                steps.add(event);
+            }
+
+            @Override
+            public void onLog(ReportEvent.Log event) {
+                logs.add(event);
+            }
+        }));
+    }
+
+    private void startFeature() {
+        formatter.uri("features/reporter.feature");
+        formatter.feature(new Feature(NO_COMMENTS, Collections.<Tag>emptyList(), "Feature", "Reporter", "", 1,
+            "reporter"));
+    }
+
+    private Scenario startScenario(String name) {
+        Scenario scenario = new Scenario(NO_COMMENTS, Collections.<Tag>emptyList(), "Scenario", name, "", 2, name);
+        formatter.startOfScenarioLifeCycle(scenario);
+        formatter.step(new Step(NO_COMMENTS, "Given ", "helpers log", 3, null, null));
+        formatter.match(new Match(Collections.emptyList(), "Steps.log()"));
+        return scenario;
+    }
+}
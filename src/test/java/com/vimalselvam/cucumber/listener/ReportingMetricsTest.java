@@ -0,0 +1,92 @@
+package com.vimalselvam.cucumber.listener;
+
+import gherkin.formatter.model.Comment;
+import gherkin.formatter.model.DataTableRow;
+import gherkin.formatter.model.Feature;
+import gherkin.formatter.model.Match;
+import gherkin.formatter.model.Result;
+import gherkin.formatter.model.Scenario;
+import gherkin.formatter.model.Step;
+import gherkin.formatter.model.Tag;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ReportingMetricsTest {
+    private static final List<Comment> NO_COMMENTS = Collections.emptyList();
+    private static final List<Tag> NO_TAGS = Collections.emptyList();
+    private static final List<String> NO_TAG_NAMES = Collections.emptyList();
+
+    @Test
+    public void measuresTheCallbacksAndWhatIsReported() throws Exception {
+        Path report = Files.createTempDirectory("extent-metrics").resolve("report.html");
+        ReportingMetrics metrics = new ReportingMetrics(report.toFile());
+        ExtentCucumberFormatter formatter = new ExtentCucumberFormatter(new SynchronousEventDispatcher(
+            new StreamingReportWriter(report.toFile(), false, metrics)), metrics);
+
+        formatter.uri("features/metrics.feature");
+        formatter.feature(new Feature(NO_COMMENTS, NO_TAGS, "Feature", "Metrics", "", 1, "metrics"));
+        Scenario scenario = new Scenario(NO_COMMENTS, NO_TAGS, "Scenario", "Measured", "", 2, "measured");
+        formatter.startOfScenarioLifeCycle(scenario);
+        formatter.step(new Step(NO_COMMENTS, "Given ", "a table", 3, Arrays.asList(
+            new DataTableRow(NO_COMMENTS, Arrays.asList("name", "value"), 4),
+            new DataTableRow(NO_COMMENTS, Arrays.asList("size", "42"), 5)), null));
+        formatter.step(new Step(NO_COMMENTS, "Then ", "it is logged", 6, null, null));
+        for (int i = 0; i < 2; i++) {
+            formatter.match(new Match(Collections.emptyList(), "Steps.run()"));
+            Reporter.addStepLog("logged");
+            formatter.result(new Result(Result.PASSED, 1000L, null));
+        }
+        formatter.endOfScenarioLifeCycle(scenario);
+        formatter.eof();
+        formatter.done();
+
+        assertEquals(Long.valueOf(2), metrics.getCallbackCounts().get("match"));
+        assertEquals(Long.valueOf(2), metrics.getCallbackCounts().get("result"));
+        assertEquals(Long.valueOf(1), metrics.getCallbackCounts().get("done"));
+        assertEquals(1, metrics.getFeatures());
+        assertEquals(1, metrics.getScenarios());
+        assertEquals(2, metrics.getSteps());
+        assertEquals(2 * "logged".length(), metrics.getLogChars());
+        assertEquals(4, metrics.getTableCells());
+        assertEquals("namevaluesize42".length(), metrics.getTableChars());
+        assertEquals(1, metrics.getFlushes());
+        assertEquals(Files.size(report), metrics.getReportBytes());
+
+        Path summary = ReportingMetrics.summaryPath(report.toFile());
+        assertEquals("report-metrics.json", summary.getFileName().toString());
+        metrics.writeSummary(summary);
+        String json = new String(Files.readAllBytes(summary), StandardCharsets.UTF_8);
+        assertTrue(json.startsWith("{\"callbacks\":{\"uri\":{\"count\":1,"));
+        assertTrue(json.contains("\"nodes\":{\"features\":1,\"scenarioOutlines\":0,\"scenarios\":1,\"steps\":2}"));
+        assertTrue(json.contains("\"reportBytes\":" + Files.size(report) + "}"));
+    }
+
+    @Test
+    public void publishesTheMetricsOverJmx() throws Exception {
+        ReportingMetrics metrics = new ReportingMetrics(null);
+        metrics.count(new ReportEvent.ScenarioStarted(new ReportNode(null), "A scenario", NO_TAG_NAMES, null));
+        metrics.register();
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(ReportingMetrics.OBJECT_NAME);
+        try {
+            assertEquals(1L, server.getAttribute(name, "Scenarios"));
+            assertEquals(1L, server.getAttribute(name, "Events"));
+        } finally {
+            metrics.unregister();
+        }
+        assertFalse(server.isRegistered(name));
+    }
+}
@@ -0,0 +1,110 @@
+package com.vimalselvam.cucumber.listener;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RunHistoryTest {
+    private static final long SECOND = 1000000000L;
+
+    private Path directory;
+
+    @Before
+    public void createHistoryDirectory() throws IOException {
+        directory = Files.createTempDirectory("extent-history");
+    }
+
+    @Test
+    public void scoresTheScenariosWhichChangeStatusAcrossRuns() throws IOException {
+        byte[] statuses = {RunHistory.PASSED, RunHistory.FAILED, RunHistory.PASSED, RunHistory.PASSED};
+        for (byte status : statuses) {
+            RunHistory history = new RunHistory(directory);
+            history.record("a.feature", 3, "stable", RunHistory.PASSED, SECOND);
+            history.record("a.feature", 7, "flaky", status, SECOND);
+            history.save();
+        }
+
+        RunHistory history = new RunHistory(directory);
+        List<RunHistory.ScenarioHistory> flakiest = history.flakiest(10);
+        assertEquals(1, flakiest.size());
+        RunHistory.ScenarioHistory flaky = flakiest.get(0);
+        assertEquals("flaky", flaky.getName());
+        assertEquals("PFPP", flaky.getRecentResults());
+        assertEquals(2 / 3.0, flaky.getFlakiness(), 0.0001);
+        assertEquals(1, flaky.getFailures());
+        assertEquals(4, flaky.getRuns());
+
+        List<RunHistory.RunSummary> runs = history.recentRuns(3);
+        assertEquals(3, runs.size());
+        assertEquals(1, runs.get(0).getFailed());
+        assertEquals(2, runs.get(2).getPassed());
+    }
+
+    @Test
+    public void flagsAScenarioMuchSlowerThanUsual() throws IOException {
+        for (int i = 0; i < 5; i++) {
+            RunHistory history = new RunHistory(directory);
+            history.record("a.feature", 3, "scenario", RunHistory.PASSED, SECOND);
+            history.save();
+        }
+
+        RunHistory history = new RunHistory(directory);
+        assertFalse(history.record("a.feature", 3, "scenario", RunHistory.PASSED, SECOND + SECOND / 2)
+            .isRegression());
+        RunHistory.Verdict verdict = history.record("a.feature", 3, "scenario", RunHistory.PASSED, 3 * SECOND);
+        assertTrue(verdict.isRegression());
+        assertEquals(SECOND, verdict.getUsualNanos());
+        assertEquals(1, history.regressions().size());
+    }
+
+    @Test
+    public void updatesTheSummaryOfTheRunWhenSavedAgain() throws IOException {
+        RunHistory history = new RunHistory(directory);
+        history.record("a.feature", 3, "first", RunHistory.PASSED, SECOND);
+        history.save();
+        history.record("b.feature", 3, "second", RunHistory.FAILED, SECOND);
+        history.save();
+
+        List<RunHistory.RunSummary> runs = history.recentRuns(10);
+        assertEquals(1, runs.size());
+        assertEquals(1, runs.get(0).getPassed());
+        assertEquals(1, runs.get(0).getFailed());
+    }
+
+    @Test
+    public void tellsApartTheScenariosOfAnOutlineByTheirLine() throws IOException {
+        for (byte status : new byte[] {RunHistory.PASSED, RunHistory.FAILED}) {
+            RunHistory history = new RunHistory(directory);
+            history.record("a.feature", 12, "outline", RunHistory.PASSED, SECOND);
+            history.record("a.feature", 13, "outline", status, SECOND);
+            history.save();
+        }
+
+        List<RunHistory.ScenarioHistory> flakiest = new RunHistory(directory).flakiest(10);
+        assertEquals(1, flakiest.size());
+        assertEquals(13, flakiest.get(0).getLine());
+        assertEquals("PF", flakiest.get(0).getRecentResults());
+    }
+
+    @Test
+    public void rebuildsALostIndexFromTheLog() throws IOException {
+        for (byte status : new byte[] {RunHistory.FAILED, RunHistory.PASSED}) {
+            RunHistory history = new RunHistory(directory);
+            history.record("a.feature", 3, "scenario", status, SECOND);
+            history.save();
+        }
+        Files.delete(directory.resolve("scenarios.idx"));
+
+        List<RunHistory.ScenarioHistory> flakiest = new RunHistory(directory).flakiest(10);
+        assertEquals(1, flakiest.size());
+        assertEquals("FP", flakiest.get(0).getRecentResults());
+    }
+}
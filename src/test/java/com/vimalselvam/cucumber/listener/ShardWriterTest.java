@@ -0,0 +1,254 @@
+package com.vimalselvam.cucumber.listener;
+
+import gherkin.formatter.model.Comment;
+import gherkin.formatter.model.DataTableRow;
+import gherkin.formatter.model.Row;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ShardWriterTest {
+    private Path shard;
+
+    @Before
+    public void createShardPath() throws IOException {
+        shard = Files.createTempDirectory("extent-shard").resolve("test.shard");
+    }
+
+    @Test
+    public void replaysTheEventsItWrote() throws IOException {
+        ShardWriter writer = new ShardWriter(shard);
+        ReportNode feature = new ReportNode(null);
+        ReportNode outline = new ReportNode(feature);
+        ReportNode scenario = new ReportNode(outline);
+        ReportNode step = new ReportNode(scenario);
+        Row header = row("name", "value");
+        Row example = row("a", "1");
+        writer.onSystemInfo(new ReportEvent.SystemInfo("os", "linux"));
+        writer.onFeatureStarted(new ReportEvent.FeatureStarted(feature, "a.feature", "Feature", tags("@a")));
+        writer.onScenarioOutlineStarted(new ReportEvent.ScenarioOutlineStarted(outline, "Outline"));
+        writer.onExamplesTable(new ReportEvent.ExamplesTable(outline, "examples", Arrays.asList(header, example)));
+        writer.onScenarioStarted(new ReportEvent.ScenarioStarted(scenario, "Scenario", tags("@b", "@c"),
+            new ReportEvent.ExampleRow("examples", header, example)));
+        writer.onStepStarted(new ReportEvent.StepStarted(step, "Given ", "a step", Collections.singletonList(example)));
+        writer.onStepFinished(new ReportEvent.StepFinished(step, "failed", new IllegalStateException("broken"),
+            1500L, null, 0));
+        writer.onLog(new ReportEvent.Log(step, "a log"));
+        writer.onFeatureFinished(new ReportEvent.FeatureFinished(feature));
+        // The feature is forgotten once it is finished
+        writer.onLog(new ReportEvent.Log(step, "too late"));
+        writer.onFlush(new ReportEvent.Flush());
+
+        List<ReportEvent> events = replay();
+        assertEquals(9, events.size());
+        ReportEvent.SystemInfo systemInfo = (ReportEvent.SystemInfo) events.get(0);
+        assertEquals("os", systemInfo.getKey());
+        assertEquals("linux", systemInfo.getValue());
+        ReportEvent.FeatureStarted featureStarted = (ReportEvent.FeatureStarted) events.get(1);
+        assertEquals("a.feature", featureStarted.getUri());
+        assertEquals(tags("@a"), featureStarted.getTags());
+        assertNull(featureStarted.getNode().getParent());
+        ReportEvent.ScenarioOutlineStarted outlineStarted = (ReportEvent.ScenarioOutlineStarted) events.get(2);
+        assertSame(featureStarted.getNode(), outlineStarted.getNode().getParent());
+        ReportEvent.ExamplesTable examples = (ReportEvent.ExamplesTable) events.get(3);
+        assertEquals(2, examples.getRows().size());
+        assertEquals(Arrays.asList("a", "1"), examples.getRows().get(1).getCells());
+        ReportEvent.ScenarioStarted scenarioStarted = (ReportEvent.ScenarioStarted) events.get(4);
+        assertSame(outlineStarted.getNode(), scenarioStarted.getNode().getParent());
+        assertEquals(tags("@b", "@c"), scenarioStarted.getTags());
+        assertEquals(Arrays.asList("name", "value"), scenarioStarted.getExample().getHeader().getCells());
+        ReportEvent.StepStarted stepStarted = (ReportEvent.StepStarted) events.get(5);
+        assertSame(scenarioStarted.getNode(), stepStarted.getNode().getParent());
+        assertEquals("Given ", stepStarted.getKeyword());
+        ReportEvent.StepFinished stepFinished = (ReportEvent.StepFinished) events.get(6);
+        assertSame(stepStarted.getNode(), stepFinished.getNode());
+        assertEquals("java.lang.IllegalStateException: broken", stepFinished.getError().toString());
+        assertEquals(1500L, stepFinished.getDurationNanos());
+        assertEquals("a log", ((ReportEvent.Log) events.get(7)).getMessage());
+        assertSame(featureStarted.getNode(), ((ReportEvent.FeatureFinished) events.get(8)).getNode());
+    }
+
+    @Test
+    public void replaysTheHooksOfAScenario() throws IOException {
+        ShardWriter writer = new ShardWriter(shard);
+        ReportNode feature = new ReportNode(null);
+        ReportNode scenario = new ReportNode(feature);
+        writer.onFeatureStarted(new ReportEvent.FeatureStarted(feature, "a.feature", "Feature", tags()));
+        writer.onScenarioStarted(new ReportEvent.ScenarioStarted(scenario, "Scenario", tags(), null));
+        writer.onHooksFinished(new ReportEvent.HooksFinished(scenario, Arrays.asList(
+            new ReportEvent.HookResult(true, "Hooks.setUp()", "failed", 1500000L, new IllegalStateException("down")),
+            new ReportEvent.HookResult(false, "Hooks.tearDown()", "passed", 20L, null))));
+        writer.onFlush(new ReportEvent.Flush());
+
+        List<ReportEvent> events = replay();
+        assertEquals(3, events.size());
+        ReportEvent.HooksFinished hooksFinished = (ReportEvent.HooksFinished) events.get(2);
+        assertSame(((ReportEvent.ScenarioStarted) events.get(1)).getNode(), hooksFinished.getNode());
+        ReportEvent.HookResult before = hooksFinished.getHooks().get(0);
+        assertTrue(before.isBefore());
+        assertEquals("Hooks.setUp()", before.getLocation());
+        assertEquals("failed", before.getStatus());
+        assertEquals(1500000L, before.getDurationNanos());
+        assertEquals("java.lang.IllegalStateException: down", before.getError().toString());
+        ReportEvent.HookResult after = hooksFinished.getHooks().get(1);
+        assertFalse(after.isBefore());
+        assertEquals(20L, after.getDurationNanos());
+        assertNull(after.getError());
+    }
+
+    @Test
+    public void replaysATruncatedShardUpToItsLastCompleteEvent() throws IOException {
+        ShardWriter writer = new ShardWriter(shard);
+        ReportNode feature = new ReportNode(null);
+        writer.onFeatureStarted(new ReportEvent.FeatureStarted(feature, "a.feature", "Feature", tags()));
+        writer.onLog(new ReportEvent.Log(feature, "a log"));
+        writer.onFlush(new ReportEvent.Flush());
+        try (RandomAccessFile file = new RandomAccessFile(shard.toFile(), "rw")) {
+            file.setLength(file.length() - 2);
+        }
+
+        List<ReportEvent> events = replay();
+        assertEquals(1, events.size());
+    }
+
+    @Test
+    public void skipsACorruptEventAndReplaysTheSectionsOfTheRun() throws IOException {
+        ShardWriter writer = new ShardWriter(shard);
+        ReportNode feature = new ReportNode(null);
+        writer.onFeatureStarted(new ReportEvent.FeatureStarted(feature, "a.feature", "Feature", tags()));
+        writer.onFlush(new ReportEvent.Flush());
+        long logRecord = Files.size(shard);
+        writer.onLog(new ReportEvent.Log(feature, "a log"));
+        writer.onFeatureFinished(new ReportEvent.FeatureFinished(feature));
+        writer.onTestRunnerOutput(new ReportEvent.TestRunnerOutput("<h5>Categories</h5>"));
+        writer.onFlush(new ReportEvent.Flush());
+        try (RandomAccessFile file = new RandomAccessFile(shard.toFile(), "rw")) {
+            // The type of the log record, after its length
+            file.seek(logRecord + 4);
+            file.writeByte(99);
+        }
+
+        List<ReportEvent> events = replay();
+        assertEquals(3, events.size());
+        assertTrue(events.get(1) instanceof ReportEvent.FeatureFinished);
+        assertEquals("<h5>Categories</h5>", ((ReportEvent.TestRunnerOutput) events.get(2)).getOutput());
+    }
+
+    @Test
+    public void skipsAnEventWithAStringLongerThanItsRecord() throws IOException {
+        ShardWriter writer = new ShardWriter(shard);
+        ReportNode feature = new ReportNode(null);
+        writer.onFeatureStarted(new ReportEvent.FeatureStarted(feature, "a.feature", "Feature", tags()));
+        writer.onFlush(new ReportEvent.Flush());
+        long logRecord = Files.size(shard);
+        writer.onLog(new ReportEvent.Log(feature, "a log"));
+        writer.onFeatureFinished(new ReportEvent.FeatureFinished(feature));
+        writer.close();
+        try (RandomAccessFile file = new RandomAccessFile(shard.toFile(), "rw")) {
+            // The length of the message, after the length, type and node id of the record
+            file.seek(logRecord + 9);
+            file.writeInt(Integer.MAX_VALUE);
+        }
+
+        List<ReportEvent> events = replay();
+        assertEquals(2, events.size());
+        assertTrue(events.get(1) instanceof ReportEvent.FeatureFinished);
+    }
+
+    @Test
+    public void appendsTheEventsHandledAfterItIsClosed() throws IOException {
+        ShardWriter writer = new ShardWriter(shard);
+        ReportNode feature = new ReportNode(null);
+        writer.onFeatureStarted(new ReportEvent.FeatureStarted(feature, "a.feature", "Feature", tags()));
+        writer.close();
+        writer.onFeatureFinished(new ReportEvent.FeatureFinished(feature));
+        writer.close();
+
+        List<ReportEvent> events = replay();
+        assertEquals(2, events.size());
+        assertTrue(events.get(1) instanceof ReportEvent.FeatureFinished);
+    }
+
+    private List<ReportEvent> replay() throws IOException {
+        List<ReportEvent> events = new ArrayList<>();
+        new ShardReader(shard).replay(new ReportEventHandler() {
+            @Override
+            public void onFeatureStarted(ReportEvent.FeatureStarted event) {
+                events.add(event);
+            }
+
+            @Override
+            public void onFeatureFinished(ReportEvent.FeatureFinished event) {
+                events.add(event);
+            }
+
+            @Override
+            public void onScenarioOutlineStarted(ReportEvent.ScenarioOutlineStarted event) {
+                events.add(event);
+            }
+
+            @Override
+            public void onExamplesTable(ReportEvent.ExamplesTable event) {
+                events.add(event);
+            }
+
+            @Override
+            public void onScenarioStarted(ReportEvent.ScenarioStarted event) {
+                events.add(event);
+            }
+
+            @Override
+            public void onStepStarted(ReportEvent.StepStarted event) {
+                events.add(event);
+            }
+
+            @Override
+            public void onStepFinished(ReportEvent.StepFinished event) {
+                events.add(event);
+            }
+
+            @Override
+            public void onHooksFinished(ReportEvent.HooksFinished event) {
+                events.add(event);
+            }
+
+            @Override
+            public void onLog(ReportEvent.Log event) {
+                events.add(event);
+            }
+
+            @Override
+            public void onSystemInfo(ReportEvent.SystemInfo event) {
+                events.add(event);
+            }
+
+            @Override
+            public void onTestRunnerOutput(ReportEvent.TestRunnerOutput event) {
+                events.add(event);
+            }
+        });
+        return events;
+    }
+
+    private static Row row(String... cells) {
+        return new DataTableRow(Collections.<Comment>emptyList(), Arrays.asList(cells), 1);
+    }
+
+    private static List<String> tags(String... tags) {
+        return Arrays.asList(tags);
+    }
+}
@@ -0,0 +1,64 @@
+package com.vimalselvam.cucumber.listener;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class StreamingReportWriterTest {
+
+    @Test
+    public void writesTheScenarioContentsToChunkScriptsWhenLazy() throws IOException {
+        Path report = Files.createTempDirectory("extent-lazy").resolve("report.html");
+        StreamingReportWriter writer = new StreamingReportWriter(report.toFile(), true);
+        ReportNode feature = new ReportNode(null);
+        ReportNode scenario = new ReportNode(feature);
+        ReportNode step = new ReportNode(scenario);
+        writer.onFeatureStarted(new ReportEvent.FeatureStarted(feature, "a.feature", "A feature",
+            Collections.<String>emptyList()));
+        writer.onScenarioStarted(new ReportEvent.ScenarioStarted(scenario, "A scenario",
+            Collections.<String>emptyList(), null));
+        writer.onStepStarted(new ReportEvent.StepStarted(step, "Given ", "a \"quoted\" step", null));
+        writer.onStepFinished(new ReportEvent.StepFinished(step, "failed", new IllegalStateException("broken")));
+        writer.onFeatureFinished(new ReportEvent.FeatureFinished(feature));
+        writer.onFlush(new ReportEvent.Flush());
+
+        String html = new String(Files.readAllBytes(report), StandardCharsets.UTF_8);
+        assertTrue(html.contains("A scenario"));
+        assertTrue(html.contains("data-chunk='report-chunks/feature-00001.js' data-scenario='0'"));
+        assertFalse(html.contains("quoted"));
+
+        Path chunkPath = report.resolveSibling("report-chunks").resolve("feature-00001.js");
+        String chunk = new String(Files.readAllBytes(chunkPath), StandardCharsets.UTF_8);
+        assertTrue(chunk.startsWith("extentChunk(\"report-chunks/feature-00001.js\",[\""));
+        assertTrue(chunk.contains("a &quot;quoted&quot; step"));
+        assertTrue(chunk.contains("IllegalStateException: broken\\n"));
+    }
+
+    @Test
+    public void keepsTheStitchedFeaturesInTheReportAndDeletesTheirFragments() throws IOException {
+        Path report = Files.createTempDirectory("extent-streaming").resolve("report.html");
+        StreamingReportWriter writer = new StreamingReportWriter(report.toFile(), false);
+        for (String name : new String[]{"First feature", "Second feature"}) {
+            ReportNode feature = new ReportNode(null);
+            writer.onFeatureStarted(new ReportEvent.FeatureStarted(feature, "a.feature", name,
+                Collections.<String>emptyList()));
+            writer.onFeatureFinished(new ReportEvent.FeatureFinished(feature));
+            writer.onFlush(new ReportEvent.Flush());
+        }
+        writer.onTestRunnerOutput(new ReportEvent.TestRunnerOutput("<p>At the end</p>"));
+        writer.onFlush(new ReportEvent.Flush());
+
+        String html = new String(Files.readAllBytes(report), StandardCharsets.UTF_8);
+        assertTrue(html.indexOf("First feature") < html.indexOf("Second feature"));
+        assertTrue(html.indexOf("Second feature") < html.indexOf("At the end"));
+        assertTrue(html.contains("<td>Features</td><td>2</td>"));
+        assertFalse(Files.exists(report.resolveSibling("report-fragments")));
+    }
+}
@@ -0,0 +1,68 @@
+package com.vimalselvam.cucumber.listener;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TagIndexTest {
+
+    @Test
+    public void indexesTheScenariosOfEachTagWithTheTagsOfTheirFeature() {
+        TagIndex index = new TagIndex();
+        List<String> feature = Arrays.asList("@checkout", "@team-a");
+        index.addScenario(feature, Arrays.asList("@smoke", "@JIRA-1"), "Pay", "checkout.feature:3",
+            RunHistory.PASSED);
+        index.addScenario(feature, Arrays.asList("@smoke", "@flaky", "@checkout"), "Refund", "checkout.feature:9",
+            RunHistory.FAILED);
+        index.addScenario(Collections.<String>emptyList(), Arrays.asList("@smoke"), "Login", "login.feature:2",
+            RunHistory.SKIPPED);
+
+        TagIndex.Snapshot snapshot = index.snapshot();
+        assertEquals(3, snapshot.getScenarioCount());
+        List<TagIndex.Category> categories = snapshot.getCategories();
+        assertEquals("@smoke", categories.get(0).getName());
+        assertArrayEquals(new int[]{0, 1, 2}, categories.get(0).getScenarios());
+        // Carried by the feature and by the scenario, but listed once
+        assertEquals("@checkout", categories.get(1).getName());
+        assertArrayEquals(new int[]{0, 1}, categories.get(1).getScenarios());
+        assertEquals(5, categories.size());
+
+        assertArrayEquals(new int[]{0, 2}, snapshot.filter(TagExpression.parse("@smoke and not @flaky")));
+        assertArrayEquals(new int[]{1, 2}, snapshot.filter(TagExpression.parse("@flaky or not @team-a")));
+        assertArrayEquals(new int[]{0}, snapshot.filter(TagExpression.parse(
+            "not (@flaky or @unknown) and (@JIRA-1 or @team-b)")));
+        assertArrayEquals(new int[0], snapshot.filter(TagExpression.parse("@unknown")));
+
+        String html = TagSection.render(snapshot, Collections.singletonList(TagExpression.parse("@smoke")));
+        assertTrue(html.startsWith("<h5>Tag filters</h5>"));
+        assertTrue(html.contains("<summary>@smoke</summary>Pay <small>checkout.feature:3</small><br/>"));
+        assertTrue(html.contains("<td>3</td><td>1</td><td>1</td><td>1</td></tr>"));
+    }
+
+    @Test
+    public void keepsASingleInstanceOfEachTagName() {
+        TagIndex index = new TagIndex();
+        String tag = index.intern(new String("@smoke"));
+        assertSame(tag, index.intern(new String("@smoke")));
+    }
+
+    @Test
+    public void rejectsAnInvalidTagExpression() {
+        for (String expression : Arrays.asList("", "@smoke and", "smoke", "(@smoke", "@smoke @flaky")) {
+            try {
+                TagExpression.parse(expression);
+                fail("Parsed the invalid tag expression " + expression);
+            } catch (IllegalArgumentException expected) {
+                // The expression is rejected
+            }
+        }
+    }
+}